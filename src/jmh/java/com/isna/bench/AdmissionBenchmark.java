@@ -0,0 +1,78 @@
+package com.isna.bench;
+
+import com.isna.service.LoginThrottle;
+import com.isna.service.ThrottledException;
+import com.isna.utility.StripedPermits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Biaya pembatas login di jalur setiap percobaan: permit global ter-stripe vs satu Semaphore bersama
+// (satu counter yang diperebutkan semua thread), dan penolakan cepat per email saat serangan.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdmissionBenchmark {
+    private final StripedPermits striped = new StripedPermits(64);
+    private final Semaphore semaphore = new Semaphore(64);
+    private final LoginThrottle throttle = new LoginThrottle();
+
+    @Benchmark
+    @Threads(4)
+    public int stripedPermits() {
+        int permit = striped.tryAcquire();
+        if (permit >= 0) {
+            striped.release(permit);
+        }
+        return permit;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean sharedSemaphore() {
+        boolean acquired = semaphore.tryAcquire();
+        if (acquired) {
+            semaphore.release();
+        }
+        return acquired;
+    }
+
+    // Akun yang sedang diserang: hampir semua percobaan ditolak tanpa lookup/hashing
+    @Benchmark
+    @Threads(4)
+    public long throttledAccount() {
+        try {
+            throttle.acquire("victim@example.com");
+            throttle.failure("victim@example.com");
+            return 0;
+        } catch (ThrottledException e) {
+            return e.getRetryAfterMillis();
+        }
+    }
+
+    // Banyak akun berbeda: state per email tidak saling menunggu
+    @Benchmark
+    @Threads(4)
+    public long distinctAccounts() {
+        try {
+            throttle.acquire("user" + ThreadLocalRandom.current().nextInt(10_000) + "@example.com");
+            return 0;
+        } catch (ThrottledException e) {
+            return e.getRetryAfterMillis();
+        }
+    }
+}
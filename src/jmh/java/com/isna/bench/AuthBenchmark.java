@@ -0,0 +1,87 @@
+package com.isna.bench;
+
+import com.isna.service.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Jalur register/login UserManager tanpa Firebase: cari user berdasarkan email di snapshot palsu
+// (spt query orderByChild("email")) lalu hash/verify BCrypt lewat PasswordHasher dgn cost realistis.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    int cost;
+
+    @Param({"1000"})
+    int users;
+
+    private PasswordHasher hasher;
+    private FakeSnapshot usersSnapshot;
+    private String targetEmail;
+    private int registered;
+
+    @Setup
+    public void setup() {
+        hasher = new PasswordHasher(cost, 1);
+        String hash = hasher.hash(PASSWORD).join(); // semua user memakai hash yang sama, cukup utk verify
+        usersSnapshot = FakeSnapshot.folder("users");
+        for (int i = 0; i < users; i++) {
+            FakeSnapshot user = usersSnapshot.add(FakeSnapshot.folder("user" + i));
+            user.add(FakeSnapshot.leaf("email", "user" + i + "@example.com"));
+            user.add(FakeSnapshot.leaf("password", hash));
+        }
+        targetEmail = "user" + (users / 2) + "@example.com";
+    }
+
+    private FakeSnapshot findByEmail(String email) {
+        for (FakeSnapshot user : usersSnapshot.getChildren()) {
+            for (FakeSnapshot field : user.getChildren()) {
+                if (field.getKey().equals("email") && email.equals(field.getValue())) {
+                    return user;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String password(FakeSnapshot user) {
+        for (FakeSnapshot field : user.getChildren()) {
+            if (field.getKey().equals("password")) {
+                return (String) field.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String register() {
+        String email = "new" + (registered++) + "@example.com";
+        if (findByEmail(email) != null) {
+            return null;
+        }
+        return hasher.hash(PASSWORD).join();
+    }
+
+    @Benchmark
+    public boolean authenticate() {
+        FakeSnapshot user = findByEmail(targetEmail);
+        return user != null && hasher.verify(PASSWORD, password(user)).join();
+    }
+}
@@ -0,0 +1,77 @@
+package com.isna.bench;
+
+import com.isna.service.NoteCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput encode/decode NoteCodec di jalur sinkronisasi. Counter rawChars/encodedChars masuk ke hasil JSON
+// (per detik), jadi rasio kompresi bisa dibandingkan antar versi; ringkasannya juga dicetak di akhir trial.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    private static final int NOTES = 1024;
+
+    @Param({"true", "false"})
+    boolean compress;
+
+    private NoteCodec codec;
+    private String[] notes;
+    private String[] encoded;
+    private int cursor;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long rawChars;
+        public long encodedChars;
+    }
+
+    @Setup
+    public void setup() {
+        notes = new SyntheticCorpus(31).notes(NOTES, 0.05);
+        NoteCodec setupCodec = new NoteCodec(compress);
+        encoded = new String[NOTES];
+        for (int i = 0; i < NOTES; i++) {
+            encoded[i] = setupCodec.encode(notes[i]);
+        }
+        codec = new NoteCodec(compress);
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println("\n" + codec);
+    }
+
+    @Benchmark
+    public String encode(Payload payload) {
+        cursor = (cursor + 1) & (NOTES - 1);
+        String html = notes[cursor];
+        String result = codec.encode(html);
+        payload.rawChars += html.length();
+        payload.encodedChars += result.length();
+        return result;
+    }
+
+    @Benchmark
+    public String decode() {
+        cursor = (cursor + 1) & (NOTES - 1);
+        return codec.decode(encoded[cursor]);
+    }
+}
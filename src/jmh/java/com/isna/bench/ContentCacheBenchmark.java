@@ -0,0 +1,84 @@
+package com.isna.bench;
+
+import com.isna.service.NoteContentCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cache isi note yang dibatasi byte: hot set yang muat di cache (hampir selalu hit) vs akses acak
+// ke notebook yang lebih besar dari cache (miss -> put -> eviction LRU).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentCacheBenchmark {
+    private static final int NOTES = 10_000;
+    private static final int HOT_SET = 256;
+
+    @Param({"8", "32"})
+    int cacheMb;
+
+    private String[] paths;
+    private String[] contents;
+    private int[] hotOrder;
+    private int[] uniformOrder;
+    private NoteContentCache cache;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        SyntheticCorpus corpus = new SyntheticCorpus(11);
+        String[] notes = corpus.notes(NOTES, 0.02);
+        SyntheticNotebook notebook = SyntheticNotebook.generate(NOTES, 3);
+        paths = notebook.notePaths;
+        contents = notes;
+        cache = new NoteContentCache(cacheMb * 1024L * 1024L);
+        Random random = new Random(5);
+        hotOrder = new int[4096];
+        uniformOrder = new int[4096];
+        for (int i = 0; i < hotOrder.length; i++) {
+            hotOrder[i] = random.nextInt(HOT_SET);
+            uniformOrder[i] = random.nextInt(NOTES);
+        }
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println("\n" + cache);
+    }
+
+    private String read(int i) {
+        String content = cache.get(paths[i], 1L);
+        if (content == null) {
+            content = contents[i]; // pengganti baca dari log lokal
+            cache.put(paths[i], 1L, content);
+        }
+        return content;
+    }
+
+    @Benchmark
+    public String hotSet() {
+        cursor = (cursor + 1) & 4095;
+        return read(hotOrder[cursor]);
+    }
+
+    @Benchmark
+    public String uniformWithEviction() {
+        cursor = (cursor + 1) & 4095;
+        return read(uniformOrder[cursor]);
+    }
+}
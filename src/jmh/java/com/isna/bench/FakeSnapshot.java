@@ -0,0 +1,48 @@
+package com.isna.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Pengganti DataSnapshot Firebase di memori, supaya benchmark berjalan tanpa jaringan.
+// Folder punya children; note berisi value (stamp Long atau isi String spt format lama).
+final class FakeSnapshot {
+    private final String key;
+    private final Object value;
+    private final List<FakeSnapshot> children;
+
+    private FakeSnapshot(String key, Object value, List<FakeSnapshot> children) {
+        this.key = key;
+        this.value = value;
+        this.children = children;
+    }
+
+    static FakeSnapshot folder(String key) {
+        return new FakeSnapshot(key, null, new ArrayList<>());
+    }
+
+    static FakeSnapshot leaf(String key, Object value) {
+        return new FakeSnapshot(key, value, Collections.emptyList());
+    }
+
+    FakeSnapshot add(FakeSnapshot child) {
+        children.add(child);
+        return child;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    boolean hasChildren() {
+        return !children.isEmpty();
+    }
+
+    Iterable<FakeSnapshot> getChildren() {
+        return children;
+    }
+
+    Object getValue() {
+        return value;
+    }
+}
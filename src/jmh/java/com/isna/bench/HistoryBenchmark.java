@@ -0,0 +1,125 @@
+package com.isna.bench;
+
+import com.isna.service.NoteHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Riwayat versi: biaya mencatat satu simpan (edit kecil di note besar) beserta byte yang ditulis per simpan
+// dibanding salinan penuh (dicetak di akhir trial), dan latensi membangun ulang keyframe vs versi terdalam
+// dalam rantai delta (keyframe + KEYFRAME_INTERVAL-1 delta, batas atas rekonstruksi).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+    private static final String PATH = "folder/note";
+    private static final int VERSIONS = 64;
+
+    @Param({"10000", "100000"})
+    int noteChars;
+
+    private Path dir;
+    private NoteHistory history;
+    private NoteHistory readOnly;
+    private String content;
+    private Random random;
+    private long stamp;
+    private long deepestStamp;
+    private long keyframeStamp;
+    private long saves;
+    private long raw;
+    private long sizeBefore;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("history-bench");
+        content = new SyntheticCorpus(17).note(noteChars, false);
+        random = new Random(3);
+        history = new NoteHistory(dir.resolve("record.log"));
+        history.open().join();
+        sizeBefore = history.sizeBytes();
+        // history terpisah berisi VERSIONS versi utk diukur rekonstruksinya
+        readOnly = new NoteHistory(dir.resolve("read.log"));
+        readOnly.open().join();
+        String text = content;
+        for (int i = 1; i <= VERSIONS; i++) {
+            text = edit(text);
+            readOnly.record(PATH, i, text).join();
+        }
+        List<NoteHistory.Version> versions = readOnly.versions(PATH).join(); // dari yang terbaru
+        int depth = 0;
+        int maxDepth = -1;
+        for (int i = versions.size() - 1; i >= 0; i--) { // versi dgn delta terbanyak sejak keyframe
+            depth = versions.get(i).isKeyframe() ? 0 : depth + 1;
+            if (depth == 0) {
+                keyframeStamp = versions.get(i).getStamp();
+            }
+            if (depth > maxDepth) {
+                maxDepth = depth;
+                deepestStamp = versions.get(i).getStamp();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws IOException {
+        if (saves > 0) {
+            System.out.printf("%nHistory: %d saves, %.0f bytes/save stored vs %.0f bytes/save as full copies (%.1f%%)%n",
+                    saves, (double) (history.sizeBytes() - sizeBefore) / saves, (double) raw / saves,
+                    100.0 * (history.sizeBytes() - sizeBefore) / raw);
+        }
+        history.close();
+        readOnly.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    // Edit kecil di posisi acak, spt mengetik satu kalimat lalu autosave
+    private String edit(String text) {
+        int at = random.nextInt(text.length());
+        return text.substring(0, at) + " tambahan kalimat " + random.nextInt(1000) + "." + text.substring(at);
+    }
+
+    @Benchmark
+    public void recordSave() {
+        content = edit(content);
+        history.record(PATH, ++stamp, content).join();
+        saves++;
+        raw += content.length();
+    }
+
+    @Benchmark
+    public String reconstructKeyframe() {
+        return readOnly.content(PATH, keyframeStamp).join();
+    }
+
+    @Benchmark
+    public String reconstructDeepest() {
+        return readOnly.content(PATH, deepestStamp).join();
+    }
+}
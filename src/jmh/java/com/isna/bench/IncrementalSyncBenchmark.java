@@ -0,0 +1,148 @@
+package com.isna.bench;
+
+import com.isna.service.InMemoryNoteStore;
+import com.isna.service.LocalNoteLog;
+import com.isna.service.LocalNoteRepository;
+import com.isna.service.NoteChange;
+import com.isna.service.NoteContentCache;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreePatcher;
+import com.isna.service.NoteTreeReconciler;
+import com.isna.service.RemoteNoteIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Biaya satu perubahan remote terhadap ukuran notebook. Versi lama membangun ulang seluruh tree
+// utk setiap event (legacyRebuildPerChange, O(N)); patcher cukup menambal satu node (harus datar thd N).
+// reconcileEcho = NoteTreeReconciler saat hash root remote berubah tapi sudah sama dgn hash lokal (gema
+// simpan perangkat ini, atau perubahan yang sudah diterapkan); terjadi utk setiap simpan, jadi harus datar.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class IncrementalSyncBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int notes;
+
+    private SyntheticNotebook notebook;
+    private NoteTreePatcher patcher;
+    private LegacyTree legacy;
+    private int cursor;
+    private long stamp = 2_000_000_000_000L;
+    private Path directory;
+    private LocalNoteRepository repository;
+    private NoteTreeReconciler reconciler;
+
+    @Setup
+    public void setup() throws IOException {
+        notebook = SyntheticNotebook.generate(notes, 3);
+        patcher = new NoteTreePatcher(new NoteTree(), false);
+        notebook.loadInto(patcher);
+        TreeBuildBenchmark.materializeAll(patcher.getRootItem());
+        legacy = new LegacyTree();
+        legacy.rebuild(notebook.snapshot);
+        setupReconciler();
+    }
+
+    private void setupReconciler() throws IOException {
+        directory = Files.createTempDirectory("notetaking-sync");
+        LocalNoteLog log = new LocalNoteLog(directory.resolve("notes.log"));
+        log.open();
+        for (int i = 0; i < notes; i++) {
+            log.record(NoteChange.Type.PUT, notebook.notePaths[i], notebook.stamps[i], null); // stamp saja
+        }
+        log.close();
+        repository = new LocalNoteRepository(log, new InMemoryNoteStore(), new NoteContentCache(1024 * 1024));
+        long root = repository.localRootHash();
+        reconciler = new NoteTreeReconciler(new RemoteNoteIndex() {
+            @Override
+            public CompletableFuture<Long> fetchRootHash() {
+                return CompletableFuture.completedFuture(root);
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Long>> fetchHashes() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, Object>> fetchIndex(String folderPath) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Boolean> initHashes(Map<String, Long> expected, Map<String, Long> notes) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Void> repairHashes(String folderPath, Map<String, Long> notes) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public AutoCloseable watchRootHash(Runnable listener) {
+                return () -> { };
+            }
+        }, repository, patcher, Runnable::run);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reconciler.close();
+        repository.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private int next() {
+        cursor = cursor + 7919 < notes ? cursor + 7919 : (cursor + 7919) % notes;
+        return cursor;
+    }
+
+    @Benchmark
+    public void noteChanged() {
+        int i = next();
+        patcher.noteChanged(notebook.parentPaths[i], notebook.keys[i], ++stamp);
+    }
+
+    @Benchmark
+    public void noteAddedThenRemoved() {
+        int i = next();
+        patcher.noteAdded(notebook.parentPaths[i], "bench-note", ++stamp);
+        patcher.removed(notebook.parentPaths[i], "bench-note");
+    }
+
+    @Benchmark
+    public NoteTreeReconciler.Result reconcileEcho() throws Exception {
+        return reconciler.reconcile();
+    }
+
+    @Benchmark
+    public Object legacyRebuildPerChange() {
+        legacy.rebuild(notebook.snapshot);
+        return legacy;
+    }
+}
@@ -0,0 +1,155 @@
+package com.isna.bench;
+
+import com.isna.service.ChunkedNoteStore;
+import com.isna.service.EncodedNoteStore;
+import com.isna.service.InMemoryNoteStore;
+import com.isna.service.NoteChange;
+import com.isna.service.NoteCodec;
+import com.isna.service.RemoteNoteStore;
+import com.isna.utility.HtmlPages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Note besar (chars = perkiraan panjang teks; HTML-nya ~2x): biaya simpan setelah edit kecil di tengah dan
+// biaya membuka, tanpa Firebase (InMemoryNoteStore di bawah EncodedNoteStore spt di Session):
+//   saveChunked/saveWhole   : simpan lewat ChunkedNoteStore vs note utuh
+//   fetchChunked/fetchWhole : fetchBody dari remote (decode, verifikasi hash, gabung chunk)
+//   firstPage               : memotong halaman pertama yang di-set ke HTMLEditor (EditorPager)
+// Di akhir trial dicetak karakter yang sampai ke backend per simpan (isi semua perubahan dalam apply, setelah
+// kompresi) dan panjang halaman pertama vs dokumen utuh, yaitu HTML yang harus di-parse WebView sebelum tampil.
+// Ukuran besar butuh heap: 50 MB teks -> ~100 M karakter per salinan.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class LargeNoteBenchmark {
+    private static final String PATH = "notes/besar";
+    private static final int PAGE_CHARS = 256 * 1024; // EditorPager.PAGE_CHARS
+
+    @Param({"10000", "100000", "1000000", "10000000", "50000000"})
+    int chars;
+
+    private String html;
+    private int middle;
+    private Counting chunkedBackend;
+    private Counting wholeBackend;
+    private ChunkedNoteStore chunked;
+    private RemoteNoteStore whole;
+    private long chunkedStamp;
+    private long wholeStamp;
+    private long seq;
+    private long chunkedSaves;
+    private long wholeSaves;
+
+    // Menghitung isi yang diterima backend, yaitu yang akan dikirim ke Firebase
+    private static final class Counting implements RemoteNoteStore {
+        final InMemoryNoteStore store = new InMemoryNoteStore();
+        final AtomicLong chars = new AtomicLong();
+        long initialChars; // simpan pertama dari setup
+
+        @Override
+        public CompletableFuture<Void> apply(List<NoteChange> changes) {
+            for (NoteChange change : changes) {
+                if (change.getContent() != null) {
+                    chars.addAndGet(change.getContent().length());
+                }
+            }
+            return store.apply(changes);
+        }
+
+        @Override
+        public CompletableFuture<String> fetchBody(String path) {
+            return store.fetchBody(path);
+        }
+
+        @Override
+        public CompletableFuture<String> fetchChunk(String path) {
+            return store.fetchChunk(path);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        html = new SyntheticCorpus(24).note(chars, false);
+        middle = html.indexOf("<p>", html.length() / 2);
+        chunkedBackend = new Counting();
+        wholeBackend = new Counting();
+        chunked = new ChunkedNoteStore(new EncodedNoteStore(chunkedBackend, new NoteCodec(true)));
+        whole = new EncodedNoteStore(wholeBackend, new NoteCodec(true));
+        chunkedStamp = save(chunked, 0, html);
+        wholeStamp = save(whole, 0, html);
+        chunkedBackend.initialChars = chunkedBackend.chars.get();
+        wholeBackend.initialChars = wholeBackend.chars.get();
+    }
+
+    private long save(RemoteNoteStore store, long replaced, String content) {
+        long stamp = ++seq;
+        NoteChange change = new NoteChange(NoteChange.Type.PUT, stamp, PATH, stamp, content,
+                replaced == 0 ? Collections.emptyMap() : Collections.singletonMap(PATH, replaced));
+        store.apply(Collections.singletonList(change)).join();
+        return stamp;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%nhtml %d chars, first page %d chars; per save: chunked %d, whole %d chars sent%n%s%n",
+                html.length(), new HtmlPages(html, PAGE_CHARS).next().length(),
+                perSave(chunkedBackend, chunkedSaves), perSave(wholeBackend, wholeSaves), chunked);
+    }
+
+    private static long perSave(Counting backend, long saves) {
+        return saves == 0 ? 0 : (backend.chars.get() - backend.initialChars) / saves;
+    }
+
+    // Edit kecil di tengah: satu paragraf baru yang isinya berbeda tiap simpan
+    private String edited() {
+        return html.substring(0, middle) + "<p>edit " + seq + "</p>" + html.substring(middle);
+    }
+
+    @Benchmark
+    public long saveChunked() {
+        chunkedStamp = save(chunked, chunkedStamp, edited());
+        chunkedSaves++;
+        return chunkedStamp;
+    }
+
+    @Benchmark
+    public long saveWhole() {
+        wholeStamp = save(whole, wholeStamp, edited());
+        wholeSaves++;
+        return wholeStamp;
+    }
+
+    @Benchmark
+    public String fetchChunked() {
+        return chunked.fetchBody(PATH).join();
+    }
+
+    @Benchmark
+    public String fetchWhole() {
+        return whole.fetchBody(PATH).join();
+    }
+
+    @Benchmark
+    public String firstPage() {
+        return new HtmlPages(html, PAGE_CHARS).next();
+    }
+}
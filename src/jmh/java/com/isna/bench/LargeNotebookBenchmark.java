@@ -0,0 +1,119 @@
+package com.isna.bench;
+
+import com.isna.service.NoteNode;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreePatcher;
+import javafx.scene.control.TreeItem;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Notebook 100k note: waktu render pertama (bangun model + baris yang langsung terlihat) dan heap yang
+// tertahan oleh hasilnya. legacy = cara lama, eager = semua TreeItem dibuat, lazy = mode notebook besar.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class LargeNotebookBenchmark {
+    private static final int VISIBLE_ROWS = 40;
+
+    @Param({"100000"})
+    int notes;
+
+    @Param({"legacy", "eager", "lazy"})
+    String mode;
+
+    private SyntheticNotebook notebook;
+    private Object result;
+    private long baseline;
+
+    // Heap tertahan per render; dgn SingleShotTime satu iterasi = satu render. Baris "Secondary result"
+    // berisi rata-rata per render; tabel ringkasan menjumlahkan semua iterasi (bagi dgn Cnt).
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public long retainedKb;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        notebook = SyntheticNotebook.generate(notes, 3);
+    }
+
+    @Setup(Level.Iteration)
+    public void measureBaseline() {
+        result = null;
+        baseline = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void measureRetained(Heap heap) {
+        heap.retainedKb = Math.max(0, usedHeap() - baseline) / 1024;
+        result = null;
+    }
+
+    @Benchmark
+    public Object firstRender() {
+        switch (mode) {
+            case "legacy": {
+                LegacyTree tree = new LegacyTree();
+                tree.rebuild(notebook.snapshot);
+                touchVisibleRows(tree.root.getChildren());
+                result = tree;
+                break;
+            }
+            case "eager": {
+                NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), false);
+                notebook.loadInto(patcher);
+                TreeBuildBenchmark.materializeAll(patcher.getRootItem());
+                touchVisibleRows(patcher.getRootItem().getChildren());
+                result = patcher;
+                break;
+            }
+            default: {
+                NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), true);
+                notebook.loadInto(patcher);
+                touchVisibleRows(patcher.getRootItem().getChildren());
+                result = patcher;
+            }
+        }
+        return result;
+    }
+
+    // Yang dikerjakan cell factory utk baris yang terlihat: ambil nilai dan teks
+    private static <T> void touchVisibleRows(List<TreeItem<T>> rows) {
+        int n = Math.min(VISIBLE_ROWS, rows.size());
+        for (int i = 0; i < n; i++) {
+            T value = rows.get(i).getValue();
+            if (value instanceof NoteNode) {
+                ((NoteNode) value).getTitle();
+            } else {
+                String.valueOf(value);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
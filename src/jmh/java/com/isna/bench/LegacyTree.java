@@ -0,0 +1,72 @@
+package com.isna.bench;
+
+import javafx.scene.control.TreeItem;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Salinan logika lama MainController (onDataChange + addSubItems + getFullPath) sbg pembanding:
+// setiap perubahan membangun ulang seluruh TreeItem dan map notes berkunci path String.
+final class LegacyTree {
+    final TreeItem<String> root = new TreeItem<>("Root");
+    final Map<String, String> notes = new HashMap<>();
+
+    void rebuild(FakeSnapshot snapshot) {
+        notes.clear();
+        root.getChildren().clear();
+        for (FakeSnapshot noteSnapshot : snapshot.getChildren()) {
+            String title = noteSnapshot.getKey();
+            if (noteSnapshot.hasChildren()) {
+                TreeItem<String> folderItem = new TreeItem<>(title);
+                root.getChildren().add(folderItem);
+                addSubItems(folderItem, noteSnapshot);
+            } else {
+                notes.put(title, (String) noteSnapshot.getValue());
+                root.getChildren().add(new TreeItem<>(title));
+            }
+        }
+    }
+
+    private void addSubItems(TreeItem<String> parent, FakeSnapshot snapshot) {
+        for (FakeSnapshot childSnapshot : snapshot.getChildren()) {
+            String childTitle = childSnapshot.getKey();
+            if (childSnapshot.hasChildren()) {
+                TreeItem<String> subFolder = new TreeItem<>(childTitle);
+                parent.getChildren().add(subFolder);
+                addSubItems(subFolder, childSnapshot);
+            } else {
+                notes.put(getFullPath(parent) + "/" + childTitle, (String) childSnapshot.getValue());
+                parent.getChildren().add(new TreeItem<>(childTitle));
+            }
+        }
+    }
+
+    static String getFullPath(TreeItem<String> item) {
+        StringBuilder fullPath = new StringBuilder(item.getValue());
+        TreeItem<String> parent = item.getParent();
+        while (parent != null && !parent.getValue().equals("Root")) {
+            fullPath.insert(0, parent.getValue() + "/");
+            parent = parent.getParent();
+        }
+        return fullPath.toString();
+    }
+
+    // TreeItem utk path (dipakai benchmark getFullPath)
+    TreeItem<String> find(String path) {
+        TreeItem<String> item = root;
+        for (String segment : path.split("/")) {
+            TreeItem<String> next = null;
+            for (TreeItem<String> child : item.getChildren()) {
+                if (child.getValue().equals(segment)) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            item = next;
+        }
+        return item;
+    }
+}
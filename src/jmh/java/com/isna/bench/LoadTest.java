@@ -0,0 +1,388 @@
+package com.isna.bench;
+
+import com.isna.model.User;
+import com.isna.service.DatabaseEmulator;
+import com.isna.service.EmulatorNoteStore;
+import com.isna.service.EmulatorUserStore;
+import com.isna.service.NoteChange;
+import com.isna.service.ThrottledException;
+import com.isna.service.UserManager;
+import com.isna.utility.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load test headless: N user bersamaan (satu thread per user) register, login, lalu membuat/mengedit/menghapus
+// note lewat UserManager dan RemoteNoteStore yang sama dgn aplikasi, di atas DatabaseEmulator (tanpa Firebase).
+// Setiap user punya beberapa "perangkat" lain yang memasang listener tree notes/<userId>, jadi setiap tulis
+// memicu event ke perangkat tsb (fan-out). Beberapa level user dijalankan berurutan utk mencari titik jenuh.
+//
+//   ./gradlew loadTest -Pargs="--users 10,100,1000 --seconds 20 --devices 2 --latency-ms 20"
+//   --cost 10             cost BCrypt (default 4 spt test; 10 = produksi)
+//   --think-ms 100        jeda antar operasi per user
+//   --event-threads 1     thread event emulator (SDK: satu)
+//   --attackers 20        thread yang terus mencoba login dgn password salah ke akun user simulasi
+//   --assert-p99-ms 500   exit code 1 jika p99 operasi mana pun di level mana pun melewati batas
+public class LoadTest {
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final long OP_TIMEOUT_S = 60;
+    private static final String[] OPERATIONS = {"register", "login", "create", "edit", "delete"};
+    private static final long ATTACK_INTERVAL_MS = 1; // jeda per percobaan penyerang (bukan loop kosong)
+
+    private final Options options;
+    private final List<String> contents = new ArrayList<>();
+
+    private LoadTest(Options options) {
+        this.options = options;
+        SyntheticCorpus corpus = new SyntheticCorpus(17);
+        for (int i = 0; i < 64; i++) {
+            contents.add(corpus.note(500 + i * 60, false)); // 0.5-4 KB teks, ukuran note biasa
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        // sebelum UserManager dimuat: hasher-nya dibuat dari system property
+        System.setProperty("notetaking.bcrypt.cost", Integer.toString(options.cost));
+        LoadTest test = new LoadTest(options);
+        ExecutorService threads = newThreadPerTaskExecutor();
+        long worstP99 = 0;
+        try {
+            for (int users : options.users) {
+                worstP99 = Math.max(worstP99, test.runLevel(users, threads));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        if (options.assertP99Ms > 0 && worstP99 > TimeUnit.MILLISECONDS.toNanos(options.assertP99Ms)) {
+            System.out.printf(Locale.ROOT, "FAIL: p99 %.1f ms > %d ms%n", worstP99 / 1e6, options.assertP99Ms);
+            System.exit(1);
+        }
+    }
+
+    // Virtual thread (JDK 21+) jika tersedia, lewat reflection karena build menargetkan JDK 17;
+    // kalau tidak, satu platform thread per user (batas praktis beberapa ribu user)
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Simulated users run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads unavailable (JDK " + Runtime.version().feature() + "), using platform threads");
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "load-user");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Hasil: p99 terburuk di antara operasi level ini
+    private long runLevel(int users, ExecutorService threads) throws InterruptedException {
+        Level level = new Level();
+        try (DatabaseEmulator database = new DatabaseEmulator(options.eventThreads, TimeUnit.MILLISECONDS.toMicros(options.latencyMs))) {
+            EmulatorUserStore userStore = new EmulatorUserStore(database);
+            userStore.markEmailIndexReady().join(); // database baru: index email sudah dipakai sejak awal
+            UserManager.setStore(userStore);
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(options.seconds);
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                int id = i;
+                running.add(threads.submit(() -> runUser(database, id, deadline, level)));
+            }
+            for (int i = 0; i < options.attackers; i++) {
+                running.add(threads.submit(() -> runAttacker(users, deadline, level)));
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    level.error("driver", e.getCause());
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            // event yang masih antri ikut dihitung: tunggu antrian emulator kosong (maks. 10 s)
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (database.getStats().getPendingEvents() > 0 && System.nanoTime() < drainUntil) {
+                Thread.sleep(10);
+            }
+            return report(users, elapsed, level, database.getStats());
+        }
+    }
+
+    private void runUser(DatabaseEmulator database, int id, long deadline, Level level) {
+        String email = "load" + id + "@example.com";
+        String fullName = "load-" + id;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user;
+        try {
+            Boolean registered = retrying(level, "register", deadline, () -> UserManager.registerUser(email, PASSWORD, fullName, "0800" + id).get(OP_TIMEOUT_S, TimeUnit.SECONDS));
+            if (!Boolean.TRUE.equals(registered)) {
+                return;
+            }
+            user = retrying(level, "login", deadline, () -> UserManager.authenticateUser(email, PASSWORD).get(OP_TIMEOUT_S, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (user == null) {
+            return;
+        }
+        String userId = user.getFullName(); // spt AuthenticationController -> MainController.setUserId
+        EmulatorNoteStore notes = new EmulatorNoteStore(database, userId);
+        List<DatabaseEmulator.Registration> devices = new ArrayList<>();
+        for (int d = 0; d < options.devices; d++) {
+            devices.add(notes.listen(new Device(level)));
+        }
+        List<String> live = new ArrayList<>();
+        long seq = 0;
+        try {
+            while (System.nanoTime() < deadline) {
+                double r = random.nextDouble();
+                String path;
+                String operation;
+                NoteChange change;
+                if (live.size() < 3 || r < 0.3) {
+                    path = "Note " + (++seq);
+                    live.add(path);
+                    operation = "create";
+                } else if (r < 0.9 || live.size() < 10) {
+                    path = live.get(random.nextInt(live.size()));
+                    operation = "edit";
+                } else {
+                    path = live.remove(random.nextInt(live.size()));
+                    operation = "delete";
+                }
+                // stamp = waktu kirim (nanoTime) supaya perangkat lain bisa mengukur jeda propagasi
+                change = operation.equals("delete")
+                        ? new NoteChange(NoteChange.Type.DELETE, seq, path, 0, null)
+                        : new NoteChange(NoteChange.Type.PUT, seq, path, System.nanoTime(), contents.get(random.nextInt(contents.size())));
+                call(level, operation, () -> notes.apply(Collections.singletonList(change)).get(OP_TIMEOUT_S, TimeUnit.SECONDS));
+                if (options.thinkMs > 0) {
+                    Thread.sleep(random.nextLong(options.thinkMs / 2, options.thinkMs * 3 / 2 + 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            devices.forEach(DatabaseEmulator.Registration::remove);
+        }
+    }
+
+    // Login gagal beruntun ke akun acak: yang diharapkan ditolak cepat (ThrottledException), bukan di-hash
+    private void runAttacker(int users, long deadline, Level level) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            while (System.nanoTime() < deadline) {
+                String email = "load" + random.nextInt(users) + "@example.com";
+                call(level, "attack", () -> UserManager.authenticateUser(email, "wrong password").get(OP_TIMEOUT_S, TimeUnit.SECONDS));
+                Thread.sleep(ATTACK_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Call<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> T call(Level level, String operation, Call<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.run();
+            level.latency(operation).recordSince(start);
+            return result;
+        } catch (Exception e) {
+            level.error(operation, e);
+            return null;
+        }
+    }
+
+    // Spt user sungguhan: setelah "try again in N s" menunggu N s (+ jitter) lalu mencoba lagi, selama waktu masih ada
+    private static <T> T retrying(Level level, String operation, long deadline, Call<T> call) throws InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                T result = call.run();
+                level.latency(operation).recordSince(start);
+                return result;
+            } catch (Exception e) {
+                level.error(operation, e);
+                ThrottledException throttled = throttled(e);
+                if (throttled == null) {
+                    return null;
+                }
+                long wait = throttled.getRetryAfterMillis() + ThreadLocalRandom.current().nextLong(throttled.getRetryAfterMillis() / 2 + 1);
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait) >= deadline) {
+                    return null;
+                }
+                Thread.sleep(wait);
+            }
+        }
+    }
+
+    private static ThrottledException throttled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ThrottledException) {
+                return (ThrottledException) cause;
+            }
+        }
+        return null;
+    }
+
+    // Perangkat lain milik user yang sama: menerima event tree dan mengukur jeda sejak tulis dikirim
+    private static final class Device implements DatabaseEmulator.ChildListener {
+        private final Level level;
+
+        Device(Level level) {
+            this.level = level;
+        }
+
+        @Override
+        public void onChildAdded(DatabaseEmulator.Snapshot snapshot, String prevKey) {
+            received(snapshot);
+        }
+
+        @Override
+        public void onChildChanged(DatabaseEmulator.Snapshot snapshot, String prevKey) {
+            received(snapshot);
+        }
+
+        @Override
+        public void onChildRemoved(DatabaseEmulator.Snapshot snapshot) {
+            level.deviceEvents.increment();
+        }
+
+        private void received(DatabaseEmulator.Snapshot snapshot) {
+            level.deviceEvents.increment();
+            if (snapshot.getValue() instanceof Long) {
+                level.propagation.record(System.nanoTime() - (Long) snapshot.getValue());
+            }
+        }
+    }
+
+    private static final class Level {
+        final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        final LatencyHistogram propagation = new LatencyHistogram();
+        final LongAdder deviceEvents = new LongAdder();
+        final AtomicLong firstError = new AtomicLong();
+
+        LatencyHistogram latency(String operation) {
+            return latencies.computeIfAbsent(operation, o -> new LatencyHistogram());
+        }
+
+        void error(String operation, Throwable error) {
+            Throwable cause = error;
+            while ((cause instanceof ExecutionException || cause instanceof CompletionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            String kind = cause instanceof TimeoutException ? "timeout" : cause.getClass().getSimpleName();
+            errors.computeIfAbsent(operation + " " + kind, k -> new LongAdder()).increment();
+            if (firstError.compareAndSet(0, 1)) {
+                System.out.println("First error (" + operation + "): " + cause);
+            }
+        }
+    }
+
+    private long report(int users, long elapsedNanos, Level level, DatabaseEmulator.Stats stats) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%n== %d users, %d attackers, %.1f s, %d device(s)/user, latency %d ms, bcrypt cost %d ==%n",
+                users, options.attackers, seconds, options.devices, options.latencyMs, options.cost);
+        System.out.printf(Locale.ROOT, "%-10s %9s %9s %9s %9s %9s %9s%n", "op", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long worstP99 = 0;
+        for (String operation : OPERATIONS) {
+            LatencyHistogram histogram = level.latencies.get(operation);
+            if (histogram != null) {
+                LatencyHistogram.Snapshot s = histogram.snapshot();
+                printRow(operation, s, seconds);
+                worstP99 = Math.max(worstP99, s.percentileNanos(99));
+            }
+        }
+        printRow("propagate", level.propagation.snapshot(), seconds);
+        LatencyHistogram attack = level.latencies.get("attack");
+        if (attack != null) {
+            printRow("attack", attack.snapshot(), seconds); // hanya percobaan yang lolos pembatas
+        }
+        LatencyHistogram.Snapshot dispatch = stats.getDispatch().snapshot();
+        LatencyHistogram.Snapshot lag = stats.getEventLag().snapshot();
+        LatencyHistogram.Snapshot lock = stats.getWriteLock().snapshot();
+        System.out.printf(Locale.ROOT, "writes %d (%.0f/s), reads %d, transactions %d, query scans %d%n",
+                stats.getWrites(), stats.getWrites() / seconds, stats.getReads(), stats.getTransactions(), stats.getScanned());
+        System.out.printf(Locale.ROOT, "write lock held: mean %.1f us, p99 %.1f us%n",
+                lock.getMeanNanos() / 1e3, lock.percentileNanos(99) / 1e3);
+        System.out.printf(Locale.ROOT, "listener fan-out: %d events (%.0f/s, %.2f per write), dispatch mean %.1f us, "
+                        + "queue wait p50 %.2f ms p99 %.2f ms, max queued %d, undelivered %d%n",
+                stats.getEvents(), stats.getEvents() / seconds, stats.getWrites() == 0 ? 0.0 : (double) stats.getEvents() / stats.getWrites(),
+                dispatch.getMeanNanos() / 1e3, lag.percentileNanos(50) / 1e6, lag.percentileNanos(99) / 1e6,
+                stats.getMaxPendingEvents(), stats.getPendingEvents());
+        if (!level.errors.isEmpty()) {
+            System.out.println("errors: " + new TreeMap<>(level.errors));
+        }
+        return worstP99;
+    }
+
+    private static void printRow(String name, LatencyHistogram.Snapshot s, double seconds) {
+        System.out.printf(Locale.ROOT, "%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, s.getCount(), s.getCount() / seconds,
+                s.percentileNanos(50) / 1e6, s.percentileNanos(90) / 1e6, s.percentileNanos(99) / 1e6, s.getMaxNanos() / 1e6);
+    }
+
+    private static final class Options {
+        List<Integer> users = List.of(10, 100);
+        int seconds = 10;
+        int devices = 1;
+        long latencyMs;
+        int cost = 4;
+        long thinkMs = 100;
+        int eventThreads = 1;
+        int attackers;
+        long assertP99Ms;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                String value = args[++i];
+                switch (name) {
+                    case "--users":
+                        List<Integer> levels = new ArrayList<>();
+                        for (String level : value.split(",")) {
+                            levels.add(Integer.parseInt(level.trim()));
+                        }
+                        options.users = levels;
+                        break;
+                    case "--seconds": options.seconds = Integer.parseInt(value); break;
+                    case "--devices": options.devices = Integer.parseInt(value); break;
+                    case "--latency-ms": options.latencyMs = Long.parseLong(value); break;
+                    case "--cost": options.cost = Integer.parseInt(value); break;
+                    case "--think-ms": options.thinkMs = Long.parseLong(value); break;
+                    case "--event-threads": options.eventThreads = Integer.parseInt(value); break;
+                    case "--attackers": options.attackers = Integer.parseInt(value); break;
+                    case "--assert-p99-ms": options.assertP99Ms = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.isna.bench;
+
+import com.isna.utility.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Overhead pencatatan latensi yang selalu aktif di jalur panas, satu thread dan saat diperebutkan.
+// Jalankan dgn -prof gc utk memastikan record() tidak mengalokasi (gc.alloc.rate.norm ~ 0).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    public void recordSince() {
+        histogram.recordSince(System.nanoTime() - 1_500_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordSinceContended() {
+        histogram.recordSince(System.nanoTime() - 1_500_000);
+    }
+
+    @Benchmark
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
@@ -0,0 +1,162 @@
+package com.isna.bench;
+
+import com.isna.model.Note;
+import com.isna.service.NoteQuery;
+import com.isna.service.NoteQueryIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Query smart folder atas metadata N note (tag berdistribusi Zipf dari 200 tag, 0-4 tag per note, waktu
+// diubah tersebar 3 tahun, 2% pinned), hasil diurutkan dan dipotong spt SmartFolders (500 teratas):
+//   index : NoteQueryIndex (bitmap per tag/pinned/hari)
+//   scan  : filter linear atas semua Note lalu top-500, cara tanpa index
+// updateNote = biaya index inkremental satu note setelah disimpan (tag diganti).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class NoteQueryBenchmark {
+    private static final int TAGS = 200;
+    private static final int LIMIT = 500;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Param({"10000", "100000"})
+    int notes;
+
+    private String[] paths;
+    private Note[] metadata;
+    private NoteQueryIndex index;
+    private NoteQuery twoTagsRecent;
+    private NoteQuery orNotPinned;
+    private NoteQuery rareTag;
+    private List<List<String>> updates;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(23);
+        double[] cumulative = new double[TAGS];
+        double sum = 0;
+        for (int i = 0; i < TAGS; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < TAGS; i++) {
+            cumulative[i] /= sum;
+        }
+        paths = SyntheticNotebook.generate(notes, 3).notePaths;
+        metadata = new Note[paths.length];
+        index = new NoteQueryIndex();
+        for (int i = 0; i < paths.length; i++) {
+            Note note = new Note(paths[i], null);
+            note.setTags(tags(random, cumulative));
+            note.setModified(NOW - (long) (random.nextDouble() * 3 * 365 * DAY_MS));
+            note.setCreated(note.getModified() - (long) (random.nextDouble() * 365 * DAY_MS));
+            note.setPinned(random.nextInt(50) == 0);
+            metadata[i] = note;
+            index.put(paths[i], note);
+        }
+        updates = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            updates.add(tags(random, cumulative));
+        }
+        twoTagsRecent = NoteQuery.parse("tag:t0 AND tag:t1 AND modified:7d");
+        orNotPinned = NoteQuery.parse("(tag:t2 OR tag:t3) AND NOT pinned");
+        rareTag = NoteQuery.parse("tag:t150");
+    }
+
+    private static List<String> tags(Random random, double[] cumulative) {
+        int count = random.nextInt(5);
+        List<String> tags = new ArrayList<>(count);
+        for (int t = 0; t < count; t++) {
+            int i = Arrays.binarySearch(cumulative, random.nextDouble());
+            String tag = "t" + (i < 0 ? -i - 1 : i);
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    @Benchmark
+    public NoteQueryIndex.Result twoTagsRecent() {
+        return index.query(twoTagsRecent, NOW, LIMIT);
+    }
+
+    @Benchmark
+    public NoteQueryIndex.Result orNotPinned() {
+        return index.query(orNotPinned, NOW, LIMIT);
+    }
+
+    @Benchmark
+    public NoteQueryIndex.Result rareTag() {
+        return index.query(rareTag, NOW, LIMIT);
+    }
+
+    @Benchmark
+    public List<String> twoTagsRecentScan() {
+        return scan(note -> note.getTags().contains("t0") && note.getTags().contains("t1") && note.getModified() >= NOW - 7 * DAY_MS);
+    }
+
+    @Benchmark
+    public List<String> orNotPinnedScan() {
+        return scan(note -> (note.getTags().contains("t2") || note.getTags().contains("t3")) && !note.isPinned());
+    }
+
+    private interface Filter {
+        boolean test(Note note);
+    }
+
+    private List<String> scan(Filter filter) {
+        PriorityQueue<Integer> top = new PriorityQueue<>(LIMIT + 1, (a, b) -> Long.compare(metadata[a].getModified(), metadata[b].getModified()));
+        int total = 0;
+        for (int i = 0; i < metadata.length; i++) {
+            if (filter.test(metadata[i])) {
+                total++;
+                top.add(i);
+                if (top.size() > LIMIT) {
+                    top.poll();
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(top.size() + 1);
+        while (!top.isEmpty()) {
+            result.add(paths[top.poll()]);
+        }
+        Collections.reverse(result);
+        result.add(Integer.toString(total));
+        return result;
+    }
+
+    // Simpan ulang satu note dgn tag lain (jalur SearchIndexer setelah autosave)
+    @Benchmark
+    public int updateNote() {
+        cursor = (cursor + 1) & 255;
+        int i = cursor * 397 % paths.length;
+        Note note = metadata[i];
+        note.setTags(updates.get(cursor));
+        note.setModified(note.getModified() + 1);
+        index.put(paths[i], note);
+        return index.size();
+    }
+}
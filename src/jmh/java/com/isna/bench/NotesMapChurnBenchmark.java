@@ -0,0 +1,110 @@
+package com.isna.bench;
+
+import com.isna.service.NoteNode;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreePatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Churn indeks note: map lama berkunci path String (tambah/cari/hapus, rename folder = re-key semua entri
+// di bawahnya) vs NoteTree (operasi pada node; rename folder hanya mengganti satu key).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class NotesMapChurnBenchmark {
+    @Param({"10000", "100000"})
+    int notes;
+
+    private SyntheticNotebook notebook;
+    private Map<String, Long> pathMap;
+    private NoteTree tree;
+    private String renamedFolder;
+    private String renamedParent;
+    private String renamedKey;
+    private int cursor;
+    private boolean renamed;
+
+    @Setup
+    public void setup() {
+        notebook = SyntheticNotebook.generate(notes, 3);
+        pathMap = new HashMap<>();
+        for (int i = 0; i < notes; i++) {
+            pathMap.put(notebook.notePaths[i], notebook.stamps[i]);
+        }
+        NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), true);
+        notebook.loadInto(patcher);
+        tree = patcher.getTree();
+        renamedFolder = notebook.folderPaths.get(0); // folder level atas: subtree terbesar
+        renamedParent = "";
+        renamedKey = renamedFolder;
+    }
+
+    private int next() {
+        cursor = cursor + 7919 < notes ? cursor + 7919 : (cursor + 7919) % notes;
+        return cursor;
+    }
+
+    @Benchmark
+    public Long hashMapChurn() {
+        int i = next();
+        String path = notebook.parentPaths[i] + "/" + "churn-" + i;
+        pathMap.put(path, (long) i);
+        Long found = pathMap.get(notebook.notePaths[i]);
+        pathMap.remove(path);
+        return found;
+    }
+
+    @Benchmark
+    public NoteNode noteTreeChurn() {
+        int i = next();
+        NoteNode parent = tree.resolve(notebook.parentPaths[i]);
+        NoteNode added = tree.addNote(parent, "churn-" + i, i, parent.childCount());
+        NoteNode found = tree.resolve(notebook.notePaths[i]);
+        tree.remove(added);
+        return found;
+    }
+
+    @Benchmark
+    public int hashMapRenameFolder() {
+        String from = renamed ? renamedFolder + "-x" : renamedFolder;
+        String to = renamed ? renamedFolder : renamedFolder + "-x";
+        renamed = !renamed;
+        String prefix = from + "/";
+        List<String> moved = new ArrayList<>();
+        for (String path : pathMap.keySet()) {
+            if (path.startsWith(prefix)) {
+                moved.add(path);
+            }
+        }
+        for (String path : moved) {
+            pathMap.put(to + path.substring(from.length()), pathMap.remove(path));
+        }
+        return moved.size();
+    }
+
+    @Benchmark
+    public NoteNode noteTreeRenameFolder() {
+        NoteNode folder = tree.resolve(NoteTree.childPath(renamedParent, renamed ? renamedKey + "-x" : renamedKey));
+        tree.rename(folder, renamed ? renamedKey : renamedKey + "-x");
+        renamed = !renamed;
+        return folder;
+    }
+}
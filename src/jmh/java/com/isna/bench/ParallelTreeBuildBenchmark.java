@@ -0,0 +1,82 @@
+package com.isna.bench;
+
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreeBuilder;
+import com.isna.service.NoteTreePatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Membangun tree dari isi log lokal (N note, kedalaman D), spt saat login:
+//   threads = 0 : ensureFolder/noteAdded berurutan lewat NoteTreePatcher (cara lama, di thread FX)
+//   threads = n : NoteTreeBuilder di ForkJoinPool dgn n worker (1 = biaya fork/join tanpa paralelisme)
+// Scaling = waktu threads=1 dibagi waktu threads=n; dibatasi jumlah core mesin (lihat Runtime.availableProcessors).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelTreeBuildBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int notes;
+
+    @Param({"2", "4"})
+    int depth;
+
+    @Param({"0", "1", "2", "4", "8"})
+    int threads;
+
+    private SyntheticNotebook notebook;
+    private Map<String, Long> localNotes;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        notebook = SyntheticNotebook.generate(notes, depth);
+        localNotes = new HashMap<>(); // spt LocalNoteLog.notes()
+        for (int i = 0; i < notebook.size(); i++) {
+            localNotes.put(notebook.notePaths[i], notebook.stamps[i]);
+        }
+        pool = threads > 0 ? new ForkJoinPool(threads) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public NoteTree build() {
+        if (pool != null) {
+            return NoteTreeBuilder.build(notebook.folderPaths, localNotes, pool);
+        }
+        NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), true);
+        for (String folderPath : notebook.folderPaths) {
+            patcher.ensureFolder(folderPath);
+        }
+        localNotes.forEach((path, stamp) -> {
+            int slash = path.lastIndexOf('/');
+            String parentPath = slash < 0 ? "" : path.substring(0, slash);
+            patcher.ensureFolder(parentPath);
+            patcher.noteAdded(parentPath, path.substring(slash + 1), stamp);
+        });
+        return patcher.getTree();
+    }
+}
@@ -0,0 +1,79 @@
+package com.isna.bench;
+
+import com.isna.service.NoteNode;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreePatcher;
+import javafx.scene.control.TreeItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Path note pada berbagai kedalaman: getFullPath lama (StringBuilder.insert per level)
+// vs NoteNode.getPath (satu char[]) vs NoteTree.resolve (path -> node lewat map per folder).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"2", "4", "8"})
+    int depth;
+
+    private TreeItem<String>[] legacyItems;
+    private NoteNode[] nodes;
+    private String[] paths;
+    private NoteTree tree;
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setup() {
+        SyntheticNotebook notebook = SyntheticNotebook.generate(10_000, depth);
+        LegacyTree legacy = new LegacyTree();
+        legacy.rebuild(notebook.snapshot);
+        NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), true);
+        notebook.loadInto(patcher);
+        tree = patcher.getTree();
+        legacyItems = new TreeItem[SAMPLES];
+        nodes = new NoteNode[SAMPLES];
+        paths = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String path = notebook.notePaths[(int) ((long) i * notebook.size() / SAMPLES)];
+            paths[i] = path;
+            legacyItems[i] = legacy.find(path);
+            nodes[i] = tree.resolve(path);
+        }
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public String legacyGetFullPath() {
+        return LegacyTree.getFullPath(legacyItems[next()]);
+    }
+
+    @Benchmark
+    public String nodeGetPath() {
+        return nodes[next()].getPath();
+    }
+
+    @Benchmark
+    public NoteNode treeResolve() {
+        return tree.resolve(paths[next()]);
+    }
+}
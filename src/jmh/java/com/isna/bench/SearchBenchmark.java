@@ -0,0 +1,90 @@
+package com.isna.bench;
+
+import com.isna.service.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Pencarian full-text di korpus 50k note (target < 10 ms per query) dan biaya update inkremental satu note.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private static final int LIMIT = 50;
+
+    @Param({"50000"})
+    int notes;
+
+    private SyntheticCorpus corpus;
+    private SearchIndex index;
+    private String[] paths;
+    private String[] updates;
+    private String commonTerm;
+    private String rareTerm;
+    private String prefix;
+    private String phrase;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        corpus = new SyntheticCorpus(23);
+        SyntheticNotebook notebook = SyntheticNotebook.generate(notes, 3);
+        paths = notebook.notePaths;
+        index = new SearchIndex();
+        for (int i = 0; i < notes; i++) {
+            index.put(paths[i], corpus.title(), corpus.note(300 + (i % 7) * 300, false));
+        }
+        updates = corpus.notes(256, 0);
+        commonTerm = corpus.word(3);
+        rareTerm = corpus.word(3000);
+        prefix = corpus.word(40).substring(0, 3) + "*";
+        phrase = "\"" + corpus.word(0) + " " + corpus.word(1) + "\"";
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> commonTerm() {
+        return index.search(commonTerm + " ", LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> rareTerm() {
+        return index.search(rareTerm + " ", LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> twoTerms() {
+        return index.search(commonTerm + " " + rareTerm + " ", LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> prefixQuery() {
+        return index.search(prefix, LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> phraseQuery() {
+        return index.search(phrase, LIMIT);
+    }
+
+    // Simpan ulang satu note yang sudah terindeks (jalur SearchIndexer setelah autosave)
+    @Benchmark
+    public int updateNote() {
+        cursor = (cursor + 1) & 255;
+        index.put(paths[cursor * 97 % paths.length], "updated", updates[cursor]);
+        return index.size();
+    }
+}
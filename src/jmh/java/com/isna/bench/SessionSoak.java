@@ -0,0 +1,316 @@
+package com.isna.bench;
+
+import com.isna.model.User;
+import com.isna.service.AutoSaver;
+import com.isna.service.DatabaseEmulator;
+import com.isna.service.EmulatorNoteStore;
+import com.isna.service.EmulatorUserStore;
+import com.isna.service.InMemoryBlobStore;
+import com.isna.service.NoteChange;
+import com.isna.service.NoteCodec;
+import com.isna.service.NoteTreePatcher;
+import com.isna.service.NoteTreeReconciler;
+import com.isna.service.Session;
+import com.isna.service.UserManager;
+import com.isna.utility.Metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Soak test login/logout headless: setiap siklus login lewat UserManager, membuka Session spt MainController
+// (store remote di DatabaseEmulator, lampiran di memori, data lokal per akun di direktori sementara), memasang
+// NoteTreeReconciler, membaca/mengedit/menghapus note, lalu logout (Session.close). Akun dipakai bergiliran supaya
+// login berulang tidak kena LoginThrottle (5 percobaan per akun lalu 1 per 12 s).
+// Selama itu "perangkat lain" terus menulis ke notes/<userId> akun yang sedang login, jadi event masih datang
+// saat sesi ditutup.
+// Setiap --sample siklus: heap sesudah GC, jumlah thread, listener emulator, sesi terbuka, dan sesi tertutup
+// yang masih bisa dijangkau (WeakReference). Exit code 1 jika ada yang tidak kembali ke baseline.
+//
+//   ./gradlew soakTest -Pargs="--cycles 1000 --notes 100"
+//   --accounts 0                akun bergiliran (0: cycles / 4)
+//   --edits 20                  note yang diedit per siklus
+//   --sample 50                 jarak pengukuran (siklus)
+//   --max-heap-growth-mb 16     batas kenaikan heap sesudah GC dari baseline (sesudah siklus pemanasan)
+public class SessionSoak {
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int LOGINS_PER_ACCOUNT = 4; // di bawah burst LoginThrottle
+    private static final long OP_TIMEOUT_S = 30;
+    private static final long THREAD_SETTLE_MS = 2000;
+    private static final int THREAD_SLACK = 4; // thread JVM (common pool dsb.) yang boleh datang dan pergi
+    private static final long REMOTE_WRITE_INTERVAL_MS = 2;
+
+    private final Options options;
+    private final List<String> contents = new ArrayList<>();
+    private final List<WeakReference<Session>> closedSessions = new ArrayList<>();
+    private volatile EmulatorNoteStore activeRemote; // "perangkat lain" milik akun yang sedang login
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private SessionSoak(Options options) {
+        this.options = options;
+        SyntheticCorpus corpus = new SyntheticCorpus(23);
+        for (int i = 0; i < 32; i++) {
+            contents.add(corpus.note(500 + i * 100, false));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        System.setProperty("notetaking.bcrypt.cost", "4"); // login tetap lewat BCrypt, tapi murah
+        Path directory = Files.createTempDirectory("notetaking-soak");
+        boolean passed;
+        try {
+            passed = new SessionSoak(options).run(directory);
+        } finally {
+            deleteRecursively(directory);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run(Path directory) throws Exception {
+        try (DatabaseEmulator database = new DatabaseEmulator()) {
+            EmulatorUserStore users = new EmulatorUserStore(database);
+            users.markEmailIndexReady().join();
+            UserManager.setStore(users);
+            for (int account = 0; account < options.accounts; account++) {
+                UserManager.registerUser(email(account), PASSWORD, "Soak User " + account, "0800" + account)
+                        .get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+                seed(new EmulatorNoteStore(database, "Soak User " + account));
+            }
+            Thread writer = startRemoteWriter();
+            try {
+                return soak(database, directory);
+            } finally {
+                writer.interrupt();
+                writer.join();
+            }
+        }
+    }
+
+    private boolean soak(DatabaseEmulator database, Path directory) throws Exception {
+        InMemoryBlobStore blobs = new InMemoryBlobStore();
+        // pengganti thread FX: siklus dan autosave yang jatuh tempo berjalan di satu thread, spt di aplikasi
+        ExecutorService ui = Executors.newSingleThreadExecutor(r -> new Thread(r, "soak-ui"));
+        try {
+            return soak(database, directory, blobs, ui);
+        } finally {
+            ui.shutdownNow();
+        }
+    }
+
+    private boolean soak(DatabaseEmulator database, Path directory, InMemoryBlobStore blobs, ExecutorService ui) throws Exception {
+        // baseline setelah setiap akun login sekali (data remote/lokal per akun sudah terbentuk)
+        int warmup = Math.max(options.sample, Math.min(options.accounts, options.cycles / 2));
+        Sample baseline = null;
+        Sample last = null;
+        System.out.printf(Locale.ROOT, "%8s %10s %8s %10s %6s %9s %10s%n",
+                "cycle", "heap MB", "threads", "listeners", "open", "retained", "ms/cycle");
+        long intervalStart = System.nanoTime();
+        for (int cycle = 1; cycle <= options.cycles; cycle++) {
+            int current = cycle;
+            ui.submit(() -> {
+                runCycle(database, directory, blobs, ui, current);
+                return null;
+            }).get();
+            if (cycle % options.sample == 0 || cycle == options.cycles) {
+                long perCycle = (System.nanoTime() - intervalStart) / 1_000_000 / options.sample;
+                last = sample(database);
+                System.out.printf(Locale.ROOT, "%8d %10.1f %8d %10d %6d %9d %10d%n", cycle, last.heapBytes / 1048576.0,
+                        last.threads, last.listeners, last.openSessions, last.retainedSessions, perCycle);
+                if (baseline == null && cycle >= warmup) {
+                    baseline = last;
+                }
+                intervalStart = System.nanoTime();
+            }
+        }
+        if (baseline == null) {
+            baseline = last;
+        }
+        return check(baseline, last);
+    }
+
+    // Satu login/logout spt aplikasi: semua yang dibuat selama sesi didaftarkan ke Session
+    private void runCycle(DatabaseEmulator database, Path directory, InMemoryBlobStore blobs, Executor ui, int cycle) throws Exception {
+        int account = cycle % options.accounts;
+        User user = UserManager.authenticateUser(email(account), PASSWORD).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+        if (user == null) {
+            throw new IllegalStateException("Login failed in cycle " + cycle);
+        }
+        String userId = user.getFullName(); // spt aplikasi: notes/<fullName>
+        EmulatorNoteStore notes = new EmulatorNoteStore(database, userId);
+        activeRemote = notes;
+        Session[] holder = new Session[1];
+        AutoSaver.SaveListener indexSaved = (path, stamp, content) -> holder[0].getSearchIndexer().indexNow(path, stamp, content);
+        Session session = new Session(userId, directory.resolve("account-" + account), notes, blobs, new NoteCodec(true), ui, indexSaved);
+        holder[0] = session;
+        try {
+            session.own(new NoteTreeReconciler(notes, session.getRepository(), new NoteTreePatcher(), ui)).start();
+            Map<String, Long> local = session.getRepository().localNotes();
+            session.gauge(Metrics.NOTES, local::size);
+            session.gauge(Metrics.CACHE_BYTES, session.getRepository().getCache()::getCurrentBytes);
+            local.forEach((path, stamp) -> session.getSearchIndexer().noteUpdated(path, stamp));
+            for (int i = 0; i < options.edits; i++) {
+                String path = "soak/note-" + ((cycle * options.edits + i) % options.notes);
+                Long stamp = local.get(path);
+                if (stamp != null) {
+                    session.getRepository().loadNote(path, stamp).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+                }
+                session.getAutoSaver().edited(path, () -> contents.get(Math.floorMod(path.hashCode() + cycle, contents.size())));
+            }
+            session.getAutoSaver().saveNow("soak/scratch-" + cycle, contents.get(cycle % contents.size()));
+            session.getRepository().delete("soak/scratch-" + (cycle - 1));
+        } finally {
+            session.close(); // edit yang masih menunggu debounce tersimpan di sini
+        }
+        closedSessions.add(new WeakReference<>(session));
+    }
+
+    private void seed(EmulatorNoteStore store) throws Exception {
+        List<NoteChange> changes = new ArrayList<>();
+        for (int i = 0; i < options.notes; i++) {
+            changes.add(new NoteChange(NoteChange.Type.PUT, i, "soak/note-" + i, i + 1, contents.get(i % contents.size())));
+        }
+        store.apply(changes).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+    }
+
+    private static String email(int account) {
+        return "soak" + account + "@example.com";
+    }
+
+    private Thread startRemoteWriter() {
+        Thread writer = new Thread(() -> {
+            long seq = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                seq++;
+                String path = "remote/note-" + (seq % 64);
+                EmulatorNoteStore store = activeRemote;
+                if (store != null) {
+                    store.apply(List.of(new NoteChange(NoteChange.Type.PUT, seq, path, System.currentTimeMillis(),
+                            contents.get((int) (seq % contents.size())))));
+                }
+                try {
+                    Thread.sleep(REMOTE_WRITE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "soak-remote-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return writer;
+    }
+
+    private Sample sample(DatabaseEmulator database) throws InterruptedException {
+        Sample sample = new Sample();
+        // thread executor sesi berhenti secara async setelah shutdown; tunggu sebentar sebelum dihitung
+        long settleUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(THREAD_SETTLE_MS);
+        int previous = Integer.MAX_VALUE;
+        int count;
+        while ((count = threads.getThreadCount()) < previous && System.nanoTime() < settleUntil) {
+            previous = count;
+            Thread.sleep(50);
+        }
+        sample.threads = count;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        sample.heapBytes = memory.getHeapMemoryUsage().getUsed();
+        sample.listeners = database.listenerCount();
+        sample.openSessions = Session.openCount();
+        closedSessions.removeIf(ref -> ref.get() == null);
+        sample.retainedSessions = closedSessions.size();
+        return sample;
+    }
+
+    private boolean check(Sample baseline, Sample last) {
+        List<String> failures = new ArrayList<>();
+        long heapGrowth = last.heapBytes - baseline.heapBytes;
+        if (heapGrowth > options.maxHeapGrowthMb * 1048576L) {
+            failures.add(String.format(Locale.ROOT, "heap grew %.1f MB after warmup (limit %d MB)",
+                    heapGrowth / 1048576.0, options.maxHeapGrowthMb));
+        }
+        if (last.threads > baseline.threads + THREAD_SLACK) {
+            failures.add("threads " + baseline.threads + " -> " + last.threads);
+        }
+        if (last.listeners != 0) {
+            failures.add(last.listeners + " database listeners still registered");
+        }
+        if (last.openSessions != 0) {
+            failures.add(last.openSessions + " sessions still open");
+        }
+        if (last.retainedSessions > 1) { // sesi terakhir boleh masih di register/stack
+            failures.add(last.retainedSessions + " closed sessions still reachable");
+        }
+        System.out.printf(Locale.ROOT, "%d cycles, %d subtrees reconciled, heap %+.1f MB since baseline%n",
+                options.cycles, Metrics.counter(Metrics.SYNC_RECONCILE + ".subtrees").getValue(), heapGrowth / 1048576.0);
+        for (String failure : failures) {
+            System.out.println("FAIL: " + failure);
+        }
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        }
+        return failures.isEmpty();
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static final class Sample {
+        long heapBytes;
+        int threads;
+        int listeners;
+        int openSessions;
+        int retainedSessions;
+    }
+
+    private static final class Options {
+        int cycles = 500;
+        int accounts;
+        int notes = 100;
+        int edits = 20;
+        int sample = 50;
+        long maxHeapGrowthMb = 16;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                String value = args[++i];
+                switch (name) {
+                    case "--cycles": options.cycles = Integer.parseInt(value); break;
+                    case "--accounts": options.accounts = Integer.parseInt(value); break;
+                    case "--notes": options.notes = Integer.parseInt(value); break;
+                    case "--edits": options.edits = Integer.parseInt(value); break;
+                    case "--sample": options.sample = Math.max(1, Integer.parseInt(value)); break;
+                    case "--max-heap-growth-mb": options.maxHeapGrowthMb = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            if (options.accounts <= 0) {
+                options.accounts = Math.max(1, (options.cycles + LOGINS_PER_ACCOUNT - 1) / LOGINS_PER_ACCOUNT);
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.isna.bench;
+
+import java.util.Base64;
+import java.util.Random;
+
+// Korpus HTML sintetis bergaya keluaran HTMLEditor: paragraf ber-style inline, kosakata berdistribusi Zipf,
+// sebagian kecil note membawa gambar base64 (tidak bisa dikompres). Seed tetap agar hasil antar versi sebanding.
+final class SyntheticCorpus {
+    private static final int VOCABULARY = 5000;
+    private static final String[] SYLLABLES = {
+            "ka", "ta", "ra", "na", "ma", "sa", "la", "pa", "da", "ga", "ba", "ja",
+            "ke", "te", "re", "ne", "me", "se", "le", "pe", "ki", "ti", "ri", "ni",
+            "ku", "tu", "ru", "nu", "mu", "su", "lu", "pu", "ko", "to", "ro", "no", "an", "ng"
+    };
+
+    private final Random random;
+    private final String[] words = new String[VOCABULARY];
+    private final double[] cumulative = new double[VOCABULARY];
+
+    SyntheticCorpus(long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + (i % 4);
+            int n = i;
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+                n = n / SYLLABLES.length + s * 7 + 3;
+            }
+            words[i] = word.append(i).toString();
+        }
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < VOCABULARY; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    // Kata ke-rank (0 = paling sering), dipakai benchmark pencarian utk memilih term umum/jarang
+    String word(int rank) {
+        return words[rank];
+    }
+
+    String nextWord() {
+        double u = random.nextDouble();
+        int lo = 0;
+        int hi = VOCABULARY - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return words[lo];
+    }
+
+    String title() {
+        return nextWord() + " " + nextWord();
+    }
+
+    // Satu note HTML dgn kira-kira targetChars karakter teks
+    String note(int targetChars, boolean withImage) {
+        StringBuilder html = new StringBuilder(targetChars * 2);
+        html.append("<html dir=\"ltr\"><head></head><body contenteditable=\"true\">\n");
+        int text = 0;
+        while (text < targetChars) {
+            html.append("<p><span style=\"font-family: &quot;Segoe UI&quot;; font-size: 12pt;\">");
+            int sentenceWords = 8 + random.nextInt(24);
+            for (int w = 0; w < sentenceWords; w++) {
+                String word = nextWord();
+                if (w > 0) {
+                    html.append(' ');
+                }
+                if (random.nextInt(40) == 0) {
+                    html.append("<b>").append(word).append("</b>");
+                } else {
+                    html.append(word);
+                }
+                text += word.length() + 1;
+            }
+            html.append(".</span></p>\n");
+        }
+        if (withImage) {
+            byte[] image = new byte[2048 + random.nextInt(8192)];
+            random.nextBytes(image);
+            html.append("<p><img src=\"data:image/png;base64,")
+                    .append(Base64.getEncoder().encodeToString(image))
+                    .append("\"></p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    // Ukuran note: sebagian besar pendek, ekor panjang sampai ~32 KB teks
+    String[] notes(int count, double imageShare) {
+        String[] notes = new String[count];
+        for (int i = 0; i < count; i++) {
+            int size = (int) Math.min(32_000, 200 + Math.abs(random.nextGaussian()) * 2_000);
+            notes[i] = note(size, random.nextDouble() < imageShare);
+        }
+        return notes;
+    }
+}
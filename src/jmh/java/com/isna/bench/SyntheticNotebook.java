@@ -0,0 +1,76 @@
+package com.isna.bench;
+
+import com.isna.service.NoteTreePatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Notebook sintetis: N note tersebar rata di folder dgn kedalaman D (kira-kira 20 note per folder daun).
+// Menyediakan snapshot palsu (format lama: isi String inline) dan daftar path spt log lokal.
+final class SyntheticNotebook {
+    private static final int NOTES_PER_FOLDER = 20;
+
+    final FakeSnapshot snapshot = FakeSnapshot.folder("");
+    final List<String> folderPaths = new ArrayList<>(); // parent selalu sebelum anaknya
+    final String[] notePaths;
+    final String[] parentPaths;
+    final String[] keys;
+    final long[] stamps;
+
+    private SyntheticNotebook(int notes) {
+        notePaths = new String[notes];
+        parentPaths = new String[notes];
+        keys = new String[notes];
+        stamps = new long[notes];
+    }
+
+    static SyntheticNotebook generate(int notes, int depth) {
+        SyntheticNotebook notebook = new SyntheticNotebook(notes);
+        int leafFolders = Math.max(1, notes / NOTES_PER_FOLDER);
+        int fanout = Math.max(2, (int) Math.ceil(Math.pow(leafFolders, 1.0 / depth)));
+        List<FakeSnapshot> leafSnapshots = new ArrayList<>();
+        List<String> leafPaths = new ArrayList<>();
+        notebook.addFolders(notebook.snapshot, "", depth, fanout, leafSnapshots, leafPaths);
+        for (int i = 0; i < notes; i++) {
+            int folder = i % leafSnapshots.size();
+            String key = "note-" + i;
+            long stamp = 1_700_000_000_000L + i;
+            leafSnapshots.get(folder).add(FakeSnapshot.leaf(key, "<html><body><p>" + key + "</p></body></html>"));
+            notebook.parentPaths[i] = leafPaths.get(folder);
+            notebook.keys[i] = key;
+            notebook.notePaths[i] = leafPaths.get(folder) + "/" + key;
+            notebook.stamps[i] = stamp;
+        }
+        return notebook;
+    }
+
+    private void addFolders(FakeSnapshot parent, String parentPath, int depth, int fanout,
+                            List<FakeSnapshot> leafSnapshots, List<String> leafPaths) {
+        for (int i = 0; i < fanout; i++) {
+            String key = "folder-" + i;
+            String path = parentPath.isEmpty() ? key : parentPath + "/" + key;
+            FakeSnapshot folder = parent.add(FakeSnapshot.folder(key));
+            folderPaths.add(path);
+            if (depth > 1) {
+                addFolders(folder, path, depth - 1, fanout, leafSnapshots, leafPaths);
+            } else {
+                leafSnapshots.add(folder);
+                leafPaths.add(path);
+            }
+        }
+    }
+
+    int size() {
+        return notePaths.length;
+    }
+
+    // Sama spt MainController.loadLocalTree: folder dulu, lalu semua note
+    void loadInto(NoteTreePatcher patcher) {
+        for (String folderPath : folderPaths) {
+            patcher.ensureFolder(folderPath);
+        }
+        for (int i = 0; i < notePaths.length; i++) {
+            patcher.noteAdded(parentPaths[i], keys[i], stamps[i]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.isna.bench;
+
+import com.isna.service.NoteNode;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreePatcher;
+import javafx.scene.control.TreeItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+// Membangun tree notebook utuh dari nol (N note, kedalaman D):
+//   legacyRebuild : cara lama, TreeItem<String> + map path String dibangun ulang dari snapshot
+//   patcherEager  : NoteTree + NoteTreePatcher, semua TreeItem dimaterialisasi (setara tampilan lama)
+//   patcherLazy   : mode notebook besar, hanya baris level atas yang dibuat
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class TreeBuildBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int notes;
+
+    @Param({"2", "4"})
+    int depth;
+
+    private SyntheticNotebook notebook;
+
+    @Setup
+    public void setup() {
+        notebook = SyntheticNotebook.generate(notes, depth);
+    }
+
+    @Benchmark
+    public Object legacyRebuild() {
+        LegacyTree tree = new LegacyTree();
+        tree.rebuild(notebook.snapshot);
+        return tree;
+    }
+
+    @Benchmark
+    public Object patcherEager() {
+        NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), false);
+        notebook.loadInto(patcher);
+        materializeAll(patcher.getRootItem());
+        return patcher;
+    }
+
+    @Benchmark
+    public Object patcherLazy() {
+        NoteTreePatcher patcher = new NoteTreePatcher(new NoteTree(), true);
+        notebook.loadInto(patcher);
+        return patcher.getRootItem().getChildren();
+    }
+
+    static void materializeAll(TreeItem<NoteNode> root) {
+        Deque<TreeItem<NoteNode>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            for (TreeItem<NoteNode> child : stack.pop().getChildren()) {
+                if (child.getValue().isFolder()) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.isna.bench;
+
+import com.isna.model.User;
+import com.isna.service.InMemoryUserStore;
+import com.isna.service.UserManager;
+import com.isna.utility.KeyCodec;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load test lookup user thd jumlah user: index userEmails (baca per key, harus datar) vs query lama
+// (orderByChild("email") tanpa index = pindai semua user). login/register lewat UserManager penuh dgn
+// 8 thread bersamaan; cost BCrypt diturunkan ke 4 supaya yang terukur adalah jalur lookup, bukan hashing.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dnotetaking.bcrypt.cost=4"})
+@State(Scope.Benchmark)
+public class UserLookupBenchmark {
+    private static final String PASSWORD = "password123";
+
+    @Param({"1000", "10000", "100000"})
+    int users;
+
+    private InMemoryUserStore store;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicInteger registered = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        store = new InMemoryUserStore();
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(4));
+        for (int i = 0; i < users; i++) {
+            store.putLegacyUser(String.format("legacy%08d", i), new User(email(i), hash, "User " + i, "081234567890"));
+        }
+        UserManager.setStore(store);
+        UserManager.migrateEmailIndex().join();
+    }
+
+    @TearDown
+    public void verifyIndex() {
+        // setiap user (lama + hasil registerConcurrent) punya tepat satu entri index
+        Map<String, User> all = store.allUsers().join();
+        if (store.indexSize() != all.size()) {
+            throw new IllegalStateException("index " + store.indexSize() + " != users " + all.size());
+        }
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    private String nextEmail() {
+        return email(Math.floorMod(cursor.getAndAdd(7919), users));
+    }
+
+    @Benchmark
+    public User indexLookup() {
+        String key = store.userKeyForEmail(KeyCodec.encode(nextEmail())).join();
+        return store.user(key).join();
+    }
+
+    @Benchmark
+    public Map<String, User> legacyQuery() {
+        return store.usersByEmail(nextEmail()).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public User loginConcurrent() {
+        return UserManager.authenticateUser(nextEmail(), PASSWORD).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Boolean registerConcurrent() {
+        return UserManager.registerUser("new" + registered.incrementAndGet() + "@example.com", PASSWORD, "New", "081234567890").join();
+    }
+}
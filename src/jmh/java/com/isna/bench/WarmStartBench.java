@@ -0,0 +1,215 @@
+package com.isna.bench;
+
+import com.isna.service.DatabaseEmulator;
+import com.isna.service.EmulatorNoteStore;
+import com.isna.service.LocalNoteLog;
+import com.isna.service.LocalNoteRepository;
+import com.isna.service.NoteChange;
+import com.isna.service.NoteContentCache;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteTreeBuilder;
+import com.isna.service.NoteTreePatcher;
+import com.isna.service.NoteTreeReconciler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Login ulang di perangkat B yang sudah punya log lokal, sementara perangkat A mengubah notebook di antaranya:
+//   unchanged : tidak ada perubahan
+//   slightly  : --slight note diedit
+//   heavily   : --heavy persen note diedit, sepersepuluhnya dihapus, dan satu folder baru berisi note
+// Dibandingkan: "full" = seluruh notes/<userId> diunduh spt listener per folder sebelumnya, "merkle" =
+// NoteTreeReconciler (hash root, lalu hash tree dan subtree yang berbeda). Dicatat: waktu sampai tree lokal
+// tampil (sama utk keduanya, dari log), waktu sampai tree sama dgn remote, dan byte yang diunduh dari
+// DatabaseEmulator (perkiraan JSON). Remote berada di balik jeda jaringan --latency-ms satu arah; emulator
+// tidak membatasi bandwidth, jadi kolom "+xfer ms" menambahkan waktu kirim byte tsb pada --mbps.
+//
+//   ./gradlew warmStartBench -Pargs="--notes 20000 --depth 3 --latency-ms 20"
+//   --slight 10        note yang diedit utk skenario slightly
+//   --heavy 30         persen note yang diedit utk skenario heavily
+//   --mbps 10          bandwidth unduh utk kolom +xfer ms
+public class WarmStartBench {
+    private static final String USER = "Warm Start";
+    private static final int BATCH = 500;
+    private static final long OP_TIMEOUT_S = 120;
+    private static final long CACHE_BYTES = 8L * 1024 * 1024;
+
+    private final Options options;
+    private final SyntheticNotebook notebook;
+
+    private WarmStartBench(Options options) {
+        this.options = options;
+        this.notebook = SyntheticNotebook.generate(options.notes, options.depth);
+    }
+
+    public static void main(String[] args) throws Exception {
+        WarmStartBench bench = new WarmStartBench(Options.parse(args));
+        System.out.printf(Locale.ROOT, "%d notes, %d folders, latency %d ms one way%n",
+                bench.notebook.size(), bench.notebook.folderPaths.size(), bench.options.latencyMs);
+        System.out.printf(Locale.ROOT, "%-10s %-7s %9s %9s %10s %10s %9s %7s %8s%n",
+                "scenario", "mode", "changed", "tree ms", "synced ms", "+xfer ms", "KB down", "reads", "result");
+        bench.run("slightly", true, false); // pemanasan JIT, tidak dicetak
+        bench.run("slightly", false, false);
+        for (String scenario : new String[] {"unchanged", "slightly", "heavily"}) {
+            for (boolean merkle : new boolean[] {false, true}) {
+                bench.run(scenario, merkle, true);
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run(String scenario, boolean merkle, boolean print) throws Exception {
+        Path directory = Files.createTempDirectory("notetaking-warmstart");
+        try {
+            run(scenario, merkle, print, directory);
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private void run(String scenario, boolean merkle, boolean print, Path directory) throws Exception {
+        try (DatabaseEmulator database = new DatabaseEmulator(1, options.latencyMs * 1000)) {
+            EmulatorNoteStore deviceA = new EmulatorNoteStore(database, USER);
+            Map<String, Long> remote = seed(deviceA);
+            EmulatorNoteStore deviceB = new EmulatorNoteStore(database, USER);
+            try (LocalNoteRepository first = open(directory, deviceB)) {
+                new NoteTreeReconciler(deviceB, first, new NoteTreePatcher(), Runnable::run).resync(); // login pertama
+            }
+            int changed = change(deviceA, remote, scenario);
+
+            long start = System.nanoTime();
+            try (LocalNoteRepository repository = open(directory, deviceB)) {
+                Map<String, Long> localNotes = repository.localNotes();
+                NoteTree tree = NoteTreeBuilder.build(repository.localFolders(), localNotes);
+                long treeNanos = System.nanoTime() - start;
+                NoteTreePatcher patcher = new NoteTreePatcher(tree, true);
+                NoteTreeReconciler reconciler = new NoteTreeReconciler(deviceB, repository, patcher, Runnable::run);
+                long bytesBefore = database.getStats().getBytesRead();
+                long readsBefore = database.getStats().getReads();
+                NoteTreeReconciler.Result result = merkle ? reconciler.reconcile() : reconciler.resync();
+                long syncedNanos = System.nanoTime() - start;
+                long bytes = database.getStats().getBytesRead() - bytesBefore;
+                long reads = database.getStats().getReads() - readsBefore;
+                reconciler.close();
+                String check = repository.localNotes().equals(remote) && tree.getNoteCount() == remote.size() ? "ok" : "MISMATCH";
+                if (!print) {
+                    return;
+                }
+                double transferMs = bytes * 8.0 / (options.mbps * 1000);
+                System.out.printf(Locale.ROOT, "%-10s %-7s %9d %9.1f %10.1f %10.1f %9.1f %7d %8s   %s%n", scenario,
+                        merkle ? "merkle" : "full", changed, treeNanos / 1e6, syncedNanos / 1e6,
+                        syncedNanos / 1e6 + transferMs, bytes / 1024.0, reads, check, result);
+            }
+        }
+    }
+
+    private static LocalNoteRepository open(Path directory, EmulatorNoteStore remote) {
+        return new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")), remote, new NoteContentCache(CACHE_BYTES));
+    }
+
+    // Perangkat A menulis seluruh notebook; hash tree ikut terbentuk lewat apply, lalu ditandai siap
+    private Map<String, Long> seed(EmulatorNoteStore store) throws Exception {
+        Map<String, Long> stamps = new HashMap<>();
+        List<NoteChange> batch = new ArrayList<>();
+        for (int i = 0; i < notebook.size(); i++) {
+            stamps.put(notebook.notePaths[i], notebook.stamps[i]);
+            batch.add(new NoteChange(NoteChange.Type.PUT, 0, notebook.notePaths[i], notebook.stamps[i], content(i)));
+            if (batch.size() == BATCH) {
+                store.apply(batch).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.apply(batch).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+        }
+        Map<String, Long> hashes = store.fetchHashes().get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+        if (!store.initHashes(hashes, stamps).get(OP_TIMEOUT_S, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Hash tree does not match seeded notes");
+        }
+        return stamps;
+    }
+
+    // Perubahan dari perangkat A spt yang dikirim WriteBehindReplicator (lengkap dgn stamp yang ditimpa)
+    private int change(EmulatorNoteStore store, Map<String, Long> remote, String scenario) throws Exception {
+        int edits = scenario.equals("unchanged") ? 0
+                : scenario.equals("slightly") ? Math.min(options.slight, notebook.size())
+                : notebook.size() * options.heavy / 100;
+        List<String> paths = new ArrayList<>(remote.keySet());
+        Collections.sort(paths);
+        Collections.shuffle(paths, new Random(42));
+        List<NoteChange> changes = new ArrayList<>();
+        for (int i = 0; i < edits; i++) {
+            String path = paths.get(i);
+            Map<String, Long> replaced = Collections.singletonMap(path, remote.get(path));
+            if (scenario.equals("heavily") && i % 10 == 0) {
+                changes.add(new NoteChange(NoteChange.Type.DELETE, 0, path, 0, null, replaced));
+                remote.remove(path);
+            } else {
+                long stamp = remote.get(path) + 1_000_000;
+                changes.add(new NoteChange(NoteChange.Type.PUT, 0, path, stamp, content(i), replaced));
+                remote.put(path, stamp);
+            }
+        }
+        if (scenario.equals("heavily")) {
+            for (int i = 0; i < edits / 10; i++) {
+                String path = "imported/note-" + i;
+                changes.add(new NoteChange(NoteChange.Type.PUT, 0, path, 1_800_000_000_000L + i, content(i)));
+                remote.put(path, 1_800_000_000_000L + i);
+            }
+        }
+        for (int from = 0; from < changes.size(); from += BATCH) {
+            store.apply(changes.subList(from, Math.min(changes.size(), from + BATCH))).get(OP_TIMEOUT_S, TimeUnit.SECONDS);
+        }
+        return changes.size();
+    }
+
+    private static String content(int i) {
+        return "<html><body><p>note " + i + "</p></body></html>";
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static final class Options {
+        int notes = 20_000;
+        int depth = 3;
+        long latencyMs = 20;
+        int slight = 10;
+        int heavy = 30;
+        double mbps = 10;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                String value = args[++i];
+                switch (name) {
+                    case "--notes": options.notes = Integer.parseInt(value); break;
+                    case "--depth": options.depth = Integer.parseInt(value); break;
+                    case "--latency-ms": options.latencyMs = Long.parseLong(value); break;
+                    case "--slight": options.slight = Integer.parseInt(value); break;
+                    case "--heavy": options.heavy = Integer.parseInt(value); break;
+                    case "--mbps": options.mbps = Double.parseDouble(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            return options;
+        }
+    }
+}
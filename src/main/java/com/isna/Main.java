@@ -1,23 +1,61 @@
 package com.isna;
 
+import com.isna.controller.ViewCache;
+import com.isna.service.AttachmentUrlHandler;
+import com.isna.service.Session;
+import com.isna.service.UserManager;
+import com.isna.utility.AppConfig;
 import com.isna.utility.FirebaseUtil;
+import com.isna.utility.Metrics;
+import com.isna.utility.StartupTimeline;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Main extends Application {
+    private static final Logger LOG = LoggerFactory.getLogger(Main.class);
+    private static final long PREWARM_DELAY_MS = 300;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        FirebaseUtil.initializeFirebase(); // Initialize Firebase connection
-        Parent root = FXMLLoader.load(getClass().getResource("/com/isna/view/login.fxml"));
+        StartupTimeline timeline = StartupTimeline.get();
+        timeline.mark(StartupTimeline.FX_TOOLKIT);
+        ViewCache.View login = ViewCache.get(ViewCache.LOGIN);
+        timeline.mark(StartupTimeline.FXML);
         primaryStage.setTitle("Note Taking App");
-        primaryStage.setScene(new Scene(root, 800, 600));
-        primaryStage.show();
+        login.getScene(800, 600); // ukuran awal jendela
+        ViewCache.show(primaryStage, ViewCache.LOGIN);
+        timeline.mark(StartupTimeline.SHOWN);
+        // tampilan utama (HTMLEditor/WebKit) disiapkan selagi user mengetik email & password
+        ViewCache.prewarm(ViewCache.MAIN, PREWARM_DELAY_MS);
+    }
+
+    // Jendela ditutup tanpa logout: edit terakhir tetap tersimpan dan log lokal ditutup rapi
+    @Override
+    public void stop() {
+        Session.closeAll();
     }
 
     public static void main(String[] args) {
+        StartupTimeline timeline = StartupTimeline.get();
+        timeline.mark(StartupTimeline.JVM);
+        AppConfig config = AppConfig.load();
+        Metrics.startReporter(config);
+        AttachmentUrlHandler.install(); // <img src="attachment:..."> di editor
+        // Firebase disiapkan paralel dgn start toolkit & load FXML; login menunggu ready() bila perlu
+        FirebaseUtil.initializeAsync(config).whenComplete((app, error) -> {
+            if (error != null) {
+                LOG.error("Firebase initialization failed: {}", error.getMessage());
+            } else {
+                timeline.mark(StartupTimeline.BACKEND_READY);
+                // sekali per database: index email utk user yang terdaftar sebelum index ada
+                UserManager.migrateEmailIndex().exceptionally(migrationError -> {
+                    LOG.error("Email index migration failed: {}", migrationError.getMessage());
+                    return 0;
+                });
+            }
+        });
         launch(args);
     }
 }
@@ -4,13 +4,17 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.application.Platform;
 import javafx.stage.Stage;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
+import com.isna.service.ThrottledException;
 import com.isna.service.UserManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 
-public class AuthenticationController {
+public class AuthenticationController implements ViewCache.Resettable {
+    private static final Logger LOG = LoggerFactory.getLogger(AuthenticationController.class);
     @FXML private TextField emailField, fullNameField, phoneNumberField;
     @FXML private PasswordField passwordField;
     @FXML private Label statusLabel;
@@ -37,13 +41,15 @@ public class AuthenticationController {
             return;
         }
 
-        UserManager.registerUser(email, password, fullName, phoneNumber, success -> Platform.runLater(() -> {
-            if (success) {
+        UserManager.registerUser(email, password, fullName, phoneNumber).whenComplete((success, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                statusLabel.setText(failureMessage(error, "Registration failed."));
+            } else if (success) {
                 statusLabel.setText("Registration successful.");
                 try {
                     transitionToMainApp(fullName);
                 } catch (IOException e) {
-                    e.printStackTrace();
+                    LOG.error("Failed to load main application view", e);
                     statusLabel.setText("Failed to load main application view.");
                 }
             } else {
@@ -56,14 +62,16 @@ public class AuthenticationController {
     protected void onLoginButtonClick() {
         UserManager.authenticateUser(
                 emailField.getText().trim().toLowerCase(),
-                passwordField.getText(),
-                user -> Platform.runLater(() -> {
-                    if (user != null) {
+                passwordField.getText()
+        ).whenComplete((user, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        statusLabel.setText(failureMessage(error, "Login failed."));
+                    } else if (user != null) {
                         statusLabel.setText("Login successful.");
                         try {
                             transitionToMainApp(user.getFullName()); // Mengirim ID pengguna ke metode transitionToMainApp
                         } catch (IOException e) {
-                            e.printStackTrace();
+                            LOG.error("Failed to load main application view", e);
                             statusLabel.setText("Failed to load main application view.");
                         }
                     } else {
@@ -73,33 +81,50 @@ public class AuthenticationController {
         );
     }
 
-    // Mengalihkan ke tampilan utama aplikasi
+    // Pesan utk kegagalan async: dibatasi (per akun/anggaran hashing), antrian hashing penuh, atau error database
+    private String failureMessage(Throwable error, String fallback) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ThrottledException) {
+            ThrottledException throttled = (ThrottledException) cause;
+            return throttled.getMessage() + ". Try again in " + throttled.getRetryAfterSeconds() + " s.";
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return "Server is busy, please try again in a moment.";
+        }
+        return fallback + " " + cause.getMessage();
+    }
+
+    // Mengalihkan ke tampilan utama aplikasi (biasanya sudah di-prewarm, lihat ViewCache)
     private void transitionToMainApp(String userId) throws IOException { // Menambahkan parameter userId
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/isna/view/main.fxml"));
         Stage stage = (Stage) statusLabel.getScene().getWindow();
-        Scene scene = new Scene(loader.load());
-        MainController mainController = loader.getController(); // Mendapatkan controller dari main.fxml
+        MainController mainController = ViewCache.show(stage, ViewCache.MAIN).getController(); // Mendapatkan controller dari main.fxml
         mainController.setUserId(userId); // Mengatur ID pengguna di MainController
-        stage.setScene(scene);
-        stage.show();
     }
 
     @FXML
     protected void onShowLoginView() throws IOException {
-        changeScene("/com/isna/view/login.fxml");
+        changeScene(ViewCache.LOGIN);
     }
 
     @FXML
     protected void onShowRegisterView() throws IOException {
-        changeScene("/com/isna/view/register.fxml");
+        changeScene(ViewCache.REGISTER);
     }
 
     private void changeScene(String fxmlPath) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath)); // Memuat file FXML
         Stage stage = (Stage) emailField.getScene().getWindow(); // Mendapatkan stage saat ini
-        Scene scene = new Scene(loader.load()); // Membuat scene baru dari file FXML
-        stage.setScene(scene); // Mengatur scene baru
-        stage.show(); // Menampilkan scene
+        ViewCache.show(stage, fxmlPath); // tampilan yang sudah pernah dibuka dipakai ulang
+    }
+
+    // Tampilan dipakai ulang: isian dan pesan dari kunjungan sebelumnya (mis. sebelum logout) dikosongkan
+    @Override
+    public void reset() {
+        for (TextField field : new TextField[]{emailField, passwordField, fullNameField, phoneNumberField}) {
+            if (field != null) { // login.fxml tidak punya field nama & telepon
+                field.clear();
+            }
+        }
+        statusLabel.setText("");
     }
 
     private boolean isValidEmail(String email) {
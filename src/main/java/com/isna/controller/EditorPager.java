@@ -0,0 +1,165 @@
+package com.isna.controller;
+
+import com.isna.utility.HtmlPages;
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import javafx.scene.web.HTMLEditor;
+import javafx.scene.web.WebView;
+
+// Menampilkan note besar di HTMLEditor secara bertahap: halaman pertama (HtmlPages) langsung di-set, sisanya
+// ditambahkan ke akhir <body> satu halaman per pulse setelah halaman pertama selesai dimuat WebView, jadi note
+// berukuran MB tampil dan bisa di-scroll tanpa menunggu seluruh isinya di-parse. Note yang masih diunduh bisa
+// ditampilkan lebih dulu dari awal isinya (preview); show() lalu melanjutkan dari situ tanpa memuat ulang.
+// Selama masih ada halaman tertunda isi editor belum lengkap, jadi isi yang disimpan dibaca lewat html().
+// Semua method dipanggil dari thread FX.
+class EditorPager {
+    static final int PAGE_CHARS = 256 * 1024;
+    private static final LatencyHistogram PAGED_LATENCY = Metrics.latency(Metrics.NOTE_OPEN_PAGED);
+
+    private final HTMLEditor editor;
+    private HtmlPages pages; // null jika tidak ada halaman tertunda
+    private String content; // isi lengkap selama ada halaman tertunda
+    private String shown; // awal isi yang tampil sbg preview; null jika tidak ada
+    private boolean loaded; // halaman pertama (atau preview) sudah dimuat WebView
+    private boolean listening;
+    private long start;
+
+    EditorPager(HTMLEditor editor) {
+        this.editor = editor;
+    }
+
+    // Awal isi note besar yang masih diunduh (mis. chunk pertama): elemen yang sudah lengkap langsung tampil
+    void preview(String head) {
+        int cut = HtmlPages.completeLength(head);
+        if (cut < 0 || !listen()) {
+            return;
+        }
+        pages = null;
+        content = null;
+        shown = head.substring(0, cut);
+        loaded = false;
+        start = System.nanoTime();
+        editor.setHtmlText(shown + "</body></html>");
+    }
+
+    void show(String html) {
+        String prefix = shown;
+        pages = null;
+        content = null;
+        shown = null;
+        if (prefix != null && html.length() > prefix.length() && html.startsWith(prefix)) {
+            HtmlPages rest = new HtmlPages(html, PAGE_CHARS); // lanjutan preview; editan di preview tetap ada
+            rest.skipTo(prefix.length());
+            if (rest.hasNext()) {
+                pages = rest;
+                content = html;
+                if (loaded) {
+                    schedule(rest);
+                }
+            }
+            return;
+        }
+        if (html.length() <= PAGE_CHARS) {
+            editor.setHtmlText(html);
+            return;
+        }
+        HtmlPages split = new HtmlPages(html, PAGE_CHARS);
+        String first = split.next();
+        if (!split.hasNext() || !listen()) {
+            editor.setHtmlText(html);
+            return;
+        }
+        pages = split;
+        content = html;
+        loaded = false;
+        start = System.nanoTime();
+        editor.setHtmlText(first);
+    }
+
+    // Isi editor utk disimpan: halaman yang sudah dimuat (dgn editannya) + sisa yang belum dimuat apa adanya,
+    // jadi autosave tidak memaksa seluruh note masuk ke WebView. Sisa yang sama menghasilkan chunk yang sama
+    // (ChunkedNoteStore), sehingga hanya chunk di bagian yang diedit yang terkirim.
+    String html() {
+        if (pages == null) {
+            return editor.getHtmlText();
+        }
+        if (!loaded) {
+            return content; // halaman pertama belum tampil, jadi belum bisa diedit
+        }
+        String html = editor.getHtmlText();
+        int close = html.lastIndexOf("</body>");
+        return close < 0 ? html + pages.rest() : html.substring(0, close) + pages.rest() + html.substring(close);
+    }
+
+    boolean isLoading() {
+        return pages != null;
+    }
+
+    private boolean listen() {
+        WebView webView = webView();
+        if (webView == null) {
+            return false;
+        }
+        if (!listening) {
+            listening = true;
+            webView.getEngine().getLoadWorker().stateProperty().addListener((observable, old, state) -> {
+                if (state == Worker.State.SUCCEEDED && (pages != null || shown != null) && !loaded) {
+                    loaded = true;
+                    if (pages != null) {
+                        schedule(pages);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    private void schedule(HtmlPages current) {
+        Platform.runLater(() -> {
+            if (pages != current) {
+                return; // note lain sudah dibuka
+            }
+            append(current.next());
+            if (current.hasNext()) {
+                schedule(current);
+            } else {
+                done();
+            }
+        });
+    }
+
+    private void append(String page) {
+        webView().getEngine().executeScript("document.body.insertAdjacentHTML('beforeend'," + jsString(page) + ")");
+    }
+
+    private void done() {
+        if (loaded) {
+            PAGED_LATENCY.recordSince(start);
+        }
+        pages = null;
+        content = null;
+    }
+
+    private WebView webView() {
+        return (WebView) editor.lookup("WebView");
+    }
+
+    private static String jsString(String text) {
+        StringBuilder js = new StringBuilder(text.length() + 16).append('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\'': js.append("\\'"); break;
+                case '\\': js.append("\\\\"); break;
+                case '\n': js.append("\\n"); break;
+                case '\r': js.append("\\r"); break;
+                case '\u2028': js.append("\\u2028"); break;
+                case '\u2029': js.append("\\u2029"); break;
+                default: js.append(c);
+            }
+        }
+        return js.append('\'').toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.isna.controller;
+
+import com.isna.service.NoteHistory;
+import com.isna.utility.HtmlText;
+import com.isna.utility.TextDiff;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.web.WebView;
+import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Panel riwayat satu note: daftar versi, diff (per kata, sbg teks biasa) terhadap versi sebelumnya atau
+// isi note saat ini, dan restore. Restore menyimpan isi lama sbg versi baru, jadi tidak ada yang hilang.
+public class HistoryController {
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryController.class);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    @FXML private ListView<NoteHistory.Version> versionList;
+    @FXML private WebView diffView;
+    @FXML private CheckBox compareCurrentBox;
+    @FXML private Label summaryLabel;
+    @FXML private Button restoreButton;
+    private NoteHistory history;
+    private String path;
+    private Supplier<String> currentContent;
+    private Consumer<String> restore;
+    private String selectedContent; // isi versi yang sedang ditampilkan
+
+    @FXML
+    public void initialize() {
+        versionList.setCellFactory(list -> new ListCell<NoteHistory.Version>() {
+            @Override
+            protected void updateItem(NoteHistory.Version item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : TIME_FORMAT.format(Instant.ofEpochMilli(item.getStamp()))
+                        + "  " + String.format("%.1f KB", item.getChars() / 1024.0));
+            }
+        });
+        versionList.getSelectionModel().selectedItemProperty().addListener((obs, old, version) -> showDiff());
+        compareCurrentBox.selectedProperty().addListener((obs, old, selected) -> showDiff());
+    }
+
+    // currentContent dibaca di thread FX (isi editor); restore dipanggil di thread FX dgn isi versi terpilih
+    public void setNote(NoteHistory history, String path, Supplier<String> currentContent, Consumer<String> restore) {
+        this.history = history;
+        this.path = path;
+        this.currentContent = currentContent;
+        this.restore = restore;
+        history.versions(path).whenComplete((versions, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                summaryLabel.setText("Failed to load history: " + error.getMessage());
+                return;
+            }
+            versionList.getItems().setAll(versions);
+            summaryLabel.setText(versions.isEmpty() ? "No saved versions yet." : versions.size() + " versions");
+            if (!versions.isEmpty()) {
+                versionList.getSelectionModel().select(0);
+            }
+        }));
+    }
+
+    private void showDiff() {
+        NoteHistory.Version version = versionList.getSelectionModel().getSelectedItem();
+        restoreButton.setDisable(true);
+        selectedContent = null;
+        if (version == null) {
+            diffView.getEngine().loadContent("");
+            return;
+        }
+        boolean againstCurrent = compareCurrentBox.isSelected();
+        CompletableFuture<String> base;
+        if (againstCurrent) {
+            base = CompletableFuture.completedFuture(currentContent.get());
+        } else {
+            List<NoteHistory.Version> versions = versionList.getItems();
+            int index = versions.indexOf(version);
+            base = index + 1 < versions.size()
+                    ? history.content(path, versions.get(index + 1).getStamp())
+                    : CompletableFuture.completedFuture("");
+        }
+        history.content(path, version.getStamp()).thenCombine(base, (content, baseContent) -> {
+            // diff dihitung di luar thread FX; yang lama = pembanding, yang baru = versi terpilih
+            List<TextDiff.Edit> edits = againstCurrent
+                    ? TextDiff.diff(plainText(content), plainText(baseContent))
+                    : TextDiff.diff(plainText(baseContent), plainText(content));
+            Platform.runLater(() -> {
+                if (versionList.getSelectionModel().getSelectedItem() != version) {
+                    return; // pilihan sudah berganti
+                }
+                selectedContent = content;
+                diffView.getEngine().loadContent(TextDiff.toHtml(edits));
+                summaryLabel.setText(summary(edits));
+                restoreButton.setDisable(false);
+            });
+            return null;
+        }).exceptionally(error -> {
+            LOG.warn("Cannot show version of '{}': {}", path, error.toString());
+            Platform.runLater(() -> summaryLabel.setText("Cannot read this version."));
+            return null;
+        });
+    }
+
+    private static String plainText(String html) {
+        return HtmlText.toPlainText(html).replaceAll("[ \\t\\x0B\\f\\r]+", " ").trim();
+    }
+
+    private static String summary(List<TextDiff.Edit> edits) {
+        int inserted = 0;
+        int deleted = 0;
+        for (TextDiff.Edit edit : edits) {
+            if (edit.getOp() == TextDiff.Op.INSERT) {
+                inserted += edit.getText().length();
+            } else if (edit.getOp() == TextDiff.Op.DELETE) {
+                deleted += edit.getText().length();
+            }
+        }
+        return edits.size() == 1 && edits.get(0).getOp() == TextDiff.Op.SAME
+                ? "No text changes" : "+" + inserted + " / -" + deleted + " characters";
+    }
+
+    @FXML
+    private void handleRestore() {
+        if (selectedContent == null) {
+            return;
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Restore Version");
+        alert.setHeaderText(null);
+        alert.setContentText("Replace the note with this version? The current text stays in the history.");
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            restore.accept(selectedContent);
+            handleClose();
+        }
+    }
+
+    @FXML
+    private void handleClose() {
+        ((Stage) versionList.getScene().getWindow()).close();
+    }
+}
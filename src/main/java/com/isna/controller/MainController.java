@@ -1,35 +1,132 @@
 package com.isna.controller;
 
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.application.Platform;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.Dragboard;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.TransferMode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.web.HTMLEditor;
+import javafx.scene.web.WebView;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.scene.Scene;
 import javafx.fxml.FXMLLoader;
-import com.google.firebase.database.*;
+import com.isna.model.Note;
+import com.isna.service.AttachmentStore;
+import com.isna.service.AttachmentUrlHandler;
+import com.isna.service.AutoSaver;
+import com.isna.service.FirebaseBlobStore;
+import com.isna.service.FirebaseNoteStore;
+import com.isna.service.LocalNoteRepository;
+import com.isna.service.NoteCodec;
+import com.isna.service.NoteChange;
+import com.isna.service.NoteMetadata;
+import com.isna.service.NoteNode;
+import com.isna.service.NoteTree;
+import com.isna.service.NoteRepository;
+import com.isna.service.NoteTreeBuilder;
+import com.isna.service.NoteTreePatcher;
+import com.isna.service.NoteTreeReconciler;
+import com.isna.service.NotebookExporter;
+import com.isna.service.NotebookImporter;
+import com.isna.service.RemoteNoteIndex;
+import com.isna.service.SearchIndex;
+import com.isna.service.SearchIndexer;
+import com.isna.service.Session;
+import com.isna.service.SmartFolders;
+import com.isna.service.TransferReport;
+import com.isna.utility.AppConfig;
+import com.isna.utility.KeyCodec;
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-public class MainController {
-    @FXML private TreeView<String> treeView;
+public class MainController implements ViewCache.Resettable {
+    @FXML private TreeView<NoteNode> treeView;
     @FXML private HTMLEditor htmlEditor;
     @FXML private Button saveNoteButton;
-    private Map<String, String> notes = new HashMap<>();
+    @FXML private Button historyButton;
+    @FXML private Label saveStatusLabel;
+    @FXML private HBox noteMetadataBar;
+    @FXML private TextField tagsField;
+    @FXML private CheckBox pinnedCheckBox;
+    @FXML private Label noteDatesLabel;
+    @FXML private TextField searchField;
+    @FXML private ListView<SearchIndex.Result> searchResults;
+    @FXML private ToolBar notebookTools;
+    @FXML private Button logoutButton;
+    private static final Logger LOG = LoggerFactory.getLogger(MainController.class);
+    private static final LatencyHistogram TREE_BUILD_LATENCY = Metrics.latency(Metrics.TREE_BUILD);
+    private static final LatencyHistogram TREE_PUBLISH_LATENCY = Metrics.latency(Metrics.TREE_PUBLISH);
+    private static final LatencyHistogram CREATE_LATENCY = Metrics.latency(Metrics.NOTE_CREATE);
+    private static final int SEARCH_LIMIT = 50;
+    private static final int SEARCH_DELAY_MS = 150; // query dijalankan setelah berhenti mengetik selama ini
+    private static final int PREFETCH_SIBLINGS = 4;
+    private static final long TRANSFER_STOP_MS = 2000; // logout menunggu import/export yg dibatalkan selesai
+    private static final int LARGE_NOTEBOOK_NOTES = 10_000; // mode "auto": mulai melepas TreeItem di atas ini
+    private static final String FOLDER_STYLE = "-fx-background-color: lightblue;";
+    private static final String NOTE_STYLE = "";
+    private static final String SMART_FOLDER_STYLE = "-fx-background-color: khaki;";
+    private static final DateTimeFormatter NOTE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+    private static final Pattern IMG_SRC = Pattern.compile("<img\\b[^>]*?\\bsrc\\s*=\\s*([\"'])(.*?)\\1", Pattern.CASE_INSENSITIVE);
     private String userId;
-    private ValueEventListener noteListener;
+    private Session session; // pemilik semua objek milik user yg login; ditutup saat logout
+    private NoteTreePatcher treePatcher;
+    private NoteRepository repository;
+    private AutoSaver autoSaver;
+    private SearchIndexer searchIndexer;
+    private PauseTransition searchDelay;
+    private NoteCodec codec;
+    private SmartFolders smartFolders;
+    private String openNotePath; // note yang sedang tampil di editor
+    private Note openNote; // metadata note yang terbuka; isinya ada di editor
+    private EditorPager editorPager; // note besar dimuat ke editor per halaman
+    private NoteNode draggedNode; // node yang sedang di-drag di tree
 
     // Inisialisasi komponen UI dan event handler
     @FXML
     public void initialize() {
         initializeTreeView();
+        editorPager = new EditorPager(htmlEditor);
         htmlEditor.setVisible(false);
         saveNoteButton.setVisible(false);
+        historyButton.visibleProperty().bind(saveNoteButton.visibleProperty()); // tampil bersama editor
+        noteMetadataBar.visibleProperty().bind(saveNoteButton.visibleProperty());
+        saveStatusLabel.setTooltip(new Tooltip());
+
+        // setiap perubahan di editor menjadwalkan autosave
+        htmlEditor.addEventFilter(KeyEvent.KEY_RELEASED, event -> handleEditorChanged());
+        htmlEditor.addEventFilter(MouseEvent.MOUSE_RELEASED, event -> handleEditorChanged());
+        tagsField.textProperty().addListener((obs, oldText, newText) -> handleMetadataChanged());
+        pinnedCheckBox.selectedProperty().addListener((obs, wasPinned, pinned) -> handleMetadataChanged());
+
+        initializeSearch();
 
         treeView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2) {
@@ -38,6 +135,62 @@ public class MainController {
         });
     }
 
+    // Kotak pencarian: hasil diperbarui setelah teks berhenti berubah sebentar, klik hasil utk membuka note
+    private void initializeSearch() {
+        searchResults.managedProperty().bind(searchResults.visibleProperty());
+        searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MS));
+        searchDelay.setOnFinished(event -> runSearch());
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            if (searchIndexer == null || newText.trim().isEmpty()) {
+                searchDelay.stop();
+                searchResults.setVisible(false);
+                searchResults.getItems().clear();
+                return;
+            }
+            searchDelay.playFromStart();
+        });
+        searchResults.setOnMouseClicked(event -> {
+            SearchIndex.Result result = searchResults.getSelectionModel().getSelectedItem();
+            if (result != null) {
+                openNote(result.getPath());
+            }
+        });
+    }
+
+    // Query dijalankan di luar thread FX (read lock index bisa menunggu worker SearchIndexer yg sedang
+    // menulis); hasil yg sudah usang karena teks berubah lagi atau logout dibuang
+    private void runSearch() {
+        SearchIndexer indexer = searchIndexer;
+        String query = searchField.getText();
+        if (indexer == null || query.trim().isEmpty()) {
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> indexer.getIndex().search(query, SEARCH_LIMIT))
+                .whenComplete((results, error) -> Platform.runLater(() -> {
+                    if (indexer != searchIndexer || !query.equals(searchField.getText())) {
+                        return;
+                    }
+                    if (error != null) {
+                        LOG.error("Search failed for query {}", query, error);
+                        return;
+                    }
+                    searchResults.getItems().setAll(results);
+                    searchResults.setVisible(true);
+                }));
+    }
+
+    // Memilih note di tree berdasarkan path lalu membukanya di editor
+    private void openNote(String path) {
+        NoteNode node = treePatcher.node(path);
+        if (node != null) {
+            TreeItem<NoteNode> item = treePatcher.reveal(node);
+            expandToNode(item);
+            treeView.getSelectionModel().select(item);
+            treeView.scrollTo(treeView.getRow(item));
+            handleTreeViewDoubleClick();
+        }
+    }
+
     // Mengatur ID pengguna dan menginisialisasi listener Firebase
     public void setUserId(String userId) {
         this.userId = userId;
@@ -46,12 +199,9 @@ public class MainController {
 
     // Menyiapkan TreeView dengan root dan cell factory
     private void initializeTreeView() {
-        TreeItem<String> rootItem = new TreeItem<>("Root"); // memubat root item
-        rootItem.setExpanded(true);
-        treeView.setRoot(rootItem);
-        treeView.setShowRoot(false);
+        treeView.setShowRoot(false); // root item dibuat NoteTreePatcher setelah login
 
-        treeView.setCellFactory(tv -> new TreeCell<String>() {
+        treeView.setCellFactory(tv -> new TreeCell<NoteNode>() {
             private final Button deleteButton = new Button("Delete");
             private final HBox hBox = new HBox(); // kontainer horizontal
             private final Label label = new Label();
@@ -61,25 +211,49 @@ public class MainController {
                 label.setMaxWidth(Double.MAX_VALUE);
                 hBox.getChildren().addAll(label, deleteButton);
                 hBox.setAlignment(Pos.CENTER_LEFT);
+
+                // handler dipasang sekali; item yang aktif dibaca saat tombol ditekan
+                deleteButton.setOnAction(event -> confirmAndDelete(getTreeItem()));
+
+                // drag & drop: menjatuhkan item ke folder memindahkan item beserta isinya
+                // root dan smart folder tidak bisa dipindah (path root kosong, smart folder bukan folder sungguhan)
+                setOnDragDetected(event -> {
+                    if (draggable(getItem())) {
+                        Dragboard dragboard = startDragAndDrop(TransferMode.MOVE);
+                        ClipboardContent content = new ClipboardContent();
+                        content.putString(Integer.toString(getItem().getId()));
+                        dragboard.setContent(content);
+                        draggedNode = getItem();
+                        event.consume();
+                    }
+                });
+                setOnDragOver(event -> {
+                    NoteNode target = dropTarget(getItem());
+                    if (draggable(draggedNode) && target != null && target != draggedNode.getParent() && !draggedNode.contains(target)) {
+                        event.acceptTransferModes(TransferMode.MOVE);
+                    }
+                    event.consume();
+                });
+                setOnDragDropped(event -> {
+                    NoteNode target = dropTarget(getItem());
+                    event.setDropCompleted(draggable(draggedNode) && target != null && moveNode(draggedNode, target));
+                    draggedNode = null;
+                    event.consume();
+                });
             }
 
+            // Tanpa alokasi: judul di-cache di NoteNode, style berupa konstanta dan selalu di-set ulang
+            // karena cell dipakai ulang utk item lain
             @Override
-            protected void updateItem(String item, boolean empty) {
+            protected void updateItem(NoteNode item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) { // Memeriksa apakah item kosong
                     setText(null);
                     setGraphic(null);
                 } else {
-                    label.setText(item); // mengatur teks label sesuai dgn item
-                    if (getTreeItem() != null && !getTreeItem().isLeaf()) {  // memeriska apkh item bkn node
-                        label.setStyle("-fx-background-color: lightblue;");
-                    }
-
-                    // event handler utk tombol hapus
-                    deleteButton.setOnAction(event -> {
-                        TreeItem<String> currentItem = getTreeItem(); // mendapatkan item saat ini
-                        confirmAndDelete(currentItem);
-                    });
+                    label.setText(item.getTitle()); // mengatur teks label sesuai dgn judul node
+                    boolean smart = smartFolders != null && smartFolders.isSmartFolder(item);
+                    label.setStyle(smart ? SMART_FOLDER_STYLE : item.isFolder() ? FOLDER_STYLE : NOTE_STYLE);
                     setGraphic(hBox);
                     setText(null);
                 }
@@ -87,110 +261,274 @@ public class MainController {
         });
     }
 
+    private boolean draggable(NoteNode node) {
+        return node != null && !node.isRoot() && (smartFolders == null || !smartFolders.isSmartFolder(node));
+    }
+
+    // Membuka sesi user, membangun tree dari penyimpanan lokal di background, lalu memasang sinkronisasi
+    // inkremental: hanya subtree yang hashnya berbeda yang diunduh dan hanya item yang berubah yang di-patch
     private void initializeFirebaseListener() {
-        DatabaseReference ref = FirebaseDatabase.getInstance().getReference("notes").child(userId);
-        noteListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                notes.clear(); // membersihkan catatan lokal
-                treeView.getRoot().getChildren().clear(); // membersihkan treeview
-                for (DataSnapshot noteSnapshot : dataSnapshot.getChildren()) {
-                    String title = noteSnapshot.getKey(); // dpt judul note
-                    if (noteSnapshot.hasChildren()) { // apkh node adl folder
-                        TreeItem<String> folderItem = new TreeItem<>(title);
-                        treeView.getRoot().getChildren().add(folderItem); // menambahkan sub item ke folder
-                        addSubItems(folderItem, noteSnapshot);
-                    } else {
-                        String content = noteSnapshot.getValue(String.class); // mendapat konten note
-                        notes.put(title, content);
-                        TreeItem<String> noteItem = new TreeItem<>(title);
-                        treeView.getRoot().getChildren().add(noteItem); // nambah catatan ke root
-                    }
-                }
-            }
+        // notetaking.storage.compress=false: isi hanya di-minify; note terkompres tetap bisa dibaca
+        codec = new NoteCodec(Boolean.parseBoolean(AppConfig.load().get(AppConfig.STORAGE_COMPRESS, "true")));
+        FirebaseNoteStore notes = new FirebaseNoteStore(userId);
+        session = new Session(userId, Session.defaultDirectory(userId), notes,
+                new FirebaseBlobStore(userId), codec, Platform::runLater, this::noteSaved);
+        AttachmentUrlHandler.setStore(session.getAttachments());
+        session.onClose(() -> AttachmentUrlHandler.setStore(null));
+        repository = session.getRepository();
+        autoSaver = session.getAutoSaver();
+        searchIndexer = session.getSearchIndexer();
+        loadLocalTree(notes);
+    }
 
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                System.err.println("Failed to read data: " + databaseError.getCode());
+    // Tree dibangun paralel di luar thread FX (NoteTreeBuilder) dan diserahkan dgn satu runLater; sampai
+    // itu tombol notebook dinonaktifkan. Thread FX hanya memasang root (anak TreeItem dibuat saat dibuka).
+    // Sync baru dipasang setelahnya, jadi semua perubahan remote diterapkan ke tree yang sudah tampil.
+    private void loadLocalTree(RemoteNoteIndex noteIndex) {
+        Session current = session;
+        LocalNoteRepository localRepository = current.getRepository();
+        setNotebookLoading(true);
+        long buildStart = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> {
+            Map<String, Long> localNotes = localRepository.localNotes();
+            NoteTree tree = NoteTreeBuilder.build(localRepository.localFolders(), localNotes);
+            localNotes.forEach(current.getSearchIndexer()::noteUpdated); // index pencarian diisi di worker-nya
+            return tree;
+        }).whenComplete((tree, error) -> Platform.runLater(() -> {
+            if (current.isClosed()) {
+                return; // logout sebelum tree selesai
             }
-        };
-        ref.addValueEventListener(noteListener); // nambahin listener ke referensi firebase
-    }
-
-    // Menambah sub-item ke parent item di TreeView
-    private void addSubItems(TreeItem<String> parent, DataSnapshot snapshot) {
-        for (DataSnapshot childSnapshot : snapshot.getChildren()) {
-            String childTitle = childSnapshot.getKey();
-            if (childSnapshot.hasChildren()) { // apkh sub note adl folder
-                TreeItem<String> subFolder = new TreeItem<>(childTitle);
-                parent.getChildren().add(subFolder);
-                addSubItems(subFolder, childSnapshot); // Rekursif menambah sub-item
-            } else {
-                String content = childSnapshot.getValue(String.class); // mendapatkan konten
-                notes.put(getFullPath(parent) + "/" + childTitle, content);
-                TreeItem<String> noteItem = new TreeItem<>(childTitle);
-                parent.getChildren().add(noteItem);
+            long publishStart = System.nanoTime();
+            if (error != null) {
+                LOG.error("Failed to build note tree from local store", error);
             }
+            publishTree(error == null ? tree : new NoteTree(), noteIndex);
+            TREE_PUBLISH_LATENCY.recordSince(publishStart);
+            TREE_BUILD_LATENCY.recordSince(buildStart);
+        }));
+    }
+
+    private void publishTree(NoteTree tree, RemoteNoteIndex noteIndex) {
+        treePatcher = new NoteTreePatcher(tree, isLargeNotebook(tree.getNoteCount()));
+        treePatcher.setListener(searchIndexer); // index pencarian ikut berubah setiap ada perubahan note
+        treeView.setRoot(treePatcher.getRootItem());
+        setNotebookLoading(false);
+        registerGauges();
+        smartFolders = session.own(new SmartFolders(searchIndexer.getQueryIndex(), treePatcher,
+                Session.defaultDirectory(userId).resolve("smart-folders.txt"), Platform::runLater));
+        smartFolders.start();
+        NoteTreeReconciler reconciler = session.own(new NoteTreeReconciler(noteIndex, session.getRepository(),
+                treePatcher, Platform::runLater));
+        reconciler.start();
+    }
+
+    // Selama tree dimuat hanya logout yang bisa dipakai
+    private void setNotebookLoading(boolean loading) {
+        for (Node tool : notebookTools.getItems()) {
+            tool.setDisable(loading && tool != logoutButton);
+        }
+        searchField.setDisable(loading);
+        saveStatusLabel.setText(loading ? "Loading notes..." : "");
+    }
+
+    // Gauge membaca objek sesi ini; di-nol-kan saat sesi ditutup
+    private void registerGauges() {
+        NoteTree tree = treePatcher.getTree();
+        LocalNoteRepository localRepository = session.getRepository();
+        session.gauge(Metrics.NOTES, tree::getNoteCount);
+        session.gauge(Metrics.FOLDERS, tree::getFolderCount);
+        session.gauge(Metrics.REPLICATION_PENDING, localRepository::pendingReplication);
+        session.gauge(Metrics.CACHE_BYTES, localRepository.getCache()::getCurrentBytes);
+        session.gauge(Metrics.HISTORY_BYTES, localRepository.getHistory()::sizeBytes);
+        session.gauge(Metrics.ATTACHMENT_BYTES, localRepository.getAttachments()::sizeBytes);
+    }
+
+    // notetaking.tree.largeNotebook = true/false/auto (default auto: berdasarkan jumlah note lokal)
+    private static boolean isLargeNotebook(int noteCount) {
+        String mode = AppConfig.load().get(AppConfig.TREE_LARGE_NOTEBOOK, "auto");
+        return mode.equalsIgnoreCase("auto") ? noteCount >= LARGE_NOTEBOOK_NOTES : Boolean.parseBoolean(mode);
+    }
+
+    private void handleEditorChanged() {
+        if (openNotePath != null) {
+            autoSaver.edited(openNotePath, this::editorContent);
         }
     }
 
+    // Tag/pinned diubah: disimpan lewat autosave bersama isi editor
+    private void handleMetadataChanged() {
+        if (openNotePath == null || openNote == null) {
+            return;
+        }
+        List<String> tags = NoteMetadata.parseTags(tagsField.getText());
+        if (tags.equals(openNote.getTags()) && pinnedCheckBox.isSelected() == openNote.isPinned()) {
+            return; // mis. kotak tag diisi ulang saat note dibuka
+        }
+        openNote.setTags(tags);
+        openNote.setPinned(pinnedCheckBox.isSelected());
+        autoSaver.edited(openNotePath, this::editorContent);
+    }
+
+    // Isi yang disimpan: header metadata + HTML editor (halaman yang belum dimuat disertakan apa adanya)
+    private String editorContent() {
+        String html = editorPager.html();
+        return openNote == null ? html : NoteMetadata.header(openNote) + html;
+    }
+
+    // Menampilkan note di editor (isi tanpa header) dan metadatanya di atas editor
+    private void showNote(Note note) {
+        openNote = note;
+        editorPager.show(note.getContent() == null ? "" : note.getContent());
+        tagsField.setText(String.join(" ", note.getTags()));
+        pinnedCheckBox.setSelected(note.isPinned());
+        showNoteDates();
+    }
+
+    private void showNoteDates() {
+        noteDatesLabel.setText("Created " + NOTE_DATE.format(Instant.ofEpochMilli(openNote.getCreated()))
+                + "  Modified " + NOTE_DATE.format(Instant.ofEpochMilli(openNote.getModified())));
+    }
+
+    // Dipanggil setelah note tersimpan lokal (manual maupun autosave)
+    private void noteSaved(String path, long stamp, String content) {
+        if (path.equals(openNotePath) && content.contains("src=\"data:")) {
+            replaceInlineImages(path, stamp);
+        }
+        searchIndexer.indexNow(path, stamp, content);
+        if (path.equals(openNotePath) && openNote != null) {
+            openNote.setModified(stamp);
+            showNoteDates();
+        }
+        NoteNode note = treePatcher.node(path);
+        if (note != null && !note.isFolder()) {
+            treePatcher.noteChanged(note, stamp);
+        }
+        saveStatusLabel.setText("Saved " + LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+        saveStatusLabel.getTooltip().setText(autoSaver.getStats() + "\n" + codec + "\n" + session.getChunkedStore());
+    }
+
+    // Gambar data URI di editor diganti referensi lampiran yang baru disimpan, langsung di DOM (kursor dan
+    // undo tidak terganggu), supaya editor tidak lagi memegang dan mengirim ulang base64-nya setiap simpan.
+    // Urutan <img> di HTML tersimpan sama dgn di DOM; jika jumlahnya berbeda, DOM dibiarkan.
+    private void replaceInlineImages(String path, long stamp) {
+        WebView webView = (WebView) htmlEditor.lookup("WebView");
+        Session current = session;
+        repository.loadNote(path, stamp).thenAccept(stored -> Platform.runLater(() -> {
+            if (webView == null || current.isClosed() || !path.equals(openNotePath)) {
+                return;
+            }
+            StringBuilder sources = new StringBuilder("[");
+            Matcher img = IMG_SRC.matcher(stored);
+            while (img.find()) {
+                String src = img.group(2);
+                sources.append(sources.length() > 1 ? "," : "")
+                        .append(src.startsWith(AttachmentStore.SCHEME) ? "'" + src.replaceAll("[^A-Za-z0-9:.]", "") + "'" : "null");
+            }
+            webView.getEngine().executeScript("(function(refs){var imgs=document.getElementsByTagName('img');"
+                    + "if(imgs.length!==refs.length)return;for(var i=0;i<imgs.length;i++){"
+                    + "if(refs[i]&&imgs[i].getAttribute('src').lastIndexOf('data:',0)===0)imgs[i].setAttribute('src',refs[i]);}})("
+                    + sources.append("])"));
+        }));
+    }
+
     @FXML
     private void handleSaveNote() {
-        TreeItem<String> selectedNote = treeView.getSelectionModel().getSelectedItem();
+        TreeItem<NoteNode> selectedNote = treeView.getSelectionModel().getSelectedItem();
         if (selectedNote != null && selectedNote.getParent() != null) { // apkh note valid
-            String noteContent = htmlEditor.getHtmlText(); // ambil konten dr htmleditor
-            notes.put(getFullPath(selectedNote), noteContent);
+            String noteContent = editorContent(); // ambil konten dr htmleditor beserta metadata
+            String fullPath = selectedNote.getValue().getPath();
 
-            // nyimpan ke firebase
-            DatabaseReference noteRef = FirebaseDatabase.getInstance().getReference("notes").child(userId).child(getFullPath(selectedNote));
-            noteRef.setValue(noteContent, (databaseError, databaseReference) -> {
-                Platform.runLater(() -> {
-                    if (databaseError == null) {
-                        showAlert("Save Note", "Note '" + selectedNote.getValue() + "' successfully saved.");
-                        expandToNode(selectedNote);
-                    } else {
-                        showAlert("Save Note", "Failed to save note: " + databaseError.getMessage());
-                    }
-                });
-            });
+            // commit lokal; replikasi ke firebase berjalan di belakang
+            autoSaver.saveNow(fullPath, noteContent);
+            showAlert("Save Note", "Note '" + selectedNote.getValue().getTitle() + "' successfully saved.");
+            expandToNode(selectedNote);
         }
     }
 
+    // Riwayat versi note yang sedang dibuka; restore menyimpan isi lama sbg versi terbaru
+    @FXML
+    private void handleHistory() throws IOException {
+        if (openNotePath == null) {
+            return;
+        }
+        autoSaver.flushAll(); // edit terakhir masuk riwayat dulu
+        String path = openNotePath;
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/isna/view/history.fxml"));
+        Stage stage = new Stage();
+        stage.setScene(new Scene(loader.load()));
+        stage.setTitle("History - " + KeyCodec.decode(path.substring(path.lastIndexOf('/') + 1)));
+        stage.initOwner(treeView.getScene().getWindow());
+        HistoryController controller = loader.getController();
+        controller.setNote(((LocalNoteRepository) repository).getHistory(), path, this::editorContent, content -> {
+            if (path.equals(openNotePath)) {
+                showNote(NoteMetadata.read(path, openNote.getModified(), content));
+            }
+            autoSaver.saveNow(path, content);
+        });
+        stage.show();
+    }
+
     @FXML
     private void handleNewFolder() {
-        TreeItem<String> selectedItem = treeView.getSelectionModel().getSelectedItem();
+        TreeItem<NoteNode> selectedItem = treeView.getSelectionModel().getSelectedItem();
         TextInputDialog dialog = new TextInputDialog("Folder Name");
         dialog.setTitle("New Folder");
         dialog.setHeaderText("Enter the name for the new folder:");
         Optional<String> result = dialog.showAndWait();
         result.ifPresent(name -> { // jika nama terisi
             if (!name.trim().isEmpty()) { // jk nama tidak kosong
-                TreeItem<String> newFolder = new TreeItem<>(name);
-                if (selectedItem == null || selectedItem.getValue().equals("Root")) { // jika gakda root dipilih
-                    treeView.getRoot().getChildren().add(newFolder); // nambah folder di root
-                } else if (!selectedItem.isLeaf() || selectedItem.getParent() != null) { // jika node (leaf)
-                    selectedItem.getChildren().add(newFolder);
+                String key = KeyCodec.encode(name); // judul boleh berisi '/', '.', dst
+                NoteNode parent;
+                if (selectedItem == null || selectedItem.getValue().isRoot()) { // jika gakda root dipilih
+                    parent = treePatcher.getTree().getRoot(); // nambah folder di root
+                } else if (selectedItem.getValue().isFolder()) {
+                    parent = selectedItem.getValue();
                     selectedItem.setExpanded(true);
                 } else {
-                    selectedItem.getParent().getChildren().add(newFolder);
+                    parent = selectedItem.getValue().getParent();
                 }
-                treeView.getSelectionModel().select(newFolder);
+                NoteNode existing = parent.child(key);
+                if (existing != null && !existing.isFolder()) {
+                    showAlert("Error", "A note named '" + name + "' already exists here.");
+                    return;
+                }
+                NoteNode newFolder = treePatcher.folderAdded(parent.getPath(), key);
+                treeView.getSelectionModel().select(treePatcher.reveal(newFolder));
+                repository.createFolder(newFolder.getPath()); // simpan folder
+            }
+        });
+    }
 
-                // Simpan folder ke Firebase
-                DatabaseReference folderRef = FirebaseDatabase.getInstance().getReference("notes").child(userId).child(getFullPath(newFolder));
-                folderRef.setValue(new HashMap<String, Object>(), (databaseError, databaseReference) -> {
-                    if (databaseError != null) {
-                        showAlert("Error", "Failed to save folder: " + databaseError.getMessage());
-                    }
-                });
+    // Smart folder: nama lalu filter (lihat NoteQuery); hasilnya tampil sbg folder virtual di atas tree
+    @FXML
+    private void handleNewSmartFolder() {
+        TextInputDialog nameDialog = new TextInputDialog("Smart Folder");
+        nameDialog.setTitle("New Smart Folder");
+        nameDialog.setHeaderText("Enter the name for the new smart folder:");
+        Optional<String> name = nameDialog.showAndWait().filter(n -> !n.trim().isEmpty());
+        if (!name.isPresent()) {
+            return;
+        }
+        TextInputDialog queryDialog = new TextInputDialog("tag:work AND modified:7d");
+        queryDialog.setTitle("New Smart Folder");
+        queryDialog.setHeaderText("Filter: tag:name or #name, pinned, modified:7d, created>2024-05-01,\n"
+                + "combined with AND, OR, NOT and parentheses. Tags in use: "
+                + String.join(" ", searchIndexer.getQueryIndex().tagCounts().keySet()));
+        queryDialog.showAndWait().ifPresent(query -> {
+            try {
+                NoteNode folder = smartFolders.add(name.get(), query);
+                treeView.getSelectionModel().select(folder.getItem());
+            } catch (IllegalArgumentException e) {
+                showAlert("Error", "Invalid filter: " + e.getMessage());
             }
         });
     }
 
     @FXML
     private void handleNewNote() {
-        TreeItem<String> selectedFolder = treeView.getSelectionModel().getSelectedItem();
-        if (selectedFolder == null || (selectedFolder.isLeaf() && (selectedFolder.getParent() == null || selectedFolder.getParent().getValue().equals("Root")))) {
+        TreeItem<NoteNode> selectedFolder = treeView.getSelectionModel().getSelectedItem();
+        if (selectedFolder == null || smartFolders.isSmartFolder(selectedFolder.getValue())
+                || (!selectedFolder.getValue().isFolder() && selectedFolder.getValue().getParent().isRoot())) {
             showAlert("Error", "Please select a folder or note to add a new note.");
             return;
         }
@@ -200,58 +538,317 @@ public class MainController {
         Optional<String> result = dialog.showAndWait();
         result.ifPresent(title -> {
             if (!title.trim().isEmpty()) {
-                TreeItem<String> newNote = new TreeItem<>(title);
-                if (selectedFolder.isLeaf() && selectedFolder.getParent() != null && !selectedFolder.getParent().getValue().equals("Root")) {
-                    selectedFolder.getParent().getChildren().add(newNote); // nabah note ke parent dr folder
+                NoteNode parent;
+                if (!selectedFolder.getValue().isFolder()) {
+                    parent = selectedFolder.getValue().getParent(); // nabah note ke parent dr folder
                 } else {
-                    selectedFolder.getChildren().add(newNote); // nmbah note ke folder yg dipilih
+                    parent = selectedFolder.getValue(); // nmbah note ke folder yg dipilih
+                }
+                String key = KeyCodec.encode(title);
+                if (parent.child(key) != null) { // jangan menimpa note/folder yg sudah ada
+                    showAlert("Error", "'" + title + "' already exists in this folder.");
+                    return;
                 }
-                selectedFolder.setExpanded(true);
-                treeView.getSelectionModel().select(newNote); // memilih note baru
-                notes.put(getFullPath(newNote), "");
+                autoSaver.flushAll(); // simpan note yg sedang dibuka sebelum editor dikosongkan
+                long start = System.nanoTime();
+                String parentPath = parent.getPath();
+                String notePath = NoteTreePatcher.childPath(parentPath, key);
+                Note note = new Note(title, "");
+                note.setCreated(System.currentTimeMillis());
+                String content = NoteMetadata.write(note);
+                long stamp = repository.saveNote(notePath, content); // simpan catatan
+                NoteNode newNote = treePatcher.noteAdded(parentPath, key, stamp);
+                CREATE_LATENCY.recordSince(start);
+                treeView.getSelectionModel().select(treePatcher.reveal(newNote)); // memilih note baru
 
-                htmlEditor.setHtmlText("");
+                note.setModified(stamp);
+                showNote(note);
                 htmlEditor.setVisible(true);
                 saveNoteButton.setVisible(true);
+                openNotePath = notePath;
+                autoSaver.markSaved(notePath, content);
+            }
+        });
+    }
+
+    // Import direktori/zip ke folder yang dipilih (atau root). Berjalan di thread sendiri dan di-commit lokal spt
+    // simpan biasa (jalan juga offline); note muncul di tree setiap satu batch selesai.
+    @FXML
+    private void handleImport() {
+        ButtonType folderButton = new ButtonType("Folder");
+        ButtonType zipButton = new ButtonType("Zip File");
+        Alert choice = new Alert(Alert.AlertType.CONFIRMATION, "Import notes from a folder or a zip file of "
+                + "HTML, Markdown and text files.", folderButton, zipButton, ButtonType.CANCEL);
+        choice.setTitle("Import");
+        choice.setHeaderText(null);
+        Optional<ButtonType> answer = choice.showAndWait();
+        if (!answer.isPresent() || answer.get() == ButtonType.CANCEL) {
+            return;
+        }
+        Stage stage = (Stage) treeView.getScene().getWindow();
+        File source;
+        if (answer.get() == folderButton) {
+            source = new DirectoryChooser().showDialog(stage);
+        } else {
+            FileChooser chooser = new FileChooser();
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Zip files", "*.zip"));
+            source = chooser.showOpenDialog(stage);
+        }
+        if (source == null) {
+            return;
+        }
+        NoteNode parent = selectedFolder();
+        Set<String> taken = new HashSet<>(); // dibaca di thread import, jadi disalin di sini
+        for (NoteNode child : parent.getChildren()) {
+            taken.add(child.getPath());
+        }
+        NotebookImporter importer = new NotebookImporter(repository,
+                report -> Platform.runLater(() -> saveStatusLabel.setText("Importing: " + progressText(report))),
+                changes -> Platform.runLater(() -> showImported(changes)));
+        runTransfer("notebook-import", "Import", () -> importer.importInto(source.toPath(), parent.getPath(), taken::contains));
+    }
+
+    private void showImported(List<NoteChange> changes) {
+        if (treePatcher == null) {
+            return; // sudah logout; note tetap ada di log lokal
+        }
+        for (NoteChange change : changes) {
+            if (change.getType() == NoteChange.Type.FOLDER) {
+                treePatcher.ensureFolder(change.getPath());
+            } else {
+                String path = change.getPath();
+                int slash = path.lastIndexOf('/');
+                String parentPath = slash < 0 ? "" : path.substring(0, slash);
+                treePatcher.ensureFolder(parentPath);
+                treePatcher.noteChanged(parentPath, path.substring(slash + 1), change.getStamp());
+            }
+        }
+    }
 
-                // Simpan catatan ke Firebase
-                DatabaseReference noteRef = FirebaseDatabase.getInstance().getReference("notes").child(userId).child(getFullPath(newNote));
-                noteRef.setValue("", (databaseError, databaseReference) -> {
-                    if (databaseError != null) {
-                        showAlert("Error", "Failed to save note: " + databaseError.getMessage());
+    // Export folder yang dipilih, atau seluruh notebook jika tidak ada yang dipilih, ke file zip
+    @FXML
+    private void handleExport() {
+        NoteNode folder = selectedFolder();
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Zip files", "*.zip"));
+        chooser.setInitialFileName((folder.isRoot() ? "notebook" : folder.getTitle()) + ".zip");
+        File target = chooser.showSaveDialog(treeView.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+        autoSaver.flushAll(); // edit yang belum tersimpan ikut ter-export
+        NotebookExporter exporter = new NotebookExporter(repository,
+                report -> Platform.runLater(() -> saveStatusLabel.setText("Exporting: " + progressText(report))));
+        exporter.setAttachments(((LocalNoteRepository) repository).getAttachments());
+        runTransfer("notebook-export", "Export", () -> exporter.export(folder.getPath(), target.toPath()));
+    }
+
+    private interface Transfer {
+        TransferReport run() throws IOException;
+    }
+
+    // Thread transfer milik sesi: logout membatalkannya (interrupt) dan menunggu sebentar sebelum store ditutup
+    private void runTransfer(String threadName, String title, Transfer transfer) {
+        Session current = session;
+        Thread thread = new Thread(() -> {
+            try {
+                TransferReport report = transfer.run();
+                Platform.runLater(() -> {
+                    if (!current.isClosed()) {
+                        saveStatusLabel.setText(title + " finished");
+                        showAlert(title, title + " finished: " + report);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                LOG.error("{} failed", title, e);
+                Platform.runLater(() -> {
+                    if (!current.isClosed()) {
+                        saveStatusLabel.setText(title + " failed");
+                        showAlert("Error", title + " failed: " + e.getMessage());
                     }
                 });
             }
+        }, threadName);
+        thread.setDaemon(true);
+        current.own(() -> {
+            thread.interrupt();
+            thread.join(TRANSFER_STOP_MS);
         });
+        thread.start();
+    }
+
+    private static String progressText(TransferReport report) {
+        return String.format("%d notes, %.1f MB/s", report.getNotes(), report.getMegabytesPerSecond());
+    }
+
+    // Folder yang dipilih di tree, folder induk jika yang dipilih note, atau root
+    private NoteNode selectedFolder() {
+        TreeItem<NoteNode> selectedItem = treeView.getSelectionModel().getSelectedItem();
+        if (selectedItem == null) {
+            return treePatcher.getTree().getRoot();
+        }
+        NoteNode node = selectedItem.getValue();
+        return node.isFolder() || node.isRoot() ? node : node.getParent();
     }
 
     private void handleTreeViewDoubleClick() {
-        TreeItem<String> selectedItem = treeView.getSelectionModel().getSelectedItem();
-        if (selectedItem != null && !selectedItem.getValue().equals("Root")) {
-            String fullPath = getFullPath(selectedItem);
-            if (notes.containsKey(fullPath)) { // apkh note sdh ada di treeview
-                htmlEditor.setHtmlText(notes.get(fullPath));
-                htmlEditor.setVisible(true);
-                saveNoteButton.setVisible(true);
+        TreeItem<NoteNode> selectedItem = treeView.getSelectionModel().getSelectedItem();
+        autoSaver.flushAll(); // simpan note sebelumnya sebelum editor berganti isi
+        openNotePath = null;
+        openNote = null;
+        if (selectedItem != null && !selectedItem.getValue().isRoot()) {
+            NoteNode note = selectedItem.getValue();
+            String fullPath = note.getPath();
+            if (!note.isFolder()) { // apkh note (bukan folder)
+                // isi note dimuat sesuai kebutuhan; tampilkan hanya jika note masih yg dipilih di sesi yg sama
+                Session current = session;
+                Consumer<String> head = part -> Platform.runLater(() -> { // note besar: awalnya tampil lebih dulu
+                    if (!current.isClosed() && treeView.getSelectionModel().getSelectedItem() == selectedItem
+                            && openNotePath == null) {
+                        editorPager.preview(NoteMetadata.body(part));
+                        htmlEditor.setVisible(true);
+                    }
+                });
+                repository.loadNote(fullPath, note.getStamp(), head).thenAccept(content -> Platform.runLater(() -> {
+                    if (!current.isClosed() && treeView.getSelectionModel().getSelectedItem() == selectedItem) {
+                        showNote(NoteMetadata.read(fullPath, note.getStamp(), content));
+                        htmlEditor.setVisible(true);
+                        saveNoteButton.setVisible(true);
+                        openNotePath = fullPath;
+                        autoSaver.markSaved(fullPath, content);
+                    }
+                }));
+                prefetchSiblings(selectedItem);
             } else {
-                htmlEditor.setHtmlText("");
+                editorPager.show("");
                 htmlEditor.setVisible(false);
                 saveNoteButton.setVisible(false);
             }
         } else {
-            htmlEditor.setHtmlText("");
+            editorPager.show("");
             htmlEditor.setVisible(false);
             saveNoteButton.setVisible(false);
         }
     }
 
+    // Memuat lebih dulu note di sekitar note yang dibuka
+    private void prefetchSiblings(TreeItem<NoteNode> item) {
+        NoteNode parent = item.getValue().getParent();
+        if (parent == null) {
+            return;
+        }
+        List<NoteNode> siblings = parent.getChildren();
+        int index = siblings.indexOf(item.getValue());
+        int from = Math.max(0, index - PREFETCH_SIBLINGS);
+        int to = Math.min(siblings.size(), index + PREFETCH_SIBLINGS + 1);
+        for (int i = from; i < to; i++) {
+            NoteNode sibling = siblings.get(i);
+            if (i != index && !sibling.isFolder()) {
+                repository.prefetch(sibling.getPath(), sibling.getStamp());
+            }
+        }
+    }
+
+    @FXML
+    private void handleRename() {
+        TreeItem<NoteNode> selectedItem = treeView.getSelectionModel().getSelectedItem();
+        if (selectedItem == null || selectedItem.getValue().isRoot()) {
+            showAlert("Error", "Please select a folder or note to rename.");
+            return;
+        }
+        NoteNode node = selectedItem.getValue();
+        TextInputDialog dialog = new TextInputDialog(node.getTitle());
+        dialog.setTitle("Rename");
+        dialog.setHeaderText("Enter the new name:");
+        Optional<String> result = dialog.showAndWait();
+        result.ifPresent(title -> {
+            String key = KeyCodec.encode(title);
+            if (title.trim().isEmpty() || key.equals(node.getKey())) {
+                return;
+            }
+            if (node.getParent().child(key) != null) {
+                showAlert("Error", "'" + title + "' already exists in this folder.");
+                return;
+            }
+            relocate(node, () -> treePatcher.rename(node, key));
+        });
+    }
+
+    // Folder tujuan saat item dijatuhkan ke sebuah cell: folder itu sendiri atau folder induk note
+    private NoteNode dropTarget(NoteNode node) {
+        if (node == null) {
+            return treePatcher.getTree().getRoot();
+        }
+        return node.isFolder() ? node : node.getParent();
+    }
+
+    private boolean moveNode(NoteNode node, NoteNode newParent) {
+        if (newParent == node.getParent() || node.contains(newParent)) {
+            return false;
+        }
+        if (newParent.child(node.getKey()) != null) {
+            showAlert("Error", "'" + node.getTitle() + "' already exists in '" + newParent.getTitle() + "'.");
+            return false;
+        }
+        relocate(node, () -> treePatcher.move(node, newParent));
+        treePatcher.reveal(newParent).setExpanded(true);
+        return true;
+    }
+
+    // Rename/move satu operasi: data dipindah di repository lalu subtree dipindah di tree
+    private void relocate(NoteNode node, Runnable treeChange) {
+        autoSaver.flushAll(); // edit yg menunggu harus tersimpan di path lama dulu
+        String oldPath = node.getPath();
+        treeChange.run();
+        String newPath = node.getPath();
+        autoSaver.forget(oldPath);
+        repository.move(oldPath, newPath).exceptionally(error -> {
+            LOG.error("Failed to move '{}': {}", oldPath, error.getMessage());
+            return null;
+        });
+        if (openNotePath != null && (openNotePath.equals(oldPath) || openNotePath.startsWith(oldPath + "/"))) {
+            openNotePath = newPath + openNotePath.substring(oldPath.length());
+            autoSaver.markSaved(openNotePath, editorContent());
+        }
+        treeView.refresh();
+        treeView.getSelectionModel().select(treePatcher.reveal(node));
+    }
+
     @FXML
     private void handleLogout() throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/isna/view/login.fxml"));
         Stage stage = (Stage) treeView.getScene().getWindow();
-        Scene scene = new Scene(loader.load());
-        stage.setScene(scene);
-        stage.show();
+        ViewCache.show(stage, ViewCache.LOGIN); // tampilan ini (dgn HTMLEditor-nya) disimpan utk login berikutnya
+        reset(); // sesi ditutup; isi note & tree tidak ditahan selama tampilan menunggu di cache
+    }
+
+    // Tampilan dipakai ulang utk login berikutnya: sesi sebelumnya ditutup dulu (edit terakhir masih dibaca
+    // dari editor), lalu semua referensi ke objek sesi dilepas supaya bisa di-GC
+    @Override
+    public void reset() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+        treePatcher = null;
+        repository = null;
+        autoSaver = null;
+        searchIndexer = null;
+        codec = null;
+        smartFolders = null;
+        openNotePath = null;
+        openNote = null;
+        draggedNode = null;
+        searchField.clear();
+        searchResults.getItems().clear();
+        searchResults.setVisible(false);
+        tagsField.clear();
+        pinnedCheckBox.setSelected(false);
+        treeView.setRoot(null);
+        editorPager.show("");
+        htmlEditor.setVisible(false);
+        saveNoteButton.setVisible(false);
+        setNotebookLoading(false);
+        saveStatusLabel.getTooltip().setText("");
     }
 
 //    private void refreshTreeView() {
@@ -286,16 +883,6 @@ public class MainController {
 //        return newFolder;
 //    }
 
-    private String getFullPath(TreeItem<String> item) {
-        StringBuilder fullPath = new StringBuilder(item.getValue());
-        TreeItem<String> parent = item.getParent();
-        while (parent != null && !parent.getValue().equals("Root")) {
-            fullPath.insert(0, parent.getValue() + "/");
-            parent = parent.getParent();
-        }
-        return fullPath.toString();
-    }
-
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -304,23 +891,33 @@ public class MainController {
         alert.showAndWait();
     }
 
-    private void confirmAndDelete(TreeItem<String> item) {
+    private void confirmAndDelete(TreeItem<NoteNode> item) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Confirm Delete");
         alert.setHeaderText(null);
-        alert.setContentText("Are you sure you want to delete '" + item.getValue() + "'?");
+        alert.setContentText("Are you sure you want to delete '" + item.getValue().getTitle() + "'?");
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            item.getParent().getChildren().remove(item);
-            notes.remove(getFullPath(item));
-            DatabaseReference noteRef = FirebaseDatabase.getInstance().getReference("notes").child(userId).child(getFullPath(item));
-            noteRef.removeValueAsync();
+            NoteNode node = item.getValue();
+            if (smartFolders.isSmartFolder(node)) { // hanya definisinya; note di dalamnya tetap ada
+                smartFolders.remove(node);
+                return;
+            }
+            String fullPath = node.getPath();
+            treePatcher.removed(node.getParent().getPath(), node.getKey()); // hapus item beserta isinya
+            autoSaver.forget(fullPath); // autosave yg menunggu tidak boleh menghidupkan lagi note ini
+            repository.delete(fullPath);
+            if (openNotePath != null && (openNotePath.equals(fullPath) || openNotePath.startsWith(fullPath + "/"))) {
+                openNotePath = null;
+                htmlEditor.setVisible(false);
+                saveNoteButton.setVisible(false);
+            }
         }
     }
 
-    private void expandToNode(TreeItem<String> item) {
+    private void expandToNode(TreeItem<NoteNode> item) {
         if (item != null) {
-            TreeItem<String> parent = item.getParent();
+            TreeItem<NoteNode> parent = item.getParent();
             while (parent != null) {
                 parent.setExpanded(true);
                 parent = parent.getParent();
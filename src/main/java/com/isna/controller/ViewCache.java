@@ -0,0 +1,144 @@
+package com.isna.controller;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import javafx.animation.PauseTransition;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Cache tampilan FXML: setiap file di-parse sekali, lalu root, controller dan Scene-nya dipakai ulang saat
+// navigasi. Controller yang mengimplementasikan Resettable dikosongkan setiap kali tampil lagi.
+// Hanya diakses dari thread FX. main.fxml berisi HTMLEditor (WebView/WebKit) yang harus dibuat di thread FX,
+// jadi "pre-build" berarti memuatnya saat thread FX menganggur sesudah login tampil, sebelum user selesai mengetik.
+public final class ViewCache {
+    public static final String LOGIN = "/com/isna/view/login.fxml";
+    public static final String REGISTER = "/com/isna/view/register.fxml";
+    public static final String MAIN = "/com/isna/view/main.fxml";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ViewCache.class);
+    private static final LatencyHistogram TRANSITION_LATENCY = Metrics.latency(Metrics.VIEW_TRANSITION);
+    private static final Map<String, View> VIEWS = new HashMap<>();
+
+    // Dipanggil sebelum tampilan yang sudah pernah dipakai ditampilkan lagi
+    public interface Resettable {
+        void reset();
+    }
+
+    public static final class View {
+        private final String fxml;
+        private final Parent root;
+        private final Object controller;
+        private Scene scene;
+        private boolean shown;
+
+        private View(String fxml, Parent root, Object controller) {
+            this.fxml = fxml;
+            this.root = root;
+            this.controller = controller;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getController() {
+            return (T) controller;
+        }
+
+        public Scene getScene() {
+            if (scene == null) {
+                scene = new Scene(root);
+            }
+            return scene;
+        }
+
+        // Ukuran awal hanya berlaku jika Scene belum dibuat
+        public Scene getScene(double width, double height) {
+            if (scene == null) {
+                scene = new Scene(root, width, height);
+            }
+            return scene;
+        }
+    }
+
+    private ViewCache() {
+    }
+
+    public static View get(String fxml) throws IOException {
+        View view = VIEWS.get(fxml);
+        if (view == null) {
+            long start = System.nanoTime();
+            FXMLLoader loader = new FXMLLoader(ViewCache.class.getResource(fxml));
+            Parent root = loader.load();
+            view = new View(fxml, root, loader.getController());
+            VIEWS.put(fxml, view);
+            LOG.debug("Loaded {} in {} ms", fxml, (System.nanoTime() - start) / 1_000_000);
+        }
+        return view;
+    }
+
+    // Memuat tampilan sesudah jeda (thread FX sempat menggambar tampilan sekarang dulu). Tidak apa-apa jika
+    // tampilan sudah dimuat lebih dulu karena user lebih cepat.
+    public static void prewarm(String fxml, long delayMs) {
+        PauseTransition delay = new PauseTransition(Duration.millis(delayMs));
+        delay.setOnFinished(event -> {
+            if (VIEWS.containsKey(fxml)) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                get(fxml);
+                LOG.info("Prewarmed {} in {} ms", fxml, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Prewarming {} failed: {}", fxml, e.getMessage());
+            }
+        });
+        delay.play();
+    }
+
+    // Menampilkan tampilan di stage; latensi diukur sampai pulse layout pertama scene baru, termasuk pekerjaan
+    // yang dilakukan pemanggil pada controller setelah show() kembali (mis. MainController.setUserId).
+    public static View show(Stage stage, String fxml) throws IOException {
+        long start = System.nanoTime();
+        String from = currentView(stage);
+        boolean cached = VIEWS.containsKey(fxml);
+        View view = get(fxml);
+        if (view.shown && view.controller instanceof Resettable) {
+            ((Resettable) view.controller).reset();
+        }
+        view.shown = true;
+        Scene scene = view.getScene();
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                long nanos = System.nanoTime() - start;
+                TRANSITION_LATENCY.record(nanos);
+                LOG.info("View {} -> {} in {} ms ({})", from, name(fxml), nanos / 1_000_000, cached ? "cached" : "loaded");
+            }
+        });
+        stage.setScene(scene);
+        stage.show();
+        return view;
+    }
+
+    private static String currentView(Stage stage) {
+        Scene current = stage.getScene();
+        for (View view : VIEWS.values()) {
+            if (view.scene != null && view.scene == current) {
+                return name(view.fxml);
+            }
+        }
+        return "-";
+    }
+
+    private static String name(String fxml) {
+        return fxml.substring(fxml.lastIndexOf('/') + 1, fxml.lastIndexOf('.'));
+    }
+}
@@ -1,12 +1,18 @@
 package com.isna.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Note implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     private String title;
     private String content;
+    private List<String> tags = new ArrayList<>(); // huruf kecil, tanpa spasi (lihat NoteMetadata.parseTags)
+    private long created; // epoch ms
+    private long modified; // epoch ms, sama dgn stamp versi note
+    private boolean pinned;
 
     public Note() {
     }
@@ -21,4 +27,12 @@ public class Note implements Serializable {
     public void setTitle(String title) { this.title = title; }
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
+    public List<String> getTags() { return tags; }
+    public void setTags(List<String> tags) { this.tags = tags == null ? new ArrayList<>() : new ArrayList<>(tags); }
+    public long getCreated() { return created; }
+    public void setCreated(long created) { this.created = created; }
+    public long getModified() { return modified; }
+    public void setModified(long modified) { this.modified = modified; }
+    public boolean isPinned() { return pinned; }
+    public void setPinned(boolean pinned) { this.pinned = pinned; }
 }
@@ -0,0 +1,52 @@
+package com.isna.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// RemoteNoteStore yang mengeluarkan lampiran inline (data URI) dari HTML sebelum dikirim, lalu memastikan
+// blob yang direferensikan sudah ada di remote sebelum note-nya. Perangkat lain tidak pernah menerima note
+// yang menunjuk ke blob yang belum terunggah. Dipasang paling luar, sebelum EncodedNoteStore.
+public class AttachmentNoteStore implements RemoteNoteStore {
+    private final RemoteNoteStore delegate;
+    private final AttachmentStore attachments;
+
+    public AttachmentNoteStore(RemoteNoteStore delegate, AttachmentStore attachments) {
+        this.delegate = delegate;
+        this.attachments = attachments;
+    }
+
+    @Override
+    public CompletableFuture<Void> apply(List<NoteChange> changes) {
+        List<NoteChange> extracted = new ArrayList<>(changes.size());
+        Set<String> hashes = new LinkedHashSet<>();
+        for (NoteChange change : changes) {
+            if (change.getType() == NoteChange.Type.PUT && change.getContent() != null) {
+                String content = attachments.extract(change.getContent()); // mis. note dari import
+                hashes.addAll(AttachmentStore.references(content));
+                extracted.add(content == change.getContent() ? change : change.withContent(content));
+            } else {
+                extracted.add(change);
+            }
+        }
+        return attachments.ensureUploaded(hashes).thenCompose(uploaded -> delegate.apply(extracted));
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        return delegate.fetchBody(path);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path, Consumer<String> head) {
+        return delegate.fetchBody(path, head);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        return delegate.fetchChunk(path);
+    }
+}
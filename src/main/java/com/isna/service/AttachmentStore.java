@@ -0,0 +1,866 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Lampiran note (gambar yang di-paste ke HTMLEditor dsb) disimpan terpisah dari HTML, sekali per isi:
+// nama blob = SHA-256 isinya, jadi gambar yang sama di banyak note hanya disimpan/diunggah sekali.
+// HTML hanya berisi referensi "attachment:<hash>.<ext>" yang dibaca WebView lewat AttachmentUrlHandler.
+// Blob lokal (~/.notetaking/<userId>/attachments/<2 hex>/<hash>) hanyalah cache dari RemoteBlobStore:
+// yang belum ada diunduh saat pertama dibaca, lalu dibaca lewat mmap tanpa menyalin ke heap.
+// Jumlah referensi per blob dihitung dari isi terakhir setiap note (refs.log, append-only spt LocalNoteLog).
+// Blob tanpa referensi dan tidak dipakai riwayat dihapus dari disk setelah LOCAL_GRACE_MS, dan dari remote
+// setelah REMOTE_GRACE_MS, hanya jika referensi semua note lokal sudah diketahui.
+// State referensi hanya diubah di thread "attachments"; extract dan read boleh dipanggil dari thread mana saja.
+public class AttachmentStore implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(AttachmentStore.class);
+    private static final LatencyHistogram EXTRACT_LATENCY = Metrics.latency(Metrics.ATTACHMENT_EXTRACT);
+    private static final LatencyHistogram FETCH_LATENCY = Metrics.latency(Metrics.ATTACHMENT_FETCH);
+    private static final Metrics.Counter FETCH_ERRORS = Metrics.counter(Metrics.ATTACHMENT_FETCH + ".errors");
+    public static final String SCHEME = "attachment:";
+    private static final int HASH_CHARS = 64;
+    static final int MIN_EXTRACT_BYTES = 1024; // data URI kecil (ikon) lebih murah dibiarkan inline
+    private static final int MAGIC = 0x4E415454; // "NATT"
+    private static final int FORMAT = 1;
+    private static final byte REFS = 1, DROP = 2, MOVE = 3, UPLOADED = 4, FORGET = 5, ORPHAN = 6;
+    static final long LOCAL_GRACE_MS = 24 * 3_600_000L;
+    static final long REMOTE_GRACE_MS = 7 * LOCAL_GRACE_MS;
+    private static final long COLLECT_INTERVAL_MIN = 60;
+    private static final int MAX_REMOTE_DELETES = 100; // per putaran GC
+
+    // Hash lampiran yang direferensikan isi terakhir satu note
+    private static class NoteRefs {
+        final long stamp;
+        final String[] hashes;
+
+        NoteRefs(long stamp, String[] hashes) {
+            this.stamp = stamp;
+            this.hashes = hashes;
+        }
+    }
+
+    private final Path directory;
+    private final Path logFile;
+    private final RemoteBlobStore remote;
+    private final ScheduledExecutorService worker;
+    private final Map<String, NoteRefs> notes = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>(); // hash -> jumlah note; 0 = yatim
+    private final Map<String, Long> orphanedSince = new HashMap<>();
+    private final Set<String> uploaded = new HashSet<>();
+    private final Map<String, CompletableFuture<Void>> uploading = new HashMap<>();
+    private final Map<String, CompletableFuture<Path>> fetching = new ConcurrentHashMap<>();
+    private Supplier<Map<String, Long>> liveNotes = Collections::emptyMap;
+    private Supplier<CompletableFuture<Set<String>>> pinned = () -> CompletableFuture.completedFuture(Collections.emptySet());
+    private final AtomicInteger queued = new AtomicInteger(); // task yang menunggu/berjalan di worker
+    private DataOutputStream out;
+    private long records;
+    private volatile long localBytes;
+
+    public AttachmentStore(Path directory, RemoteBlobStore remote) {
+        this.directory = directory;
+        this.logFile = directory.resolve("refs.log");
+        this.remote = remote;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attachments");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Lokasi: di samping log note, ~/.notetaking/<userId>/attachments
+    public static Path defaultDirectory(String userId) {
+        return LocalNoteRepository.defaultLogFile(userId).resolveSibling("attachments");
+    }
+
+    // liveNotes: path -> stamp semua note lokal; pinned: hash yang masih dipakai riwayat versi
+    public void setRoots(Supplier<Map<String, Long>> liveNotes, Supplier<CompletableFuture<Set<String>>> pinned) {
+        this.liveNotes = liveNotes;
+        this.pinned = pinned;
+    }
+
+    public CompletableFuture<Void> open() {
+        CompletableFuture<Void> opened = submit(() -> {
+            Files.createDirectories(directory);
+            if (!Files.exists(logFile) || Files.size(logFile) == 0) {
+                try (DataOutputStream header = new DataOutputStream(new FileOutputStream(logFile.toFile()))) {
+                    header.writeInt(MAGIC);
+                    header.writeInt(FORMAT);
+                }
+            }
+            replay();
+            if (records > 1024 && records > 4L * (notes.size() + counts.size())) {
+                rewrite();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile.toFile(), true)));
+            localBytes = scanLocalBytes();
+            return null;
+        });
+        worker.scheduleWithFixedDelay(() -> collect().exceptionally(error -> {
+            LOG.error("Attachment cleanup failed: {}", error.getMessage());
+            return 0;
+        }), COLLECT_INTERVAL_MIN, COLLECT_INTERVAL_MIN, TimeUnit.MINUTES);
+        return opened;
+    }
+
+    private interface Task<T> {
+        T run() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> submit(Task<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queued.incrementAndGet();
+        try {
+            worker.execute(() -> {
+                try {
+                    result.complete(task.run());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    queued.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) { // sudah ditutup
+            queued.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    int queued() {
+        return queued.get();
+    }
+
+    // Data URI base64 di atribut (src/href) yang >= MIN_EXTRACT_BYTES disimpan sbg blob dan diganti referensi.
+    // Blob ditulis (dan di-fsync) sebelum kembali, karena sampai terunggah file lokal adalah satu-satunya salinan.
+    public String extract(String html) {
+        if (html == null || html.indexOf("data:") < 0) {
+            return html;
+        }
+        long start = System.nanoTime();
+        StringBuilder sb = null;
+        int copied = 0;
+        int from = 0;
+        int at;
+        while ((at = html.indexOf("data:", from)) >= 0) {
+            from = at + 5;
+            if (at < 2 || !isAttributeValue(html, at)) {
+                continue;
+            }
+            char quote = html.charAt(at - 1);
+            int end = html.indexOf(quote, at);
+            int comma = html.indexOf(',', at);
+            if (end < 0 || comma < 0 || comma > end) {
+                continue;
+            }
+            String header = html.substring(at + 5, comma);
+            if (!header.toLowerCase(Locale.ROOT).endsWith(";base64")) {
+                continue;
+            }
+            from = end;
+            byte[] bytes;
+            try {
+                bytes = Base64.getMimeDecoder().decode(html.substring(comma + 1, end));
+            } catch (IllegalArgumentException e) {
+                continue; // bukan base64 yang valid: dibiarkan inline
+            }
+            if (bytes.length < MIN_EXTRACT_BYTES) {
+                continue;
+            }
+            int semicolon = header.indexOf(';');
+            String reference;
+            try {
+                reference = store(bytes, header.substring(0, semicolon));
+            } catch (IOException e) {
+                LOG.error("Cannot store attachment, keeping it inline: {}", e.getMessage());
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(html.length() / 4);
+            }
+            sb.append(html, copied, at).append(reference);
+            copied = end;
+        }
+        if (sb == null) {
+            return html;
+        }
+        String result = sb.append(html, copied, html.length()).toString();
+        EXTRACT_LATENCY.recordSince(start);
+        return result;
+    }
+
+    // "data:" tepat setelah tanda kutip pembuka nilai atribut (=" atau =') di dalam tag
+    private static boolean isAttributeValue(String html, int at) {
+        char quote = html.charAt(at - 1);
+        if (quote != '"' && quote != '\'') {
+            return false;
+        }
+        int i = at - 2;
+        while (i >= 0 && Character.isWhitespace(html.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && html.charAt(i) == '=' && html.lastIndexOf('<', i) > html.lastIndexOf('>', i);
+    }
+
+    // Menulis blob jika belum ada; mengembalikan referensinya
+    private String store(byte[] bytes, String mimeType) throws IOException {
+        String hash = sha256(bytes);
+        Path file = blobFile(hash);
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            localBytes += bytes.length;
+        }
+        return SCHEME + hash + "." + extension(mimeType);
+    }
+
+    // Hash semua lampiran yang direferensikan HTML, masing-masing sekali
+    public static Set<String> references(String html) {
+        if (html == null || html.indexOf(SCHEME) < 0) {
+            return Collections.emptySet();
+        }
+        Set<String> hashes = new LinkedHashSet<>();
+        int at = 0;
+        while ((at = html.indexOf(SCHEME, at)) >= 0) {
+            at += SCHEME.length();
+            String hash = hashOf(html, at);
+            if (hash != null) {
+                hashes.add(hash);
+            }
+        }
+        return hashes;
+    }
+
+    // Hash dari referensi tanpa skema ("<hash>.<ext>"), atau null jika bukan referensi lampiran
+    public static String hashOf(String reference) {
+        return reference == null ? null : hashOf(reference, 0);
+    }
+
+    private static String hashOf(String text, int from) {
+        if (text.length() < from + HASH_CHARS) {
+            return null;
+        }
+        for (int i = from; i < from + HASH_CHARS; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return null;
+            }
+        }
+        return text.substring(from, from + HASH_CHARS);
+    }
+
+    // Isi note terbaru yang diketahui (simpan lokal, atau isi yang dibaca/diterima dari remote).
+    // Diabaikan jika referensi versi ini sudah tercatat. Selesai setelah referensinya tercatat.
+    public CompletableFuture<Void> track(String path, long stamp, String html) {
+        return submit(() -> {
+            NoteRefs current = notes.get(path);
+            if (current == null || current.stamp != stamp) {
+                String[] hashes = references(html).toArray(new String[0]);
+                long now = System.currentTimeMillis();
+                writeRefs(path, stamp, now, hashes);
+                applyRefs(path, stamp, hashes, now);
+            }
+            return null;
+        });
+    }
+
+    public void drop(String path) {
+        submit(() -> {
+            long now = System.currentTimeMillis();
+            out.writeByte(DROP);
+            writeString(out, path);
+            out.writeLong(now);
+            out.flush();
+            records++;
+            applyDrop(path, now);
+            return null;
+        });
+    }
+
+    public void move(String fromPath, String toPath) {
+        submit(() -> {
+            long now = System.currentTimeMillis();
+            out.writeByte(MOVE);
+            writeString(out, fromPath);
+            writeString(out, toPath);
+            out.writeLong(now);
+            out.flush();
+            records++;
+            applyMove(fromPath, toPath, now);
+            return null;
+        });
+    }
+
+    // Selesai setelah semua blob ini ada di remote. Blob yang tidak ada di disk berasal dari perangkat lain
+    // (sudah ada di remote), jadi tidak perlu diunggah.
+    public CompletableFuture<Void> ensureUploaded(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (String hash : hashes) {
+                if (!uploaded.contains(hash) && Files.exists(blobFile(hash))) {
+                    pending.add(uploading.computeIfAbsent(hash, this::upload));
+                }
+            }
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        }).thenCompose(all -> all);
+    }
+
+    private CompletableFuture<Void> upload(String hash) {
+        ByteBuffer data;
+        try {
+            data = map(blobFile(hash));
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        remote.put(hash, data).whenComplete((ok, error) -> submit(() -> {
+            uploading.remove(hash);
+            if (error == null) {
+                markUploaded(hash);
+                done.complete(null);
+            } else {
+                done.completeExceptionally(error);
+            }
+            return null;
+        }));
+        return done;
+    }
+
+    private void markUploaded(String hash) throws IOException {
+        if (uploaded.add(hash)) {
+            out.writeByte(UPLOADED);
+            writeString(out, hash);
+            out.flush();
+            records++;
+        }
+    }
+
+    // Isi blob sbg buffer read-only hasil mmap; diunduh dulu (dan dicek hash-nya) jika belum ada di disk
+    public CompletableFuture<ByteBuffer> read(String hash) {
+        Path file = blobFile(hash);
+        if (!Files.exists(file)) {
+            // satu unduhan per blob walau dibaca bersamaan
+            CompletableFuture<Path> created = new CompletableFuture<>();
+            CompletableFuture<Path> pending = fetching.putIfAbsent(hash, created);
+            if (pending == null) {
+                pending = created;
+                fetch(hash).whenComplete((fetched, error) -> {
+                    fetching.remove(hash, created);
+                    if (error == null) {
+                        created.complete(fetched);
+                    } else {
+                        created.completeExceptionally(error);
+                    }
+                });
+            }
+            return pending.thenApply(this::mapUnchecked);
+        }
+        try {
+            return CompletableFuture.completedFuture(map(file));
+        } catch (IOException e) {
+            CompletableFuture<ByteBuffer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private CompletableFuture<Path> fetch(String hash) {
+        long start = System.nanoTime();
+        CompletableFuture<Path> fetched = remote.fetch(hash).thenApply(bytes -> {
+            if (!sha256(bytes).equals(hash)) {
+                throw new IllegalStateException("Attachment " + hash + " is corrupt");
+            }
+            try {
+                store(bytes, "");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            submit(() -> {
+                markUploaded(hash); // berasal dari remote
+                return null;
+            });
+            return blobFile(hash);
+        });
+        return Metrics.timed(fetched, start, FETCH_LATENCY, FETCH_ERRORS);
+    }
+
+    private ByteBuffer mapUnchecked(Path file) {
+        try {
+            return map(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Mapping tetap berlaku setelah channel ditutup
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Referensi diganti kembali dgn data URI (utk export ke file yang berdiri sendiri). Lampiran yang tidak
+    // bisa dibaca dibiarkan sbg referensi.
+    public String inline(String html, long timeoutMs) {
+        if (html == null || html.indexOf(SCHEME) < 0) {
+            return html;
+        }
+        StringBuilder sb = new StringBuilder(html.length());
+        int copied = 0;
+        int at = 0;
+        while ((at = html.indexOf(SCHEME, at)) >= 0) {
+            int start = at;
+            at += SCHEME.length();
+            String hash = hashOf(html, at);
+            if (hash == null) {
+                continue;
+            }
+            int end = at + HASH_CHARS;
+            while (end < html.length() && (Character.isLetterOrDigit(html.charAt(end)) || html.charAt(end) == '.')) {
+                end++;
+            }
+            ByteBuffer data;
+            try {
+                data = read(hash).get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                LOG.warn("Attachment {} not available: {}", hash, e.toString());
+                continue;
+            }
+            sb.append(html, copied, start).append("data:").append(contentType(html.substring(at, end)))
+                    .append(";base64,").append(StandardCharsets.ISO_8859_1.decode(Base64.getEncoder().encode(data.duplicate())));
+            copied = end;
+            at = end;
+        }
+        return sb.append(html, copied, html.length()).toString();
+    }
+
+    // GC: blob lokal tanpa referensi dihapus setelah LOCAL_GRACE_MS (bisa diunduh lagi), blob remote setelah
+    // REMOTE_GRACE_MS dan hanya jika referensi semua note lokal sudah diketahui. Mengembalikan jumlah blob dihapus.
+    public CompletableFuture<Integer> collect() {
+        return pinned.get().thenCompose(pins -> submit(() -> collect(pins, liveNotes.get(), System.currentTimeMillis())))
+                .thenCompose(deletes -> CompletableFuture.allOf(deletes.toArray(new CompletableFuture<?>[0]))
+                        .thenApply(all -> deletes.size()));
+    }
+
+    private List<CompletableFuture<Void>> collect(Set<String> pins, Map<String, Long> live, long now) throws IOException {
+        int localDeleted = 0;
+        long freed = 0;
+        for (Path file : blobFiles()) {
+            String hash = file.getFileName().toString();
+            Integer count = counts.get(hash);
+            if ((count != null && count > 0) || pins.contains(hash) || fetching.containsKey(hash)) {
+                continue;
+            }
+            Long since = orphanedSince.get(hash);
+            long orphaned = since != null ? since : Files.getLastModifiedTime(file).toMillis();
+            if (now - orphaned >= LOCAL_GRACE_MS) {
+                long size = Files.size(file);
+                try {
+                    Files.delete(file);
+                    freed += size;
+                    localDeleted++;
+                } catch (IOException e) {
+                    LOG.debug("Attachment {} still in use: {}", hash, e.toString()); // mis. masih di-mmap di Windows
+                }
+            }
+        }
+        localBytes -= freed;
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        if (isComplete(live)) {
+            for (Map.Entry<String, Long> orphan : orphanedSince.entrySet()) {
+                String hash = orphan.getKey();
+                if (deletes.size() < MAX_REMOTE_DELETES && uploaded.contains(hash) && !pins.contains(hash)
+                        && now - orphan.getValue() >= REMOTE_GRACE_MS) {
+                    deletes.add(remote.delete(hash).thenCompose(ok -> submit(() -> {
+                        forget(hash);
+                        return null;
+                    })));
+                }
+            }
+        }
+        if (localDeleted > 0 || !deletes.isEmpty()) {
+            LOG.info("Attachments collected: {} local ({} KB), {} remote", localDeleted, freed / 1024, deletes.size());
+        }
+        return deletes;
+    }
+
+    // Referensi semua note lokal tercatat utk stamp-nya; jika belum, blob remote tidak boleh dihapus
+    private boolean isComplete(Map<String, Long> live) {
+        for (Map.Entry<String, Long> note : live.entrySet()) {
+            NoteRefs refs = notes.get(note.getKey());
+            if (refs == null || refs.stamp != note.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void forget(String hash) throws IOException {
+        if (counts.getOrDefault(hash, 0) > 0) {
+            return; // direferensikan lagi selagi dihapus; diunggah ulang saat note berikutnya dikirim
+        }
+        out.writeByte(FORGET);
+        writeString(out, hash);
+        out.flush();
+        records++;
+        applyForget(hash);
+    }
+
+    private List<Path> blobFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> shards = Files.list(directory)) {
+            for (Path shard : (Iterable<Path>) shards::iterator) {
+                if (!Files.isDirectory(shard)) {
+                    continue;
+                }
+                try (Stream<Path> blobs = Files.list(shard)) {
+                    blobs.filter(file -> file.getFileName().toString().length() == HASH_CHARS
+                            && hashOf(file.getFileName().toString()) != null).forEach(files::add);
+                }
+            }
+        }
+        return files;
+    }
+
+    private long scanLocalBytes() throws IOException {
+        long total = 0;
+        for (Path file : blobFiles()) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+
+    public long sizeBytes() {
+        return localBytes;
+    }
+
+    // ---- state referensi (thread "attachments") ----
+
+    private void applyRefs(String path, long stamp, String[] hashes, long time) {
+        for (String hash : hashes) {
+            counts.merge(hash, 1, Integer::sum);
+            orphanedSince.remove(hash);
+        }
+        NoteRefs previous = notes.put(path, new NoteRefs(stamp, hashes));
+        if (previous != null) {
+            release(previous, time);
+        }
+    }
+
+    private void release(NoteRefs refs, long time) {
+        for (String hash : refs.hashes) {
+            int count = counts.merge(hash, -1, Integer::sum);
+            if (count <= 0) {
+                counts.put(hash, 0);
+                orphanedSince.put(hash, time);
+            }
+        }
+    }
+
+    private void applyDrop(String path, long time) {
+        Iterator<Map.Entry<String, NoteRefs>> it = notes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, NoteRefs> e = it.next();
+            if (isWithin(e.getKey(), path)) {
+                release(e.getValue(), time);
+                it.remove();
+            }
+        }
+    }
+
+    private void applyMove(String fromPath, String toPath, long time) {
+        Map<String, NoteRefs> moved = new HashMap<>();
+        Iterator<Map.Entry<String, NoteRefs>> it = notes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, NoteRefs> e = it.next();
+            if (isWithin(e.getKey(), fromPath)) {
+                moved.put(toPath + e.getKey().substring(fromPath.length()), e.getValue());
+                it.remove();
+            }
+        }
+        moved.forEach((path, refs) -> {
+            NoteRefs replaced = notes.put(path, refs);
+            if (replaced != null) {
+                release(replaced, time);
+            }
+        });
+    }
+
+    private void applyForget(String hash) {
+        counts.remove(hash);
+        orphanedSince.remove(hash);
+        uploaded.remove(hash);
+    }
+
+    private static boolean isWithin(String path, String ancestor) {
+        return path.equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    // ---- refs.log ----
+
+    private void writeRefs(String path, long stamp, long time, String[] hashes) throws IOException {
+        writeRefs(out, path, stamp, time, hashes);
+        out.flush();
+        records++;
+    }
+
+    private static void writeRefs(DataOutputStream target, String path, long stamp, long time, String[] hashes) throws IOException {
+        target.writeByte(REFS);
+        writeString(target, path);
+        target.writeLong(stamp);
+        target.writeLong(time);
+        target.writeInt(hashes.length);
+        for (String hash : hashes) {
+            writeString(target, hash);
+        }
+    }
+
+    // Membaca ulang state; ekor yang terpotong (crash saat menulis) dibuang
+    private void replay() throws IOException {
+        notes.clear();
+        counts.clear();
+        orphanedSince.clear();
+        uploaded.clear();
+        records = 0;
+        long good = 8;
+        CountingInput counting = new CountingInput(new BufferedInputStream(Files.newInputStream(logFile)));
+        try (DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Unknown attachment index format: " + logFile);
+            }
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == REFS) {
+                        String path = readString(in);
+                        long stamp = in.readLong();
+                        long time = in.readLong();
+                        String[] hashes = new String[in.readInt()];
+                        for (int i = 0; i < hashes.length; i++) {
+                            hashes[i] = readString(in);
+                        }
+                        applyRefs(path, stamp, hashes, time);
+                    } else if (type == DROP) {
+                        String path = readString(in);
+                        applyDrop(path, in.readLong());
+                    } else if (type == MOVE) {
+                        String fromPath = readString(in);
+                        String toPath = readString(in);
+                        applyMove(fromPath, toPath, in.readLong());
+                    } else if (type == UPLOADED) {
+                        uploaded.add(readString(in));
+                    } else if (type == FORGET) {
+                        applyForget(readString(in));
+                    } else if (type == ORPHAN) {
+                        String hash = readString(in);
+                        long time = in.readLong();
+                        counts.putIfAbsent(hash, 0);
+                        orphanedSince.put(hash, time);
+                    } else {
+                        break; // record tidak dikenal: anggap ekor rusak
+                    }
+                    records++;
+                    good = counting.position;
+                }
+            } catch (EOFException e) {
+                // akhir file
+            }
+        }
+        if (good < Files.size(logFile)) {
+            try (RandomAccessFile raf = new RandomAccessFile(logFile.toFile(), "rw")) {
+                raf.setLength(good);
+            }
+        }
+    }
+
+    // Menulis ulang refs.log berisi state saat ini saja
+    private void rewrite() throws IOException {
+        Path tmp = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+        long now = System.currentTimeMillis();
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+            compacted.writeInt(MAGIC);
+            compacted.writeInt(FORMAT);
+            for (Map.Entry<String, NoteRefs> e : notes.entrySet()) {
+                writeRefs(compacted, e.getKey(), e.getValue().stamp, now, e.getValue().hashes);
+            }
+            for (String hash : uploaded) {
+                compacted.writeByte(UPLOADED);
+                writeString(compacted, hash);
+            }
+            for (Map.Entry<String, Long> orphan : orphanedSince.entrySet()) {
+                compacted.writeByte(ORPHAN);
+                writeString(compacted, orphan.getKey());
+                compacted.writeLong(orphan.getValue());
+            }
+            compacted.flush();
+            tmpOut.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        long before = records;
+        Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = notes.size() + uploaded.size() + orphanedSince.size();
+        LOG.info("Attachment index compacted: {} -> {} records", before, records);
+    }
+
+    private static void writeString(DataOutputStream target, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        target.writeInt(bytes.length);
+        target.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Jumlah byte yang sudah dibaca DataInputStream, utk memotong ekor yang rusak
+    private static final class CountingInput extends FilterInputStream {
+        long position;
+
+        CountingInput(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            position += b < 0 ? 0 : 1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            position += Math.max(n, 0);
+            return n;
+        }
+    }
+
+    // ---- util ----
+
+    private Path blobFile(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(HASH_CHARS);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extension(String mimeType) {
+        switch (mimeType.toLowerCase(Locale.ROOT)) {
+            case "image/png": return "png";
+            case "image/jpeg":
+            case "image/jpg": return "jpg";
+            case "image/gif": return "gif";
+            case "image/webp": return "webp";
+            case "image/bmp": return "bmp";
+            case "image/svg+xml": return "svg";
+            case "application/pdf": return "pdf";
+            default: return "bin";
+        }
+    }
+
+    // Tipe MIME dari referensi "<hash>.<ext>"
+    public static String contentType(String reference) {
+        String ext = reference.substring(reference.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (ext) {
+            case "png": return "image/png";
+            case "jpg": return "image/jpeg";
+            case "gif": return "image/gif";
+            case "webp": return "image/webp";
+            case "bmp": return "image/bmp";
+            case "svg": return "image/svg+xml";
+            case "pdf": return "application/pdf";
+            default: return "application/octet-stream";
+        }
+    }
+
+    @Override
+    public void close() {
+        CompletableFuture<Void> closed = submit(() -> {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            return null;
+        });
+        worker.shutdown();
+        try {
+            closed.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOG.warn("Attachment store close failed: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.isna.service;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Protokol "attachment:" utk WebView di HTMLEditor: <img src="attachment:<hash>.png"> dibaca dari
+// AttachmentStore sesi yang aktif (mmap dari cache lokal, atau diunduh dulu). WebKit memuat gambar di
+// thread loader-nya sendiri, jadi menunggu unduhan di sini tidak menahan thread FX.
+public class AttachmentUrlHandler extends URLStreamHandler {
+    public static final String PROTOCOL = "attachment";
+    private static final long READ_TIMEOUT_S = 60;
+    private static volatile AttachmentStore store;
+
+    // Sekali per JVM, sebelum WebView pertama dibuat
+    public static void install() {
+        try {
+            URL.setURLStreamHandlerFactory(protocol -> PROTOCOL.equals(protocol) ? new AttachmentUrlHandler() : null);
+        } catch (Error e) { // factory sudah dipasang pihak lain
+            LoggerFactory.getLogger(AttachmentUrlHandler.class).warn("Attachment URLs unavailable: {}", e.getMessage());
+        }
+    }
+
+    // Dipanggil saat login; null saat logout
+    public static void setStore(AttachmentStore current) {
+        store = current;
+    }
+
+    @Override
+    protected URLConnection openConnection(URL url) {
+        return new URLConnection(url) {
+            private ByteBuffer data;
+
+            @Override
+            public void connect() throws IOException {
+                if (connected) {
+                    return;
+                }
+                AttachmentStore current = store;
+                String hash = AttachmentStore.hashOf(url.getPath());
+                if (current == null || hash == null) {
+                    throw new FileNotFoundException(url.toString());
+                }
+                try {
+                    data = current.read(hash).get(READ_TIMEOUT_S, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(url.toString());
+                } catch (ExecutionException | TimeoutException e) {
+                    throw new IOException("Cannot load " + url, e.getCause() != null ? e.getCause() : e);
+                }
+                connected = true;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                connect();
+                return new ByteBufferInputStream(data.duplicate());
+            }
+
+            @Override
+            public String getContentType() {
+                return AttachmentStore.contentType(url.getPath());
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                try {
+                    connect();
+                    return data.remaining();
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+        };
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
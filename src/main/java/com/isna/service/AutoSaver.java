@@ -0,0 +1,147 @@
+package com.isna.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Autosave dgn debounce per note. Edit beruntun digabung; isi editor baru dibaca saat note sudah
+// diam selama DEBOUNCE_MS (atau paling lambat MAX_DELAY_MS sejak edit pertama), dan hanya disimpan
+// jika berbeda dari versi yang terakhir disimpan.
+// edited/saveNow/flushAll harus dipanggil dari FX thread; pembacaan isi juga dijalankan di uiExecutor.
+public class AutoSaver implements AutoCloseable {
+    private static final long DEBOUNCE_MS = 1500;
+    private static final long MAX_DELAY_MS = 10_000;
+
+    private static class PendingSave {
+        final Supplier<String> content;
+        final long firstEditAt;
+        ScheduledFuture<?> timer;
+
+        PendingSave(Supplier<String> content, long firstEditAt) {
+            this.content = content;
+            this.firstEditAt = firstEditAt;
+        }
+    }
+
+    public interface SaveListener {
+        void onSaved(String path, long stamp, String content);
+    }
+
+    private final NoteRepository repository;
+    private final Executor uiExecutor;
+    private final SaveStats stats;
+    private final SaveListener listener;
+    private final ScheduledExecutorService timer;
+    private final Map<String, PendingSave> pending = new HashMap<>();
+    private final Map<String, Long> lastSaved = new HashMap<>(); // path -> sidik isi terakhir
+
+    public AutoSaver(NoteRepository repository, Executor uiExecutor, SaveStats stats, SaveListener listener) {
+        this.repository = repository;
+        this.uiExecutor = uiExecutor;
+        this.stats = stats;
+        this.listener = listener;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "note-autosave");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Menandai note berubah; content dibaca belakangan saat debounce selesai
+    public void edited(String path, Supplier<String> content) {
+        stats.edits.increment();
+        long now = System.currentTimeMillis();
+        PendingSave save = pending.get(path);
+        if (save == null) {
+            save = new PendingSave(content, now);
+            pending.put(path, save);
+        } else {
+            save.timer.cancel(false);
+        }
+        long delay = Math.min(DEBOUNCE_MS, Math.max(0, save.firstEditAt + MAX_DELAY_MS - now));
+        PendingSave scheduled = save;
+        save.timer = timer.schedule(() -> uiExecutor.execute(() -> {
+            if (pending.get(path) == scheduled) {
+                flush(path);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Simpan langsung (tombol Save); membatalkan autosave yang menunggu utk note ini
+    public long saveNow(String path, String content) {
+        PendingSave save = pending.remove(path);
+        if (save != null) {
+            save.timer.cancel(false);
+        }
+        return commit(path, content, save == null ? System.currentTimeMillis() : save.firstEditAt);
+    }
+
+    // Menyimpan semua note yang masih menunggu, mis. sebelum editor menampilkan note lain
+    public void flushAll() {
+        for (String path : pending.keySet().toArray(new String[0])) {
+            flush(path);
+        }
+    }
+
+    // Note dibuka/ditimpa dari luar: isi ini dianggap sudah tersimpan
+    public void markSaved(String path, String content) {
+        lastSaved.put(path, fingerprint(content));
+    }
+
+    // Note/folder dihapus: autosave yang menunggu di path itu atau di bawahnya dibatalkan
+    public void forget(String path) {
+        String prefix = path + "/";
+        for (String pendingPath : pending.keySet().toArray(new String[0])) {
+            if (pendingPath.equals(path) || pendingPath.startsWith(prefix)) {
+                pending.remove(pendingPath).timer.cancel(false);
+            }
+        }
+        lastSaved.keySet().removeIf(savedPath -> savedPath.equals(path) || savedPath.startsWith(prefix));
+    }
+
+    private void flush(String path) {
+        PendingSave save = pending.remove(path);
+        if (save == null) {
+            return;
+        }
+        save.timer.cancel(false);
+        String content = save.content.get();
+        Long last = lastSaved.get(path);
+        if (last != null && last == fingerprint(content)) {
+            stats.unchangedSkips.increment();
+            return;
+        }
+        commit(path, content, save.firstEditAt);
+    }
+
+    // Panjang + hash isi; cukup utk mendeteksi isi yang tidak berubah tanpa menyimpan salinannya
+    private static long fingerprint(String content) {
+        return ((long) content.length() << 32) | (content.hashCode() & 0xffffffffL);
+    }
+
+    private long commit(String path, String content, long firstEditAt) {
+        long stamp = repository.saveNote(path, content);
+        lastSaved.put(path, fingerprint(content));
+        stats.localSaves.increment();
+        stats.saveLatencyMsTotal.add(System.currentTimeMillis() - firstEditAt);
+        if (listener != null) {
+            listener.onSaved(path, stamp, content);
+        }
+        return stamp;
+    }
+
+    public SaveStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        flushAll();
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,335 @@
+package com.isna.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// RemoteNoteStore utk note besar. Isi note yang setelah di-minify >= MIN_CHARS dipecah menjadi chunk yang
+// batasnya ditentukan isinya (rolling hash, rata-rata ~80 K karakter), sehingga sisipan atau hapusan hanya
+// mengubah chunk di sekitarnya. noteBodies/<path> berisi manifest "nk1:<panjang>:<hash>,...;<hash sampah>,..."
+// dan setiap chunk disimpan sekali per note di noteChunks/<path>/<hash> (SHA-256 isinya). Simpan hanya mengirim
+// chunk yang belum ada di manifest sebelumnya, dalam apply yang sama dgn manifest (atomik). Chunk yang tidak
+// dipakai lagi dicatat sbg sampah di manifest dan baru dihapus pada simpan berikutnya, supaya perangkat lain
+// yang menyimpan bersamaan berdasarkan manifest sebelumnya tidak kehilangan chunk yang dirujuknya.
+// Manifest terakhir yang dikirim diingat per path; jika remote mungkin sudah berubah, manifest dibaca ulang.
+// Dipasang di atas EncodedNoteStore (tiap chunk dikompres sendiri) dan di bawah AttachmentNoteStore.
+public class ChunkedNoteStore implements RemoteNoteStore {
+    static final String MANIFEST_TAG = "nk1:";
+    static final int MIN_CHARS = 128 * 1024; // note lebih kecil disimpan utuh spt sebelumnya
+    private static final int MIN_CHUNK = 16 * 1024;
+    private static final int MAX_CHUNK = 256 * 1024;
+    private static final long BOUNDARY_MASK = 0xFFFFL << 48; // 16 bit -> rata-rata 64 K setelah MIN_CHUNK
+    private static final int HASH_CHARS = 32;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x6E6B31); // tetap: semua perangkat memotong di tempat yang sama
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private static final class Manifest {
+        final int chars;
+        final List<String> hashes;
+        final List<String> garbage;
+
+        Manifest(int chars, List<String> hashes, List<String> garbage) {
+            this.chars = chars;
+            this.hashes = hashes;
+            this.garbage = garbage;
+        }
+
+        String format() {
+            return MANIFEST_TAG + chars + ":" + String.join(",", hashes) + ";" + String.join(",", garbage);
+        }
+
+        // null jika isi bukan manifest (note utuh)
+        static Manifest parse(String stored) {
+            if (stored == null || !stored.startsWith(MANIFEST_TAG)) {
+                return null;
+            }
+            int colon = stored.indexOf(':', MANIFEST_TAG.length());
+            int semicolon = stored.indexOf(';', colon + 1);
+            if (colon < 0 || semicolon < 0) {
+                throw new IllegalStateException("Malformed note manifest");
+            }
+            return new Manifest(Integer.parseInt(stored.substring(MANIFEST_TAG.length(), colon)),
+                    list(stored.substring(colon + 1, semicolon)), list(stored.substring(semicolon + 1)));
+        }
+
+        private static List<String> list(String joined) {
+            List<String> hashes = new ArrayList<>();
+            for (String hash : joined.split(",")) {
+                if (!hash.isEmpty()) {
+                    hashes.add(hash);
+                }
+            }
+            return hashes;
+        }
+    }
+
+    // Versi note yang diketahui ada di remote; manifest null = note disimpan utuh
+    private static final class Known {
+        final long stamp;
+        final Manifest manifest;
+
+        Known(long stamp, Manifest manifest) {
+            this.stamp = stamp;
+            this.manifest = manifest;
+        }
+    }
+
+    // Perubahan yang dikirim utk satu NoteChange, dan versi yang diketahui jika apply berhasil
+    private static final class Split {
+        final List<NoteChange> changes;
+        final Known known;
+
+        Split(List<NoteChange> changes, Known known) {
+            this.changes = changes;
+            this.known = known;
+        }
+    }
+
+    private final RemoteNoteStore delegate;
+    private final Map<String, Known> known = new ConcurrentHashMap<>();
+    private final LongAdder noteChars = new LongAdder();
+    private final LongAdder sentChars = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder chunksSent = new LongAdder();
+
+    public ChunkedNoteStore(RemoteNoteStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CompletableFuture<Void> apply(List<NoteChange> changes) {
+        List<CompletableFuture<Split>> splits = new ArrayList<>(changes.size());
+        for (NoteChange change : changes) {
+            splits.add(split(change));
+        }
+        return CompletableFuture.allOf(splits.toArray(new CompletableFuture<?>[0])).thenCompose(all -> {
+            List<NoteChange> expanded = new ArrayList<>(changes.size());
+            for (CompletableFuture<Split> split : splits) {
+                expanded.addAll(split.join().changes);
+            }
+            return delegate.apply(expanded);
+        }).whenComplete((ok, error) -> {
+            for (int i = 0; i < changes.size(); i++) {
+                String path = changes.get(i).getPath();
+                if (known.remove(path) == null && changes.get(i).getType() == NoteChange.Type.DELETE) {
+                    known.keySet().removeIf(other -> other.startsWith(path + "/")); // folder
+                }
+                Split split = error == null ? splits.get(i).join() : null;
+                if (split != null && split.known != null) {
+                    known.put(path, split.known);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<Split> split(NoteChange change) {
+        String content = change.getContent();
+        if (change.getType() != NoteChange.Type.PUT || content == null) {
+            return CompletableFuture.completedFuture(new Split(Collections.singletonList(change), null));
+        }
+        String minified = content.length() < MIN_CHARS ? content : NoteCodec.minify(content);
+        if (minified.length() < MIN_CHARS) {
+            List<NoteChange> out = new ArrayList<>(2);
+            if (mayHaveChunks(change)) {
+                out.add(new NoteChange(NoteChange.Type.CHUNK, change.getSeq(), change.getPath(), 0, null)); // dulu besar
+            }
+            out.add(change);
+            return CompletableFuture.completedFuture(new Split(out, new Known(change.getStamp(), null)));
+        }
+        List<String> parts = chunk(minified);
+        List<String> hashes = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            hashes.add(hash(part));
+        }
+        return previous(change).thenApply(previous -> {
+            Set<String> existing = previous == null ? Collections.emptySet() : new HashSet<>(previous.hashes);
+            Set<String> current = new HashSet<>(hashes);
+            List<NoteChange> out = new ArrayList<>();
+            Set<String> sent = new HashSet<>();
+            long chars = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                String hash = hashes.get(i);
+                if (!existing.contains(hash) && sent.add(hash)) {
+                    out.add(new NoteChange(NoteChange.Type.CHUNK, change.getSeq(), change.getPath() + "/" + hash, 0, parts.get(i)));
+                    chars += parts.get(i).length();
+                }
+            }
+            Set<String> garbage = new LinkedHashSet<>();
+            if (previous != null) {
+                for (String hash : previous.garbage) {
+                    if (!current.contains(hash)) {
+                        out.add(new NoteChange(NoteChange.Type.CHUNK, change.getSeq(), change.getPath() + "/" + hash, 0, null));
+                    }
+                }
+                for (String hash : previous.hashes) {
+                    if (!current.contains(hash)) {
+                        garbage.add(hash);
+                    }
+                }
+            }
+            Manifest manifest = new Manifest(minified.length(), hashes, new ArrayList<>(garbage));
+            String text = manifest.format();
+            out.add(change.withContent(text));
+            noteChars.add(minified.length());
+            sentChars.add(chars + text.length());
+            chunks.add(parts.size());
+            chunksSent.add(sent.size());
+            return new Split(out, new Known(change.getStamp(), manifest));
+        });
+    }
+
+    // Manifest versi di remote yang akan ditimpa: dari ingatan jika stamp-nya cocok, selain itu dibaca ulang.
+    // Note baru tidak punya chunk lama.
+    private CompletableFuture<Manifest> previous(NoteChange change) {
+        Long replaced = change.getReplaced().get(change.getPath());
+        if (replaced == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Known last = known.get(change.getPath());
+        if (last != null && last.stamp == replaced) {
+            return CompletableFuture.completedFuture(last.manifest);
+        }
+        return delegate.fetchBody(change.getPath()).thenApply(Manifest::parse);
+    }
+
+    private boolean mayHaveChunks(NoteChange change) {
+        Long replaced = change.getReplaced().get(change.getPath());
+        Known last = known.get(change.getPath());
+        return replaced != null && (last == null || last.stamp != replaced || last.manifest != null);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        return fetchBody(path, null, true);
+    }
+
+    // Chunk pertama diunduh dan diberikan ke head lebih dulu, baru chunk lainnya (paralel), supaya awal note
+    // sudah tampil selagi sisanya diunduh
+    @Override
+    public CompletableFuture<String> fetchBody(String path, Consumer<String> head) {
+        return fetchBody(path, head, true);
+    }
+
+    // Chunk yang hilang atau tidak cocok dgn hash-nya berarti manifest diganti selagi dibaca: dibaca ulang sekali
+    private CompletableFuture<String> fetchBody(String path, Consumer<String> head, boolean retry) {
+        return delegate.fetchBody(path).thenCompose(stored -> {
+            Manifest manifest = Manifest.parse(stored);
+            if (manifest == null) {
+                return CompletableFuture.completedFuture(stored);
+            }
+            Map<String, CompletableFuture<String>> parts = new LinkedHashMap<>();
+            if (head == null || manifest.hashes.isEmpty()) {
+                return assemble(path, manifest, parts, head, retry);
+            }
+            String first = manifest.hashes.get(0);
+            return delegate.fetchChunk(path + "/" + first).thenCompose(part -> {
+                if (part == null || !hash(part).equals(first)) {
+                    return retryOrFail(path, first, head, retry);
+                }
+                head.accept(part);
+                parts.put(first, CompletableFuture.completedFuture(part));
+                return assemble(path, manifest, parts, null, retry); // awal yang sudah diberikan tidak diulang
+            });
+        });
+    }
+
+    private CompletableFuture<String> assemble(String path, Manifest manifest, Map<String, CompletableFuture<String>> parts,
+                                               Consumer<String> head, boolean retry) {
+        for (String hash : manifest.hashes) {
+            parts.computeIfAbsent(hash, h -> delegate.fetchChunk(path + "/" + h));
+        }
+        return CompletableFuture.allOf(parts.values().toArray(new CompletableFuture<?>[0])).thenCompose(all -> {
+            StringBuilder content = new StringBuilder(manifest.chars);
+            for (String hash : manifest.hashes) {
+                String part = parts.get(hash).join();
+                if (part == null || !hash(part).equals(hash)) {
+                    return retryOrFail(path, hash, head, retry);
+                }
+                content.append(part);
+            }
+            return CompletableFuture.completedFuture(content.toString());
+        });
+    }
+
+    private CompletableFuture<String> retryOrFail(String path, String hash, Consumer<String> head, boolean retry) {
+        if (retry) {
+            return fetchBody(path, head, false);
+        }
+        throw new IllegalStateException("Chunk " + hash + " of note " + path + " is missing or corrupt");
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        return delegate.fetchChunk(path);
+    }
+
+    // Content-defined chunking (gear hash): batas jatuh di posisi yang hash MIN_CHUNK.. karakter terakhirnya
+    // memenuhi BOUNDARY_MASK, paling panjang MAX_CHUNK. Pasangan surrogate tidak pernah terpotong.
+    static List<String> chunk(String text) {
+        List<String> parts = new ArrayList<>(text.length() / (64 * 1024) + 1);
+        int start = 0;
+        int n = text.length();
+        while (start < n) {
+            int end = Math.min(n, start + MAX_CHUNK);
+            int cut = end;
+            long hash = 0;
+            for (int i = start + MIN_CHUNK; i < end; i++) {
+                char c = text.charAt(i);
+                hash = (hash << 1) + GEAR[(c ^ (c >>> 8)) & 0xFF];
+                if ((hash & BOUNDARY_MASK) == 0) {
+                    cut = i + 1;
+                    break;
+                }
+            }
+            if (cut < n && Character.isHighSurrogate(text.charAt(cut - 1))) {
+                cut++;
+            }
+            parts.add(text.substring(start, cut));
+            start = cut;
+        }
+        return parts;
+    }
+
+    private static String hash(String part) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(part.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(HASH_CHARS);
+            for (int i = 0; i < HASH_CHARS / 2; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getNoteChars() { return noteChars.sum(); }
+    public long getSentChars() { return sentChars.sum(); }
+    public long getChunks() { return chunks.sum(); }
+    public long getChunksSent() { return chunksSent.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("large notes: %d of %d chunks sent, %d -> %d chars", getChunksSent(), getChunks(),
+                getNoteChars(), getSentChars());
+    }
+}
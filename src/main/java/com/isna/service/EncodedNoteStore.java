@@ -0,0 +1,47 @@
+package com.isna.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// RemoteNoteStore yang meng-encode isi note (NoteCodec) sebelum dikirim dan men-decode saat diunduh.
+// Log lokal dan cache tetap menyimpan HTML asli; hanya payload sinkronisasi yang dikompres.
+// Chunk (ChunkedNoteStore) sudah di-minify sbg satu note utuh, jadi hanya dikompres.
+public class EncodedNoteStore implements RemoteNoteStore {
+    private final RemoteNoteStore delegate;
+    private final NoteCodec codec;
+
+    public EncodedNoteStore(RemoteNoteStore delegate, NoteCodec codec) {
+        this.delegate = delegate;
+        this.codec = codec;
+    }
+
+    public NoteCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public CompletableFuture<Void> apply(List<NoteChange> changes) {
+        List<NoteChange> encoded = new ArrayList<>(changes.size());
+        for (NoteChange change : changes) {
+            if (change.getType() == NoteChange.Type.PUT) {
+                encoded.add(change.withContent(codec.encode(change.getContent())));
+            } else if (change.getType() == NoteChange.Type.CHUNK && change.getContent() != null) {
+                encoded.add(change.withContent(codec.encodeChunk(change.getContent())));
+            } else {
+                encoded.add(change);
+            }
+        }
+        return delegate.apply(encoded);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        return delegate.fetchBody(path).thenApply(codec::decode);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        return delegate.fetchChunk(path).thenApply(codec::decode);
+    }
+}
@@ -0,0 +1,113 @@
+package com.isna.service;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Blob lampiran di attachments/<userId>/<hash> = {size, chunks: [base64, ...]}. Realtime Database tidak
+// menyimpan biner dan membatasi panjang string, jadi isi dipecah per CHUNK_BYTES. Semua chunk ditulis dlm
+// satu multi-path update (atomik), sehingga blob tidak pernah terlihat setengah jadi.
+public class FirebaseBlobStore implements RemoteBlobStore {
+    private static final int CHUNK_BYTES = 1024 * 1024;
+
+    private final String userId;
+
+    public FirebaseBlobStore(String userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String hash, ByteBuffer data) {
+        ByteBuffer source = data.duplicate();
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(hash + "/size", (long) source.remaining());
+        byte[] chunk = new byte[Math.min(CHUNK_BYTES, source.remaining())];
+        for (int i = 0; source.hasRemaining(); i++) {
+            int n = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, n);
+            byte[] part = n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+            updates.put(hash + "/chunks/" + i, Base64.getEncoder().encodeToString(part));
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        blobsRef().updateChildren(updates, (databaseError, databaseReference) -> {
+            if (databaseError == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetch(String hash) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        blobsRef().child(hash).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                if (!dataSnapshot.exists()) {
+                    result.completeExceptionally(new FileNotFoundException("Attachment not found: " + hash));
+                    return;
+                }
+                try {
+                    result.complete(decode(dataSnapshot));
+                } catch (IOException | IllegalArgumentException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+        return result;
+    }
+
+    // Chunk dibaca berurutan menurut index (key "0", "1", ...)
+    private static byte[] decode(DataSnapshot snapshot) throws IOException {
+        Long size = snapshot.child("size").getValue(Long.class);
+        DataSnapshot chunks = snapshot.child("chunks");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size == null ? 0 : size.intValue());
+        for (int i = 0; i < chunks.getChildrenCount(); i++) {
+            String part = chunks.child(Integer.toString(i)).getValue(String.class);
+            if (part == null) {
+                throw new IOException("Attachment chunk " + i + " missing");
+            }
+            out.write(Base64.getDecoder().decode(part));
+        }
+        if (size == null || out.size() != size) {
+            throw new IOException("Attachment size mismatch: expected " + size + ", got " + out.size());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String hash) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        blobsRef().child(hash).removeValue((databaseError, databaseReference) -> {
+            if (databaseError == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+        return result;
+    }
+
+    private DatabaseReference blobsRef() {
+        return FirebaseDatabase.getInstance().getReference("attachments").child(userId);
+    }
+}
@@ -0,0 +1,268 @@
+package com.isna.service;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+// Isi note disimpan terpisah di noteBodies/<userId>/<path>, sedangkan notes/<userId>/<path>
+// hanya berisi stamp versi (Long) sehingga sinkronisasi tree tidak ikut mengunduh isi note.
+// Note lama yang isinya masih inline (String) di notes/ tetap bisa dibaca.
+// noteHashes/<userId>/ berisi hash tree per folder (FolderHashes) yang ikut diperbarui setiap apply.
+// Chunk note besar (ChunkedNoteStore) ada di noteChunks/<userId>/<path>/<hash> dan ikut terhapus bersama note.
+public class FirebaseNoteStore implements RemoteNoteStore, RemoteNoteIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(FirebaseNoteStore.class);
+
+    private final String userId;
+
+    public FirebaseNoteStore(String userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        bodiesRef().child(path).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                if (dataSnapshot.exists()) {
+                    String content = dataSnapshot.getValue(String.class);
+                    result.complete(content == null ? "" : content);
+                } else {
+                    fetchLegacy(result, path);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        return read(chunksRef().child(path)).thenApply(snapshot -> snapshot.getValue() instanceof String ? (String) snapshot.getValue() : null);
+    }
+
+    // Note lama: isinya masih berada langsung di notes/<userId>/<path>
+    private void fetchLegacy(CompletableFuture<String> result, String path) {
+        indexRef().child(path).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Object value = dataSnapshot.getValue();
+                result.complete(value instanceof String ? (String) value : "");
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+    }
+
+    // Semua perubahan dikirim dalam satu multi-path update (atomik). Sebelumnya hash setiap folder yang terkena
+    // diganti lewat transaction (hash dulu, baru data): jika data gagal terkirim, hash remote berbeda dari isinya
+    // dan perangkat lain mengunduh folder itu, tidak pernah sebaliknya; kirim ulang menulis nilai yang sama.
+    @Override
+    public CompletableFuture<Void> apply(List<NoteChange> changes) {
+        Map<String, Object> updates = new HashMap<>();
+        for (NoteChange change : changes) {
+            String indexPath = "notes/" + userId + "/" + change.getPath();
+            String bodyPath = "noteBodies/" + userId + "/" + change.getPath();
+            String chunksPath = "noteChunks/" + userId + "/" + change.getPath();
+            switch (change.getType()) {
+                case PUT:
+                    updates.put(indexPath, change.getStamp());
+                    updates.put(bodyPath, change.getContent());
+                    break;
+                case DELETE:
+                    updates.put(indexPath, null);
+                    updates.put(bodyPath, null);
+                    updates.put(chunksPath, null);
+                    updates.put("noteHashes/" + userId + "/" + change.getPath(), null);
+                    break;
+                case CHUNK:
+                    updates.put(chunksPath, change.getContent());
+                    break;
+                case FOLDER:
+                    // folder kosong tidak bisa disimpan di Realtime Database; folder muncul saat berisi note
+                    break;
+            }
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (updates.isEmpty()) {
+            result.complete(null);
+            return result;
+        }
+        FolderHashes.apply(changes, hashStore()).whenComplete((v, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates, (databaseError, databaseReference) -> {
+                if (databaseError == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(databaseError.toException());
+                }
+            });
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Long> fetchRootHash() {
+        return read(hashesRef().child(FolderHashes.VERSION_KEY)).thenCombine(read(hashesRef().child(FolderHashes.rootSumPath())),
+                (version, root) -> FolderHashes.isCurrent(version.getValue()) ? FolderHashes.decode(root.getValue()) : null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Long>> fetchHashes() {
+        return read(hashesRef()).thenApply(snapshot -> FolderHashes.parse(snapshot.getValue()));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> fetchIndex(String folderPath) {
+        DatabaseReference ref = folderPath.isEmpty() ? indexRef() : indexRef().child(folderPath);
+        return read(ref).thenApply(snapshot -> RemoteNoteIndex.flatten(folderPath, snapshot.getValue()));
+    }
+
+    // Transaction di noteHashes/<userId> mengunduh seluruh hash tree; hanya sekali per notebook
+    @Override
+    public CompletableFuture<Boolean> initHashes(Map<String, Long> expected, Map<String, Long> notes) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        hashesRef().runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                Object current = currentData.getValue();
+                boolean initialized = current instanceof Map && FolderHashes.isCurrent(((Map<?, ?>) current).get(FolderHashes.VERSION_KEY));
+                if (initialized || !FolderHashes.parse(current).equals(expected)) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(FolderHashes.toTree(notes));
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError databaseError, boolean committed, DataSnapshot currentData) {
+                if (databaseError == null) {
+                    result.complete(committed);
+                } else {
+                    result.completeExceptionally(databaseError.toException());
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> repairHashes(String folderPath, Map<String, Long> notes) {
+        return FolderHashes.repair(folderPath, notes, hashStore());
+    }
+
+    @Override
+    public AutoCloseable watchRootHash(Runnable listener) {
+        DatabaseReference ref = hashesRef().child(FolderHashes.rootSumPath());
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                listener.run();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                LOG.error("Stopped watching note hashes: {}", databaseError.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+
+    private FolderHashes.Store hashStore() {
+        return new FolderHashes.Store() {
+            @Override
+            public CompletableFuture<Object> transaction(String folder, UnaryOperator<Object> update) {
+                return FirebaseNoteStore.transaction(hashesRef().child(FolderHashes.hashPath(folder)), update);
+            }
+
+            @Override
+            public CompletableFuture<Void> set(String folder, Object value) {
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                (folder.isEmpty() ? hashesRef() : hashesRef().child(folder)).setValue(value, (databaseError, databaseReference) -> {
+                    if (databaseError == null) {
+                        result.complete(null);
+                    } else {
+                        result.completeExceptionally(databaseError.toException());
+                    }
+                });
+                return result;
+            }
+        };
+    }
+
+    // Hasil: nilai yang tertulis (diulang SDK jika nilai remote berubah di tengah jalan)
+    private static CompletableFuture<Object> transaction(DatabaseReference ref, UnaryOperator<Object> update) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        ref.runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                currentData.setValue(update.apply(currentData.getValue()));
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError databaseError, boolean committed, DataSnapshot currentData) {
+                if (databaseError == null) {
+                    result.complete(currentData == null ? null : currentData.getValue());
+                } else {
+                    result.completeExceptionally(databaseError.toException());
+                }
+            }
+        });
+        return result;
+    }
+
+    private static CompletableFuture<DataSnapshot> read(DatabaseReference ref) {
+        CompletableFuture<DataSnapshot> result = new CompletableFuture<>();
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                result.complete(dataSnapshot);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                result.completeExceptionally(databaseError.toException());
+            }
+        });
+        return result;
+    }
+
+    private DatabaseReference indexRef() {
+        return FirebaseDatabase.getInstance().getReference("notes").child(userId);
+    }
+
+    private DatabaseReference hashesRef() {
+        return FirebaseDatabase.getInstance().getReference("noteHashes").child(userId);
+    }
+
+    private DatabaseReference bodiesRef() {
+        return FirebaseDatabase.getInstance().getReference("noteBodies").child(userId);
+    }
+
+    private DatabaseReference chunksRef() {
+        return FirebaseDatabase.getInstance().getReference("noteChunks").child(userId);
+    }
+}
@@ -0,0 +1,194 @@
+package com.isna.service;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import com.isna.model.User;
+import com.isna.utility.FirebaseUtil;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+// UserStore di Firebase Realtime Database. Setiap operasi menunggu FirebaseUtil.ready(), jadi login
+// yang ditekan sebelum inisialisasi selesai menunggu, tidak gagal.
+public class FirebaseUserStore implements UserStore {
+    private static final String USERS = "users";
+    private static final String EMAIL_INDEX = "userEmails";
+    private static final String INDEX_MARKER = "schema/userEmailIndex";
+
+    private volatile boolean indexReady; // sekali true tidak pernah kembali false
+
+    private static DatabaseReference root() {
+        return FirebaseDatabase.getInstance().getReference();
+    }
+
+    @Override
+    public String newUserKey() {
+        return root().child(USERS).push().getKey();
+    }
+
+    @Override
+    public CompletableFuture<String> userKeyForEmail(String emailKey) {
+        return read(() -> root().child(EMAIL_INDEX).child(emailKey))
+                .thenApply(snapshot -> snapshot.exists() ? String.valueOf(snapshot.getValue()) : null);
+    }
+
+    @Override
+    public CompletableFuture<User> user(String userKey) {
+        return read(() -> root().child(USERS).child(userKey)).thenApply(snapshot -> snapshot.getValue(User.class));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> claimEmail(String emailKey, String value, String expected) {
+        return FirebaseUtil.ready().thenCompose(app -> {
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            root().child(EMAIL_INDEX).child(emailKey).runTransaction(new Transaction.Handler() {
+                @Override
+                public Transaction.Result doTransaction(MutableData data) {
+                    Object current = data.getValue();
+                    if (current == null || (expected != null && expected.equals(current))) {
+                        data.setValue(value);
+                        return Transaction.success(data);
+                    }
+                    return Transaction.abort();
+                }
+
+                @Override
+                public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                    if (error != null) {
+                        result.completeExceptionally(error.toException());
+                    } else {
+                        result.complete(committed);
+                    }
+                }
+            });
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> createUser(String userKey, String emailKey, User user) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(USERS + "/" + userKey, user);
+        updates.put(EMAIL_INDEX + "/" + emailKey, userKey);
+        return update(updates);
+    }
+
+    @Override
+    public CompletableFuture<Void> releaseEmail(String emailKey, String value) {
+        return FirebaseUtil.ready().thenCompose(app -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            root().child(EMAIL_INDEX).child(emailKey).runTransaction(new Transaction.Handler() {
+                @Override
+                public Transaction.Result doTransaction(MutableData data) {
+                    if (!Objects.equals(value, data.getValue())) {
+                        return Transaction.abort();
+                    }
+                    data.setValue(null);
+                    return Transaction.success(data);
+                }
+
+                @Override
+                public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                    if (error != null) {
+                        result.completeExceptionally(error.toException());
+                    } else {
+                        result.complete(null);
+                    }
+                }
+            });
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setPassword(String userKey, String passwordHash) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(USERS + "/" + userKey + "/password", passwordHash);
+        return update(updates);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> usersByEmail(String email) {
+        return read(() -> root().child(USERS).orderByChild("email").equalTo(email)).thenApply(FirebaseUserStore::users);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> allUsers() {
+        return read(() -> root().child(USERS)).thenApply(FirebaseUserStore::users);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmailIndexReady() {
+        if (indexReady) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return read(() -> root().child(INDEX_MARKER)).thenApply(snapshot -> {
+            indexReady = Boolean.TRUE.equals(snapshot.getValue());
+            return indexReady;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> markEmailIndexReady() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(INDEX_MARKER, true);
+        return update(updates).thenRun(() -> indexReady = true);
+    }
+
+    private static Map<String, User> users(DataSnapshot snapshot) {
+        Map<String, User> users = new LinkedHashMap<>();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            User user = child.getValue(User.class);
+            if (user != null) {
+                users.put(child.getKey(), user);
+            }
+        }
+        return users;
+    }
+
+    // Query dibuat setelah Firebase siap (getInstance() gagal sebelum initializeApp)
+    private interface QuerySupplier {
+        Query get();
+    }
+
+    private static CompletableFuture<DataSnapshot> read(QuerySupplier query) {
+        return FirebaseUtil.ready().thenCompose(app -> {
+            CompletableFuture<DataSnapshot> result = new CompletableFuture<>();
+            query.get().addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot dataSnapshot) {
+                    result.complete(dataSnapshot);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    result.completeExceptionally(databaseError.toException());
+                }
+            });
+            return result;
+        });
+    }
+
+    private static CompletableFuture<Void> update(Map<String, Object> updates) {
+        return FirebaseUtil.ready().thenCompose(app -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            root().updateChildren(updates, (databaseError, databaseReference) -> {
+                if (databaseError == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(databaseError.toException());
+                }
+            });
+            return result;
+        });
+    }
+}
@@ -0,0 +1,333 @@
+package com.isna.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+// Hash tree per folder utk sinkronisasi: hash folder = jumlah (mod 2^64) hash(path, stamp) semua note di
+// subtree-nya, root = "". Folder kosong berhash 0 dan tidak disimpan.
+// Di remote: noteHashes/<userId>/<folder>/%h = map hash setiap anak langsung (key note -> hash(path, stamp),
+// key subfolder -> hash subfolder) plus %s = jumlahnya, semua hex (angka RTDB berupa double); root di
+// noteHashes/<userId>/%h dan penanda versi di noteHashes/<userId>/%v. Key hasil KeyCodec tidak pernah diawali '%'.
+// Tulis mengganti nilai anak (bukan menambah selisih) lewat transaction per folder dari yang terdalam ke root,
+// jadi batch yang dikirim ulang atau ditulis dua perangkat sekaligus tidak merusak jumlahnya.
+public final class FolderHashes {
+    public static final String HASH_KEY = "%h";
+    public static final String SUM_KEY = "%s";
+    public static final String VERSION_KEY = "%v";
+    public static final long VERSION = 2; // 1: %h berisi jumlah yang ditambah selisih
+
+    // noteHashes/<userId> di store remote
+    public interface Store {
+        // Transaction di <folder>/%h; hasil: nilai yang tertulis (null jika dihapus)
+        CompletableFuture<Object> transaction(String folder, UnaryOperator<Object> update);
+
+        // Mengganti seluruh <folder> ("" = noteHashes/<userId>); null menghapus
+        CompletableFuture<Void> set(String folder, Object value);
+    }
+
+    private FolderHashes() {
+    }
+
+    // FNV-1a atas path lalu dicampur dgn stamp (finalizer splitmix64)
+    public static long noteHash(String path, long stamp) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            h ^= path.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h ^ mix(stamp));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // folder -> hash utk semua folder yang berisi note (root selalu ada)
+    public static Map<String, Long> of(Map<String, Long> notes) {
+        Map<String, Long> hashes = new HashMap<>();
+        hashes.put("", 0L);
+        notes.forEach((path, stamp) -> addToFolders(hashes, path, noteHash(path, stamp)));
+        hashes.values().removeIf(hash -> hash == 0);
+        return hashes;
+    }
+
+    public static long root(Map<String, Long> hashes) {
+        return hashes.getOrDefault("", 0L);
+    }
+
+    // Memperbarui hash tree remote utk satu batch: nilai anak yang berubah diganti di folder induknya, lalu
+    // hash folder yang baru tertulis diganti di induknya, dst. sampai root. Idempoten: dikirim ulang (timeout,
+    // error, import) hasilnya sama. Folder yang dihapus: entrinya dihapus dari induk; node hash di bawahnya
+    // (noteHashes/<userId>/<path>) dihapus pemanggil bersama datanya.
+    public static CompletableFuture<Void> apply(Collection<NoteChange> changes, Store store) {
+        Map<String, Map<String, Long>> pending = new HashMap<>();
+        for (NoteChange change : changes) {
+            if (change.getType() == NoteChange.Type.PUT) {
+                entry(pending, change.getPath(), noteHash(change.getPath(), change.getStamp()));
+            } else if (change.getType() == NoteChange.Type.DELETE) {
+                entry(pending, change.getPath(), 0);
+            }
+        }
+        return propagate(pending, store);
+    }
+
+    // Menulis ulang hash subtree folder dari note-nya (semua note di subtree itu, path lengkap), lalu hash
+    // folder itu di leluhurnya. Utk hash remote yang menyimpang; tulis lain di subtree itu pada saat yang sama
+    // bisa tertimpa dan terdeteksi lagi sbg penyimpangan pada rekonsiliasi berikutnya.
+    public static CompletableFuture<Void> repair(String folder, Map<String, Long> notes, Store store) {
+        if (folder.isEmpty()) {
+            return store.set("", toTree(notes));
+        }
+        long hash = of(notes).getOrDefault(folder, 0L);
+        Map<String, Object> subtree = tree(folder, notes);
+        return store.set(folder, subtree.isEmpty() ? null : subtree).thenCompose(v -> {
+            Map<String, Map<String, Long>> pending = new HashMap<>();
+            entry(pending, folder, hash);
+            return propagate(pending, store);
+        });
+    }
+
+    private static void entry(Map<String, Map<String, Long>> pending, String path, long hash) {
+        int slash = path.lastIndexOf('/');
+        String parent = slash < 0 ? "" : path.substring(0, slash);
+        pending.computeIfAbsent(parent, f -> new HashMap<>()).put(path.substring(slash + 1), hash);
+    }
+
+    // Folder terdalam lebih dulu (paralel per tingkat), karena nilainya dipakai induknya
+    private static CompletableFuture<Void> propagate(Map<String, Map<String, Long>> pending, Store store) {
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int depth = -1;
+        for (String folder : pending.keySet()) {
+            depth = Math.max(depth, depth(folder));
+        }
+        Map<String, CompletableFuture<Object>> written = new HashMap<>();
+        for (String folder : new ArrayList<>(pending.keySet())) {
+            if (depth(folder) == depth) {
+                Map<String, Long> entries = pending.remove(folder);
+                written.put(folder, store.transaction(folder, current -> withEntries(current, entries)));
+            }
+        }
+        return CompletableFuture.allOf(written.values().toArray(new CompletableFuture<?>[0])).thenCompose(v -> {
+            written.forEach((folder, value) -> {
+                if (!folder.isEmpty()) {
+                    entry(pending, folder, sumOf(value.join()));
+                }
+            });
+            return propagate(pending, store);
+        });
+    }
+
+    private static int depth(String folder) {
+        if (folder.isEmpty()) {
+            return 0;
+        }
+        int depth = 1;
+        for (int slash = folder.indexOf('/'); slash >= 0; slash = folder.indexOf('/', slash + 1)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    // Isi baru <folder>/%h: entri anak diganti (0 menghapus) dan %s dihitung ulang dari semua entri
+    static Map<String, Object> withEntries(Object current, Map<String, Long> entries) {
+        Map<String, Object> node = new TreeMap<>();
+        if (current instanceof Map) {
+            ((Map<?, ?>) current).forEach((key, value) -> node.put(String.valueOf(key), value));
+        }
+        node.remove(SUM_KEY);
+        entries.forEach((key, hash) -> {
+            if (hash == 0) {
+                node.remove(key);
+            } else {
+                node.put(key, encode(hash));
+            }
+        });
+        if (node.isEmpty()) {
+            return null;
+        }
+        long sum = 0;
+        for (Object value : node.values()) {
+            sum += decode(value);
+        }
+        if (sum != 0) {
+            node.put(SUM_KEY, encode(sum));
+        }
+        return node;
+    }
+
+    // Hash folder dari nilai <folder>/%h
+    static long sumOf(Object node) {
+        return node instanceof Map ? decode(((Map<?, ?>) node).get(SUM_KEY)) : 0;
+    }
+
+    private static void addToFolders(Map<String, Long> hashes, String notePath, long hash) {
+        hashes.merge("", hash, Long::sum);
+        for (int slash = notePath.indexOf('/'); slash >= 0; slash = notePath.indexOf('/', slash + 1)) {
+            hashes.merge(notePath.substring(0, slash), hash, Long::sum);
+        }
+    }
+
+    // Spt addToFolders, tapi folder yang hashnya jadi 0 langsung dibuang; utk hash yang dijaga inkremental
+    static void update(Map<String, Long> hashes, String notePath, long hash) {
+        hashes.merge("", hash, FolderHashes::sumOrNull);
+        for (int slash = notePath.indexOf('/'); slash >= 0; slash = notePath.indexOf('/', slash + 1)) {
+            hashes.merge(notePath.substring(0, slash), hash, FolderHashes::sumOrNull);
+        }
+    }
+
+    private static Long sumOrNull(Long a, Long b) {
+        long sum = a + b;
+        return sum == 0 ? null : sum;
+    }
+
+    // Path node hash folder relatif thd noteHashes/<userId>
+    public static String hashPath(String folderPath) {
+        return folderPath.isEmpty() ? HASH_KEY : folderPath + "/" + HASH_KEY;
+    }
+
+    // Path hash root (satu leaf), utk dibaca/didengarkan tanpa mengunduh entri anak root
+    public static String rootSumPath() {
+        return HASH_KEY + "/" + SUM_KEY;
+    }
+
+    public static String encode(long hash) {
+        return Long.toHexString(hash);
+    }
+
+    public static long decode(Object value) {
+        return value instanceof String ? Long.parseUnsignedLong((String) value, 16) : 0;
+    }
+
+    // Hash tree remote sudah berformat versi ini (isi noteHashes/<userId>/%v)
+    public static boolean isCurrent(Object version) {
+        return version instanceof Number && ((Number) version).longValue() == VERSION;
+    }
+
+    // Isi noteHashes/<userId> (map bersarang) -> folder -> hash, tanpa penanda versi
+    public static Map<String, Long> parse(Object tree) {
+        Map<String, Long> hashes = new HashMap<>();
+        parse(tree, "", hashes);
+        return hashes;
+    }
+
+    private static void parse(Object node, String folderPath, Map<String, Long> hashes) {
+        if (!(node instanceof Map)) {
+            return;
+        }
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (key.equals(HASH_KEY)) {
+                long hash = sumOf(entry.getValue());
+                if (hash != 0) {
+                    hashes.put(folderPath, hash);
+                }
+            } else if (!key.equals(VERSION_KEY)) {
+                parse(entry.getValue(), NoteTree.childPath(folderPath, key), hashes);
+            }
+        }
+    }
+
+    // Isi lengkap noteHashes/<userId> utk notebook ini (path note -> stamp), dgn penanda versi
+    public static Map<String, Object> toTree(Map<String, Long> notes) {
+        Map<String, Object> tree = tree("", notes);
+        tree.put(VERSION_KEY, VERSION);
+        return tree;
+    }
+
+    // Map bersarang node hash semua folder di subtree folder, relatif thd folder itu
+    private static Map<String, Object> tree(String folder, Map<String, Long> notes) {
+        Map<String, Map<String, Long>> entries = new HashMap<>();
+        of(notes).forEach((path, hash) -> {
+            if (!path.isEmpty()) {
+                entry(entries, path, hash);
+            }
+        });
+        notes.forEach((path, stamp) -> entry(entries, path, noteHash(path, stamp)));
+        Map<String, Object> tree = new TreeMap<>();
+        entries.forEach((path, children) -> {
+            if (!isWithin(path, folder)) {
+                return;
+            }
+            Map<String, Object> node = tree;
+            if (path.length() > folder.length()) {
+                for (String key : path.substring(folder.isEmpty() ? 0 : folder.length() + 1).split("/")) {
+                    node = nested(node, key);
+                }
+            }
+            Map<String, Object> hashes = withEntries(null, children);
+            if (hashes != null) {
+                node.put(HASH_KEY, hashes);
+            }
+        });
+        return tree;
+    }
+
+    private static boolean isWithin(String path, String folder) {
+        return folder.isEmpty() || path.equals(folder) || path.startsWith(folder + "/");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> node, String key) {
+        return (Map<String, Object>) node.computeIfAbsent(key, k -> new TreeMap<String, Object>());
+    }
+
+    // Folder yang subtree-nya harus diunduh agar local sama dgn remote. Mulai dari root, folder yang
+    // hashnya berbeda diperiksa: jika bagian "milik sendiri" (hash dikurangi hash subfolder) sama, yang
+    // berubah ada di subfolder dan pencarian turun ke subfolder yang berbeda; jika tidak, note langsung di
+    // folder itu (atau daftar subfoldernya) berubah dan seluruh subtree-nya diunduh.
+    public static List<String> differingSubtrees(Map<String, Long> local, Map<String, Long> remote) {
+        Map<String, TreeSet<String>> children = new HashMap<>();
+        indexChildren(local.keySet(), children);
+        indexChildren(remote.keySet(), children);
+        List<String> result = new ArrayList<>();
+        collect("", local, remote, children, result);
+        return result;
+    }
+
+    private static void indexChildren(Collection<String> folders, Map<String, TreeSet<String>> children) {
+        for (String folder : folders) {
+            while (!folder.isEmpty()) {
+                int slash = folder.lastIndexOf('/');
+                String parent = slash < 0 ? "" : folder.substring(0, slash);
+                if (!children.computeIfAbsent(parent, p -> new TreeSet<>()).add(folder)) {
+                    break; // leluhurnya sudah terdaftar
+                }
+                folder = parent;
+            }
+        }
+    }
+
+    private static void collect(String folder, Map<String, Long> local, Map<String, Long> remote,
+                                Map<String, TreeSet<String>> children, List<String> result) {
+        long localHash = local.getOrDefault(folder, 0L);
+        long remoteHash = remote.getOrDefault(folder, 0L);
+        if (localHash == remoteHash) {
+            return;
+        }
+        TreeSet<String> subfolders = children.getOrDefault(folder, new TreeSet<>());
+        long localOwn = localHash;
+        long remoteOwn = remoteHash;
+        for (String subfolder : subfolders) {
+            localOwn -= local.getOrDefault(subfolder, 0L);
+            remoteOwn -= remote.getOrDefault(subfolder, 0L);
+        }
+        if (localOwn != remoteOwn) {
+            result.add(folder);
+            return;
+        }
+        for (String subfolder : subfolders) {
+            collect(subfolder, local, remote, children, result);
+        }
+    }
+}
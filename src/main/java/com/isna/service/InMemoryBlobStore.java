@@ -0,0 +1,75 @@
+package com.isna.service;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pengganti RemoteBlobStore di memori, utk mode offline, pengujian dan benchmark.
+// setAvailable(false) mensimulasikan koneksi putus.
+public class InMemoryBlobStore implements RemoteBlobStore {
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong putCalls = new AtomicLong();
+    private final AtomicLong fetchCalls = new AtomicLong();
+    private volatile boolean available = true;
+
+    @Override
+    public CompletableFuture<Void> put(String hash, ByteBuffer data) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+            return result;
+        }
+        putCalls.incrementAndGet();
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        blobs.put(hash, bytes);
+        result.complete(null);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetch(String hash) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        fetchCalls.incrementAndGet();
+        byte[] bytes = blobs.get(hash);
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+        } else if (bytes == null) {
+            result.completeExceptionally(new FileNotFoundException("Attachment not found: " + hash));
+        } else {
+            result.complete(bytes.clone());
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String hash) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+        } else {
+            blobs.remove(hash);
+            result.complete(null);
+        }
+        return result;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public Map<String, byte[]> blobs() {
+        return blobs;
+    }
+
+    public long getPutCalls() {
+        return putCalls.get();
+    }
+
+    public long getFetchCalls() {
+        return fetchCalls.get();
+    }
+}
@@ -0,0 +1,99 @@
+package com.isna.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pengganti RemoteNoteStore di memori, utk mode offline, pengujian dan benchmark.
+// setAvailable(false) mensimulasikan koneksi putus: apply dan fetchBody gagal.
+public class InMemoryNoteStore implements RemoteNoteStore {
+    private final ConcurrentSkipListMap<String, Long> index = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, String> bodies = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, String> chunks = new ConcurrentSkipListMap<>();
+    private final AtomicLong applyCalls = new AtomicLong();
+    private volatile boolean available = true;
+
+    @Override
+    public synchronized CompletableFuture<Void> apply(List<NoteChange> changes) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+            return result;
+        }
+        applyCalls.incrementAndGet();
+        for (NoteChange change : changes) {
+            switch (change.getType()) {
+                case PUT:
+                    index.put(change.getPath(), change.getStamp());
+                    bodies.put(change.getPath(), change.getContent());
+                    break;
+                case DELETE:
+                    removeSubtree(index, change.getPath());
+                    removeSubtree(bodies, change.getPath());
+                    removeSubtree(chunks, change.getPath());
+                    break;
+                case CHUNK:
+                    if (change.getContent() != null) {
+                        chunks.put(change.getPath(), change.getContent());
+                    } else {
+                        removeSubtree(chunks, change.getPath());
+                    }
+                    break;
+                case FOLDER:
+                    break;
+            }
+        }
+        result.complete(null);
+        return result;
+    }
+
+    private static void removeSubtree(ConcurrentSkipListMap<String, ?> map, String path) {
+        map.remove(path);
+        String prefix = path + "/";
+        map.subMap(prefix, prefix + Character.MAX_VALUE).clear();
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+        } else {
+            result.complete(bodies.getOrDefault(path, ""));
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!available) {
+            result.completeExceptionally(new IllegalStateException("Remote store unavailable"));
+        } else {
+            result.complete(chunks.get(path));
+        }
+        return result;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public Map<String, Long> index() {
+        return index;
+    }
+
+    public Map<String, String> bodies() {
+        return bodies;
+    }
+
+    public Map<String, String> chunks() {
+        return chunks;
+    }
+
+    public long getApplyCalls() {
+        return applyCalls.get();
+    }
+}
@@ -0,0 +1,107 @@
+package com.isna.service;
+
+import com.isna.model.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pengganti UserStore di memori utk benchmark dan load test. usersByEmail sengaja memindai semua user,
+// spt query orderByChild("email") tanpa .indexOn yang mengunduh lalu menyaring seluruh node users.
+public class InMemoryUserStore implements UserStore {
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> emailIndex = new ConcurrentHashMap<>();
+    private final AtomicLong nextKey = new AtomicLong();
+    private volatile boolean indexReady;
+
+    // Mengisi user lama tanpa index (kondisi sebelum migrasi)
+    public void putLegacyUser(String userKey, User user) {
+        users.put(userKey, copyOf(user));
+    }
+
+    public int indexSize() {
+        return emailIndex.size();
+    }
+
+    @Override
+    public String newUserKey() {
+        return String.format("u%012d", nextKey.incrementAndGet());
+    }
+
+    @Override
+    public CompletableFuture<String> userKeyForEmail(String emailKey) {
+        return CompletableFuture.completedFuture(emailIndex.get(emailKey));
+    }
+
+    @Override
+    public CompletableFuture<User> user(String userKey) {
+        User user = users.get(userKey);
+        return CompletableFuture.completedFuture(user == null ? null : copyOf(user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> claimEmail(String emailKey, String value, String expected) {
+        boolean claimed = emailIndex.putIfAbsent(emailKey, value) == null
+                || (expected != null && emailIndex.replace(emailKey, expected, value));
+        return CompletableFuture.completedFuture(claimed);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> createUser(String userKey, String emailKey, User user) {
+        users.put(userKey, copyOf(user));
+        emailIndex.put(emailKey, userKey);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> releaseEmail(String emailKey, String value) {
+        emailIndex.remove(emailKey, value);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> setPassword(String userKey, String passwordHash) {
+        users.computeIfPresent(userKey, (key, user) -> {
+            User updated = copyOf(user);
+            updated.setPassword(passwordHash);
+            return updated;
+        });
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> usersByEmail(String email) {
+        Map<String, User> matches = new LinkedHashMap<>();
+        users.forEach((key, user) -> {
+            if (email.equals(user.getEmail())) {
+                matches.put(key, copyOf(user));
+            }
+        });
+        return CompletableFuture.completedFuture(matches);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> allUsers() {
+        Map<String, User> all = new LinkedHashMap<>();
+        users.forEach((key, user) -> all.put(key, copyOf(user)));
+        return CompletableFuture.completedFuture(all);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmailIndexReady() {
+        return CompletableFuture.completedFuture(indexReady);
+    }
+
+    @Override
+    public CompletableFuture<Void> markEmailIndexReady() {
+        indexReady = true;
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Record disalin spt data yang lewat jaringan, supaya pemanggil tidak berbagi objek
+    private static User copyOf(User user) {
+        return new User(user.getEmail(), user.getPassword(), user.getFullName(), user.getPhoneNumber());
+    }
+}
@@ -0,0 +1,568 @@
+package com.isna.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Penyimpanan lokal berbentuk log append-only. Di memori hanya ada index path -> (stamp, offset isi);
+// isi note dibaca dari file saat diperlukan. Record dgn seq > 0 menunggu replikasi sampai ada record ACK.
+// Hash folder (FolderHashes) dijaga inkremental bersama index, jadi membandingkan dgn hash remote tidak
+// perlu menghitung ulang seluruh notebook. Setiap perubahan lokal di-flush ke file sebelum append kembali,
+// jadi tetap ada walau aplikasi crash; data dari remote dan ACK boleh hilang (diunduh/dikirim ulang).
+public class LocalNoteLog implements Closeable {
+    private static final int MAGIC = 0x4E4C4F47; // "NLOG"
+    private static final int VERSION = 2; // versi 1 (tanpa REPLACED) tetap terbaca
+    private static final byte PUT = 1, META = 2, FOLDER = 3, DELETE = 4, ACK = 5, REPLACED = 6;
+    private static final long COMPACT_MIN_BYTES = 4L * 1024 * 1024;
+
+    private static class Entry {
+        final long stamp;
+        final long offset; // -1 jika isi belum pernah diunduh
+        final int length;
+
+        Entry(long stamp, long offset, int length) {
+            this.stamp = stamp;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Pending {
+        final NoteChange change; // tanpa isi; isi dibaca lewat offset
+        final long offset;
+        final int length;
+
+        Pending(NoteChange change, long offset, int length) {
+            this.change = change;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, Entry> notes = new HashMap<>();
+    private final TreeSet<String> folders = new TreeSet<>();
+    private final TreeMap<Long, Pending> pending = new TreeMap<>();
+    private final Map<String, Long> folderHashes = new HashMap<>();
+    private DataOutputStream out;
+    private RandomAccessFile reader;
+    private long position;
+    private long liveBytes;
+    private long nextSeq = 1;
+
+    public LocalNoteLog(Path file) {
+        this.file = file;
+    }
+
+    public synchronized void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            try (DataOutputStream header = new DataOutputStream(new FileOutputStream(file.toFile()))) {
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+            }
+        }
+        replay();
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true)));
+        reader = new RandomAccessFile(file.toFile(), "r");
+    }
+
+    // Membaca ulang seluruh log; ekor yang terpotong (crash saat menulis) dibuang
+    private void replay() throws IOException {
+        notes.clear();
+        folders.clear();
+        pending.clear();
+        folderHashes.clear();
+        liveBytes = 0;
+        long maxSeq = 0;
+        long good;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Unknown note log format: " + file);
+            }
+            position = 8;
+            good = position;
+            Map<String, Long> replaced = null; // dari record REPLACED utk record berikutnya
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    long seq = in.readLong();
+                    position += 9;
+                    if (type == ACK) {
+                        pending.remove(seq);
+                        good = position;
+                        continue;
+                    }
+                    if (type == REPLACED) {
+                        int count = in.readInt();
+                        position += 4;
+                        replaced = new HashMap<>();
+                        for (int i = 0; i < count; i++) {
+                            byte[] pathBytes = new byte[in.readInt()];
+                            in.readFully(pathBytes);
+                            replaced.put(new String(pathBytes, StandardCharsets.UTF_8), in.readLong());
+                            position += 4 + pathBytes.length + 8;
+                        }
+                        continue; // good baru maju bersama record yang dilengkapinya
+                    }
+                    byte[] pathBytes = new byte[in.readInt()];
+                    in.readFully(pathBytes);
+                    String path = new String(pathBytes, StandardCharsets.UTF_8);
+                    position += 4 + pathBytes.length;
+                    long stamp = 0;
+                    long offset = -1;
+                    int length = 0;
+                    if (type == PUT || type == META) {
+                        stamp = in.readLong();
+                        position += 8;
+                    }
+                    if (type == PUT) {
+                        length = in.readInt();
+                        position += 4;
+                        offset = position;
+                        in.readFully(new byte[length]);
+                        position += length;
+                    }
+                    applyRecord(type, seq, path, stamp, offset, length, replaced);
+                    replaced = null;
+                    maxSeq = Math.max(maxSeq, seq);
+                    good = position;
+                }
+            } catch (EOFException e) {
+                // akhir log
+            }
+        }
+        if (good < Files.size(file)) {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(good);
+            }
+        }
+        position = good;
+        nextSeq = maxSeq + 1;
+    }
+
+    // knownReplaced: isi record REPLACED sebelumnya (log hasil compact), selain itu null
+    private void applyRecord(byte type, long seq, String path, long stamp, long offset, int length,
+                             Map<String, Long> knownReplaced) {
+        Map<String, Long> replaced = seq == 0 || type == FOLDER ? Collections.emptyMap()
+                : knownReplaced != null ? knownReplaced : replacedBy(path);
+        switch (type) {
+            case PUT:
+            case META:
+                ensureParents(path);
+                Entry old = notes.get(path);
+                if (type == META && old != null && old.stamp == stamp) {
+                    break; // isi lokal masih berlaku
+                }
+                if (old != null) {
+                    liveBytes -= old.length;
+                    FolderHashes.update(folderHashes, path, -FolderHashes.noteHash(path, old.stamp));
+                }
+                FolderHashes.update(folderHashes, path, FolderHashes.noteHash(path, stamp));
+                notes.put(path, new Entry(stamp, offset, length));
+                liveBytes += length;
+                folders.remove(path);
+                break;
+            case FOLDER:
+                ensureParents(path);
+                folders.add(path);
+                break;
+            case DELETE:
+                removeSubtree(path);
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+        if (seq > 0) {
+            NoteChange.Type changeType = type == PUT ? NoteChange.Type.PUT
+                    : type == FOLDER ? NoteChange.Type.FOLDER : NoteChange.Type.DELETE;
+            pending.put(seq, new Pending(new NoteChange(changeType, seq, path, stamp, null, replaced), offset, length));
+        }
+    }
+
+    // Note yang akan tertimpa/terhapus di remote oleh PUT/DELETE di path ini (path itu sendiri dan, jika
+    // path berupa folder, isinya) beserta stamp-nya sebelum perubahan. Saat replay nilainya sama dgn saat
+    // record ditulis karena log diputar ulang berurutan; setelah compact nilainya ditulis eksplisit (REPLACED).
+    private Map<String, Long> replacedBy(String path) {
+        Entry entry = notes.get(path);
+        if (!folders.contains(path)) {
+            return entry == null ? Collections.emptyMap() : Collections.singletonMap(path, entry.stamp);
+        }
+        Map<String, Long> replaced = new HashMap<>();
+        if (entry != null) {
+            replaced.put(path, entry.stamp);
+        }
+        String prefix = path + "/";
+        notes.forEach((other, e) -> {
+            if (other.startsWith(prefix)) {
+                replaced.put(other, e.stamp);
+            }
+        });
+        return replaced;
+    }
+
+    private void ensureParents(String path) {
+        int slash = path.lastIndexOf('/');
+        while (slash > 0) {
+            folders.add(path.substring(0, slash));
+            slash = path.lastIndexOf('/', slash - 1);
+        }
+    }
+
+    private void removeSubtree(String path) {
+        String prefix = path + "/";
+        Iterator<Map.Entry<String, Entry>> it = notes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().equals(path) || e.getKey().startsWith(prefix)) {
+                liveBytes -= e.getValue().length;
+                FolderHashes.update(folderHashes, e.getKey(), -FolderHashes.noteHash(e.getKey(), e.getValue().stamp));
+                it.remove();
+            }
+        }
+        folders.remove(path);
+        folders.subSet(prefix, prefix + Character.MAX_VALUE).clear();
+    }
+
+    // Perubahan lokal: ditulis ke log dan masuk antrian replikasi
+    public synchronized NoteChange append(NoteChange.Type type, String path, long stamp, String content) {
+        long seq = nextSeq++;
+        byte recordType = type == NoteChange.Type.PUT ? PUT : type == NoteChange.Type.FOLDER ? FOLDER : DELETE;
+        write(recordType, seq, path, stamp, content);
+        flush(); // commit lokal: sudah di file sebelum kembali ke pemanggil
+        return pending.get(seq).change.withContent(content);
+    }
+
+    // Data yang berasal dari remote: hanya memperbarui salinan lokal, tidak direplikasi balik
+    public synchronized void record(NoteChange.Type type, String path, long stamp, String content) {
+        byte recordType = type == NoteChange.Type.PUT ? (content == null ? META : PUT)
+                : type == NoteChange.Type.FOLDER ? FOLDER : DELETE;
+        write(recordType, 0, path, stamp, content);
+    }
+
+    public synchronized void markReplicated(long seq) {
+        if (pending.remove(seq) == null) {
+            return;
+        }
+        try {
+            out.writeByte(ACK);
+            out.writeLong(seq);
+            position += 9;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(byte type, long seq, String path, long stamp, String content) {
+        try {
+            out.writeByte(type);
+            out.writeLong(seq);
+            position += 9 + writePath(out, path);
+            long offset = -1;
+            int length = 0;
+            if (type == PUT || type == META) {
+                out.writeLong(stamp);
+                position += 8;
+            }
+            if (type == PUT) {
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                position += 4;
+                offset = position;
+                length = bytes.length;
+                out.write(bytes);
+                position += length;
+            }
+            applyRecord(type, seq, path, stamp, offset, length, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Path ditulis sbg panjang + byte UTF-8 agar offset isi bisa dihitung tepat
+    private static int writePath(DataOutputStream target, String path) throws IOException {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        target.writeInt(bytes.length);
+        target.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    public synchronized boolean hasNote(String path) {
+        return notes.containsKey(path);
+    }
+
+    public synchronized boolean hasFolder(String path) {
+        return folders.contains(path);
+    }
+
+    public synchronized long stampOf(String path) {
+        Entry entry = notes.get(path);
+        return entry == null ? -1 : entry.stamp;
+    }
+
+    // Isi note jika tersimpan lokal dgn stamp yang sama, selain itu null
+    public synchronized String read(String path, long stamp) {
+        Entry entry = notes.get(path);
+        if (entry == null || entry.stamp != stamp || entry.offset < 0) {
+            return null;
+        }
+        return readBytes(entry.offset, entry.length);
+    }
+
+    private String readBytes(long offset, int length) {
+        try {
+            out.flush();
+            byte[] bytes = new byte[length];
+            reader.seek(offset);
+            reader.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized Map<String, Long> notes() {
+        Map<String, Long> result = new HashMap<>();
+        notes.forEach((path, entry) -> result.put(path, entry.stamp));
+        return result;
+    }
+
+    public synchronized List<String> folders() {
+        return new ArrayList<>(folders);
+    }
+
+    // Sama dgn FolderHashes.of(notes()) tanpa menghitung ulang
+    public synchronized Map<String, Long> folderHashes() {
+        return new HashMap<>(folderHashes);
+    }
+
+    public synchronized long rootHash() {
+        return FolderHashes.root(folderHashes);
+    }
+
+    // Perubahan yang belum tereplikasi, urut sesuai seq, lengkap dgn isinya
+    public synchronized List<NoteChange> pending() {
+        List<NoteChange> result = new ArrayList<>();
+        for (Pending p : pending.values()) {
+            NoteChange c = p.change;
+            String content = c.getType() == NoteChange.Type.PUT ? readBytes(p.offset, p.length) : null;
+            result.add(c.withContent(content));
+        }
+        return result;
+    }
+
+    // true jika ada perubahan belum tereplikasi di path itu sendiri atau di salah satu leluhurnya
+    public synchronized boolean hasPendingCovering(String path) {
+        for (Pending p : pending.values()) {
+            String other = p.change.getPath();
+            if (other.equals(path) || path.startsWith(other + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean hasPendingDeleteCovering(String path) {
+        for (Pending p : pending.values()) {
+            String other = p.change.getPath();
+            if (p.change.getType() == NoteChange.Type.DELETE && (other.equals(path) || path.startsWith(other + "/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // true jika ada perubahan belum tereplikasi di path itu sendiri atau di bawahnya
+    public synchronized boolean hasPendingWithin(String path) {
+        for (Pending p : pending.values()) {
+            String other = p.change.getPath();
+            if (other.equals(path) || other.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long sizeBytes() {
+        return position;
+    }
+
+    // Menulis ulang log hanya dgn state terkini + perubahan yang masih pending, juga saat offline (pending
+    // tidak pernah habis dan setiap autosave menambah isi note utuh). Dari perubahan pending di path yang sama
+    // hanya yang terakhir disimpan, spt WriteBehindReplicator menggabung satu batch.
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (position < COMPACT_MIN_BYTES || position < 2 * liveBytes + COMPACT_MIN_BYTES / 2) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    // Note yang isinya berasal dari perubahan pending tidak ditulis di state terkini: record pending-nya yang
+    // membuatnya lagi saat replay. Yang ditimpa setiap perubahan pending ditulis eksplisit (REPLACED) karena
+    // state sebelum perubahan itu tidak ada lagi di log hasil compact.
+    public synchronized void compact() throws IOException {
+        out.flush();
+        List<Pending> latest = coalescedPending();
+        Map<String, Long> pendingPuts = new HashMap<>();
+        for (Pending p : latest) {
+            if (p.change.getType() == NoteChange.Type.PUT) {
+                pendingPuts.put(p.change.getPath(), p.offset);
+            }
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+            compacted.writeInt(MAGIC);
+            compacted.writeInt(VERSION);
+            for (String folder : folders) {
+                compacted.writeByte(FOLDER);
+                compacted.writeLong(0);
+                writePath(compacted, folder);
+            }
+            for (Map.Entry<String, Entry> e : notes.entrySet()) {
+                Entry entry = e.getValue();
+                Long pendingOffset = pendingPuts.get(e.getKey());
+                if (pendingOffset != null && pendingOffset == entry.offset) {
+                    continue;
+                }
+                compacted.writeByte(entry.offset < 0 ? META : PUT);
+                compacted.writeLong(0);
+                writePath(compacted, e.getKey());
+                compacted.writeLong(entry.stamp);
+                if (entry.offset >= 0) {
+                    writeContent(compacted, entry.offset, entry.length);
+                }
+            }
+            for (Pending p : latest) {
+                NoteChange change = p.change;
+                byte type = change.getType() == NoteChange.Type.PUT ? PUT
+                        : change.getType() == NoteChange.Type.FOLDER ? FOLDER : DELETE;
+                if (type != FOLDER) {
+                    compacted.writeByte(REPLACED);
+                    compacted.writeLong(change.getSeq());
+                    compacted.writeInt(change.getReplaced().size());
+                    for (Map.Entry<String, Long> replaced : change.getReplaced().entrySet()) {
+                        writePath(compacted, replaced.getKey());
+                        compacted.writeLong(replaced.getValue());
+                    }
+                }
+                compacted.writeByte(type);
+                compacted.writeLong(change.getSeq());
+                writePath(compacted, change.getPath());
+                if (type == PUT) {
+                    compacted.writeLong(change.getStamp());
+                    writeContent(compacted, p.offset, p.length);
+                }
+            }
+            compacted.flush();
+            tmpOut.getFD().sync();
+        }
+        closeStreams();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long seqBefore = nextSeq;
+        replay();
+        nextSeq = Math.max(nextSeq, seqBefore);
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true)));
+        reader = new RandomAccessFile(file.toFile(), "r");
+    }
+
+    private void writeContent(DataOutputStream target, long offset, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        reader.seek(offset);
+        reader.readFully(bytes);
+        target.writeInt(length);
+        target.write(bytes);
+    }
+
+    // Perubahan pending urut seq; perubahan yang ditimpa perubahan berikutnya di path yang sama dibuang,
+    // kecuali ada perubahan di leluhur/turunannya di antara keduanya (urutannya berpengaruh). Yang ditimpa di
+    // remote tetap milik perubahan pertama, krn versi antara tidak pernah dikirim.
+    private List<Pending> coalescedPending() {
+        List<Pending> result = new ArrayList<>();
+        TreeMap<String, Integer> last = new TreeMap<>(); // path -> index perubahan terakhir di result
+        for (Pending p : pending.values()) {
+            NoteChange change = p.change;
+            String path = change.getPath();
+            Integer previous = last.get(path);
+            if (previous != null && change.getType() != NoteChange.Type.FOLDER
+                    && result.get(previous).change.getType() != NoteChange.Type.FOLDER
+                    && !touchedSince(last, path, previous)) {
+                p = new Pending(change.withReplaced(result.get(previous).change.getReplaced()), p.offset, p.length);
+                result.set(previous, null);
+            }
+            last.put(path, result.size());
+            result.add(p);
+        }
+        result.removeIf(p -> p == null);
+        return result;
+    }
+
+    private static boolean touchedSince(TreeMap<String, Integer> last, String path, int index) {
+        for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+            Integer ancestor = last.get(path.substring(0, slash));
+            if (ancestor != null && ancestor > index) {
+                return true;
+            }
+        }
+        for (int descendant : last.subMap(path + "/", path + "/" + Character.MAX_VALUE).values()) {
+            if (descendant > index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeStreams() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    synchronized boolean isOpen() {
+        return out != null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeStreams();
+        out = null;
+        reader = null;
+    }
+}
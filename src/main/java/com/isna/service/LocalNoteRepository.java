@@ -0,0 +1,347 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// NoteRepository offline-first: setiap tulis di-commit ke LocalNoteLog (cepat, tanpa jaringan)
+// lalu direplikasi ke RemoteNoteStore oleh WriteBehindReplicator.
+public class LocalNoteRepository implements NoteRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalNoteRepository.class);
+    private static final LatencyHistogram SAVE_LATENCY = Metrics.latency(Metrics.NOTE_SAVE);
+    private static final LatencyHistogram DELETE_LATENCY = Metrics.latency(Metrics.NOTE_DELETE);
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.latency(Metrics.NOTE_LOAD);
+    private static final Metrics.Counter LOAD_ERRORS = Metrics.counter(Metrics.NOTE_LOAD + ".errors");
+    private static final Metrics.Counter LOAD_REMOTE = Metrics.counter(Metrics.NOTE_LOAD + ".remote");
+
+    private final LocalNoteLog log;
+    private final RemoteNoteStore remote;
+    private final NoteContentCache cache;
+    private final WriteBehindReplicator replicator;
+    private NoteHistory history; // null: riwayat versi tidak dicatat
+    private AttachmentStore attachments; // null: lampiran tetap inline di HTML
+    private long lastStamp;
+
+    public LocalNoteRepository(LocalNoteLog log, RemoteNoteStore remote, NoteContentCache cache) {
+        this(log, remote, cache, new SaveStats());
+    }
+
+    public LocalNoteRepository(LocalNoteLog log, RemoteNoteStore remote, NoteContentCache cache, SaveStats stats) {
+        this.log = log;
+        this.remote = remote;
+        this.cache = cache;
+        try {
+            log.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open local note store", e);
+        }
+        this.replicator = new WriteBehindReplicator(log, remote, stats);
+        replicator.kick(); // kirim sisa perubahan dari sesi sebelumnya
+    }
+
+    // Lokasi log lokal: ~/.notetaking/<userId>/notes.log
+    public static Path defaultLogFile(String userId) {
+        String safeId = userId.replaceAll("[^A-Za-z0-9._-]", "_");
+        return Paths.get(System.getProperty("user.home"), ".notetaking", safeId, "notes.log");
+    }
+
+    // Setiap simpan dicatat di riwayat; history ditutup bersama repository
+    public void setHistory(NoteHistory history) {
+        this.history = history;
+    }
+
+    public NoteHistory getHistory() {
+        return history;
+    }
+
+    // Lampiran inline dikeluarkan dari HTML setiap simpan; store ditutup bersama repository
+    public void setAttachments(AttachmentStore attachments) {
+        this.attachments = attachments;
+        attachments.setRoots(log::notes, () -> history == null
+                ? CompletableFuture.completedFuture(Collections.emptySet()) : history.attachmentRefs());
+    }
+
+    public AttachmentStore getAttachments() {
+        return attachments;
+    }
+
+    public NoteContentCache getCache() {
+        return cache;
+    }
+
+    public SaveStats getStats() {
+        return replicator.getStats();
+    }
+
+    public int pendingReplication() {
+        return replicator.pendingCount();
+    }
+
+    // Stamp selalu naik walau jam sistem sama/mundur, supaya versi lokal tidak tertukar
+    private synchronized long nextStamp() {
+        lastStamp = Math.max(lastStamp + 1, System.currentTimeMillis());
+        return lastStamp;
+    }
+
+    @Override
+    public long saveNote(String path, String content) {
+        long start = System.nanoTime();
+        long stamp = nextStamp();
+        if (attachments != null) {
+            content = attachments.extract(content); // log, cache dan riwayat hanya menyimpan referensinya
+        }
+        log.append(NoteChange.Type.PUT, path, stamp, content);
+        track(path, stamp, content);
+        cache.put(path, stamp, content);
+        replicator.kick();
+        if (history != null) {
+            history.record(path, stamp, content);
+        }
+        SAVE_LATENCY.recordSince(start);
+        return stamp;
+    }
+
+    // Riwayat dilewati: isi asli masih ada di sumber import, dan mencatatnya menggandakan seluruh import di
+    // history.log; versi pertama yang tercatat adalah editan pertama
+    @Override
+    public CompletableFuture<Long> importNote(String path, String content) {
+        long start = System.nanoTime();
+        long stamp = nextStamp();
+        if (attachments != null) {
+            content = attachments.extract(content);
+        }
+        log.append(NoteChange.Type.PUT, path, stamp, content);
+        replicator.kick();
+        SAVE_LATENCY.recordSince(start);
+        // spt saveNote: referensi yang gagal dicatat tidak membatalkan simpan
+        return attachments == null ? CompletableFuture.completedFuture(stamp)
+                : attachments.track(path, stamp, content).handle((v, error) -> stamp);
+    }
+
+    @Override
+    public void createFolder(String path) {
+        log.append(NoteChange.Type.FOLDER, path, 0, null);
+        replicator.kick();
+    }
+
+    @Override
+    public void delete(String path) {
+        long start = System.nanoTime();
+        log.append(NoteChange.Type.DELETE, path, 0, null);
+        cache.invalidateSubtree(path);
+        replicator.kick();
+        if (history != null) {
+            history.drop(path);
+        }
+        if (attachments != null) {
+            attachments.drop(path);
+        }
+        DELETE_LATENCY.recordSince(start);
+    }
+
+    // Semua note di bawah fromPath ditulis ulang ke toPath dgn stamp yang sama, lalu fromPath dihapus.
+    // Jika semua isi ada di lokal, selesai seketika dan tereplikasi dalam satu batch.
+    @Override
+    public CompletableFuture<Void> move(String fromPath, String toPath) {
+        if (history != null) {
+            history.move(fromPath, toPath); // sebelum simpan berikutnya di path baru
+        }
+        if (attachments != null) {
+            attachments.move(fromPath, toPath);
+        }
+        Map<String, Long> moved = new TreeMap<>();
+        log.notes().forEach((path, stamp) -> {
+            if (isWithin(path, fromPath)) {
+                moved.put(path, stamp);
+            }
+        });
+        List<String> folders = new ArrayList<>();
+        for (String folder : log.folders()) {
+            if (isWithin(folder, fromPath)) {
+                folders.add(folder);
+            }
+        }
+        Map<String, CompletableFuture<String>> reads = new LinkedHashMap<>();
+        moved.forEach((path, stamp) -> reads.put(path, readNote(path, stamp)));
+        return CompletableFuture.allOf(reads.values().toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            for (String folder : folders) {
+                log.append(NoteChange.Type.FOLDER, toPath + folder.substring(fromPath.length()), 0, null);
+            }
+            reads.forEach((path, content) -> {
+                String target = toPath + path.substring(fromPath.length());
+                if (!log.hasNote(target)) { // sudah ditulis ulang sejak move dimulai
+                    long stamp = moved.get(path);
+                    log.append(NoteChange.Type.PUT, target, stamp, content.join());
+                    cache.put(target, stamp, content.join());
+                }
+            });
+            log.append(NoteChange.Type.DELETE, fromPath, 0, null);
+            cache.invalidateSubtree(fromPath);
+            replicator.kick();
+        });
+    }
+
+    // Referensi lampiran setiap isi note yang terbaca ikut dicatat, supaya GC tahu semua blob yang dipakai
+    private void track(String path, long stamp, String content) {
+        if (attachments != null && content != null) {
+            attachments.track(path, stamp, content);
+        }
+    }
+
+    private static boolean isWithin(String path, String ancestor) {
+        return path.equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    // Urutan: cache memori -> log lokal -> remote (hasilnya disimpan lokal utk dipakai offline)
+    @Override
+    public CompletableFuture<String> loadNote(String path, long stamp) {
+        return loadNote(path, stamp, null);
+    }
+
+    @Override
+    public CompletableFuture<String> loadNote(String path, long stamp, Consumer<String> head) {
+        long start = System.nanoTime();
+        String cached = cache.get(path, stamp);
+        if (cached != null) {
+            LOAD_LATENCY.recordSince(start);
+            return CompletableFuture.completedFuture(cached);
+        }
+        String local = log.read(path, stamp);
+        if (local != null) {
+            track(path, stamp, local);
+            cache.put(path, stamp, local);
+            LOAD_LATENCY.recordSince(start);
+            return CompletableFuture.completedFuture(local);
+        }
+        LOAD_REMOTE.increment();
+        return Metrics.timed(remote.fetchBody(path, head).thenApply(content -> {
+            if (log.stampOf(path) == stamp && !log.hasPendingCovering(path)) {
+                log.record(NoteChange.Type.PUT, path, stamp, content);
+            }
+            track(path, stamp, content);
+            cache.put(path, stamp, content);
+            return content;
+        }), start, LOAD_LATENCY, LOAD_ERRORS);
+    }
+
+    @Override
+    public CompletableFuture<String> readNote(String path, long stamp) {
+        String cached = cache.contains(path, stamp) ? cache.get(path, stamp) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String local = log.read(path, stamp);
+        if (local != null) {
+            track(path, stamp, local);
+            return CompletableFuture.completedFuture(local);
+        }
+        return remote.fetchBody(path).thenApply(content -> {
+            if (log.stampOf(path) == stamp && !log.hasPendingCovering(path)) {
+                log.record(NoteChange.Type.PUT, path, stamp, content);
+            }
+            track(path, stamp, content);
+            return content;
+        });
+    }
+
+    @Override
+    public void prefetch(String path, long stamp) {
+        if (!cache.contains(path, stamp) && log.read(path, stamp) == null) {
+            loadNote(path, stamp);
+        }
+    }
+
+    @Override
+    public Map<String, Long> localNotes() {
+        return log.notes();
+    }
+
+    // Hash folder note lokal (FolderHashes), dijaga inkremental oleh log
+    public Map<String, Long> localHashes() {
+        return log.folderHashes();
+    }
+
+    public long localRootHash() {
+        return log.rootHash();
+    }
+
+    @Override
+    public List<String> localFolders() {
+        return log.folders();
+    }
+
+    @Override
+    public boolean remoteNote(String path, long stamp, String inlineContent) {
+        if (log.hasPendingCovering(path)) {
+            return false; // perubahan lokal menang sampai tereplikasi
+        }
+        if (log.stampOf(path) != stamp || (inlineContent != null && log.read(path, stamp) == null)) {
+            log.record(NoteChange.Type.PUT, path, stamp, inlineContent);
+        }
+        if (inlineContent != null) {
+            track(path, stamp, inlineContent);
+            cache.put(path, stamp, inlineContent);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remoteFolder(String path) {
+        if (log.hasPendingDeleteCovering(path)) {
+            return false; // folder ini sedang dihapus secara lokal
+        }
+        if (!log.hasFolder(path)) {
+            log.record(NoteChange.Type.FOLDER, path, 0, null);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remoteRemoved(String path) {
+        if (log.hasPendingCovering(path) || log.hasPendingWithin(path)) {
+            return false;
+        }
+        if (log.hasNote(path) || log.hasFolder(path)) {
+            log.record(NoteChange.Type.DELETE, path, 0, null);
+        }
+        if (attachments != null) {
+            attachments.drop(path);
+        }
+        cache.invalidateSubtree(path);
+        return true;
+    }
+
+    boolean isOpen() {
+        return log.isOpen();
+    }
+
+    @Override
+    public void close() {
+        replicator.close();
+        if (history != null) {
+            history.close();
+        }
+        if (attachments != null) {
+            attachments.close();
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            LOG.error("Failed to close local note store: {}", e.getMessage());
+        }
+    }
+}
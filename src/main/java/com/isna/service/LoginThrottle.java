@@ -0,0 +1,159 @@
+package com.isna.service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Pembatas percobaan login per email, dicek sebelum lookup dan hashing:
+// - token bucket: BURST percobaan langsung, lalu satu per REFILL_MS
+// - backoff eksponensial setelah FREE_FAILURES kegagalan berturut-turut (1 s, 2 s, 4 s, ... maks. 15 menit)
+// Login berhasil mengosongkan hitungan gagal; tanpa percobaan selama FAILURE_IDLE_MS setelah backoff terakhir
+// habis hitungan itu juga dilupakan, jadi entri email yang hanya ditebak-tebak bisa dibuang lagi.
+// State per email di ConcurrentHashMap dan dikunci per entri, jadi percobaan utk email berbeda tidak saling
+// menunggu. Di atas MAX_TRACKED entri yang sudah pulih dibuang, lalu yang paling lama tidak dipakai sampai
+// tersisa SWEEP_TARGET, sehingga satu sapuan O(n) selalu diikuti ribuan acquire sebelum sapuan berikutnya.
+public class LoginThrottle {
+    private static final int BURST = 5;
+    private static final long REFILL_MS = 12_000; // 5 per menit setelah burst habis
+    private static final int FREE_FAILURES = 3;
+    private static final long BACKOFF_BASE_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 15 * 60_000;
+    private static final long FAILURE_IDLE_MS = 15 * 60_000;
+    private static final int MAX_TRACKED = 100_000;
+    private static final int SWEEP_TARGET = MAX_TRACKED * 3 / 4;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private static final class Bucket {
+        double tokens = BURST;
+        long refilledAt = System.nanoTime();
+        int failures;
+        long blockedUntil; // nanoTime; 0 jika tidak dalam backoff
+        long forgetAt;     // nanoTime; hitungan gagal dilupakan mulai saat ini
+        volatile long touchedAt = refilledAt; // dibaca tanpa lock saat memilih entri tertua
+
+        void refill(long now) {
+            tokens = Math.min(BURST, tokens + (double) (now - refilledAt) / TimeUnit.MILLISECONDS.toNanos(REFILL_MS));
+            refilledAt = now;
+            if (failures > 0 && now - forgetAt >= 0) {
+                failures = 0;
+                blockedUntil = 0;
+            }
+        }
+
+        boolean idle(long now) {
+            refill(now);
+            return failures == 0 && tokens >= BURST && now - blockedUntil >= 0;
+        }
+    }
+
+    // Mengambil satu token utk email ini atau melempar ThrottledException (tanpa lookup/hashing)
+    public void acquire(String email) {
+        acquire(email, System.nanoTime());
+    }
+
+    void acquire(String email, long now) {
+        Bucket bucket = buckets.computeIfAbsent(email, e -> new Bucket());
+        synchronized (bucket) {
+            bucket.touchedAt = now;
+            bucket.refill(now);
+            long wait = 0;
+            if (bucket.blockedUntil != 0 && bucket.blockedUntil - now > 0) {
+                wait = bucket.blockedUntil - now;
+            } else if (bucket.tokens < 1) {
+                wait = (long) ((1 - bucket.tokens) * TimeUnit.MILLISECONDS.toNanos(REFILL_MS));
+            }
+            if (wait > 0) {
+                throw new ThrottledException("Too many login attempts", TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+            bucket.tokens -= 1;
+        }
+        if (buckets.size() > MAX_TRACKED) {
+            sweep(now);
+        }
+    }
+
+    public void success(String email) {
+        Bucket bucket = buckets.get(email);
+        if (bucket != null) {
+            synchronized (bucket) {
+                bucket.failures = 0;
+                bucket.blockedUntil = 0;
+            }
+        }
+    }
+
+    public void failure(String email) {
+        failure(email, System.nanoTime());
+    }
+
+    void failure(String email, long now) {
+        Bucket bucket = buckets.computeIfAbsent(email, e -> new Bucket());
+        synchronized (bucket) {
+            bucket.touchedAt = now;
+            bucket.refill(now);
+            bucket.failures++;
+            long quietFrom = now;
+            if (bucket.failures >= FREE_FAILURES) {
+                int exponent = Math.min(bucket.failures - FREE_FAILURES, 20);
+                long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << exponent);
+                bucket.blockedUntil = now + TimeUnit.MILLISECONDS.toNanos(backoff);
+                quietFrom = bucket.blockedUntil;
+            }
+            bucket.forgetAt = quietFrom + TimeUnit.MILLISECONDS.toNanos(FAILURE_IDLE_MS);
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Satu thread saja yang menyapu; yang lain langsung lanjut
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+                Bucket bucket = it.next();
+                synchronized (bucket) {
+                    if (bucket.idle(now)) {
+                        it.remove();
+                    }
+                }
+            }
+            if (buckets.size() > SWEEP_TARGET) {
+                evictOldest(buckets.size() - SWEEP_TARGET);
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    // Entri yang paling lama tidak dipakai dibuang, juga yang masih dalam backoff: email yang sedang diserang
+    // terus dipakai sehingga tetap tercatat, sementara anggaran hashing global tetap membatasi sisanya
+    private void evictOldest(int count) {
+        long[] touched = new long[buckets.size()];
+        int n = 0;
+        for (Bucket bucket : buckets.values()) {
+            if (n == touched.length) {
+                break;
+            }
+            touched[n++] = bucket.touchedAt;
+        }
+        if (n == 0) {
+            return;
+        }
+        // nanoTime bisa negatif dan hanya selisihnya yang bermakna: urutkan menurut umur thd entri pertama
+        long origin = touched[0];
+        for (int i = 0; i < n; i++) {
+            touched[i] -= origin;
+        }
+        Arrays.sort(touched, 0, n);
+        long cutoff = touched[Math.min(count, n) - 1] + origin;
+        buckets.values().removeIf(bucket -> bucket.touchedAt - cutoff <= 0);
+    }
+}
@@ -0,0 +1,52 @@
+package com.isna.service;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Satu perubahan note/folder yang dicatat di log lokal dan direplikasi ke remote.
+// CHUNK hanya dibuat ChunkedNoteStore di jalur ke remote dan tidak pernah masuk log: path = "<path note>/<hash>"
+// dgn isi satu chunk, atau isi null utk menghapus chunk itu (path note saja: semua chunk note tsb).
+public class NoteChange {
+    public enum Type { PUT, FOLDER, DELETE, CHUNK }
+
+    private final Type type;
+    private final long seq;
+    private final String path;
+    private final long stamp;
+    private final String content;
+    private final Map<String, Long> replaced; // note (path -> stamp lama) yang ditimpa/dihapus; utk membersihkan chunk lama
+
+    public NoteChange(Type type, long seq, String path, long stamp, String content) {
+        this(type, seq, path, stamp, content, Collections.emptyMap());
+    }
+
+    public NoteChange(Type type, long seq, String path, long stamp, String content, Map<String, Long> replaced) {
+        this.type = type;
+        this.seq = seq;
+        this.path = path;
+        this.stamp = stamp;
+        this.content = content;
+        this.replaced = replaced;
+    }
+
+    public Type getType() { return type; }
+    public long getSeq() { return seq; }
+    public String getPath() { return path; }
+    public long getStamp() { return stamp; }
+    public String getContent() { return content; }
+    public Map<String, Long> getReplaced() { return replaced; }
+
+    // Salinan dgn isi lain (mis. setelah di-encode), sisanya sama
+    public NoteChange withContent(String newContent) {
+        return new NoteChange(type, seq, path, stamp, newContent, replaced);
+    }
+
+    public NoteChange withReplaced(Map<String, Long> newReplaced) {
+        return new NoteChange(type, seq, path, stamp, content, newReplaced);
+    }
+
+    @Override
+    public String toString() {
+        return type + "#" + seq + " " + path;
+    }
+}
@@ -0,0 +1,288 @@
+package com.isna.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Format isi note yang disimpan di remote:
+//   tanpa tag : HTML apa adanya (note lama, atau note kecil yang tidak lebih pendek bila dikompres)
+//   "nz1:"    : base64(zlib-deflate(UTF-8(HTML yang sudah di-minify)))
+// decode() mengenali keduanya, jadi note lama tetap terbaca. Jika compress=false note hanya di-minify.
+public class NoteCodec {
+    static final String V1_TAG = "nz1:";
+    private static final int BUFFER_SIZE = 8192;
+    // Tab span WebKit (<span style="white-space:pre">) dan elemen pre-wrap/pre-line: spasinya bermakna
+    private static final Pattern PRESERVE_SPACE = Pattern.compile("white-space\\s*:\\s*pre", Pattern.CASE_INSENSITIVE);
+
+    private final boolean compress;
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION));
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    public NoteCodec(boolean compress) {
+        this.compress = compress;
+    }
+
+    public String encode(String html) {
+        if (html == null) {
+            return null;
+        }
+        String minified = minify(html);
+        String encoded = minified;
+        if (compress) {
+            byte[] deflated = deflate(minified.getBytes(StandardCharsets.UTF_8));
+            String tagged = V1_TAG + Base64.getEncoder().encodeToString(deflated);
+            if (tagged.length() < minified.length()) {
+                encoded = tagged;
+            }
+        }
+        rawBytes.add(html.length());
+        encodedBytes.add(encoded.length());
+        return encoded;
+    }
+
+    // Satu chunk note besar yang sudah di-minify sbg note utuh: hanya dikompres, karena minify per chunk bisa
+    // mengubah spasi di batas chunk atau isi <pre> yang terpotong
+    public String encodeChunk(String minified) {
+        String encoded = minified;
+        if (compress) {
+            String tagged = V1_TAG + Base64.getEncoder().encodeToString(deflate(minified.getBytes(StandardCharsets.UTF_8)));
+            if (tagged.length() < minified.length()) {
+                encoded = tagged;
+            }
+        }
+        rawBytes.add(minified.length());
+        encodedBytes.add(encoded.length());
+        return encoded;
+    }
+
+    // Isi tanpa tag, atau bertag tapi rusak, dikembalikan apa adanya
+    public String decode(String stored) {
+        if (stored == null || !stored.startsWith(V1_TAG)) {
+            return stored;
+        }
+        try {
+            byte[] deflated = Base64.getDecoder().decode(stored.substring(V1_TAG.length()));
+            return new String(inflate(deflated), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException | DataFormatException e) {
+            return stored;
+        }
+    }
+
+    private byte[] deflate(byte[] input) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] input) throws DataFormatException {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(buffer);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated note body");
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    // Kanonikalisasi HTMLEditor: buang komentar, ringkas spasi di teks dan di dalam tag,
+    // nama tag/atribut jadi huruf kecil. Nilai atribut (dgn atau tanpa kutip), isi <pre>/<textarea>/<script>/<style>
+    // dan isi elemen ber-style white-space:pre* tidak diubah.
+    static String minify(String html) {
+        StringBuilder out = new StringBuilder(html.length());
+        int n = html.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                if (html.startsWith("<!--", i)) {
+                    int end = html.indexOf("-->", i + 4);
+                    i = end < 0 ? n : end + 3;
+                    continue;
+                }
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                int tagStart = out.length();
+                i = copyTag(html, i, out);
+                String raw = rawTextElement(out, tagStart);
+                if (raw != null) {
+                    int end = indexOfIgnoreCase(html, "</" + raw, i);
+                    end = end < 0 ? n : end;
+                    out.append(html, i, end); // isi apa adanya
+                    i = end;
+                } else if (preservesSpace(out, tagStart)) {
+                    int end = indexOfClosing(html, tagName(out, tagStart), i);
+                    end = end < 0 ? n : end;
+                    out.append(html, i, end); // isi apa adanya
+                    i = end;
+                }
+            } else if (isSpace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+                i++;
+            }
+        }
+        if (pendingSpace) {
+            out.append(' ');
+        }
+        return out.toString();
+    }
+
+    // Menyalin satu tag mulai dari '<'; mengembalikan index setelah '>'.
+    // Hanya nama tag/atribut yang dikecilkan; nilai tanpa kutip (href=Foo.html, data base64) disalin apa adanya.
+    private static int copyTag(String html, int i, StringBuilder out) {
+        int n = html.length();
+        char quote = 0;
+        boolean space = false;
+        boolean equals = false; // karakter terakhir yang ditulis adalah '=' pemisah nama dan nilai
+        boolean unquoted = false;
+        boolean afterValue = false; // nilai tanpa kutip baru saja selesai: spasi berikutnya wajib ditulis
+        out.append('<');
+        i++;
+        while (i < n) {
+            char c = html.charAt(i++);
+            if (quote != 0) {
+                out.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (unquoted && !isSpace(c) && c != '>') {
+                out.append(c);
+            } else if (isSpace(c)) {
+                afterValue |= unquoted;
+                unquoted = false;
+                space = true;
+            } else if (c == '>') {
+                out.append('>');
+                return i;
+            } else {
+                if (space && (afterValue || (!equals && out.charAt(out.length() - 1) != '<' && c != '=' && c != '/'))) {
+                    out.append(' '); // spasi hanya perlu sbg pemisah atribut, tidak di sekitar '=' atau sebelum '/'
+                }
+                space = false;
+                afterValue = false;
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                    out.append(c);
+                } else if (equals) {
+                    unquoted = true; // awal nilai tanpa kutip
+                    out.append(c);
+                } else {
+                    out.append(Character.toLowerCase(c));
+                }
+                equals = c == '=' && !unquoted;
+            }
+        }
+        return i;
+    }
+
+    private static String rawTextElement(StringBuilder out, int tagStart) {
+        int nameStart = tagStart + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < out.length() && Character.isLetter(out.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = out.substring(nameStart, nameEnd);
+        switch (name) {
+            case "pre":
+            case "textarea":
+            case "script":
+            case "style":
+                return name;
+            default:
+                return null;
+        }
+    }
+
+    private static String tagName(StringBuilder out, int tagStart) {
+        int nameEnd = tagStart + 1;
+        while (nameEnd < out.length() && Character.isLetterOrDigit(out.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        return out.substring(tagStart + 1, nameEnd);
+    }
+
+    // Tag pembuka (bukan </x atau <x/>) yang atributnya meminta spasi dipertahankan
+    private static boolean preservesSpace(StringBuilder out, int tagStart) {
+        int length = out.length() - tagStart;
+        return length > 2 && Character.isLetter(out.charAt(tagStart + 1)) && out.charAt(out.length() - 2) != '/'
+                && PRESERVE_SPACE.matcher(out.subSequence(tagStart, out.length())).find();
+    }
+
+    // Index "</name" yang menutup elemen yang dibuka tepat sebelum from; elemen bersarang dgn nama sama dihitung
+    private static int indexOfClosing(String html, String name, int from) {
+        int depth = 1;
+        int i = html.indexOf('<', from);
+        while (i >= 0) {
+            boolean closing = html.startsWith("</", i);
+            int nameStart = closing ? i + 2 : i + 1;
+            int nameEnd = nameStart + name.length();
+            if (html.regionMatches(true, nameStart, name, 0, name.length())
+                    && (nameEnd == html.length() || !Character.isLetterOrDigit(html.charAt(nameEnd)))) {
+                depth += closing ? -1 : 1;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+            i = html.indexOf('<', i + 1);
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        String lower = needle.toLowerCase(Locale.ROOT);
+        for (int i = from; i <= text.length() - lower.length(); i++) {
+            if (text.regionMatches(true, i, lower, 0, lower.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    public long getRawBytes() { return rawBytes.sum(); }
+    public long getEncodedBytes() { return encodedBytes.sum(); }
+
+    // Porsi payload yang dihemat dibanding HTML mentah (0..1)
+    public double getSavedRatio() {
+        long raw = getRawBytes();
+        return raw == 0 ? 0 : 1.0 - (double) getEncodedBytes() / raw;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("payload %d -> %d chars (%.0f%% saved)", getRawBytes(), getEncodedBytes(), getSavedRatio() * 100);
+    }
+}
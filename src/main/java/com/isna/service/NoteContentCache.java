@@ -0,0 +1,100 @@
+package com.isna.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache LRU isi note yang dibatasi total byte, bukan jumlah entri.
+// Setiap entri membawa stamp versi dari index; entri dgn stamp berbeda dianggap basi (miss).
+public class NoteContentCache {
+    private static class Entry {
+        final long stamp;
+        final String content;
+
+        Entry(long stamp, String content) {
+            this.stamp = stamp;
+            this.content = content;
+        }
+
+        long bytes() {
+            return (long) content.length() * 2; // String memakai ~2 byte per char
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // urutan akses
+    private long currentBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public NoteContentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Mengembalikan isi note jika ada dan stamp-nya cocok, selain itu null
+    public synchronized String get(String path, long stamp) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.stamp != stamp) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.content;
+    }
+
+    public synchronized boolean contains(String path, long stamp) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.stamp == stamp;
+    }
+
+    public synchronized void put(String path, long stamp, String content) {
+        Entry entry = new Entry(stamp, content == null ? "" : content);
+        Entry old = entries.put(path, entry);
+        if (old != null) {
+            currentBytes -= old.bytes();
+        }
+        currentBytes += entry.bytes();
+        evict();
+    }
+
+    public synchronized void invalidate(String path) {
+        Entry old = entries.remove(path);
+        if (old != null) {
+            currentBytes -= old.bytes();
+        }
+    }
+
+    // Membuang path dan semua note di bawahnya (utk hapus folder)
+    public synchronized void invalidateSubtree(String path) {
+        String prefix = path + "/";
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().equals(path) || e.getKey().startsWith(prefix)) {
+                currentBytes -= e.getValue().bytes();
+                it.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            currentBytes -= eldest.bytes();
+            it.remove();
+        }
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public synchronized long getCurrentBytes() { return currentBytes; }
+    public synchronized int size() { return entries.size(); }
+
+    @Override
+    public String toString() {
+        return "NoteContentCache{hits=" + getHits() + ", misses=" + getMisses()
+                + ", entries=" + size() + ", bytes=" + getCurrentBytes() + "/" + maxBytes + "}";
+    }
+}
@@ -0,0 +1,231 @@
+package com.isna.service;
+
+import java.io.ByteArrayOutputStream;
+
+// Delta antar dua versi isi note: daftar operasi COPY(offset, panjang) dari versi dasar dan INSERT(teks baru).
+// HTMLEditor menulis hampir seluruh note dalam satu baris, jadi diff per baris tidak berguna; delta dicari
+// dgn prefix/suffix bersama lalu pencocokan blok BLOCK karakter lewat rolling hash (spt rsync/xdelta),
+// sehingga beberapa edit kecil di note besar tetap menghasilkan delta kecil.
+// Format: varint panjang target, varint jumlah op, setiap op varint (panjang << 1 | INSERT?) dan utk COPY
+// varint offset, lalu semua teks INSERT berurutan, per char spt modified UTF-8 (1-3 byte) supaya batas
+// operasi yang jatuh di tengah surrogate pair tetap utuh.
+public final class NoteDelta {
+    private static final int BLOCK = 16;
+    private static final int HASH_BASE = 31;
+    private static final int COPY = 0, INSERT = 1;
+
+    private NoteDelta() {
+    }
+
+    public static byte[] encode(String base, String target) {
+        int baseLength = base.length();
+        int targetLength = target.length();
+        int prefix = 0;
+        int maxPrefix = Math.min(baseLength, targetLength);
+        while (prefix < maxPrefix && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && base.charAt(baseLength - 1 - suffix) == target.charAt(targetLength - 1 - suffix)) {
+            suffix++;
+        }
+        Ops ops = new Ops(targetLength);
+        ops.copy(0, prefix);
+        int end = targetLength - suffix;
+        if (end - prefix >= BLOCK && baseLength >= BLOCK) {
+            matchBlocks(base, target, prefix, end, ops);
+        } else {
+            ops.insert(target, prefix, end);
+        }
+        ops.copy(baseLength - suffix, suffix);
+        return ops.toBytes();
+    }
+
+    // Bagian tengah target dicocokkan dgn blok base di posisi kelipatan BLOCK
+    private static void matchBlocks(String base, String target, int from, int end, Ops ops) {
+        int blocks = base.length() / BLOCK;
+        int capacity = Integer.highestOneBit(Math.max(blocks, 1) * 2) * 2;
+        int[] table = new int[capacity]; // posisi blok + 1, 0 = kosong
+        int mask = capacity - 1;
+        for (int b = 0; b < blocks; b++) {
+            int p = b * BLOCK;
+            int slot = mix(hash(base, p)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = p + 1;
+        }
+        int power = 1; // HASH_BASE^(BLOCK-1) utk membuang karakter terdepan
+        for (int i = 1; i < BLOCK; i++) {
+            power *= HASH_BASE;
+        }
+        int insertStart = from;
+        int i = from;
+        int h = i + BLOCK <= end ? hash(target, i) : 0;
+        while (i + BLOCK <= end) {
+            int match = -1;
+            for (int slot = mix(h) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                int p = table[slot] - 1;
+                if (target.regionMatches(i, base, p, BLOCK)) {
+                    match = p;
+                    break;
+                }
+            }
+            if (match < 0) {
+                if (i + BLOCK < end) {
+                    h = (h - target.charAt(i) * power) * HASH_BASE + target.charAt(i + BLOCK);
+                }
+                i++;
+                continue;
+            }
+            int length = BLOCK;
+            while (i + length < end && match + length < base.length() && target.charAt(i + length) == base.charAt(match + length)) {
+                length++;
+            }
+            int back = 0;
+            while (i - back > insertStart && match - back > 0 && target.charAt(i - back - 1) == base.charAt(match - back - 1)) {
+                back++;
+            }
+            ops.insert(target, insertStart, i - back);
+            ops.copy(match - back, length + back);
+            i += length;
+            insertStart = i;
+            if (i + BLOCK <= end) {
+                h = hash(target, i);
+            }
+        }
+        ops.insert(target, insertStart, end);
+    }
+
+    private static int hash(String text, int from) {
+        int h = 0;
+        for (int i = from; i < from + BLOCK; i++) {
+            h = h * HASH_BASE + text.charAt(i);
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public static String apply(String base, byte[] delta) {
+        int[] pos = {0};
+        int targetLength = readVarint(delta, pos);
+        int count = readVarint(delta, pos);
+        int[] kinds = new int[count];
+        int[] lengths = new int[count];
+        int[] offsets = new int[count];
+        for (int op = 0; op < count; op++) {
+            int tag = readVarint(delta, pos);
+            kinds[op] = tag & 1;
+            lengths[op] = tag >>> 1;
+            if (kinds[op] == COPY) {
+                offsets[op] = readVarint(delta, pos);
+            }
+        }
+        String inserted = decodeChars(delta, pos[0]);
+        StringBuilder sb = new StringBuilder(targetLength);
+        int insertPos = 0;
+        for (int op = 0; op < count; op++) {
+            if (kinds[op] == COPY) {
+                sb.append(base, offsets[op], offsets[op] + lengths[op]);
+            } else {
+                sb.append(inserted, insertPos, insertPos + lengths[op]);
+                insertPos += lengths[op];
+            }
+        }
+        if (sb.length() != targetLength) {
+            throw new IllegalArgumentException("Corrupt delta: expected " + targetLength + " chars, got " + sb.length());
+        }
+        return sb.toString();
+    }
+
+    private static String decodeChars(byte[] data, int from) {
+        StringBuilder sb = new StringBuilder(data.length - from);
+        int i = from;
+        while (i < data.length) {
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                sb.append((char) b);
+                i++;
+            } else if (b < 0xE0) {
+                sb.append((char) ((b & 0x1F) << 6 | data[i + 1] & 0x3F));
+                i += 2;
+            } else {
+                sb.append((char) ((b & 0x0F) << 12 | (data[i + 1] & 0x3F) << 6 | data[i + 2] & 0x3F));
+                i += 3;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Ops {
+        private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        private final StringBuilder inserted = new StringBuilder();
+        private final int targetLength;
+        private int count;
+
+        Ops(int targetLength) {
+            this.targetLength = targetLength;
+        }
+
+        void copy(int offset, int length) {
+            if (length > 0) {
+                writeVarint(header, length << 1 | COPY);
+                writeVarint(header, offset);
+                count++;
+            }
+        }
+
+        void insert(String text, int from, int to) {
+            if (to > from) {
+                writeVarint(header, (to - from) << 1 | INSERT);
+                inserted.append(text, from, to);
+                count++;
+            }
+        }
+
+        byte[] toBytes() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(header.size() + inserted.length() + 10);
+            writeVarint(out, targetLength);
+            writeVarint(out, count);
+            out.writeBytes(header.toByteArray());
+            for (int i = 0; i < inserted.length(); i++) {
+                char c = inserted.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    out.write(c);
+                } else if (c < 0x800) {
+                    out.write(0xC0 | c >> 6);
+                    out.write(0x80 | c & 0x3F);
+                } else {
+                    out.write(0xE0 | c >> 12);
+                    out.write(0x80 | c >> 6 & 0x3F);
+                    out.write(0x80 | c & 0x3F);
+                }
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Riwayat versi note di file lokal ~/.notetaking/<userId>/history.log (append-only, spt LocalNoteLog).
+// Setiap simpan disimpan sbg delta (NoteDelta) terhadap versi sebelumnya; setiap KEYFRAME_INTERVAL versi,
+// atau jika delta tidak lebih kecil dari separuh isi, disimpan salinan penuh (keyframe). Membangun ulang
+// versi apa pun = satu keyframe + paling banyak KEYFRAME_INTERVAL-1 delta. Keyframe berformat delta dari teks
+// kosong (satu INSERT) sehingga semua record dibaca dgn cara yang sama. Payload di-deflate jika lebih kecil.
+// Kompaksi berkala menipiskan versi lama (semua versi < 1 hari, lalu satu per jam sampai 30 hari, lalu
+// satu per hari; versi terbaru selalu disimpan) dan menulis ulang file.
+// Semua operasi berjalan di satu thread "note-history", jadi simpan di thread FX tidak menunggu.
+public class NoteHistory implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(NoteHistory.class);
+    private static final LatencyHistogram RECONSTRUCT_LATENCY = Metrics.latency(Metrics.HISTORY_RECONSTRUCT);
+    private static final int MAGIC = 0x4E484953; // "NHIS"
+    private static final int FORMAT = 1;
+    private static final byte FULL = 1, DELTA = 2, DROP = 3, MOVE = 4;
+    private static final byte DEFLATED = (byte) 0x80; // flag di byte tipe record versi
+    static final int KEYFRAME_INTERVAL = 16;
+    static final long HOUR_MS = 3_600_000L;
+    static final long DAY_MS = 24 * HOUR_MS;
+    static final long KEEP_ALL_MS = DAY_MS;
+    static final long KEEP_HOURLY_MS = 30 * DAY_MS;
+    private static final long COMPACT_INTERVAL_MIN = 60;
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+    private static final int LATEST_CACHE = 16;
+
+    // Satu versi tersimpan. stamp = stamp note saat disimpan (waktu simpan dalam ms)
+    public static class Version {
+        final long stamp;
+        final int chars;
+        final boolean keyframe;
+        final boolean deflated;
+        final long offset;
+        final int length;
+
+        Version(long stamp, int chars, boolean keyframe, boolean deflated, long offset, int length) {
+            this.stamp = stamp;
+            this.chars = chars;
+            this.keyframe = keyframe;
+            this.deflated = deflated;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getStamp() { return stamp; }
+        public int getChars() { return chars; }
+        public boolean isKeyframe() { return keyframe; }
+        public int getStoredBytes() { return length; }
+    }
+
+    private final Path file;
+    private final ScheduledExecutorService worker;
+    private final Map<String, List<Version>> versions = new HashMap<>(); // urut dari yang terlama
+    // isi versi terbaru dari note yang baru disimpan: simpan berikutnya langsung di-diff tanpa membaca file
+    private final Map<String, String> latest = new LinkedHashMap<String, String>(LATEST_CACHE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > LATEST_CACHE;
+        }
+    };
+    private Set<String> attachmentRefs; // null: belum dihitung di sesi ini
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final Inflater inflater = new Inflater();
+    private DataOutputStream out;
+    private RandomAccessFile reader;
+    private volatile long position;
+    private long liveBytes;
+
+    public NoteHistory(Path file) {
+        this.file = file;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "note-history");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Lokasi: di samping log note, ~/.notetaking/<userId>/history.log
+    public static Path defaultFile(String userId) {
+        return LocalNoteRepository.defaultLogFile(userId).resolveSibling("history.log");
+    }
+
+    // File dibaca di thread history; operasi lain menunggu di antrian yang sama
+    public CompletableFuture<Void> open() {
+        CompletableFuture<Void> opened = submit(() -> {
+            Files.createDirectories(file.getParent());
+            if (!Files.exists(file) || Files.size(file) == 0) {
+                try (DataOutputStream header = new DataOutputStream(new FileOutputStream(file.toFile()))) {
+                    header.writeInt(MAGIC);
+                    header.writeInt(FORMAT);
+                }
+            }
+            replay();
+            openStreams();
+            compactIfNeeded(System.currentTimeMillis());
+            return null;
+        });
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                compactIfNeeded(System.currentTimeMillis());
+            } catch (IOException | RuntimeException e) {
+                LOG.error("History compaction failed: {}", e.getMessage());
+            }
+        }, COMPACT_INTERVAL_MIN, COMPACT_INTERVAL_MIN, TimeUnit.MINUTES);
+        return opened;
+    }
+
+    private interface Task<T> {
+        T run() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> submit(Task<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            worker.execute(() -> {
+                try {
+                    result.complete(task.run());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) { // sudah ditutup
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    // Dipanggil setiap simpan lokal. Isi yang sama dgn versi terakhir tidak dicatat.
+    // Selesai setelah versi tertulis; kegagalan hanya dicatat di log (simpan note tidak ikut gagal).
+    public CompletableFuture<Void> record(String path, long stamp, String content) {
+        return submit(() -> {
+            append(path, stamp, content);
+            out.flush();
+            return (Void) null;
+        }).exceptionally(error -> {
+            LOG.warn("History for '{}' not recorded: {}", path, error.toString());
+            return null;
+        });
+    }
+
+    public void drop(String path) {
+        submit(() -> {
+            out.writeByte(DROP);
+            position += 1 + writePath(out, path);
+            out.flush();
+            removeSubtree(path);
+            return null;
+        });
+    }
+
+    public void move(String fromPath, String toPath) {
+        submit(() -> {
+            out.writeByte(MOVE);
+            position += 1 + writePath(out, fromPath) + writePath(out, toPath);
+            out.flush();
+            moveSubtree(fromPath, toPath);
+            return null;
+        });
+    }
+
+    // Versi note dari yang terbaru
+    public CompletableFuture<List<Version>> versions(String path) {
+        return submit(() -> {
+            List<Version> list = new ArrayList<>(versions.getOrDefault(path, Collections.emptyList()));
+            Collections.reverse(list);
+            return list;
+        });
+    }
+
+    public CompletableFuture<String> content(String path, long stamp) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            List<Version> list = versions.get(path);
+            int index = list == null ? -1 : indexOf(list, stamp);
+            if (index < 0) {
+                throw new IllegalArgumentException("No version " + stamp + " of '" + path + "'");
+            }
+            String content = reconstruct(list, index);
+            RECONSTRUCT_LATENCY.recordSince(start);
+            return content;
+        });
+    }
+
+    public long sizeBytes() {
+        return position;
+    }
+
+    // Hash lampiran yang direferensikan versi mana pun (agar AttachmentStore tidak menghapus blobnya). Dihitung
+    // penuh sekali per sesi lalu ditambah setiap simpan; versi yang dipangkas kompaksi baru lepas di sesi berikutnya.
+    public CompletableFuture<Set<String>> attachmentRefs() {
+        return submit(() -> {
+            if (attachmentRefs == null) {
+                Set<String> refs = new HashSet<>();
+                for (List<Version> list : versions.values()) {
+                    String content = null;
+                    for (Version version : list) {
+                        content = NoteDelta.apply(version.keyframe ? "" : content, read(version));
+                        refs.addAll(AttachmentStore.references(content));
+                    }
+                }
+                attachmentRefs = refs;
+            }
+            return new HashSet<>(attachmentRefs);
+        });
+    }
+
+    private void append(String path, long stamp, String content) throws IOException {
+        List<Version> list = versions.computeIfAbsent(path, p -> new ArrayList<>());
+        String previous = null;
+        if (!list.isEmpty()) {
+            previous = latest.get(path);
+            if (previous == null) {
+                previous = reconstruct(list, list.size() - 1);
+            }
+            if (previous.equals(content) || stamp <= list.get(list.size() - 1).stamp) {
+                return;
+            }
+        }
+        byte[] data = encode(list, previous, content);
+        boolean keyframe = data == null;
+        if (keyframe) {
+            data = NoteDelta.encode("", content);
+        }
+        list.add(writeVersion(path, stamp, content.length(), keyframe, data));
+        latest.put(path, content);
+        if (attachmentRefs != null) {
+            attachmentRefs.addAll(AttachmentStore.references(content));
+        }
+    }
+
+    // Delta terhadap versi sebelumnya, atau null jika versi ini sebaiknya jadi keyframe
+    private static byte[] encode(List<Version> list, String previous, String content) {
+        if (previous == null || sinceKeyframe(list) >= KEYFRAME_INTERVAL - 1) {
+            return null;
+        }
+        byte[] delta = NoteDelta.encode(previous, content);
+        return delta.length > content.length() / 2 ? null : delta;
+    }
+
+    // Jumlah delta sejak keyframe terakhir
+    private static int sinceKeyframe(List<Version> list) {
+        int count = 0;
+        for (int i = list.size() - 1; i >= 0 && !list.get(i).keyframe; i--) {
+            count++;
+        }
+        return count;
+    }
+
+    private Version writeVersion(String path, long stamp, int chars, boolean keyframe, byte[] data) throws IOException {
+        byte[] deflated = deflate(data);
+        boolean useDeflated = deflated.length < data.length;
+        byte[] stored = useDeflated ? deflated : data;
+        out.writeByte((keyframe ? FULL : DELTA) | (useDeflated ? DEFLATED : 0));
+        long size = 1 + writePath(out, path);
+        out.writeLong(stamp);
+        out.writeInt(chars);
+        out.writeInt(stored.length);
+        size += 16;
+        long offset = position + size;
+        out.write(stored);
+        position = offset + stored.length;
+        liveBytes += stored.length;
+        return new Version(stamp, chars, keyframe, useDeflated, offset, stored.length);
+    }
+
+    private String reconstruct(List<Version> list, int index) throws IOException {
+        int keyframe = index;
+        while (!list.get(keyframe).keyframe) {
+            keyframe--;
+        }
+        String content = NoteDelta.apply("", read(list.get(keyframe)));
+        for (int i = keyframe + 1; i <= index; i++) {
+            content = NoteDelta.apply(content, read(list.get(i)));
+        }
+        return content;
+    }
+
+    // Setiap task tulis sudah flush, jadi isi file selalu lengkap saat dibaca
+    private byte[] read(Version version) throws IOException {
+        byte[] bytes = new byte[version.length];
+        reader.seek(version.offset);
+        reader.readFully(bytes);
+        return version.deflated ? inflate(bytes) : bytes;
+    }
+
+    private static int indexOf(List<Version> list, long stamp) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i).stamp == stamp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Versi yang dipertahankan kompaksi (list urut dari yang terlama): yang terbaru, semua yang lebih muda
+    // dari KEEP_ALL_MS, lalu versi terakhir di setiap jam (sampai KEEP_HOURLY_MS) atau setiap hari
+    static boolean[] retained(List<Version> list, long now) {
+        boolean[] keep = new boolean[list.size()];
+        long lastBucket = Long.MIN_VALUE;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            long stamp = list.get(i).stamp;
+            long age = now - stamp;
+            if (i == list.size() - 1 || age < KEEP_ALL_MS) {
+                keep[i] = true;
+                continue;
+            }
+            // bucket jam dan hari dibedakan tandanya supaya tidak pernah sama
+            long bucket = age < KEEP_HOURLY_MS ? stamp / HOUR_MS : -(stamp / DAY_MS) - 1;
+            keep[i] = bucket != lastBucket;
+            lastBucket = bucket;
+        }
+        return keep;
+    }
+
+    public CompletableFuture<Integer> compact() {
+        return submit(() -> rewrite(System.currentTimeMillis()));
+    }
+
+    private void compactIfNeeded(long now) throws IOException {
+        int prunable = 0;
+        for (List<Version> list : versions.values()) {
+            for (boolean keep : retained(list, now)) {
+                prunable += keep ? 0 : 1;
+            }
+        }
+        if (prunable > 0 || (position > COMPACT_MIN_BYTES && position > 2 * liveBytes)) {
+            rewrite(now);
+        }
+    }
+
+    // Menulis ulang file hanya dgn versi yang dipertahankan; rantai delta dibangun ulang dari versi tersebut
+    private int rewrite(long now) throws IOException {
+        out.flush();
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        long before = position;
+        int pruned = 0;
+        Map<String, List<Version>> rewritten = new HashMap<>();
+        DataOutputStream previousOut = out;
+        long previousPosition = position;
+        long previousLive = liveBytes;
+        FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+            compacted.writeInt(MAGIC);
+            compacted.writeInt(FORMAT);
+            out = compacted; // writeVersion menulis ke file baru
+            position = 8;
+            liveBytes = 0;
+            for (Map.Entry<String, List<Version>> entry : new TreeMap<>(versions).entrySet()) {
+                List<Version> list = entry.getValue();
+                boolean[] keep = retained(list, now);
+                List<Version> kept = new ArrayList<>();
+                String content = null;
+                String previousKept = null;
+                for (int i = 0; i < list.size(); i++) {
+                    Version version = list.get(i);
+                    byte[] data = read(version);
+                    content = NoteDelta.apply(version.keyframe ? "" : content, data);
+                    if (!keep[i]) {
+                        pruned++;
+                        continue;
+                    }
+                    byte[] delta = encode(kept, previousKept, content);
+                    boolean keyframe = delta == null;
+                    kept.add(writeVersion(entry.getKey(), version.stamp, content.length(), keyframe,
+                            keyframe ? NoteDelta.encode("", content) : delta));
+                    previousKept = content;
+                }
+                rewritten.put(entry.getKey(), kept);
+            }
+            compacted.flush();
+            tmpOut.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            out = previousOut;
+            position = previousPosition;
+            liveBytes = previousLive;
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        long after = position;
+        previousOut.close();
+        reader.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        versions.clear();
+        versions.putAll(rewritten);
+        openStreams();
+        LOG.info("History compacted: {} versions pruned, {} KB -> {} KB", pruned, before / 1024, after / 1024);
+        return pruned;
+    }
+
+    private void openStreams() throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true)));
+        reader = new RandomAccessFile(file.toFile(), "r");
+    }
+
+    // Membaca ulang index; ekor yang terpotong (crash saat menulis) dibuang
+    private void replay() throws IOException {
+        versions.clear();
+        liveBytes = 0;
+        long good;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Unknown history format: " + file);
+            }
+            long pos = 8;
+            good = pos;
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    String path = readPath(in);
+                    pos += 1 + 4 + path.getBytes(StandardCharsets.UTF_8).length;
+                    byte kind = (byte) (type & ~DEFLATED);
+                    if (kind == FULL || kind == DELTA) {
+                        long stamp = in.readLong();
+                        int chars = in.readInt();
+                        int length = in.readInt();
+                        pos += 16;
+                        in.readFully(new byte[length]);
+                        versions.computeIfAbsent(path, p -> new ArrayList<>())
+                                .add(new Version(stamp, chars, kind == FULL, (type & DEFLATED) != 0, pos, length));
+                        liveBytes += length;
+                        pos += length;
+                    } else if (kind == DROP) {
+                        removeSubtree(path);
+                    } else if (kind == MOVE) {
+                        String toPath = readPath(in);
+                        pos += 4 + toPath.getBytes(StandardCharsets.UTF_8).length;
+                        moveSubtree(path, toPath);
+                    } else {
+                        break; // record tidak dikenal: anggap ekor rusak
+                    }
+                    good = pos;
+                }
+            } catch (EOFException e) {
+                // akhir file
+            }
+        }
+        if (good < Files.size(file)) {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(good);
+            }
+        }
+        position = good;
+    }
+
+    private void removeSubtree(String path) {
+        Iterator<Map.Entry<String, List<Version>>> it = versions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, List<Version>> e = it.next();
+            if (isWithin(e.getKey(), path)) {
+                for (Version v : e.getValue()) {
+                    liveBytes -= v.length;
+                }
+                it.remove();
+            }
+        }
+        latest.keySet().removeIf(p -> isWithin(p, path));
+    }
+
+    private void moveSubtree(String fromPath, String toPath) {
+        Map<String, List<Version>> moved = new HashMap<>();
+        Iterator<Map.Entry<String, List<Version>>> it = versions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, List<Version>> e = it.next();
+            if (isWithin(e.getKey(), fromPath)) {
+                moved.put(toPath + e.getKey().substring(fromPath.length()), e.getValue());
+                it.remove();
+            }
+        }
+        versions.putAll(moved);
+        latest.keySet().removeIf(p -> isWithin(p, fromPath));
+    }
+
+    private static boolean isWithin(String path, String ancestor) {
+        return path.equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    private static int writePath(DataOutputStream target, String path) throws IOException {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        target.writeInt(bytes.length);
+        target.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static String readPath(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] deflate(byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            buffer.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return buffer.toByteArray();
+    }
+
+    private byte[] inflate(byte[] input) throws IOException {
+        inflater.reset();
+        inflater.setInput(input);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(input.length * 4);
+        byte[] chunk = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated history record");
+                }
+                buffer.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt history record", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        CompletableFuture<Void> closed = submit(() -> {
+            if (out != null) {
+                out.close();
+                reader.close();
+                out = null;
+            }
+            deflater.end();
+            inflater.end();
+            return null;
+        });
+        worker.shutdown();
+        try {
+            closed.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOG.warn("History close failed: {}", e.toString());
+        }
+    }
+}
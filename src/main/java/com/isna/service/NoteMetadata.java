@@ -0,0 +1,137 @@
+package com.isna.service;
+
+import com.isna.model.Note;
+import com.isna.utility.KeyCodec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Metadata note (tag, waktu dibuat, pinned) disimpan sbg elemen <meta> di awal isi note, mis.
+//   <meta name="note-created" content="1714550400000"><meta name="note-tags" content="kerja penting">...
+// sehingga ikut tersimpan, tereplikasi, masuk riwayat dan ikut export/import bersama isinya tanpa format baru.
+// Editor hanya menerima body (tanpa header); header ditulis ulang setiap simpan. Waktu diubah = stamp versi.
+// Note lama tanpa header: tanpa tag, tidak pinned, dan waktu dibuat dianggap sama dgn stamp-nya.
+public final class NoteMetadata {
+    private static final String META_PREFIX = "<meta name=\"note-";
+    private static final String CONTENT_ATTR = "\" content=\"";
+    private static final String CREATED = "created";
+    private static final String PINNED = "pinned";
+    private static final String TAGS = "tags";
+
+    private NoteMetadata() {
+    }
+
+    // Note lengkap dgn isi tanpa header (utk editor)
+    public static Note read(String path, long stamp, String stored) {
+        Note note = parse(path, stamp, stored);
+        note.setContent(body(stored));
+        return note;
+    }
+
+    // Hanya metadata, isi tidak disalin (utk index); cukup membaca header di awal isi
+    public static Note parse(String path, long stamp, String stored) {
+        Note note = new Note(KeyCodec.decode(path.substring(path.lastIndexOf('/') + 1)), null);
+        note.setModified(stamp);
+        note.setCreated(stamp);
+        int pos = 0;
+        while (stored != null && stored.startsWith(META_PREFIX, pos)) {
+            int nameStart = pos + META_PREFIX.length();
+            int nameEnd = stored.indexOf(CONTENT_ATTR, nameStart);
+            int valueEnd = nameEnd < 0 ? -1 : stored.indexOf('"', nameEnd + CONTENT_ATTR.length());
+            int tagEnd = valueEnd < 0 ? -1 : stored.indexOf('>', valueEnd);
+            if (tagEnd < 0) {
+                break; // header rusak: sisanya dianggap isi
+            }
+            String value = stored.substring(nameEnd + CONTENT_ATTR.length(), valueEnd);
+            switch (stored.substring(nameStart, nameEnd)) {
+                case CREATED:
+                    try {
+                        note.setCreated(Long.parseLong(value));
+                    } catch (NumberFormatException e) {
+                        // dibiarkan sama dgn stamp
+                    }
+                    break;
+                case PINNED:
+                    note.setPinned(Boolean.parseBoolean(value));
+                    break;
+                case TAGS:
+                    note.setTags(parseTags(value));
+                    break;
+                default:
+                    break; // metadata dari versi yang lebih baru
+            }
+            pos = tagEnd + 1;
+        }
+        return note;
+    }
+
+    // Isi tanpa header metadata
+    public static String body(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        int pos = 0;
+        while (stored.startsWith(META_PREFIX, pos)) {
+            int tagEnd = stored.indexOf('>', pos);
+            if (tagEnd < 0) {
+                break;
+            }
+            pos = tagEnd + 1;
+        }
+        return pos == 0 ? stored : stored.substring(pos);
+    }
+
+    // Header utk ditulis di depan isi editor; kosong jika tidak ada metadata
+    public static String header(Note note) {
+        StringBuilder header = new StringBuilder();
+        if (note.getCreated() > 0) {
+            meta(header, CREATED, Long.toString(note.getCreated()));
+        }
+        if (note.isPinned()) {
+            meta(header, PINNED, "true");
+        }
+        if (!note.getTags().isEmpty()) {
+            meta(header, TAGS, String.join(" ", note.getTags()));
+        }
+        return header.toString();
+    }
+
+    public static String write(Note note) {
+        String content = note.getContent();
+        return header(note) + (content == null ? "" : content);
+    }
+
+    private static void meta(StringBuilder header, String name, String value) {
+        header.append(META_PREFIX).append(name).append(CONTENT_ATTR).append(value).append("\">");
+    }
+
+    // Teks dari kotak tag -> tag unik: dipisah spasi/koma, '#' di depan dibuang, huruf kecil, hanya huruf,
+    // angka dan -_/. (jadi aman di atribut HTML tanpa escape)
+    public static List<String> parseTags(String text) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (text != null) {
+            for (String word : text.split("[\\s,]+")) {
+                String tag = normalizeTag(word);
+                if (!tag.isEmpty()) {
+                    tags.add(tag);
+                }
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    public static String normalizeTag(String word) {
+        StringBuilder tag = new StringBuilder(word.length());
+        String lower = word.toLowerCase(Locale.ROOT);
+        for (int i = lower.startsWith("#") ? 1 : 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '/' || c == '.') {
+                tag.append(c);
+            }
+        }
+        return tag.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Satu folder atau note di NoteTree. ID stabil selama sesi (tidak berubah saat rename/move),
+// key adalah segmen path yang sudah di-encode KeyCodec dan di-intern oleh NoteTree.
+// Path lengkap tidak disimpan, dihitung dari rantai parent sehingga rename/move subtree cukup O(1).
+public class NoteNode {
+    private final int id;
+    private final boolean folder;
+    private String key;
+    private String title; // key yang sudah di-decode, dibuat saat pertama dibutuhkan
+    private NoteNode parent;
+    private final List<NoteNode> children; // null utk note
+    private final Map<String, NoteNode> childByKey;
+    private long stamp;
+    private TreeItem<NoteNode> item; // diisi NoteTreePatcher
+
+    NoteNode(int id, boolean folder, String key) {
+        this.id = id;
+        this.folder = folder;
+        this.key = key;
+        this.children = folder ? new ArrayList<>() : null;
+        this.childByKey = folder ? new HashMap<>() : null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isFolder() {
+        return folder;
+    }
+
+    public boolean isRoot() {
+        return parent == null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // Judul yang ditampilkan ke pengguna
+    public String getTitle() {
+        if (title == null) {
+            title = KeyCodec.decode(key);
+        }
+        return title;
+    }
+
+    public NoteNode getParent() {
+        return parent;
+    }
+
+    public List<NoteNode> getChildren() {
+        return children == null ? Collections.emptyList() : Collections.unmodifiableList(children);
+    }
+
+    public NoteNode child(String key) {
+        return childByKey == null ? null : childByKey.get(key);
+    }
+
+    public int childCount() {
+        return children == null ? 0 : children.size();
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+    public TreeItem<NoteNode> getItem() {
+        return item;
+    }
+
+    // Path lengkap ("" utk root). Satu kali jalan ke atas utk panjang, satu kali utk menyalin: O(panjang path)
+    public String getPath() {
+        if (parent == null) {
+            return "";
+        }
+        int length = -1;
+        for (NoteNode n = this; n.parent != null; n = n.parent) {
+            length += n.key.length() + 1;
+        }
+        char[] chars = new char[length];
+        int end = length;
+        for (NoteNode n = this; n.parent != null; n = n.parent) {
+            int start = end - n.key.length();
+            n.key.getChars(0, n.key.length(), chars, start);
+            if (start > 0) {
+                chars[start - 1] = '/';
+            }
+            end = start - 1;
+        }
+        return new String(chars);
+    }
+
+    // true jika node ini sama dgn other atau leluhurnya
+    public boolean contains(NoteNode other) {
+        for (NoteNode n = other; n != null; n = n.parent) {
+            if (n == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void setStamp(long stamp) {
+        this.stamp = stamp;
+    }
+
+    void setItem(TreeItem<NoteNode> item) {
+        this.item = item;
+    }
+
+    void setKey(String key) {
+        this.key = key;
+        this.title = null;
+    }
+
+    void attach(NoteNode child, int index) {
+        child.parent = this;
+        children.add(index, child);
+        childByKey.put(child.key, child);
+    }
+
+    // Mengembalikan posisi child sebelum dilepas
+    int detach(NoteNode child) {
+        int index = children.indexOf(child);
+        children.remove(index);
+        childByKey.remove(child.key);
+        child.parent = null;
+        return index;
+    }
+
+    int indexOf(NoteNode child) {
+        return children.indexOf(child);
+    }
+
+    @Override
+    public String toString() {
+        return getTitle();
+    }
+}
@@ -0,0 +1,204 @@
+package com.isna.service;
+
+import com.isna.utility.CompressedBitmap;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Filter smart folder atas NoteQueryIndex, mis. "tag:kerja AND tag:penting AND modified:7d":
+//   tag:nama atau #nama        note bertag itu
+//   pinned                     note yang di-pin
+//   modified:7d, created:7d    diubah/dibuat dalam 7 hari terakhir (satuan h, d, w); "modified<7d" sama
+//   modified>30d               diubah lebih dari 30 hari lalu
+//   modified:2024-05-01        diubah pada tanggal itu (zona waktu lokal); ">tanggal" sesudahnya, "<tanggal" sebelumnya
+//   AND (boleh tanpa operator), OR, NOT atau -filter, dan kurung; AND mengikat lebih kuat dari OR.
+// Waktu relatif dihitung saat query dievaluasi. Query yang salah -> IllegalArgumentException dgn pesan utk pengguna.
+public final class NoteQuery {
+    private static final Pattern DURATION = Pattern.compile("(\\d{1,6})([hdw])");
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    private interface Node {
+        CompressedBitmap evaluate(NoteQueryIndex index, long now);
+    }
+
+    private final String text;
+    private final Node root;
+
+    private NoteQuery(String text, Node root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    public static NoteQuery parse(String text) {
+        Parser parser = new Parser(tokenize(text == null ? "" : text));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        Node root = parser.parseOr();
+        if (parser.pos < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.pos) + "'");
+        }
+        return new NoteQuery(text.trim().replaceAll("\\s+", " "), root);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // Dipanggil NoteQueryIndex di bawah read lock; bitmap hasil tidak boleh diubah
+    CompressedBitmap evaluate(NoteQueryIndex index, long now) {
+        return root.evaluate(index, now);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                if (word.length() > 0) {
+                    tokens.add(word.toString());
+                    word.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                word.append(c);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        final List<String> tokens;
+        final ZoneId zone = ZoneId.systemDefault();
+        int pos;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while (peekIs("OR")) {
+                pos++;
+                Node right = parseAnd();
+                Node l = left;
+                left = (index, now) -> l.evaluate(index, now).or(right.evaluate(index, now));
+            }
+            return left;
+        }
+
+        Node parseAnd() {
+            Node left = parseNot();
+            while (pos < tokens.size() && !peekIs(")") && !peekIs("OR")) {
+                if (peekIs("AND")) {
+                    pos++;
+                }
+                Node right = parseNot();
+                Node l = left;
+                left = (index, now) -> l.evaluate(index, now).and(right.evaluate(index, now));
+            }
+            return left;
+        }
+
+        Node parseNot() {
+            if (pos >= tokens.size()) {
+                throw new IllegalArgumentException("Query ends unexpectedly");
+            }
+            String token = tokens.get(pos++);
+            if (token.equalsIgnoreCase("NOT")) {
+                return not(parseNot());
+            }
+            if (token.equals("(")) {
+                Node inner = parseOr();
+                if (!peekIs(")")) {
+                    throw new IllegalArgumentException("Missing ')'");
+                }
+                pos++;
+                return inner;
+            }
+            if (token.equals(")") || token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR")) {
+                throw new IllegalArgumentException("Unexpected '" + token + "'");
+            }
+            if (token.startsWith("-") && token.length() > 1) {
+                return not(term(token.substring(1)));
+            }
+            return term(token);
+        }
+
+        private boolean peekIs(String token) {
+            return pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token);
+        }
+
+        private static Node not(Node inner) {
+            return (index, now) -> index.all().andNot(inner.evaluate(index, now));
+        }
+
+        private Node term(String token) {
+            String lower = token.toLowerCase(Locale.ROOT);
+            if (lower.equals("pinned") || lower.equals("is:pinned")) {
+                return (index, now) -> index.pinned();
+            }
+            if (lower.startsWith("#") || lower.startsWith("tag:")) {
+                String tag = NoteMetadata.normalizeTag(lower.substring(lower.startsWith("#") ? 1 : 4));
+                if (tag.isEmpty()) {
+                    throw new IllegalArgumentException("Missing tag name in '" + token + "'");
+                }
+                return (index, now) -> index.tagged(tag);
+            }
+            for (String field : new String[] {"modified", "created"}) {
+                if (lower.length() > field.length() + 1 && lower.startsWith(field)
+                        && ":<>".indexOf(lower.charAt(field.length())) >= 0) {
+                    return time(field.equals("created"), lower.charAt(field.length()), lower.substring(field.length() + 1), token);
+                }
+            }
+            throw new IllegalArgumentException("Unknown filter '" + token + "'");
+        }
+
+        // Rentang [from, to) relatif thd waktu evaluasi
+        private Node time(boolean created, char op, String value, String token) {
+            Matcher duration = DURATION.matcher(value);
+            if (duration.matches()) {
+                long unit = duration.group(2).equals("h") ? HOUR_MS : duration.group(2).equals("d") ? 24 * HOUR_MS : 7 * 24 * HOUR_MS;
+                long span = Long.parseLong(duration.group(1)) * unit;
+                return op == '>'
+                        ? range(created, now -> Long.MIN_VALUE, now -> now - span)
+                        : range(created, now -> now - span, now -> Long.MAX_VALUE);
+            }
+            LocalDate date;
+            try {
+                date = LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date or duration in '" + token + "' (use 7d, 12h, 2w or 2024-05-01)");
+            }
+            long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            switch (op) {
+                case '>':
+                    return range(created, now -> end, now -> Long.MAX_VALUE);
+                case '<':
+                    return range(created, now -> Long.MIN_VALUE, now -> start);
+                default:
+                    return range(created, now -> start, now -> end);
+            }
+        }
+
+        private static Node range(boolean created, LongUnaryOperator from, LongUnaryOperator to) {
+            return (index, now) -> index.between(created, from.applyAsLong(now), to.applyAsLong(now));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.isna.service;
+
+import com.isna.model.Note;
+import com.isna.utility.CompressedBitmap;
+import com.isna.utility.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index metadata note (tag, pinned, waktu dibuat/diubah) utk NoteQuery. Setiap note mendapat id padat (id
+// note yang dihapus dipakai lagi), sehingga setiap tag, pinned dan setiap hari cukup berupa CompressedBitmap
+// id; filter boolean = and/or/andNot bitmap. Waktu dikelompokkan per hari (UTC): rentang waktu = gabungan
+// bitmap hari di dalamnya, hanya hari di tepi rentang yang disaring dgn waktu tepat. Update inkremental per
+// note: id dikeluarkan dari bitmap lamanya lalu dimasukkan ke bitmap metadata baru.
+public class NoteQueryIndex {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final int SORT_DIRECTLY = 4096; // hasil sekecil ini diurutkan langsung tanpa menelusuri bitmap hari
+
+    public static class Result {
+        private final List<String> paths;
+        private final int total;
+
+        Result(List<String> paths, int total) {
+            this.paths = paths;
+            this.total = total;
+        }
+
+        // Pinned dulu, lalu yang terakhir diubah; paling banyak sebanyak limit
+        public List<String> getPaths() { return paths; }
+        public int getTotal() { return total; }
+    }
+
+    private final Map<String, Integer> idByPath = new HashMap<>();
+    private final List<String> paths = new ArrayList<>(); // id -> path (null jika kosong)
+    private final List<Note> notes = new ArrayList<>(); // id -> metadata tanpa isi
+    private final IntList freeIds = new IntList();
+    private final CompressedBitmap live = new CompressedBitmap();
+    private final CompressedBitmap pinned = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> byTag = new HashMap<>();
+    private final TreeMap<Long, CompressedBitmap> byCreatedDay = new TreeMap<>();
+    private final TreeMap<Long, CompressedBitmap> byModifiedDay = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Runnable listener;
+
+    // Dipanggil (di thread yang mengubah index) setiap kali isi index berubah
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    // Menambah atau mengganti metadata satu note; isi note tidak disimpan
+    public void put(String path, Note note) {
+        Note metadata = new Note(note.getTitle(), null);
+        metadata.setTags(note.getTags());
+        metadata.setCreated(note.getCreated());
+        metadata.setModified(note.getModified());
+        metadata.setPinned(note.isPinned());
+        lock.writeLock().lock();
+        try {
+            Integer existing = idByPath.get(path);
+            int id;
+            if (existing != null) {
+                id = existing;
+                if (sameMetadata(notes.get(id), metadata)) {
+                    return;
+                }
+                unindex(id);
+            } else {
+                id = freeIds.isEmpty() ? paths.size() : freeIds.removeLast();
+                if (id == paths.size()) {
+                    paths.add(path);
+                    notes.add(null);
+                } else {
+                    paths.set(id, path);
+                }
+                idByPath.put(path, id);
+            }
+            notes.set(id, metadata);
+            live.add(id);
+            if (metadata.isPinned()) {
+                pinned.add(id);
+            }
+            for (String tag : metadata.getTags()) {
+                byTag.computeIfAbsent(tag, t -> new CompressedBitmap()).add(id);
+            }
+            byCreatedDay.computeIfAbsent(day(metadata.getCreated()), d -> new CompressedBitmap()).add(id);
+            byModifiedDay.computeIfAbsent(day(metadata.getModified()), d -> new CompressedBitmap()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changed();
+    }
+
+    public void remove(String path) {
+        lock.writeLock().lock();
+        try {
+            Integer id = idByPath.remove(path);
+            if (id == null) {
+                return;
+            }
+            unindex(id);
+            paths.set(id, null);
+            notes.set(id, null);
+            freeIds.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changed();
+    }
+
+    private void unindex(int id) {
+        Note old = notes.get(id);
+        live.remove(id);
+        pinned.remove(id);
+        for (String tag : old.getTags()) {
+            removeFrom(byTag, tag, id);
+        }
+        removeFrom(byCreatedDay, day(old.getCreated()), id);
+        removeFrom(byModifiedDay, day(old.getModified()), id);
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> bitmaps, K key, int id) {
+        CompressedBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static boolean sameMetadata(Note a, Note b) {
+        return a.getCreated() == b.getCreated() && a.getModified() == b.getModified()
+                && a.isPinned() == b.isPinned() && a.getTags().equals(b.getTags());
+    }
+
+    private static long day(long time) {
+        return Math.floorDiv(time, DAY_MS);
+    }
+
+    private void changed() {
+        Runnable current = listener;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idByPath.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tag yang dipakai beserta jumlah note-nya
+    public Map<String, Integer> tagCounts() {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new TreeMap<>();
+            byTag.forEach((tag, bitmap) -> counts.put(tag, bitmap.cardinality()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // now: acuan filter waktu relatif (mis. modified:7d)
+    public Result query(NoteQuery query, long now, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matched = query.evaluate(this, now);
+            List<String> result = new ArrayList<>(Math.min(limit, 1024));
+            for (CompressedBitmap group : new CompressedBitmap[] {matched.and(pinned), matched.andNot(pinned)}) {
+                if (group.isEmpty() || result.size() >= limit) {
+                    continue;
+                }
+                if (group.cardinality() <= SORT_DIRECTLY) {
+                    addOrdered(group.toArray(), result, limit);
+                    continue;
+                }
+                // hari diubah dari yang terbaru; cukup sampai limit terisi
+                for (CompressedBitmap day : byModifiedDay.descendingMap().values()) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    addOrdered(day.and(group).toArray(), result, limit);
+                }
+            }
+            return new Result(result, matched.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addOrdered(int[] ids, List<String> result, int limit) {
+        Integer[] ordered = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ordered[i] = ids[i];
+        }
+        Arrays.sort(ordered, Comparator.comparingLong((Integer id) -> notes.get(id).getModified()).reversed()
+                .thenComparing(id -> paths.get(id)));
+        for (int i = 0; i < ordered.length && result.size() < limit; i++) {
+            result.add(paths.get(ordered[i]));
+        }
+    }
+
+    // Operand NoteQuery; dipanggil di bawah read lock dan tidak boleh diubah pemanggil
+
+    CompressedBitmap all() {
+        return live;
+    }
+
+    CompressedBitmap pinned() {
+        return pinned;
+    }
+
+    CompressedBitmap tagged(String tag) {
+        CompressedBitmap bitmap = byTag.get(tag);
+        return bitmap == null ? new CompressedBitmap() : bitmap;
+    }
+
+    // Note yang waktu dibuat/diubahnya di [from, to)
+    CompressedBitmap between(boolean created, long from, long to) {
+        if (from >= to) {
+            return new CompressedBitmap();
+        }
+        TreeMap<Long, CompressedBitmap> byDay = created ? byCreatedDay : byModifiedDay;
+        List<CompressedBitmap> whole = new ArrayList<>();
+        CompressedBitmap edges = new CompressedBitmap();
+        for (Map.Entry<Long, CompressedBitmap> entry : byDay.subMap(day(from), true, day(to - 1), true).entrySet()) {
+            long dayStart = entry.getKey() * DAY_MS;
+            if (dayStart >= from && dayStart + DAY_MS <= to) {
+                whole.add(entry.getValue());
+                continue;
+            }
+            entry.getValue().forEach(id -> {
+                Note note = notes.get(id);
+                long time = created ? note.getCreated() : note.getModified();
+                if (time >= from && time < to) {
+                    edges.add(id);
+                }
+            });
+        }
+        whole.add(edges);
+        return CompressedBitmap.orAll(whole);
+    }
+}
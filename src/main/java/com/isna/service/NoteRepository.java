@@ -0,0 +1,49 @@
+package com.isna.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Penyimpanan note yang dipakai MainController. Tulis selalu commit lokal dulu,
+// replikasi ke remote berjalan di belakang.
+public interface NoteRepository extends AutoCloseable {
+    long saveNote(String path, String content); // mengembalikan stamp versi baru
+
+    // Simpan dari import massal: spt saveNote tapi tanpa riwayat versi dan cache editor. Hasil (stamp) selesai
+    // setelah pencatatan di belakangnya selesai, supaya import bisa menahan laju bacanya.
+    CompletableFuture<Long> importNote(String path, String content);
+
+    void createFolder(String path);
+
+    void delete(String path);
+
+    // Memindahkan note/folder beserta isinya ke path baru (rename atau pindah folder), stamp tetap
+    CompletableFuture<Void> move(String fromPath, String toPath);
+
+    CompletableFuture<String> loadNote(String path, long stamp);
+
+    // Spt loadNote; jika isi note besar diunduh dari remote, head (boleh null, dipanggil dari thread mana pun)
+    // lebih dulu menerima awal isinya
+    CompletableFuture<String> loadNote(String path, long stamp, Consumer<String> head);
+
+    void prefetch(String path, long stamp);
+
+    // Seperti loadNote tapi tidak mengisi cache editor (dipakai indexer pencarian)
+    CompletableFuture<String> readNote(String path, long stamp);
+
+    // Isi lokal utk menampilkan tree sebelum/ tanpa koneksi
+    Map<String, Long> localNotes();
+
+    List<String> localFolders();
+
+    // Event dari remote; false jika ada perubahan lokal yang belum tereplikasi di path tsb
+    boolean remoteNote(String path, long stamp, String inlineContent);
+
+    boolean remoteFolder(String path);
+
+    boolean remoteRemoved(String path);
+
+    @Override
+    void close();
+}
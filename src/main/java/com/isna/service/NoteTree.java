@@ -0,0 +1,131 @@
+package com.isna.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Model pohon note di memori. Lookup path berjalan per segmen lewat map child (O(kedalaman)),
+// rename dan move subtree hanya memindahkan satu node. Tidak bergantung pada TreeView;
+// NoteTreePatcher yang menerjemahkan perubahan ke TreeItem. Harus dipakai dari satu thread.
+public class NoteTree {
+    private final NoteNode root = new NoteNode(0, true, "");
+    private final Map<String, String> segments = new HashMap<>(); // pool intern utk key segmen
+    private int nextId = 1;
+    private int noteCount;
+    private int folderCount;
+
+    public static String childPath(String parentPath, String key) {
+        return parentPath.isEmpty() ? key : parentPath + "/" + key;
+    }
+
+    public NoteNode getRoot() {
+        return root;
+    }
+
+    public int getNoteCount() {
+        return noteCount;
+    }
+
+    public int getFolderCount() {
+        return folderCount;
+    }
+
+    // null jika path tidak ada
+    public NoteNode resolve(String path) {
+        NoteNode node = root;
+        int start = 0;
+        while (node != null && start < path.length()) {
+            int slash = path.indexOf('/', start);
+            int end = slash < 0 ? path.length() : slash;
+            node = node.child(path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    public NoteNode addFolder(NoteNode parent, String key, int index) {
+        NoteNode folder = new NoteNode(nextId++, true, intern(key));
+        parent.attach(folder, index);
+        folderCount++;
+        return folder;
+    }
+
+    public NoteNode addNote(NoteNode parent, String key, long stamp, int index) {
+        NoteNode note = new NoteNode(nextId++, false, intern(key));
+        note.setStamp(stamp);
+        parent.attach(note, index);
+        noteCount++;
+        return note;
+    }
+
+    public void setStamp(NoteNode note, long stamp) {
+        note.setStamp(stamp);
+    }
+
+    // Melepas node beserta subtree-nya; mengembalikan posisi lamanya di parent
+    public int remove(NoteNode node) {
+        forEach(node, n -> {
+            if (n.isFolder()) {
+                folderCount--;
+            } else {
+                noteCount--;
+            }
+        });
+        return node.getParent().detach(node);
+    }
+
+    // Mengganti key node; seluruh turunannya ikut pindah path tanpa disentuh
+    public void rename(NoteNode node, String newKey) {
+        NoteNode parent = node.getParent();
+        if (parent == null) {
+            throw new IllegalArgumentException("Root cannot be renamed");
+        }
+        if (parent.child(newKey) != null) {
+            throw new IllegalArgumentException("'" + newKey + "' already exists");
+        }
+        int index = parent.detach(node);
+        node.setKey(intern(newKey));
+        parent.attach(node, index);
+    }
+
+    // Memindahkan node (dan subtree-nya) ke folder lain, disisipkan pada index
+    public void move(NoteNode node, NoteNode newParent, int index) {
+        if (node.isRoot() || !newParent.isFolder() || node.contains(newParent)) {
+            throw new IllegalArgumentException("Cannot move '" + node.getPath() + "' into '" + newParent.getPath() + "'");
+        }
+        if (newParent.child(node.getKey()) != null && newParent != node.getParent()) {
+            throw new IllegalArgumentException("'" + node.getKey() + "' already exists");
+        }
+        node.getParent().detach(node);
+        newParent.attach(node, Math.min(index, newParent.childCount()));
+    }
+
+    // Kunjungan pre-order tanpa rekursi supaya tree yang sangat dalam tidak stack overflow
+    public void forEach(NoteNode start, Consumer<NoteNode> action) {
+        Deque<NoteNode> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            NoteNode node = stack.pop();
+            action.accept(node);
+            List<NoteNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+    }
+
+    // Dipanggil NoteTreeBuilder setelah subtree dibangun langsung di bawah root (di luar method add*)
+    void built(int nextId, int noteCount, int folderCount) {
+        this.nextId = nextId;
+        this.noteCount = noteCount;
+        this.folderCount = folderCount;
+    }
+
+    private String intern(String key) {
+        String existing = segments.putIfAbsent(key, key);
+        return existing == null ? key : existing;
+    }
+}
@@ -0,0 +1,137 @@
+package com.isna.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Membangun NoteTree dari isi log lokal di luar thread FX. Path dikelompokkan per segmen; subtree folder
+// yang besar dibangun sbg RecursiveTask terpisah di ForkJoinPool, subtree kecil di task yang sama.
+// Setiap task hanya menyentuh node subtree-nya sendiri, jadi tidak perlu lock; ID dibagi lewat satu
+// AtomicInteger. Hasilnya sama dgn ensureFolder/noteAdded berurutan di NoteTreePatcher: folder dulu lalu
+// note, urutan anak sesuai urutan input, dan path yang muncul sbg note sekaligus folder dimenangkan yang
+// terakhir. Key tidak di-intern. Tree belum dipegang thread lain sampai diserahkan (mis. lewat runLater).
+public final class NoteTreeBuilder {
+    private static final int FORK_THRESHOLD = 1024; // entri; subtree yang lebih kecil tidak di-fork
+
+    // Satu folder/note dari log; offset maju per level sehingga path tidak perlu dipotong-potong
+    private static final class Entry {
+        final String path;
+        final long stamp;
+        final boolean folder;
+        int offset;
+
+        Entry(String path, long stamp, boolean folder) {
+            this.path = path;
+            this.stamp = stamp;
+            this.folder = folder;
+        }
+    }
+
+    private NoteTreeBuilder() {
+    }
+
+    public static NoteTree build(Collection<String> folders, Map<String, Long> notes) {
+        return build(folders, notes, ForkJoinPool.commonPool());
+    }
+
+    public static NoteTree build(Collection<String> folders, Map<String, Long> notes, ForkJoinPool pool) {
+        List<Entry> entries = new ArrayList<>(folders.size() + notes.size());
+        for (String folder : folders) {
+            if (!folder.isEmpty()) {
+                entries.add(new Entry(folder, 0, true));
+            }
+        }
+        notes.forEach((path, stamp) -> entries.add(new Entry(path, stamp, false)));
+        NoteTree tree = new NoteTree();
+        AtomicInteger ids = new AtomicInteger(1); // 0 = root
+        Counts counts = pool.invoke(new FolderTask(tree.getRoot(), entries, ids));
+        tree.built(ids.get(), counts.notes, counts.folders);
+        return tree;
+    }
+
+    private static final class Counts {
+        int notes;
+        int folders;
+
+        void add(Counts other) {
+            notes += other.notes;
+            folders += other.folders;
+        }
+    }
+
+    private static final class FolderTask extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+
+        private final NoteNode folder;
+        private final List<Entry> entries;
+        private final AtomicInteger ids;
+
+        FolderTask(NoteNode folder, List<Entry> entries, AtomicInteger ids) {
+            this.folder = folder;
+            this.entries = entries;
+            this.ids = ids;
+        }
+
+        @Override
+        protected Counts compute() {
+            Counts counts = new Counts();
+            Map<String, List<Entry>> groups = new HashMap<>(); // key folder anak -> entri di bawahnya
+            for (Entry entry : entries) {
+                String path = entry.path;
+                int slash = path.indexOf('/', entry.offset);
+                String key = path.substring(entry.offset, slash < 0 ? path.length() : slash);
+                NoteNode child = folder.child(key);
+                if (slash < 0 && !entry.folder) {
+                    int index = folder.childCount();
+                    if (child != null && !child.isFolder()) {
+                        child.setStamp(entry.stamp);
+                        continue;
+                    }
+                    if (child != null) { // folder berubah jadi note: isinya (belum dibangun) dibuang
+                        index = folder.detach(child);
+                        groups.remove(key);
+                        counts.folders--;
+                    }
+                    NoteNode note = new NoteNode(ids.getAndIncrement(), false, key);
+                    note.setStamp(entry.stamp);
+                    folder.attach(note, index);
+                    counts.notes++;
+                    continue;
+                }
+                if (child == null || !child.isFolder()) {
+                    int index = folder.childCount();
+                    if (child != null) { // note berubah jadi folder
+                        index = folder.detach(child);
+                        counts.notes--;
+                    }
+                    child = new NoteNode(ids.getAndIncrement(), true, key);
+                    folder.attach(child, index);
+                    counts.folders++;
+                }
+                if (slash >= 0) {
+                    entry.offset = slash + 1; // entri hanya ada di satu grup, jadi aman diubah di tempat
+                    groups.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+                }
+            }
+            List<FolderTask> forked = new ArrayList<>();
+            for (Map.Entry<String, List<Entry>> group : groups.entrySet()) {
+                FolderTask task = new FolderTask(folder.child(group.getKey()), group.getValue(), ids);
+                if (group.getValue().size() >= FORK_THRESHOLD) {
+                    task.fork();
+                    forked.add(task);
+                } else {
+                    counts.add(task.compute());
+                }
+            }
+            for (FolderTask task : forked) {
+                counts.add(task.join());
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.isna.service;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// TreeItem utk NoteNode. TreeItem anak baru dibuat saat TreeView pertama kali meminta children
+// (folder di-expand); isLeaf dijawab dari model sehingga folder tertutup tidak perlu membuat anaknya.
+// Pada mode notebook besar (releaseOnCollapse) anak dilepas lagi saat folder di-collapse.
+class NoteTreeItem extends TreeItem<NoteNode> {
+    private final boolean releaseOnCollapse;
+    private boolean loaded;
+
+    NoteTreeItem(NoteNode node, boolean releaseOnCollapse) {
+        super(node);
+        this.releaseOnCollapse = releaseOnCollapse;
+        node.setItem(this);
+        if (releaseOnCollapse) {
+            expandedProperty().addListener((obs, wasExpanded, expanded) -> {
+                if (!expanded && !node.isRoot()) {
+                    release();
+                }
+            });
+        }
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        NoteNode node = getValue();
+        if (loaded && !super.getChildren().isEmpty()) {
+            return false; // mis. root yang hanya berisi smart folder
+        }
+        return !node.isFolder() || node.childCount() == 0;
+    }
+
+    @Override
+    public ObservableList<TreeItem<NoteNode>> getChildren() {
+        if (!loaded) {
+            loaded = true;
+            NoteNode node = getValue();
+            List<TreeItem<NoteNode>> items = new ArrayList<>(node.childCount());
+            for (NoteNode child : node.getChildren()) {
+                items.add(new NoteTreeItem(child, releaseOnCollapse));
+            }
+            super.getChildren().setAll(items); // satu event perubahan utk seluruh anak
+        }
+        return super.getChildren();
+    }
+
+    // Melepas TreeItem anak (dan turunannya) supaya subtree yang tertutup tidak menahan memori
+    void release() {
+        if (!loaded) {
+            return;
+        }
+        for (TreeItem<NoteNode> child : super.getChildren()) {
+            detach(child);
+        }
+        super.getChildren().clear();
+        loaded = false;
+    }
+
+    // Memutus hubungan node -> item utk item yang dibuang dari tree
+    static void detach(TreeItem<NoteNode> item) {
+        item.getValue().setItem(null);
+        if (item instanceof NoteTreeItem && !((NoteTreeItem) item).loaded) {
+            return;
+        }
+        for (TreeItem<NoteNode> child : item.getChildren()) {
+            detach(child);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+import javafx.collections.ObservableList;
+import javafx.event.Event;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Menerapkan perubahan per-child ke NoteTree dan TreeItem yang bersesuaian tanpa membangun ulang
+// seluruh pohon. Setiap NoteNode menyimpan TreeItem-nya dan TreeItem berisi NoteNode-nya,
+// sehingga pemetaan dua arah O(1). TreeItem hanya ada utk folder yang pernah dibuka (lihat
+// NoteTreeItem); node di folder yang belum dibuka cukup diubah di model.
+// Isi note ada di NoteRepository; node hanya menyimpan stamp versi.
+// Semua method harus dipanggil dari satu thread (FX thread).
+public class NoteTreePatcher {
+    // Pemberitahuan perubahan index notes, mis. utk indexer pencarian
+    public interface Listener {
+        void noteUpdated(String path, long stamp);
+
+        void noteRemoved(String path);
+    }
+
+    private final NoteTree tree;
+    private final boolean largeNotebook;
+    private final NoteTreeItem rootItem;
+    private Listener listener;
+    private int virtualCount; // item virtual (smart folder) di awal anak rootItem
+
+    public NoteTreePatcher() {
+        this(new NoteTree(), false);
+    }
+
+    // largeNotebook: TreeItem di folder yang di-collapse dilepas utk menghemat memori
+    public NoteTreePatcher(NoteTree tree, boolean largeNotebook) {
+        this.tree = tree;
+        this.largeNotebook = largeNotebook;
+        this.rootItem = new NoteTreeItem(tree.getRoot(), largeNotebook);
+        rootItem.setExpanded(true);
+    }
+
+    public NoteTree getTree() {
+        return tree;
+    }
+
+    public TreeItem<NoteNode> getRootItem() {
+        return rootItem;
+    }
+
+    public boolean isLargeNotebook() {
+        return largeNotebook;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Item di atas isi root yang bukan bagian NoteTree (mis. smart folder); menggantikan item virtual
+    // sebelumnya. Posisi anak root di TreeItem bergeser sebanyak jumlah item ini.
+    public void setVirtualItems(List<TreeItem<NoteNode>> items) {
+        ObservableList<TreeItem<NoteNode>> children = rootItem.getChildren();
+        children.remove(0, virtualCount);
+        children.addAll(0, items);
+        virtualCount = items.size();
+    }
+
+    private void putNote(NoteNode note, long stamp) {
+        long old = note.getStamp();
+        tree.setStamp(note, stamp);
+        if (listener != null && old != stamp) {
+            listener.noteUpdated(note.getPath(), stamp);
+        }
+    }
+
+    public static String childPath(String parentPath, String key) {
+        return NoteTree.childPath(parentPath, key);
+    }
+
+    public NoteNode node(String path) {
+        return tree.resolve(path);
+    }
+
+    // Membuat TreeItem node (dan leluhurnya) jika belum ada dan membuka semua leluhurnya
+    public TreeItem<NoteNode> reveal(NoteNode node) {
+        if (node.isRoot()) {
+            return rootItem;
+        }
+        TreeItem<NoteNode> parentItem = reveal(node.getParent());
+        parentItem.setExpanded(true);
+        parentItem.getChildren(); // memuat anak jika belum
+        return node.getItem();
+    }
+
+    public boolean isFolder(String path) {
+        NoteNode node = tree.resolve(path);
+        return node != null && node.isFolder();
+    }
+
+    // Folder baru, disisipkan setelah previousKey (null = paling atas, sesuai semantik Firebase)
+    public NoteNode folderAdded(String parentPath, String key, String previousKey) {
+        NoteNode parent = tree.resolve(parentPath);
+        if (parent == null || !parent.isFolder()) {
+            return null;
+        }
+        return addFolder(parent, key, insertIndex(parent, previousKey));
+    }
+
+    // Folder baru di akhir daftar (dipakai utk perubahan lokal dari UI)
+    public NoteNode folderAdded(String parentPath, String key) {
+        NoteNode parent = tree.resolve(parentPath);
+        if (parent == null || !parent.isFolder()) {
+            return null;
+        }
+        return addFolder(parent, key, parent.childCount());
+    }
+
+    private NoteNode addFolder(NoteNode parent, String key, int index) {
+        NoteNode existing = parent.child(key);
+        if (existing != null) {
+            if (existing.isFolder()) {
+                return existing; // sudah ada sbg folder
+            }
+            index = removeNode(existing); // note berubah jadi folder
+        }
+        NoteNode folder = tree.addFolder(parent, key, index);
+        attachItem(folder, index);
+        return folder;
+    }
+
+    // Memastikan folder dan semua leluhurnya ada (dipakai saat membangun tree dari penyimpanan lokal)
+    public NoteNode ensureFolder(String path) {
+        if (path.isEmpty()) {
+            return tree.getRoot();
+        }
+        NoteNode existing = tree.resolve(path);
+        if (existing != null && existing.isFolder()) {
+            return existing;
+        }
+        int slash = path.lastIndexOf('/');
+        String parentPath = slash < 0 ? "" : path.substring(0, slash);
+        ensureFolder(parentPath);
+        return folderAdded(parentPath, path.substring(slash + 1));
+    }
+
+    public NoteNode noteAdded(String parentPath, String key, long stamp, String previousKey) {
+        NoteNode parent = tree.resolve(parentPath);
+        if (parent == null || !parent.isFolder()) {
+            return null;
+        }
+        return addNote(parent, key, stamp, insertIndex(parent, previousKey));
+    }
+
+    public NoteNode noteAdded(String parentPath, String key, long stamp) {
+        NoteNode parent = tree.resolve(parentPath);
+        if (parent == null || !parent.isFolder()) {
+            return null;
+        }
+        return addNote(parent, key, stamp, parent.childCount());
+    }
+
+    private NoteNode addNote(NoteNode parent, String key, long stamp, int index) {
+        NoteNode existing = parent.child(key);
+        if (existing != null) {
+            if (!existing.isFolder()) {
+                putNote(existing, stamp); // cukup update stamp
+                return existing;
+            }
+            index = removeNode(existing); // folder berubah jadi note
+        }
+        NoteNode note = tree.addNote(parent, key, stamp, index);
+        if (listener != null) {
+            listener.noteUpdated(note.getPath(), stamp);
+        }
+        attachItem(note, index);
+        return note;
+    }
+
+    public void noteChanged(String parentPath, String key, long stamp) {
+        NoteNode note = tree.resolve(childPath(parentPath, key));
+        if (note != null && !note.isFolder()) {
+            putNote(note, stamp);
+        } else {
+            noteAdded(parentPath, key, stamp);
+        }
+    }
+
+    // Stamp baru setelah note disimpan dari editor
+    public void noteChanged(NoteNode note, long stamp) {
+        putNote(note, stamp);
+    }
+
+    // Menghapus item beserta seluruh turunannya dari tree
+    public void removed(String parentPath, String key) {
+        NoteNode node = tree.resolve(childPath(parentPath, key));
+        if (node != null && !node.isRoot()) {
+            removeNode(node);
+        }
+    }
+
+    private int removeNode(NoteNode node) {
+        if (listener != null) {
+            tree.forEach(node, n -> {
+                if (!n.isFolder()) {
+                    listener.noteRemoved(n.getPath());
+                }
+            });
+        }
+        NoteNode parent = node.getParent();
+        int index = tree.remove(node);
+        detachItem(parent, node);
+        return index;
+    }
+
+    // Urutan child berubah di remote
+    public void moved(String parentPath, String key, String previousKey) {
+        NoteNode parent = tree.resolve(parentPath);
+        NoteNode node = parent == null ? null : parent.child(key);
+        if (node == null) {
+            return;
+        }
+        parent.detach(node);
+        int index = insertIndex(parent, previousKey); // dihitung setelah node dilepas
+        parent.attach(node, index);
+        TreeItem<NoteNode> item = node.getItem();
+        if (item != null && isLoaded(parent)) {
+            parent.getItem().getChildren().remove(item);
+            parent.getItem().getChildren().add(itemIndex(parent, index), item);
+        }
+    }
+
+    // Rename node; seluruh isi subtree ikut pindah path. Gagal (IllegalArgumentException) jika key bentrok.
+    public void rename(NoteNode node, String newKey) {
+        if (node.isRoot() || node.getParent().child(newKey) != null) {
+            throw new IllegalArgumentException("'" + KeyCodec.decode(newKey) + "' already exists");
+        }
+        relocate(node, () -> tree.rename(node, newKey));
+    }
+
+    // Memindahkan node ke akhir folder newParent
+    public void move(NoteNode node, NoteNode newParent) {
+        if (node.isRoot() || !newParent.isFolder() || node.contains(newParent) || newParent.child(node.getKey()) != null) {
+            throw new IllegalArgumentException("Cannot move '" + node.getTitle() + "' into '" + newParent.getTitle() + "'");
+        }
+        relocate(node, () -> {
+            NoteNode oldParent = node.getParent();
+            tree.move(node, newParent, newParent.childCount());
+            detachItem(oldParent, node);
+            attachItem(node, newParent.childCount() - 1);
+        });
+    }
+
+    private void relocate(NoteNode node, Runnable change) {
+        List<NoteNode> notes = new ArrayList<>();
+        tree.forEach(node, n -> {
+            if (!n.isFolder()) {
+                notes.add(n);
+            }
+        });
+        if (listener != null) {
+            for (NoteNode note : notes) {
+                listener.noteRemoved(note.getPath());
+            }
+        }
+        change.run();
+        if (listener != null) {
+            for (NoteNode note : notes) {
+                listener.noteUpdated(note.getPath(), note.getStamp());
+            }
+        }
+    }
+
+    // TreeItem hanya dibuat jika anak parent sudah dimuat; selain itu cukup status leaf parent diperbarui
+    private void attachItem(NoteNode node, int index) {
+        NoteNode parent = node.getParent();
+        if (isLoaded(parent)) {
+            parent.getItem().getChildren().add(itemIndex(parent, index), new NoteTreeItem(node, largeNotebook));
+        } else {
+            refreshLeaf(parent);
+        }
+    }
+
+    private void detachItem(NoteNode parent, NoteNode node) {
+        TreeItem<NoteNode> item = node.getItem();
+        if (item != null && isLoaded(parent)) {
+            parent.getItem().getChildren().remove(item);
+            NoteTreeItem.detach(item);
+        } else {
+            refreshLeaf(parent);
+        }
+    }
+
+    // Posisi anak ke-index di TreeItem parent (root diawali item virtual)
+    private int itemIndex(NoteNode parent, int index) {
+        return parent.isRoot() ? virtualCount + index : index;
+    }
+
+    private static boolean isLoaded(NoteNode folder) {
+        TreeItem<NoteNode> item = folder.getItem();
+        return item != null && ((NoteTreeItem) item).isLoaded();
+    }
+
+    // Folder yang anaknya belum dimuat bisa berubah dari kosong <-> berisi; minta TreeView menggambar ulang
+    private static void refreshLeaf(NoteNode folder) {
+        TreeItem<NoteNode> item = folder.getItem();
+        if (item != null && folder.childCount() <= 1) {
+            Event.fireEvent(item, new TreeItem.TreeModificationEvent<>(TreeItem.valueChangedEvent(), item, folder));
+        }
+    }
+
+    private static int insertIndex(NoteNode parent, String previousKey) {
+        if (previousKey == null) {
+            return 0;
+        }
+        NoteNode previous = parent.child(previousKey);
+        int index = previous == null ? -1 : parent.indexOf(previous);
+        return index < 0 ? parent.childCount() : index + 1;
+    }
+}
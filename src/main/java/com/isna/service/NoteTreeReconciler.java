@@ -0,0 +1,393 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sinkronisasi tree dgn remote lewat hash tree per folder (FolderHashes), pengganti listener per folder
+// yang mengunduh seluruh notes/<userId> setiap login. Tree lokal sudah tampil dari log; di sini hash root
+// remote dibandingkan dgn hash dari log lokal. Sama: tidak ada yang diunduh. Beda: hash tree diunduh dan
+// hanya subtree folder yang hashnya berbeda yang diambil dari notes/<userId>. Pemicunya perubahan hash
+// root remote (juga saat dipasang), jadi perubahan dari perangkat lain diterapkan dgn cara yang sama.
+// Notebook lama tanpa hash tree diunduh penuh sekali lalu hash tree-nya ditulis (initHashes). Subtree yang
+// hashnya tetap beda setelah diunduh berulang kali berarti hash remote menyimpang; hashnya ditulis ulang dari
+// isi lokal (repairHashes).
+// Berjalan di thread sendiri; patch tree dikirim ke uiExecutor dalam satu task per rekonsiliasi.
+public class NoteTreeReconciler implements AutoCloseable {
+    public static final long LEGACY_STAMP = 0L; // stamp note lama yang isinya inline di notes/
+    private static final Logger LOG = LoggerFactory.getLogger(NoteTreeReconciler.class);
+    private static final LatencyHistogram RECONCILE_LATENCY = Metrics.latency(Metrics.SYNC_RECONCILE);
+    private static final LatencyHistogram PATCH_LATENCY = Metrics.latency(Metrics.TREE_PATCH);
+    private static final Metrics.Counter SUBTREES = Metrics.counter(Metrics.SYNC_RECONCILE + ".subtrees");
+    private static final Metrics.Counter ERRORS = Metrics.counter(Metrics.SYNC_RECONCILE + ".errors");
+    private static final Metrics.Counter DRIFT = Metrics.counter(Metrics.SYNC_RECONCILE + ".drift");
+    private static final long FETCH_TIMEOUT_MS = 60_000;
+    private static final long PENDING_RETRY_MS = 1_000;
+    private static final long ERROR_RETRY_MS = 10_000;
+    private static final int MAX_UNCONVERGED = 3;
+    private static final double FULL_FETCH_FRACTION = 0.5; // bagian note lokal di subtree berbeda
+
+    // Hasil satu rekonsiliasi
+    public static final class Result {
+        public final boolean full;      // seluruh index diunduh (notebook belum punya hash tree)
+        public final boolean deferred;  // ada perubahan lokal belum tereplikasi; dicoba lagi nanti
+        public final int subtrees;      // subtree yang diunduh
+        public final int updated;       // note baru/berubah
+        public final int removed;       // note/folder yang dihapus
+        public final boolean converged; // hash lokal sama dgn hash remote setelahnya
+        public final List<String> drifted; // subtree yang sudah diunduh tapi hash remote-nya tetap beda
+
+        Result(boolean full, boolean deferred, int subtrees, int updated, int removed, boolean converged,
+               List<String> drifted) {
+            this.full = full;
+            this.deferred = deferred;
+            this.subtrees = subtrees;
+            this.updated = updated;
+            this.removed = removed;
+            this.converged = converged;
+            this.drifted = drifted;
+        }
+
+        @Override
+        public String toString() {
+            return (full ? "full" : subtrees + " subtrees") + ", " + updated + " updated, " + removed + " removed"
+                    + (deferred ? " (deferred)" : converged ? "" : " (not converged)");
+        }
+    }
+
+    private final RemoteNoteIndex index;
+    private final LocalNoteRepository repository;
+    private final NoteTreePatcher patcher;
+    private final Executor uiExecutor;
+    private final ScheduledExecutorService worker;
+    private AutoCloseable watch;
+    private boolean running; // rekonsiliasi sedang berjalan/terjadwal
+    private boolean dirty;   // hash root berubah lagi selama berjalan
+    private int unconverged; // rekonsiliasi berturut-turut yang belum menyamakan hash
+    private volatile boolean stopped;
+
+    public NoteTreeReconciler(RemoteNoteIndex index, LocalNoteRepository repository, NoteTreePatcher patcher,
+                              Executor uiExecutor) {
+        this.index = index;
+        this.repository = repository;
+        this.patcher = patcher;
+        this.uiExecutor = uiExecutor;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "note-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Listener hash root langsung terpanggil dgn nilai saat ini, jadi rekonsiliasi pertama dimulai di sini
+    public synchronized void start() {
+        if (!stopped && watch == null) {
+            watch = index.watchRootHash(this::requestReconcile);
+        }
+    }
+
+    private synchronized void requestReconcile() {
+        if (stopped) {
+            return;
+        }
+        unconverged = 0;
+        if (running) {
+            dirty = true;
+            return;
+        }
+        running = true;
+        schedule(0);
+    }
+
+    private void schedule(long delayMs) {
+        try {
+            worker.schedule(this::runOnce, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // sudah ditutup
+        }
+    }
+
+    private void runOnce() {
+        long retryMs = 0;
+        try {
+            Result result = reconcile();
+            if (result.full || result.subtrees > 0) {
+                LOG.info("Notes reconciled: {}", result);
+            }
+            if (result.deferred) {
+                retryMs = PENDING_RETRY_MS;
+            } else if (!result.converged) {
+                // hash ditulis sebelum data: data penulis lain mungkin belum sampai. Jika tetap beda, hash
+                // remote menyimpang (mis. tulis yang gagal di tengah) dan ditulis ulang dari isi lokal.
+                boolean drifted;
+                synchronized (this) {
+                    drifted = ++unconverged >= MAX_UNCONVERGED;
+                }
+                if (drifted) {
+                    DRIFT.increment();
+                    repair(result.drifted);
+                } else {
+                    retryMs = PENDING_RETRY_MS;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            ERRORS.increment();
+            LOG.warn("Note reconciliation failed, retrying in {} ms: {}", ERROR_RETRY_MS, e.toString());
+            retryMs = ERROR_RETRY_MS;
+        }
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            if (retryMs > 0 || dirty) {
+                dirty = false;
+                schedule(retryMs);
+            } else {
+                running = false;
+            }
+        }
+    }
+
+    // Isi lokal subtree itu baru saja disamakan dgn remote, jadi hashnya yang benar; perubahan hash root
+    // memicu rekonsiliasi berikutnya. Ditunda jika ada perubahan lokal yang belum tereplikasi.
+    private void repair(List<String> folders) throws Exception {
+        if (folders.isEmpty() || repository.pendingReplication() > 0) {
+            return;
+        }
+        Map<String, Long> localNotes = repository.localNotes();
+        for (String folder : folders) {
+            Map<String, Long> notes = new HashMap<>();
+            localNotes.forEach((path, stamp) -> {
+                if (folder.isEmpty() || path.startsWith(folder + "/")) {
+                    notes.put(path, stamp);
+                }
+            });
+            LOG.warn("Remote note hashes drifted under '{}', rewriting them from {} notes", folder, notes.size());
+            await(index.repairHashes(folder, notes));
+        }
+    }
+
+    // Satu rekonsiliasi, blocking; dipanggil di thread worker (atau langsung oleh benchmark)
+    public Result reconcile() throws Exception {
+        long start = System.nanoTime();
+        Long remoteRoot = await(index.fetchRootHash());
+        if (remoteRoot == null) {
+            return resync(repository.localNotes(), null);
+        }
+        // hash root berubah utk setiap perubahan di mana pun, termasuk gema simpan perangkat ini sendiri;
+        // kasus itu cukup dijawab dari hash lokal yang dijaga inkremental, tanpa menyentuh seluruh notebook
+        if (remoteRoot == repository.localRootHash()) {
+            RECONCILE_LATENCY.recordSince(start);
+            return new Result(false, false, 0, 0, 0, true, Collections.emptyList());
+        }
+        if (repository.pendingReplication() > 0) {
+            return new Result(false, true, 0, 0, 0, false, Collections.emptyList()); // hash remote belum memuat perubahan lokal
+        }
+        Map<String, Long> localHashes = repository.localHashes();
+        Map<String, Long> localNotes = repository.localNotes();
+        Map<String, Long> remoteHashes = await(index.fetchHashes());
+        List<String> subtrees = FolderHashes.differingSubtrees(localHashes, remoteHashes);
+        // note lokal dan folder berisi note, dikelompokkan per subtree yang diunduh (subtree tidak bertumpuk)
+        Set<String> roots = new HashSet<>(subtrees);
+        Map<String, Map<String, Long>> notesBySubtree = new HashMap<>();
+        int covered = 0;
+        for (Map.Entry<String, Long> note : localNotes.entrySet()) {
+            String subtree = subtreeOf(parentOf(note.getKey()), roots);
+            if (subtree != null) {
+                notesBySubtree.computeIfAbsent(subtree, f -> new HashMap<>()).put(note.getKey(), note.getValue());
+                covered++;
+            }
+        }
+        if (covered > localNotes.size() * FULL_FETCH_FRACTION) {
+            return resync(localNotes, remoteRoot); // sebagian besar berubah: satu unduhan penuh lebih murah
+        }
+        Map<String, List<String>> foldersBySubtree = new HashMap<>();
+        for (String folder : localHashes.keySet()) {
+            String subtree = folder.isEmpty() ? null : subtreeOf(folder, roots);
+            if (subtree != null) {
+                foldersBySubtree.computeIfAbsent(subtree, f -> new ArrayList<>()).add(folder);
+            }
+        }
+        List<CompletableFuture<Map<String, Object>>> fetches = new ArrayList<>(subtrees.size());
+        for (String folder : subtrees) {
+            fetches.add(index.fetchIndex(folder)); // diunduh paralel
+        }
+        List<Runnable> patches = new ArrayList<>();
+        int[] counts = new int[2];
+        for (int i = 0; i < subtrees.size(); i++) {
+            String folder = subtrees.get(i);
+            apply(await(fetches.get(i)), notesBySubtree.getOrDefault(folder, Collections.emptyMap()),
+                    foldersBySubtree.getOrDefault(folder, Collections.emptyList()), patches, counts);
+        }
+        publish(patches);
+        SUBTREES.add(subtrees.size());
+        boolean converged = repository.localRootHash() == remoteRoot;
+        List<String> drifted = new ArrayList<>();
+        if (!converged) {
+            Map<String, Long> appliedHashes = repository.localHashes();
+            for (String folder : subtrees) {
+                if (!appliedHashes.getOrDefault(folder, 0L).equals(remoteHashes.getOrDefault(folder, 0L))) {
+                    drifted.add(folder);
+                }
+            }
+        }
+        RECONCILE_LATENCY.recordSince(start);
+        return new Result(false, false, subtrees.size(), counts[0], counts[1], converged, drifted);
+    }
+
+    // Subtree (dari roots) yang memuat folder ini, atau null
+    private static String subtreeOf(String folder, Set<String> roots) {
+        for (String current = folder; ; current = parentOf(current)) {
+            if (roots.contains(current)) {
+                return current;
+            }
+            if (current.isEmpty()) {
+                return null;
+            }
+        }
+    }
+
+    // Mengunduh seluruh index (cara lama). Jika hash tree remote belum ada, sekalian ditulis dari index yang
+    // diunduh; hash tree dibaca sebelum index supaya initHashes batal bila ada penulis di antaranya.
+    public Result resync() throws Exception {
+        return resync(repository.localNotes(), await(index.fetchRootHash()));
+    }
+
+    // remoteRoot: hash root remote sebelum index diunduh, null jika hash tree belum ada
+    private Result resync(Map<String, Long> localNotes, Long remoteRoot) throws Exception {
+        long start = System.nanoTime();
+        Map<String, Long> expected = remoteRoot == null ? await(index.fetchHashes()) : null;
+        Map<String, Object> remoteNotes = await(index.fetchIndex(""));
+        List<Runnable> patches = new ArrayList<>();
+        int[] counts = new int[2];
+        List<String> localFolders = new ArrayList<>(FolderHashes.of(localNotes).keySet());
+        localFolders.remove("");
+        apply(remoteNotes, localNotes, localFolders, patches, counts);
+        publish(patches);
+        if (expected != null) {
+            Map<String, Long> stamps = new HashMap<>();
+            remoteNotes.forEach((path, value) -> stamps.put(path, stampOf(value)));
+            if (await(index.initHashes(expected, stamps))) {
+                LOG.info("Note hashes initialized for {} notes", stamps.size());
+            }
+        }
+        boolean converged = remoteRoot == null || repository.localRootHash() == remoteRoot;
+        RECONCILE_LATENCY.recordSince(start);
+        return new Result(true, false, 1, counts[0], counts[1], converged,
+                converged ? Collections.<String>emptyList() : Collections.singletonList(""));
+    }
+
+    // Menyamakan satu subtree dgn isi remote-nya; localNotes/localFolders: note lokal dan folder lokal berisi
+    // note di subtree itu. Yang tidak ada lagi di remote dihapus lebih dulu (folder yang kosong di remote
+    // dihapus sekaligus), baru note baru/berubah dicatat, supaya note yang berubah jadi folder (atau
+    // sebaliknya) tidak terhapus lagi. Path dgn perubahan lokal pending dilewati oleh repository.
+    private void apply(Map<String, Object> remoteNotes, Map<String, Long> localNotes, List<String> localFolders,
+                       List<Runnable> patches, int[] counts) {
+        Set<String> remoteFolders = new HashSet<>();
+        for (String path : remoteNotes.keySet()) {
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                remoteFolders.add(path.substring(0, slash));
+            }
+        }
+        Set<String> gone = new HashSet<>(localFolders);
+        gone.removeAll(remoteFolders);
+        for (String localFolder : gone) {
+            if (!gone.contains(parentOf(localFolder))) { // subfolder ikut terhapus bersama leluhurnya
+                remove(localFolder, patches, counts);
+            }
+        }
+        for (String path : localNotes.keySet()) {
+            if (!remoteNotes.containsKey(path) && !gone.contains(parentOf(path))) {
+                remove(path, patches, counts);
+            }
+        }
+        remoteNotes.forEach((path, value) -> {
+            long stamp = stampOf(value);
+            String inlineContent = value instanceof Number ? null : String.valueOf(value);
+            Long localStamp = localNotes.get(path);
+            if ((localStamp == null || localStamp != stamp || inlineContent != null)
+                    && repository.remoteNote(path, stamp, inlineContent)) {
+                String parentPath = parentOf(path);
+                String key = path.substring(path.lastIndexOf('/') + 1);
+                patches.add(() -> {
+                    patcher.ensureFolder(parentPath);
+                    patcher.noteChanged(parentPath, key, stamp);
+                });
+                counts[0]++;
+            }
+        });
+    }
+
+    private void remove(String path, List<Runnable> patches, int[] counts) {
+        if (repository.remoteRemoved(path)) {
+            String parentPath = parentOf(path);
+            String key = path.substring(path.lastIndexOf('/') + 1);
+            patches.add(() -> patcher.removed(parentPath, key));
+            counts[1]++;
+        }
+    }
+
+    private void publish(List<Runnable> patches) {
+        if (patches.isEmpty()) {
+            return;
+        }
+        uiExecutor.execute(() -> {
+            if (stopped) {
+                return;
+            }
+            long start = System.nanoTime();
+            patches.forEach(Runnable::run);
+            PATCH_LATENCY.recordSince(start);
+        });
+    }
+
+    private static long stampOf(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : LEGACY_STAMP;
+    }
+
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(FETCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Dipanggil saat sesi ditutup: listener hash dilepas, rekonsiliasi yang masih antri dibatalkan
+    @Override
+    public void close() {
+        AutoCloseable registration;
+        synchronized (this) {
+            stopped = true;
+            registration = watch;
+            watch = null;
+        }
+        worker.shutdownNow();
+        if (registration != null) {
+            try {
+                registration.close();
+            } catch (Exception e) {
+                LOG.warn("Failed to remove note hash listener: {}", e.toString());
+            }
+        }
+    }
+}
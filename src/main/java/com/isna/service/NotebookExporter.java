@@ -0,0 +1,196 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Export notebook (atau satu folder) ke file .zip: folder menjadi direktori, note menjadi <judul>.html.
+// Isi note dibaca satu per satu lewat NoteRepository.readNote (lokal dulu, remote jika perlu) dgn
+// read-ahead kecil, lalu langsung ditulis ke zip di atas FileChannel; yang ada di heap hanya daftar path
+// dan paling banyak READ_AHEAD isi note. File ditulis ke <target>.part lalu di-rename saat selesai.
+public class NotebookExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(NotebookExporter.class);
+    private static final int READ_AHEAD = 8;
+    private static final long READ_TIMEOUT_MS = 60_000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int PROGRESS_EVERY = 500;
+
+    private final NoteRepository repository;
+    private final Consumer<TransferReport> progress;
+    private AttachmentStore attachments; // null: referensi lampiran ditulis apa adanya
+
+    public NotebookExporter(NoteRepository repository, Consumer<TransferReport> progress) {
+        this.repository = repository;
+        this.progress = progress;
+    }
+
+    // Lampiran ditulis kembali sbg data URI, supaya file .html di zip berdiri sendiri
+    public void setAttachments(AttachmentStore attachments) {
+        this.attachments = attachments;
+    }
+
+    // rootPath "" = seluruh notebook
+    public TransferReport export(String rootPath, Path target) throws IOException {
+        TransferReport report = new TransferReport();
+        Map<String, Long> notes = new TreeMap<>();
+        repository.localNotes().forEach((path, stamp) -> {
+            if (isWithin(path, rootPath)) {
+                notes.put(path, stamp);
+            }
+        });
+        Set<String> folders = new TreeSet<>();
+        for (String folder : repository.localFolders()) {
+            if (isWithin(folder, rootPath)) {
+                folders.add(folder);
+            }
+        }
+        EntryNames names = new EntryNames(rootPath);
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES))) {
+            for (String folder : folders) {
+                String name = names.directory(folder);
+                if (!name.isEmpty()) {
+                    zip.putNextEntry(new ZipEntry(name));
+                    zip.closeEntry();
+                    report.folders.increment();
+                }
+            }
+            // isi beberapa note berikutnya sudah diminta selagi note sekarang ditulis
+            Deque<Map.Entry<String, CompletableFuture<String>>> window = new ArrayDeque<>();
+            for (Map.Entry<String, Long> note : notes.entrySet()) {
+                window.addLast(Map.entry(note.getKey(), repository.readNote(note.getKey(), note.getValue())));
+                if (window.size() > READ_AHEAD) {
+                    write(zip, names, window.removeFirst(), notes, report);
+                }
+            }
+            while (!window.isEmpty()) {
+                write(zip, names, window.removeFirst(), notes, report);
+            }
+            zip.finish();
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        report.finish();
+        LOG.info("Exported '{}' to {}: {}", rootPath, target, report);
+        return report;
+    }
+
+    private void write(ZipOutputStream zip, EntryNames names, Map.Entry<String, CompletableFuture<String>> note,
+                       Map<String, Long> stamps, TransferReport report) throws IOException {
+        String content;
+        try {
+            content = note.getValue().get(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export cancelled");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Cannot read note '" + note.getKey() + "'", e.getCause() != null ? e.getCause() : e);
+        }
+        if (attachments != null) {
+            content = attachments.inline(content, READ_TIMEOUT_MS);
+        }
+        byte[] bytes = (content == null ? "" : content).getBytes(StandardCharsets.UTF_8);
+        ZipEntry entry = new ZipEntry(names.note(note.getKey()));
+        entry.setTime(stamps.get(note.getKey())); // stamp = waktu simpan terakhir (ms)
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+        report.notes.increment();
+        report.bytes.add(bytes.length);
+        if (progress != null && report.getNotes() % PROGRESS_EVERY == 0) {
+            progress.accept(report);
+        }
+    }
+
+    private static boolean isWithin(String path, String ancestor) {
+        return ancestor.isEmpty() || path.equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    // Nama entri zip dari path note: setiap key di-decode lalu karakter yang tidak boleh ada di nama file
+    // diganti '_'. Nama yang bentrok setelah itu diberi akhiran " (2)", " (3)", ...
+    private static final class EntryNames {
+        private final String rootPath;
+        private final Map<String, String> directories = new HashMap<>();
+        private final Set<String> used = new HashSet<>();
+
+        EntryNames(String rootPath) {
+            this.rootPath = rootPath;
+        }
+
+        String directory(String folderPath) {
+            if (folderPath.isEmpty()) {
+                return "";
+            }
+            String cached = directories.get(folderPath);
+            if (cached != null) {
+                return cached;
+            }
+            int slash = folderPath.lastIndexOf('/');
+            String parent = folderPath.equals(rootPath) || slash < 0 ? "" : directory(folderPath.substring(0, slash));
+            String name = unique(parent, fileName(folderPath.substring(slash + 1)), "/");
+            directories.put(folderPath, name);
+            return name;
+        }
+
+        String note(String notePath) {
+            int slash = notePath.lastIndexOf('/');
+            String parent = notePath.equals(rootPath) || slash < 0 ? "" : directory(notePath.substring(0, slash));
+            return unique(parent, fileName(notePath.substring(slash + 1)), ".html");
+        }
+
+        private String unique(String parent, String name, String suffix) {
+            String candidate = parent + name + suffix;
+            for (int n = 2; !used.add(candidate); n++) {
+                candidate = parent + name + " (" + n + ")" + suffix;
+            }
+            return candidate;
+        }
+
+        private static String fileName(String key) {
+            String title = KeyCodec.decode(key);
+            StringBuilder sb = new StringBuilder(title.length());
+            for (int i = 0; i < title.length(); i++) {
+                char c = title.charAt(i);
+                sb.append(c < 0x20 || "/\\:*?\"<>|".indexOf(c) >= 0 ? '_' : c);
+            }
+            String name = sb.toString().trim();
+            return name.isEmpty() || name.equals(".") || name.equals("..") ? "_" : name;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.MarkdownHtml;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Import massal dari direktori atau file .zip berisi .html/.htm, .md/.markdown dan .txt.
+// Direktori menjadi folder, file menjadi note (judul = nama file tanpa ekstensi), semuanya di bawah satu
+// folder baru yang dinamai sesuai sumbernya. File dibaca satu per satu sambil menelusuri tree dan langsung
+// di-commit ke NoteRepository (importNote: tanpa riwayat versi), jadi import juga jalan offline;
+// WriteBehindReplicator yang mengirimnya ke remote dalam batch terbatas (isi pending dibaca dari log).
+// Setiap MAX_BATCH_NOTES note / MAX_BATCH_BYTES, import menunggu pencatatan di belakang semua note batch itu
+// selesai, jadi isi note yang tertahan di antrian paling banyak satu batch; lalu perubahan yang sudah
+// di-commit diteruskan ke listener (utk tree) dan progress dilaporkan.
+public class NotebookImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(NotebookImporter.class);
+    private static final LatencyHistogram BATCH_LATENCY = Metrics.latency(Metrics.NOTEBOOK_IMPORT_BATCH);
+    static final int MAX_BATCH_NOTES = 500;
+    private static final long MAX_BATCH_BYTES = 8L * 1024 * 1024;
+    private static final long MAX_NOTE_BYTES = MAX_BATCH_BYTES; // sama dgn batas satu batch replikasi
+
+    private static final class Batch {
+        final List<NoteChange> changes = new ArrayList<>(); // FOLDER dan PUT (tanpa isi) yang sudah di-commit
+        final Map<String, CompletableFuture<Long>> notes = new LinkedHashMap<>(); // path -> stamp setelah tercatat
+        final long startedAt = System.nanoTime();
+        long bytes;
+    }
+
+    private final NoteRepository repository;
+    private final Consumer<TransferReport> progress;
+    private final Consumer<List<NoteChange>> committed;
+
+    // progress dan committed dipanggil di thread import setiap kali satu batch selesai di-commit lokal
+    public NotebookImporter(NoteRepository repository, Consumer<TransferReport> progress,
+                            Consumer<List<NoteChange>> committed) {
+        this.repository = repository;
+        this.progress = progress;
+        this.committed = committed;
+    }
+
+    public static boolean isZip(Path source) {
+        return Files.isRegularFile(source) && source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+
+    // taken: true jika path sudah dipakai note/folder lain (utk memilih nama folder teratas).
+    // Berjalan sinkron di thread pemanggil; interrupt membatalkan import (note yang sudah di-commit tetap ada).
+    public TransferReport importInto(Path source, String parentPath, Predicate<String> taken) throws IOException {
+        if (isZip(source)) {
+            try (FileSystem zip = FileSystems.newFileSystem(source, (ClassLoader) null)) {
+                Path root = singleDirectory(zip.getPath("/"));
+                String name = root.getFileName() != null ? fileName(root) : baseName(source);
+                return importTree(root, name, parentPath, taken);
+            }
+        }
+        if (!Files.isDirectory(source)) {
+            throw new IOException("Not a directory or .zip file: " + source);
+        }
+        return importTree(source, source.getFileName().toString(), parentPath, taken);
+    }
+
+    // Zip hasil "compress folder" berisi satu direktori teratas; isinya yang diimpor
+    private static Path singleDirectory(Path root) throws IOException {
+        Path only = null;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+            for (Path entry : entries) {
+                if (isIgnored(entry)) {
+                    continue;
+                }
+                if (only != null || !Files.isDirectory(entry)) {
+                    return root;
+                }
+                only = entry;
+            }
+        }
+        return only == null ? root : only;
+    }
+
+    private TransferReport importTree(Path root, String name, String parentPath, Predicate<String> taken) throws IOException {
+        TransferReport report = new TransferReport();
+        String topKey = KeyCodec.encode(name);
+        for (int n = 2; taken.test(NoteTree.childPath(parentPath, topKey)); n++) {
+            topKey = KeyCodec.encode(name + " (" + n + ")");
+        }
+        String topPath = NoteTree.childPath(parentPath, topKey);
+        Batch[] current = {new Batch()};
+        try {
+            walk(root, topPath, current, report);
+        } finally {
+            if (!current[0].changes.isEmpty() || !current[0].notes.isEmpty()) {
+                finish(current[0], report); // juga saat dibatalkan: yang sudah di-commit tetap masuk tree
+            }
+        }
+        report.finish();
+        LOG.info("Imported {} into '{}': {}", root, topPath, report);
+        return report;
+    }
+
+    private void walk(Path root, String topPath, Batch[] current, TransferReport report) throws IOException {
+        // nama yang sudah dipakai di setiap folder pada jalur penelusuran saat ini
+        Deque<String> folderPaths = new ArrayDeque<>();
+        Deque<Set<String>> folderKeys = new ArrayDeque<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (folderPaths.isEmpty()) {
+                    folderPaths.push(topPath);
+                } else if (isIgnored(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                } else {
+                    folderPaths.push(NoteTree.childPath(folderPaths.peek(), uniqueKey(folderKeys.peek(), fileName(dir))));
+                }
+                checkCancelled();
+                repository.createFolder(folderPaths.peek());
+                current[0].changes.add(new NoteChange(NoteChange.Type.FOLDER, 0, folderPaths.peek(), 0, null));
+                folderKeys.push(new HashSet<>());
+                report.folders.increment();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException error) {
+                if (error != null) {
+                    LOG.warn("Import: failed to list {}: {}", dir, error.getMessage());
+                }
+                folderPaths.pop();
+                folderKeys.pop();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String fileName = fileName(file);
+                String format = formatOf(fileName);
+                if (format == null || isIgnored(file)) {
+                    report.skipped.increment();
+                    return FileVisitResult.CONTINUE;
+                }
+                if (attrs.size() > MAX_NOTE_BYTES) {
+                    LOG.warn("Import: skipping {} ({} bytes, limit {})", file, attrs.size(), MAX_NOTE_BYTES);
+                    report.skipped.increment();
+                    return FileVisitResult.CONTINUE;
+                }
+                checkCancelled();
+                String html = toHtml(format, read(file));
+                String key = uniqueKey(folderKeys.peek(), fileName.substring(0, fileName.length() - format.length() - 1));
+                String path = NoteTree.childPath(folderPaths.peek(), key);
+                current[0].notes.put(path, repository.importNote(path, html));
+                current[0].bytes += html.getBytes(StandardCharsets.UTF_8).length;
+                report.notes.increment();
+                if (current[0].changes.size() + current[0].notes.size() >= MAX_BATCH_NOTES
+                        || current[0].bytes >= MAX_BATCH_BYTES) {
+                    finish(current[0], report);
+                    current[0] = new Batch();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException error) {
+                LOG.warn("Import: cannot read {}: {}", file, error.getMessage());
+                report.skipped.increment();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // Menunggu note batch ini selesai tercatat (backpressure); interrupt tidak memutus penantian ini, karena
+    // note-nya sudah di-commit dan harus tetap masuk tree
+    private void finish(Batch batch, TransferReport report) throws IOException {
+        boolean interrupted = false;
+        for (Map.Entry<String, CompletableFuture<Long>> note : batch.notes.entrySet()) {
+            while (true) {
+                try {
+                    long stamp = note.getValue().get();
+                    batch.changes.add(new NoteChange(NoteChange.Type.PUT, 0, note.getKey(), stamp, null));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to import " + note.getKey(), e.getCause());
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        BATCH_LATENCY.recordSince(batch.startedAt);
+        report.batches.increment();
+        report.bytes.add(batch.bytes);
+        if (committed != null) {
+            committed.accept(batch.changes);
+        }
+        if (progress != null) {
+            progress.accept(report);
+        }
+    }
+
+    private static void checkCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Import cancelled");
+        }
+    }
+
+    // "a.md" dan "a.txt" (atau file "a.md" dan direktori "a") di folder yang sama tidak boleh saling menimpa
+    private static String uniqueKey(Set<String> used, String title) {
+        String key = KeyCodec.encode(title);
+        for (int n = 2; !used.add(key); n++) {
+            key = KeyCodec.encode(title + " (" + n + ")");
+        }
+        return key;
+    }
+
+    // Ekstensi yang dikenali (huruf kecil), null utk file lain
+    private static String formatOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "html": case "htm": case "md": case "markdown": case "txt":
+                return extension;
+            default:
+                return null;
+        }
+    }
+
+    private static String toHtml(String format, String text) {
+        switch (format) {
+            case "md": case "markdown":
+                return MarkdownHtml.toHtml(text);
+            case "txt":
+                return MarkdownHtml.textToHtml(text);
+            default:
+                return text;
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        return text.startsWith("\uFEFF") ? text.substring(1) : text; // BOM dari editor Windows
+    }
+
+    // File/direktori tersembunyi dan metadata macOS di dalam zip
+    private static boolean isIgnored(Path path) {
+        String name = fileName(path);
+        return name.startsWith(".") || name.equals("__MACOSX");
+    }
+
+    // Nama direktori di zip filesystem berakhiran '/'
+    private static String fileName(Path path) {
+        String name = path.getFileName() == null ? "" : path.getFileName().toString();
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,127 @@
+package com.isna.service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import com.isna.utility.StripedPermits;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Menjalankan BCrypt di executor khusus yang dibatasi, bukan di thread event Firebase.
+// Jumlah hash yang berjalan + antri dibatasi StripedPermits (anggaran CPU global); jika habis, permintaan
+// langsung ditolak dgn ThrottledException tanpa hashing, supaya lonjakan login tidak menghabiskan CPU.
+public class PasswordHasher {
+    public static final int DEFAULT_COST = 10;
+    // Default batas in-flight per thread: dgn cost 10 (~60 ms) antrian terpanjang ~0.5 s
+    private static final int IN_FLIGHT_PER_THREAD = 8;
+
+    private final int cost;
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+    private final StripedPermits inFlight;
+    private volatile long recentNanos; // durasi hash terakhir, utk perkiraan retry-after
+
+    public PasswordHasher(int cost, int threads) {
+        this(cost, threads, threads * IN_FLIGHT_PER_THREAD);
+    }
+
+    public PasswordHasher(int cost, int threads, int maxInFlight) {
+        this.cost = cost;
+        this.threads = threads;
+        this.inFlight = new StripedPermits(Math.max(threads, maxInFlight));
+        // antrian tidak perlu dibatasi lagi: yang masuk executor sudah memegang permit
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "bcrypt");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    // Cost dari system property notetaking.bcrypt.cost, thread = separuh jumlah core,
+    // batas in-flight dari notetaking.bcrypt.maxInFlight
+    public static PasswordHasher fromSystemProperties() {
+        int cost = Integer.getInteger("notetaking.bcrypt.cost", DEFAULT_COST);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new PasswordHasher(cost, threads, Integer.getInteger("notetaking.bcrypt.maxInFlight", threads * IN_FLIGHT_PER_THREAD));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    public CompletableFuture<Boolean> verify(String password, String hash) {
+        return submit(() -> hash != null && BCrypt.checkpw(password, hash));
+    }
+
+    // true jika hash dibuat dgn cost yang berbeda dari konfigurasi sekarang
+    public boolean needsRehash(String hash) {
+        return costOf(hash) != cost;
+    }
+
+    // Format BCrypt: $2a$10$...
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$') {
+            return -1;
+        }
+        int start = hash.indexOf('$', 1) + 1;
+        int end = hash.indexOf('$', start);
+        try {
+            return Integer.parseInt(hash.substring(start, end));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        int permit = inFlight.tryAcquire();
+        if (permit < 0) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new ThrottledException("Server is busy", retryAfterMillis()));
+            return rejected;
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.get();
+                } finally {
+                    recentNanos = System.nanoTime() - start;
+                    inFlight.release(permit);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            inFlight.release(permit);
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    // Waktu kira-kira sampai antrian yang penuh sekarang selesai diproses
+    private long retryAfterMillis() {
+        long queueNanos = (long) inFlight.getPermits() * recentNanos / threads;
+        return Math.max(1000, TimeUnit.NANOSECONDS.toMillis(queueNanos));
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getInFlight() {
+        return inFlight.getInUse();
+    }
+}
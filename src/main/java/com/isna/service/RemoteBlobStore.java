@@ -0,0 +1,14 @@
+package com.isna.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+// Sisi remote dari AttachmentStore: blob lampiran dgn key hash SHA-256 isinya. Isi blob dgn hash yang
+// sama selalu identik, jadi put berulang aman dan blob tidak pernah diubah setelah ditulis.
+public interface RemoteBlobStore {
+    CompletableFuture<Void> put(String hash, ByteBuffer data);
+
+    CompletableFuture<byte[]> fetch(String hash);
+
+    CompletableFuture<Void> delete(String hash);
+}
@@ -0,0 +1,42 @@
+package com.isna.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Sisi remote yang dibaca NoteTreeReconciler: hash tree per folder (FolderHashes) dan index stamp note
+public interface RemoteNoteIndex {
+    // Hash root; null jika hash tree belum pernah diinisialisasi (notebook dari versi lama)
+    CompletableFuture<Long> fetchRootHash();
+
+    // folder -> hash utk semua folder yang berisi note
+    CompletableFuture<Map<String, Long>> fetchHashes();
+
+    // Semua note di bawah folderPath ("" = seluruh notebook): path -> stamp (Long) atau isi inline lama (String)
+    CompletableFuture<Map<String, Object>> fetchIndex(String folderPath);
+
+    // Menulis hash tree lengkap dari stamp note (path -> stamp) + penanda versi, hanya jika hash tree remote
+    // masih sama dgn expected (dibaca sebelum index diunduh). Hasil: true jika tertulis.
+    CompletableFuture<Boolean> initHashes(Map<String, Long> expected, Map<String, Long> notes);
+
+    // Menulis ulang hash subtree folderPath ("" = seluruh notebook) dari note di dalamnya, utk hash yang menyimpang
+    CompletableFuture<Void> repairHashes(String folderPath, Map<String, Long> notes);
+
+    // listener dipanggil setiap hash root berubah (dan sekali saat dipasang); ditutup utk melepasnya
+    AutoCloseable watchRootHash(Runnable listener);
+
+    // Isi notes/<userId>/<folderPath> (map bersarang) -> path note -> nilai leaf
+    static Map<String, Object> flatten(String folderPath, Object node) {
+        Map<String, Object> notes = new HashMap<>();
+        flatten(folderPath, node, notes);
+        return notes;
+    }
+
+    private static void flatten(String path, Object node, Map<String, Object> notes) {
+        if (node instanceof Map) {
+            ((Map<?, ?>) node).forEach((key, child) -> flatten(NoteTree.childPath(path, String.valueOf(key)), child, notes));
+        } else if (node != null && !path.isEmpty()) {
+            notes.put(path, node);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.isna.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Sisi remote dari NoteRepository. Perubahan dalam satu panggilan apply diterapkan atomik dan berurutan.
+public interface RemoteNoteStore {
+    CompletableFuture<Void> apply(List<NoteChange> changes);
+
+    CompletableFuture<String> fetchBody(String path);
+
+    // Spt fetchBody; store yang mengunduh isi bertahap (ChunkedNoteStore) memberikan awal isinya ke head
+    // begitu tersedia, sebelum isi lengkap
+    default CompletableFuture<String> fetchBody(String path, Consumer<String> head) {
+        return fetchBody(path);
+    }
+
+    // Satu chunk note besar (ChunkedNoteStore), path = "<path note>/<hash>"; null jika tidak ada
+    CompletableFuture<String> fetchChunk(String path);
+}
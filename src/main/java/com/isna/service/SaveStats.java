@@ -0,0 +1,58 @@
+package com.isna.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Statistik pipeline simpan: autosave lokal dan batch replikasi ke remote
+public class SaveStats {
+    private final long startedAt = System.currentTimeMillis();
+    final LongAdder edits = new LongAdder();           // event edit dari editor
+    final LongAdder localSaves = new LongAdder();      // commit ke NoteRepository
+    final LongAdder unchangedSkips = new LongAdder();  // autosave dilewati krn isi sama
+    final LongAdder batches = new LongAdder();         // panggilan updateChildren
+    final LongAdder changesSent = new LongAdder();     // perubahan yg benar-benar dikirim
+    final LongAdder changesCoalesced = new LongAdder(); // perubahan yg tertimpa versi lebih baru
+    final LongAdder bytesSent = new LongAdder();
+    final LongAdder saveLatencyMsTotal = new LongAdder(); // edit pertama -> commit lokal
+    final LongAdder replicationLagMsTotal = new LongAdder(); // commit lokal -> remote
+    final AtomicLong maxReplicationLagMs = new AtomicLong();
+
+    void recordReplicationLag(long lagMs) {
+        replicationLagMsTotal.add(lagMs);
+        maxReplicationLagMs.accumulateAndGet(lagMs, Math::max);
+    }
+
+    public long getEdits() { return edits.sum(); }
+    public long getLocalSaves() { return localSaves.sum(); }
+    public long getUnchangedSkips() { return unchangedSkips.sum(); }
+    public long getBatches() { return batches.sum(); }
+    public long getChangesSent() { return changesSent.sum(); }
+    public long getChangesCoalesced() { return changesCoalesced.sum(); }
+    public long getBytesSent() { return bytesSent.sum(); }
+    public long getMaxReplicationLagMs() { return maxReplicationLagMs.get(); }
+
+    public double getAvgSaveLatencyMs() {
+        long saves = getLocalSaves();
+        return saves == 0 ? 0 : (double) saveLatencyMsTotal.sum() / saves;
+    }
+
+    public double getAvgReplicationLagMs() {
+        long sent = getChangesSent() + getChangesCoalesced();
+        return sent == 0 ? 0 : (double) replicationLagMsTotal.sum() / sent;
+    }
+
+    // Perubahan per detik yang sampai di remote sejak aplikasi berjalan
+    public double getReplicatedPerSecond() {
+        double seconds = Math.max(1, System.currentTimeMillis() - startedAt) / 1000.0;
+        return (getChangesSent() + getChangesCoalesced()) / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SaveStats{edits=%d, saves=%d, skipped=%d, batches=%d, sent=%d, coalesced=%d, bytes=%d, "
+                        + "avgSaveMs=%.1f, avgLagMs=%.1f, maxLagMs=%d, replicated/s=%.2f}",
+                getEdits(), getLocalSaves(), getUnchangedSkips(), getBatches(), getChangesSent(), getChangesCoalesced(),
+                getBytesSent(), getAvgSaveLatencyMs(), getAvgReplicationLagMs(), getMaxReplicationLagMs(),
+                getReplicatedPerSecond());
+    }
+}
@@ -0,0 +1,548 @@
+package com.isna.service;
+
+import com.isna.utility.HtmlText;
+import com.isna.utility.IntList;
+import com.isna.utility.KeyCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index full-text utk isi note. Posting list memakai array int primitif (doc id + posisi token).
+// Update bersifat inkremental: versi lama note ditandai terhapus (tombstone) lalu versi baru ditambahkan
+// dgn doc id baru, sehingga posting list tetap terurut; posting list dipadatkan saat separuhnya mati.
+// Query: kata biasa (AND), "frasa dalam kutip", dan prefix* ; kata terakhir otomatis diperlakukan prefix.
+public class SearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSION = 256;
+    private static final int TITLE_GAP = 16; // jarak posisi judul dan isi agar frasa tidak melintasinya
+
+    public static class Result {
+        private final String path;
+        private final float score;
+
+        Result(String path, float score) {
+            this.path = path;
+            this.score = score;
+        }
+
+        public String getPath() { return path; }
+        public float getScore() { return score; }
+
+        // Teks di daftar hasil: path dgn setiap key didekode
+        @Override
+        public String toString() {
+            StringBuilder display = new StringBuilder(path.length());
+            for (String key : path.split("/")) {
+                display.append(display.length() == 0 ? "" : "/").append(KeyCodec.decode(key));
+            }
+            return display.toString();
+        }
+    }
+
+    private static class Postings {
+        final IntList docs = new IntList(4);
+        final IntList offsets = new IntList(4); // awal posisi doc ke-i di positions
+        final IntList positions = new IntList(8);
+        int live;
+
+        int positionsEnd(int i) {
+            return i + 1 < offsets.size() ? offsets.get(i + 1) : positions.size();
+        }
+    }
+
+    private static class Clause {
+        final List<String> terms = new ArrayList<>();
+        boolean prefix;
+        final List<Postings> postings = new ArrayList<>(); // diisi resolve() di bawah read lock
+        long cost;
+    }
+
+    // Doc yang cocok dgn bagian query yang sudah dievaluasi beserta skornya, terurut menurut doc id.
+    // Hanya memuat doc yang cocok, jadi biaya query sebanding dgn jumlah kecocokan, bukan jumlah note.
+    private static class Hits {
+        final IntList docs;
+        float[] scores;
+
+        Hits(int capacity) {
+            docs = new IntList(capacity);
+            scores = new float[Math.max(1, capacity)];
+        }
+
+        void add(int doc, float score) {
+            if (docs.size() == scores.length) {
+                scores = Arrays.copyOf(scores, scores.length * 2);
+            }
+            scores[docs.size()] = score;
+            docs.add(doc);
+        }
+
+        int size() {
+            return docs.size();
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docByPath = new HashMap<>();
+    private final List<String> docPaths = new ArrayList<>(); // doc id -> path (null jika terhapus)
+    private final List<String[]> docTerms = new ArrayList<>(); // doc id -> term unik, utk menghapus
+    private final IntList docLengths = new IntList();
+    private final BitSet deleted = new BitSet();
+    private long totalLength;
+    private int liveDocs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Menambah atau mengganti isi satu note
+    public void put(String path, String title, String html) {
+        List<String> titleTokens = HtmlText.tokenize(title == null ? "" : title);
+        List<String> bodyTokens = HtmlText.tokenize(HtmlText.toPlainText(html));
+        Map<String, IntList> positionsByTerm = new HashMap<>();
+        for (int i = 0; i < titleTokens.size(); i++) {
+            positionsByTerm.computeIfAbsent(titleTokens.get(i), t -> new IntList(2)).add(i);
+        }
+        int bodyStart = titleTokens.size() + TITLE_GAP;
+        for (int i = 0; i < bodyTokens.size(); i++) {
+            positionsByTerm.computeIfAbsent(bodyTokens.get(i), t -> new IntList(2)).add(bodyStart + i);
+        }
+        int length = titleTokens.size() + bodyTokens.size();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(path);
+            int doc = docPaths.size();
+            docPaths.add(path);
+            docByPath.put(path, doc);
+            docTerms.add(positionsByTerm.keySet().toArray(new String[0]));
+            docLengths.add(length);
+            totalLength += length;
+            liveDocs++;
+            for (Map.Entry<String, IntList> e : positionsByTerm.entrySet()) {
+                Postings postings = terms.computeIfAbsent(e.getKey(), t -> new Postings());
+                postings.docs.add(doc);
+                postings.offsets.add(postings.positions.size());
+                postings.positions.addAll(e.getValue());
+                postings.live++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String path) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String path) {
+        Integer doc = docByPath.remove(path);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        docPaths.set(doc, null);
+        totalLength -= docLengths.get(doc);
+        liveDocs--;
+        for (String term : docTerms.get(doc)) {
+            Postings postings = terms.get(term);
+            postings.live--;
+            if (postings.live == 0) {
+                terms.remove(term);
+            } else if (postings.live * 2 < postings.docs.size()) {
+                compact(postings);
+            }
+        }
+        docTerms.set(doc, null);
+        if (docPaths.size() - liveDocs > liveDocs + 1024) {
+            renumber();
+        }
+    }
+
+    // Doc id yang terhapus menumpuk setiap note disimpan ulang; sesekali id dipadatkan kembali.
+    // Pemetaan id lama -> baru naik monoton, jadi urutan posting list tetap terjaga.
+    private void renumber() {
+        int[] newIds = new int[docPaths.size()];
+        List<String> paths = new ArrayList<>(liveDocs);
+        List<String[]> termsByDoc = new ArrayList<>(liveDocs);
+        IntList lengths = new IntList(liveDocs);
+        for (int doc = 0; doc < docPaths.size(); doc++) {
+            if (deleted.get(doc)) {
+                newIds[doc] = -1;
+                continue;
+            }
+            newIds[doc] = paths.size();
+            docByPath.put(docPaths.get(doc), paths.size());
+            paths.add(docPaths.get(doc));
+            termsByDoc.add(docTerms.get(doc));
+            lengths.add(docLengths.get(doc));
+        }
+        for (Postings postings : terms.values()) {
+            compact(postings);
+            for (int i = 0; i < postings.docs.size(); i++) {
+                postings.docs.set(i, newIds[postings.docs.get(i)]);
+            }
+        }
+        docPaths.clear();
+        docPaths.addAll(paths);
+        docTerms.clear();
+        docTerms.addAll(termsByDoc);
+        docLengths.clear();
+        docLengths.addAll(lengths);
+        deleted.clear();
+    }
+
+    // Membuang doc yang sudah dihapus dari posting list
+    private void compact(Postings postings) {
+        IntList docs = new IntList(postings.live);
+        IntList offsets = new IntList(postings.live);
+        IntList positions = new IntList(postings.positions.size() / 2 + 1);
+        for (int i = 0; i < postings.docs.size(); i++) {
+            int doc = postings.docs.get(i);
+            if (deleted.get(doc)) {
+                continue;
+            }
+            docs.add(doc);
+            offsets.add(positions.size());
+            for (int p = postings.offsets.get(i); p < postings.positionsEnd(i); p++) {
+                positions.add(postings.positions.get(p));
+            }
+        }
+        postings.docs.clear();
+        postings.docs.addAll(docs);
+        postings.offsets.clear();
+        postings.offsets.addAll(offsets);
+        postings.positions.clear();
+        postings.positions.addAll(positions);
+    }
+
+    public boolean contains(String path) {
+        lock.readLock().lock();
+        try {
+            return docByPath.containsKey(path);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Mencari note yang cocok dgn semua bagian query, diurutkan dgn skor BM25.
+    // Bagian yang paling jarang dievaluasi dulu; bagian berikutnya hanya memeriksa doc yang masih tersisa.
+    public List<Result> search(String query, int limit) {
+        List<Clause> clauses = parse(query);
+        List<Result> results = new ArrayList<>();
+        if (clauses.isEmpty()) {
+            return results;
+        }
+        lock.readLock().lock();
+        try {
+            for (Clause clause : clauses) {
+                resolve(clause);
+            }
+            clauses.sort(Comparator.comparingLong(clause -> clause.cost));
+            Hits hits = null;
+            for (Clause clause : clauses) {
+                if (clause.cost == 0) {
+                    return results; // salah satu bagian tidak cocok sama sekali
+                }
+                if (clause.terms.size() > 1) {
+                    Hits phrase = scorePhrase(clause.postings);
+                    hits = hits == null ? phrase : intersect(hits, phrase);
+                } else {
+                    hits = scoreTerms(clause.postings, hits);
+                }
+                if (hits.size() == 0) {
+                    return results;
+                }
+            }
+            PriorityQueue<Result> top = new PriorityQueue<>((a, b) -> Float.compare(a.score, b.score));
+            for (int i = 0; i < hits.size(); i++) {
+                float score = hits.scores[i];
+                if (top.size() < limit || score > top.peek().score) {
+                    top.add(new Result(docPaths.get(hits.docs.get(i)), score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            while (!top.isEmpty()) {
+                results.add(0, top.poll());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Mengambil posting list tiap bagian query dan memperkirakan biayanya (jumlah doc yang dilewati)
+    private void resolve(Clause clause) {
+        if (clause.terms.size() > 1) {
+            clause.cost = Long.MAX_VALUE; // frasa dibatasi oleh term yang paling jarang
+            for (String term : clause.terms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    clause.cost = 0;
+                    return;
+                }
+                clause.postings.add(postings);
+                clause.cost = Math.min(clause.cost, postings.live);
+            }
+            return;
+        }
+        String term = clause.terms.get(0);
+        if (!clause.prefix) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                clause.postings.add(postings);
+                clause.cost = postings.live;
+            }
+            return;
+        }
+        for (Postings postings : terms.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            clause.postings.add(postings);
+            clause.cost += postings.live;
+            if (clause.postings.size() >= MAX_PREFIX_EXPANSION) {
+                break;
+            }
+        }
+    }
+
+    // Skor kata biasa atau prefix (gabungan beberapa term). Jika sudah ada kandidat, term hanya
+    // dicari pada doc kandidat dan skornya ditambahkan ke skor kandidat.
+    private Hits scoreTerms(List<Postings> lists, Hits candidates) {
+        if (candidates != null) {
+            float[] sums = new float[candidates.size()];
+            for (Postings postings : lists) {
+                float idf = idf(postings.live);
+                int cursor = 0;
+                for (int c = 0; c < candidates.size() && cursor < postings.docs.size(); c++) {
+                    int doc = candidates.docs.get(c);
+                    cursor = seek(postings.docs, cursor, doc);
+                    if (cursor < postings.docs.size() && postings.docs.get(cursor) == doc) {
+                        sums[c] += bm25(doc, postings.positionsEnd(cursor) - postings.offsets.get(cursor), idf);
+                    }
+                }
+            }
+            Hits hits = new Hits(candidates.size());
+            for (int c = 0; c < candidates.size(); c++) {
+                if (sums[c] > 0) {
+                    hits.add(candidates.docs.get(c), candidates.scores[c] + sums[c]);
+                }
+            }
+            return hits;
+        }
+        if (lists.size() == 1) {
+            Postings postings = lists.get(0);
+            float idf = idf(postings.live);
+            Hits hits = new Hits(postings.live);
+            for (int i = 0; i < postings.docs.size(); i++) {
+                int doc = postings.docs.get(i);
+                if (!deleted.get(doc)) {
+                    hits.add(doc, bm25(doc, postings.positionsEnd(i) - postings.offsets.get(i), idf));
+                }
+            }
+            return hits;
+        }
+        // gabungan beberapa posting list: pasangan (doc, skor) dikemas dalam long supaya bisa diurutkan
+        // menurut doc tanpa boxing, lalu skor doc yang sama dijumlahkan
+        int total = 0;
+        for (Postings postings : lists) {
+            total += postings.docs.size();
+        }
+        long[] entries = new long[total];
+        int count = 0;
+        for (Postings postings : lists) {
+            float idf = idf(postings.live);
+            for (int i = 0; i < postings.docs.size(); i++) {
+                int doc = postings.docs.get(i);
+                if (!deleted.get(doc)) {
+                    float score = bm25(doc, postings.positionsEnd(i) - postings.offsets.get(i), idf);
+                    entries[count++] = (long) doc << 32 | (Float.floatToRawIntBits(score) & 0xffffffffL);
+                }
+            }
+        }
+        Arrays.sort(entries, 0, count);
+        Hits hits = new Hits(count);
+        for (int i = 0; i < count; i++) {
+            int doc = (int) (entries[i] >>> 32);
+            float score = Float.intBitsToFloat((int) entries[i]);
+            int last = hits.size() - 1;
+            if (last >= 0 && hits.docs.get(last) == doc) {
+                hits.scores[last] += score;
+            } else {
+                hits.add(doc, score);
+            }
+        }
+        return hits;
+    }
+
+    // Frasa: semua term harus muncul di posisi berurutan. Dimulai dari term yang paling jarang;
+    // term lain hanya dicari (binary search) di doc yang memuat term tsb.
+    private Hits scorePhrase(List<Postings> lists) {
+        int rarest = 0;
+        for (int t = 1; t < lists.size(); t++) {
+            if (lists.get(t).live < lists.get(rarest).live) {
+                rarest = t;
+            }
+        }
+        Postings first = lists.get(rarest);
+        int[] cursor = new int[lists.size()];
+        IntList matchedDocs = new IntList();
+        IntList matchedCounts = new IntList();
+        for (int i = 0; i < first.docs.size(); i++) {
+            int doc = first.docs.get(i);
+            if (deleted.get(doc)) {
+                continue;
+            }
+            cursor[rarest] = i;
+            boolean inAll = true;
+            for (int t = 0; t < lists.size() && inAll; t++) {
+                if (t == rarest) {
+                    continue;
+                }
+                Postings other = lists.get(t);
+                cursor[t] = seek(other.docs, cursor[t], doc);
+                inAll = cursor[t] < other.docs.size() && other.docs.get(cursor[t]) == doc;
+            }
+            if (!inAll) {
+                continue;
+            }
+            int count = 0;
+            for (int p = first.offsets.get(i); p < first.positionsEnd(i); p++) {
+                int start = first.positions.get(p) - rarest;
+                boolean match = start >= 0;
+                for (int t = 0; t < lists.size() && match; t++) {
+                    match = t == rarest || hasPosition(lists.get(t), cursor[t], start + t);
+                }
+                if (match) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                matchedDocs.add(doc);
+                matchedCounts.add(count);
+            }
+        }
+        float idf = idf(matchedDocs.size());
+        Hits hits = new Hits(matchedDocs.size());
+        for (int i = 0; i < matchedDocs.size(); i++) {
+            hits.add(matchedDocs.get(i), bm25(matchedDocs.get(i), matchedCounts.get(i), idf));
+        }
+        return hits;
+    }
+
+    // Doc yang ada di kedua daftar, skornya dijumlahkan
+    private static Hits intersect(Hits a, Hits b) {
+        Hits both = new Hits(Math.min(a.size(), b.size()));
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int docA = a.docs.get(i);
+            int docB = b.docs.get(j);
+            if (docA < docB) {
+                i++;
+            } else if (docA > docB) {
+                j++;
+            } else {
+                both.add(docA, a.scores[i++] + b.scores[j++]);
+            }
+        }
+        return both;
+    }
+
+    // Indeks pertama di docs (mulai dari from) yang >= doc
+    private static int seek(IntList docs, int from, int doc) {
+        int lo = from;
+        int hi = docs.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (docs.get(mid) < doc) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean hasPosition(Postings postings, int index, int position) {
+        int lo = postings.offsets.get(index);
+        int hi = postings.positionsEnd(index) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int value = postings.positions.get(mid);
+            if (value == position) {
+                return true;
+            } else if (value < position) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    private float idf(int docFrequency) {
+        return (float) Math.log(1 + (liveDocs - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    private float bm25(int doc, int termFrequency, float idf) {
+        float avgLength = liveDocs == 0 ? 1 : (float) totalLength / liveDocs;
+        float norm = K1 * (1 - B + B * docLengths.get(doc) / Math.max(1, avgLength));
+        return idf * termFrequency * (K1 + 1) / (termFrequency + norm);
+    }
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            boolean quoted = i % 2 == 1 && i < parts.length - 1; // kutip tanpa pasangan dianggap teks biasa
+            if (quoted) {
+                Clause phrase = new Clause();
+                phrase.terms.addAll(HtmlText.tokenize(parts[i]));
+                if (!phrase.terms.isEmpty()) {
+                    clauses.add(phrase);
+                }
+                continue;
+            }
+            for (String word : parts[i].trim().split("\\s+")) {
+                boolean prefix = word.endsWith("*");
+                for (String token : HtmlText.tokenize(word)) {
+                    Clause clause = new Clause();
+                    clause.terms.add(token);
+                    clause.prefix = prefix;
+                    clauses.add(clause);
+                }
+            }
+        }
+        // kata terakhir yang masih diketik dianggap prefix
+        if (!clauses.isEmpty() && !query.endsWith(" ") && !query.endsWith("\"")) {
+            Clause last = clauses.get(clauses.size() - 1);
+            if (last.terms.size() == 1) {
+                last.prefix = true;
+            }
+        }
+        return clauses;
+    }
+}
@@ -0,0 +1,98 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Menjaga SearchIndex dan NoteQueryIndex tetap sinkron dgn index notes. Setiap perubahan stamp memicu
+// pembacaan isi note (dari log lokal atau remote, tanpa mengisi cache editor) lalu hanya note itu yang
+// di-index ulang: teksnya ke SearchIndex, metadata dari header isinya (NoteMetadata) ke NoteQueryIndex.
+public class SearchIndexer implements NoteTreePatcher.Listener, AutoCloseable {
+    private static final int MAX_IN_FLIGHT = 8;
+
+    private final SearchIndex index;
+    private final NoteQueryIndex queries;
+    private final NoteRepository repository;
+    private final Map<String, Long> indexedStamps = new ConcurrentHashMap<>();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "note-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SearchIndexer(SearchIndex index, NoteQueryIndex queries, NoteRepository repository) {
+        this.index = index;
+        this.queries = queries;
+        this.repository = repository;
+    }
+
+    public SearchIndex getIndex() {
+        return index;
+    }
+
+    public NoteQueryIndex getQueryIndex() {
+        return queries;
+    }
+
+    // Isi note yang baru disimpan dari editor sudah ada di tangan, tidak perlu dibaca ulang
+    public void indexNow(String path, long stamp, String content) {
+        indexedStamps.put(path, stamp);
+        worker.execute(() -> put(path, stamp, content));
+    }
+
+    @Override
+    public void noteUpdated(String path, long stamp) {
+        Long indexed = indexedStamps.put(path, stamp);
+        if (indexed != null && indexed == stamp) {
+            return;
+        }
+        worker.execute(() -> {
+            try {
+                inFlight.acquire(); // membatasi jumlah pembacaan isi yang berjalan bersamaan
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            repository.readNote(path, stamp).whenComplete((content, error) -> {
+                inFlight.release();
+                if (error == null) {
+                    worker.execute(() -> {
+                        Long current = indexedStamps.get(path);
+                        if (current != null && current == stamp) { // belum diganti/dihapus sejak dibaca
+                            put(path, stamp, content);
+                        }
+                    });
+                }
+            });
+        });
+    }
+
+    @Override
+    public void noteRemoved(String path) {
+        indexedStamps.remove(path);
+        worker.execute(() -> {
+            index.remove(path);
+            queries.remove(path);
+        });
+    }
+
+    private void put(String path, long stamp, String content) {
+        index.put(path, titleOf(path), content);
+        queries.put(path, NoteMetadata.parse(path, stamp, content));
+    }
+
+    // Judul asli, bukan key RTDB ("Meeting 2024.05.01", bukan "Meeting 2024%2E05%2E01"), spt NoteMetadata.parse
+    private static String titleOf(String path) {
+        return KeyCodec.decode(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,176 @@
+package com.isna.service;
+
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+// Satu sesi login. Memiliki semua yang dibuat utk user itu: store lampiran, repository lokal (log, cache
+// isi, riwayat, replikasi), autosave, index pencarian dan metadata, serta listener/gauge/thread yang didaftarkan lewat
+// own/onClose/gauge. close() melepas semuanya dgn urutan tetap, sehingga setelah logout tidak ada listener,
+// thread atau isi note user sebelumnya yang masih hidup.
+// Dibuat dan ditutup di thread FX: AutoSaver menyimpan edit terakhir saat ditutup dan membaca editor.
+public class Session implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(Session.class);
+    private static final long CONTENT_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final Set<Session> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final String userId;
+    private final NoteCodec codec;
+    private final AttachmentStore attachments;
+    private final ChunkedNoteStore chunkedStore;
+    private final RemoteNoteStore remoteStore;
+    private final LocalNoteRepository repository;
+    private final AutoSaver autoSaver;
+    private final SearchIndexer searchIndexer;
+    private final Deque<AutoCloseable> owned = new ArrayDeque<>(); // ditutup LIFO sebelum objek inti
+    private final Set<String> gauges = new LinkedHashSet<>();
+    private volatile boolean closed;
+
+    // directory: tempat notes.log, history.log dan attachments/; notes & blobs: store remote mentah
+    // (Firebase atau emulator), dibungkus codec, chunk note besar dan lampiran di sini
+    public Session(String userId, Path directory, RemoteNoteStore notes, RemoteBlobStore blobs, NoteCodec codec,
+                   Executor uiExecutor, AutoSaver.SaveListener saveListener) {
+        this.userId = userId;
+        this.codec = codec;
+        SaveStats saveStats = new SaveStats();
+        attachments = new AttachmentStore(directory.resolve("attachments"), blobs);
+        attachments.open().exceptionally(error -> {
+            LOG.error("Failed to open attachment store: {}", error.getMessage());
+            return null;
+        });
+        chunkedStore = new ChunkedNoteStore(new EncodedNoteStore(notes, codec));
+        remoteStore = new AttachmentNoteStore(chunkedStore, attachments);
+        try {
+            repository = new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")),
+                    remoteStore, new NoteContentCache(CONTENT_CACHE_BYTES), saveStats);
+        } catch (RuntimeException e) {
+            attachments.close();
+            throw e;
+        }
+        NoteHistory history = new NoteHistory(directory.resolve("history.log"));
+        history.open().exceptionally(error -> {
+            LOG.error("Failed to open note history: {}", error.getMessage());
+            return null;
+        });
+        repository.setHistory(history);
+        repository.setAttachments(attachments);
+        autoSaver = new AutoSaver(repository, uiExecutor, saveStats, saveListener);
+        searchIndexer = new SearchIndexer(new SearchIndex(), new NoteQueryIndex(), repository);
+        OPEN.add(this);
+    }
+
+    // Lokasi data lokal user: ~/.notetaking/<userId>/
+    public static Path defaultDirectory(String userId) {
+        return LocalNoteRepository.defaultLogFile(userId).getParent();
+    }
+
+    // Jumlah sesi yang belum ditutup; 0 setelah logout
+    public static int openCount() {
+        return OPEN.size();
+    }
+
+    // Saat aplikasi keluar: sesi yang masih terbuka ditutup (edit terakhir tersimpan, log ditutup rapi)
+    public static void closeAll() {
+        for (Session session : new ArrayList<>(OPEN)) {
+            session.close();
+        }
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public NoteCodec getCodec() {
+        return codec;
+    }
+
+    public AttachmentStore getAttachments() {
+        return attachments;
+    }
+
+    public ChunkedNoteStore getChunkedStore() {
+        return chunkedStore;
+    }
+
+    public RemoteNoteStore getRemoteStore() {
+        return remoteStore;
+    }
+
+    public LocalNoteRepository getRepository() {
+        return repository;
+    }
+
+    public AutoSaver getAutoSaver() {
+        return autoSaver;
+    }
+
+    public SearchIndexer getSearchIndexer() {
+        return searchIndexer;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // resource ditutup bersama sesi, terbalik dari urutan pendaftaran; jika sesi sudah ditutup, langsung ditutup
+    public <T extends AutoCloseable> T own(T resource) {
+        if (closed) {
+            closeQuietly(resource);
+        } else {
+            owned.push(resource);
+        }
+        return resource;
+    }
+
+    public void onClose(Runnable action) {
+        own(action::run);
+    }
+
+    // Gauge yang membaca objek sesi ini; saat ditutup di-nol-kan supaya tidak menahan objek sesi
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.add(name);
+        Metrics.gauge(name, supplier);
+    }
+
+    // Idempoten. Urutan: gauge, resource milik pemanggil (listener sync, handler URL, thread transfer)
+    // supaya tidak ada event baru, lalu autosave (flush ke repository), index, dan terakhir repository
+    // yang menutup replikasi, riwayat, lampiran dan log.
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long start = System.nanoTime();
+        for (String name : gauges) {
+            Metrics.gauge(name, () -> 0);
+        }
+        gauges.clear();
+        while (!owned.isEmpty()) {
+            closeQuietly(owned.pop());
+        }
+        closeQuietly(autoSaver);
+        closeQuietly(searchIndexer);
+        closeQuietly(repository);
+        OPEN.remove(this);
+        LOG.info("Session {} closed in {} ms", userId, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            LOG.warn("Failed to close {}: {}", resource, e.toString());
+        }
+    }
+}
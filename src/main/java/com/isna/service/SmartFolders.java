@@ -0,0 +1,207 @@
+package com.isna.service;
+
+import com.isna.utility.KeyCodec;
+import javafx.collections.ObservableList;
+import javafx.event.Event;
+import javafx.scene.control.TreeItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Smart folder: folder virtual di atas tree yang isinya hasil NoteQuery atas NoteQueryIndex. Definisinya
+// disimpan per user di file teks (satu "nama<TAB>query" per baris). Isi dihitung ulang saat index berubah,
+// paling sering sekali per REFRESH_MS (index diisi bertahap setelah login), dan tiap menit utk filter waktu
+// relatif; item anak hanya dibuat ulang jika hasilnya berbeda. Anak berisi NoteNode asli dari NoteTree, jadi
+// membuka, menghapus dan drag note bekerja spt di tree biasa. Node smart folder sendiri tidak punya parent
+// (isRoot) dan bukan folder, sehingga tidak bisa jadi tujuan drop, rename atau note baru.
+// Method publik dipanggil dari thread FX.
+public class SmartFolders implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SmartFolders.class);
+    private static final long REFRESH_MS = 500;
+    private static final long CLOCK_REFRESH_MS = 60_000;
+    private static final int MAX_ITEMS = 500; // note yang ditampilkan per smart folder
+
+    private static final class Folder {
+        final String name;
+        final NoteQuery query;
+        final NoteNode node;
+        final TreeItem<NoteNode> item;
+        int total = -1;
+
+        Folder(String name, NoteQuery query) {
+            this.name = name;
+            this.query = query;
+            this.node = new NoteNode(-1, false, KeyCodec.encode(name));
+            this.item = new TreeItem<>(node);
+            node.setItem(item);
+        }
+    }
+
+    private final NoteQueryIndex index;
+    private final NoteTreePatcher patcher;
+    private final Path file;
+    private final Executor uiExecutor;
+    private final List<Folder> folders = new ArrayList<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "smart-folders");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean closed;
+
+    public SmartFolders(NoteQueryIndex index, NoteTreePatcher patcher, Path file, Executor uiExecutor) {
+        this.index = index;
+        this.patcher = patcher;
+        this.file = file;
+        this.uiExecutor = uiExecutor;
+    }
+
+    // Memuat definisi dari file, memasang item di tree dan mulai mengikuti perubahan index
+    public void start() {
+        for (String line : readLines()) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            try {
+                folders.add(new Folder(line.substring(0, tab), NoteQuery.parse(line.substring(tab + 1))));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Skipping smart folder '{}': {}", line.substring(0, tab), e.getMessage());
+            }
+        }
+        publish();
+        index.setListener(this::scheduleRefresh);
+        timer.scheduleWithFixedDelay(this::scheduleRefresh, CLOCK_REFRESH_MS, CLOCK_REFRESH_MS, TimeUnit.MILLISECONDS);
+        refresh();
+    }
+
+    // Smart folder baru; query yang salah -> IllegalArgumentException
+    public NoteNode add(String name, String queryText) {
+        Folder folder = new Folder(name.replaceAll("[\\t\\r\\n]", " ").trim(), NoteQuery.parse(queryText));
+        folders.add(folder);
+        publish();
+        refresh(folder, System.currentTimeMillis());
+        save();
+        return folder.node;
+    }
+
+    public boolean isSmartFolder(NoteNode node) {
+        return find(node) != null;
+    }
+
+    public void remove(NoteNode node) {
+        Folder folder = find(node);
+        if (folder != null) {
+            folders.remove(folder);
+            publish();
+            save();
+        }
+    }
+
+    private Folder find(NoteNode node) {
+        for (Folder folder : folders) {
+            if (folder.node == node) {
+                return folder;
+            }
+        }
+        return null;
+    }
+
+    private void publish() {
+        List<TreeItem<NoteNode>> items = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            items.add(folder.item);
+        }
+        patcher.setVirtualItems(items);
+    }
+
+    // Dipanggil dari thread indexer/timer; beberapa perubahan beruntun digabung jadi satu refresh di thread FX
+    private void scheduleRefresh() {
+        if (!closed && refreshScheduled.compareAndSet(false, true)) {
+            timer.schedule(() -> uiExecutor.execute(this::refresh), REFRESH_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Folder folder : folders) {
+            refresh(folder, now);
+        }
+    }
+
+    private void refresh(Folder folder, long now) {
+        NoteQueryIndex.Result result = index.query(folder.query, now, MAX_ITEMS);
+        if (result.getTotal() != folder.total) {
+            folder.total = result.getTotal();
+            folder.node.setKey(KeyCodec.encode(folder.name + " (" + folder.total + ")"));
+            Event.fireEvent(folder.item, new TreeItem.TreeModificationEvent<>(TreeItem.valueChangedEvent(), folder.item, folder.node));
+        }
+        List<NoteNode> notes = new ArrayList<>(result.getPaths().size());
+        for (String path : result.getPaths()) {
+            NoteNode note = patcher.node(path);
+            if (note != null && !note.isFolder()) { // index bisa sesaat tertinggal dari tree
+                notes.add(note);
+            }
+        }
+        ObservableList<TreeItem<NoteNode>> children = folder.item.getChildren();
+        boolean same = children.size() == notes.size();
+        for (int i = 0; same && i < notes.size(); i++) {
+            same = children.get(i).getValue() == notes.get(i);
+        }
+        if (!same) {
+            List<TreeItem<NoteNode>> items = new ArrayList<>(notes.size());
+            for (NoteNode note : notes) {
+                items.add(new TreeItem<>(note)); // tidak didaftarkan ke NoteNode: item utamanya tetap di tree
+            }
+            children.setAll(items);
+        }
+    }
+
+    private List<String> readLines() {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.error("Failed to read smart folders from {}: {}", file, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private void save() {
+        List<String> lines = new ArrayList<>(folders.size());
+        for (Folder folder : folders) {
+            lines.add(folder.name + "\t" + folder.query.getText());
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.error("Failed to save smart folders to {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        index.setListener(null);
+        timer.shutdownNow();
+    }
+}
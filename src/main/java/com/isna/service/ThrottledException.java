@@ -0,0 +1,31 @@
+package com.isna.service;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// Permintaan login/registrasi ditolak tanpa hashing karena anggaran habis (per akun atau global).
+// Turunan RejectedExecutionException supaya penanganan "server sibuk" yang lama tetap berlaku.
+public class ThrottledException extends RejectedExecutionException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public ThrottledException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    // Dibulatkan ke atas, minimal 1 detik
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    // Tanpa stack trace: dibuat di jalur penolakan cepat, bisa ribuan per detik saat serangan
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
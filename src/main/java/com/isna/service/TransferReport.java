@@ -0,0 +1,46 @@
+package com.isna.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Statistik satu import/export notebook: jumlah note/folder, byte isi dan throughput
+public class TransferReport {
+    private final long startedNanos = System.nanoTime();
+    private volatile long finishedNanos;
+    final LongAdder notes = new LongAdder();
+    final LongAdder folders = new LongAdder();
+    final LongAdder bytes = new LongAdder();   // byte UTF-8 isi note (HTML) yang ditulis
+    final LongAdder skipped = new LongAdder(); // file yang bukan note atau terlalu besar
+    final LongAdder batches = new LongAdder();
+
+    void finish() {
+        finishedNanos = System.nanoTime();
+    }
+
+    public long getNotes() { return notes.sum(); }
+    public long getFolders() { return folders.sum(); }
+    public long getBytes() { return bytes.sum(); }
+    public long getSkipped() { return skipped.sum(); }
+    public long getBatches() { return batches.sum(); }
+
+    // Selama berjalan: waktu sejak mulai
+    public double getSeconds() {
+        long end = finishedNanos == 0 ? System.nanoTime() : finishedNanos;
+        return Math.max(1, end - startedNanos) / 1e9;
+    }
+
+    public double getMegabytesPerSecond() {
+        return getBytes() / (1024.0 * 1024.0) / getSeconds();
+    }
+
+    public double getNotesPerSecond() {
+        return getNotes() / getSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d notes, %d folders, %.1f MB in %.1f s (%.1f MB/s, %.0f notes/s), "
+                        + "%d skipped, %d batches",
+                getNotes(), getFolders(), getBytes() / (1024.0 * 1024.0), getSeconds(), getMegabytesPerSecond(),
+                getNotesPerSecond(), getSkipped(), getBatches());
+    }
+}
@@ -1,65 +1,224 @@
 package com.isna.service;
 
-import com.google.firebase.database.*;
 import com.isna.model.User;
-import org.mindrot.jbcrypt.BCrypt;
+import com.isna.utility.KeyCodec;
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class UserManager {
 
-    public interface Callback<T> {
-        void onCallback(T result);
+    private static final Logger LOG = LoggerFactory.getLogger(UserManager.class);
+    private static final PasswordHasher HASHER = PasswordHasher.fromSystemProperties();
+    private static final LoginThrottle THROTTLE = new LoginThrottle();
+    private static final LatencyHistogram REGISTER_LATENCY = Metrics.latency(Metrics.USER_REGISTER);
+    private static final Metrics.Counter REGISTER_ERRORS = Metrics.counter(Metrics.USER_REGISTER + ".errors");
+    private static final LatencyHistogram AUTHENTICATE_LATENCY = Metrics.latency(Metrics.USER_AUTHENTICATE);
+    private static final Metrics.Counter AUTHENTICATE_ERRORS = Metrics.counter(Metrics.USER_AUTHENTICATE + ".errors");
+    private static final Metrics.Counter AUTHENTICATE_REJECTED = Metrics.counter(Metrics.USER_AUTHENTICATE + ".rejected");
+    private static final Metrics.Counter AUTHENTICATE_THROTTLED = Metrics.counter(Metrics.USER_AUTHENTICATE + ".throttled");
+    private static final Metrics.Counter LEGACY_LOOKUPS = Metrics.counter("user.lookup.legacy");
+
+    // Registrasi mengklaim entri index dgn "pending:<waktu>:<userKey>" lewat transaction, lalu menulis record user
+    // dan userKey final dalam satu multi-path update. Klaim pending yang lebih tua dari CLAIM_TIMEOUT_MS
+    // (registrasi yang terputus) boleh diambil alih.
+    private static final String PENDING = "pending:";
+    private static final long CLAIM_TIMEOUT_MS = 5 * 60_000;
+
+    private static volatile UserStore store = new FirebaseUserStore();
+
+    // Hasil lookup email: user yang ditemukan, atau isi index yang menghalangi/boleh diganti registrasi baru
+    private static final class Lookup {
+        static final Lookup NONE = new Lookup(null, null, null, false);
+
+        final String userKey;
+        final User user;
+        final String indexValue; // isi index tanpa record user (klaim pending atau entri basi)
+        final boolean replaceable;
+
+        Lookup(String userKey, User user, String indexValue, boolean replaceable) {
+            this.userKey = userKey;
+            this.user = user;
+            this.indexValue = indexValue;
+            this.replaceable = replaceable;
+        }
+
+        boolean blocksRegistration() {
+            return user != null || (indexValue != null && !replaceable);
+        }
+    }
+
+    // Dipakai benchmark/load test utk mengganti Firebase dgn InMemoryUserStore
+    public static void setStore(UserStore userStore) {
+        store = userStore;
     }
 
-    private static final DatabaseReference USERS_REF = FirebaseDatabase.getInstance().getReference("users");
-
-    public static void registerUser(String email, String password, String fullName, String phoneNumber, UserManager.Callback<Boolean> callback) {
-        email = email.toLowerCase().trim();  // Pastikan email disimpan dalam lowercase dan tanpa spasi berlebih
-        Query query = USERS_REF.orderByChild("email").equalTo(email);
-        String finalEmail = email;
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    callback.onCallback(false);
-                } else {
-                    String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+    // Hasil false jika email sudah terdaftar atau penyimpanan gagal
+    public static CompletableFuture<Boolean> registerUser(String email, String password, String fullName, String phoneNumber) {
+        long start = System.nanoTime();
+        String finalEmail = email.toLowerCase().trim();  // Pastikan email disimpan dalam lowercase dan tanpa spasi berlebih
+        String emailKey = KeyCodec.encode(finalEmail);
+        UserStore users = store;
+        return Metrics.timed(lookup(users, finalEmail, emailKey).thenCompose(existing -> {
+            if (existing.blocksRegistration()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            // hashing berjalan di executor BCrypt, bukan di thread event Firebase
+            return HASHER.hash(password).thenCompose(hashedPassword -> {
+                String userKey = users.newUserKey();
+                String claim = PENDING + System.currentTimeMillis() + ":" + userKey;
+                // klaim index lewat transaction: dari dua registrasi bersamaan hanya satu yang menang
+                return users.claimEmail(emailKey, claim, existing.indexValue).thenCompose(claimed -> {
+                    if (!claimed) {
+                        return CompletableFuture.completedFuture(false);
+                    }
                     User newUser = new User(finalEmail, hashedPassword, fullName, phoneNumber);
-                    USERS_REF.push().setValue(newUser, (databaseError, databaseReference) -> {
-                        callback.onCallback(databaseError == null);
-                    });
+                    return users.createUser(userKey, emailKey, newUser).thenApply(v -> true)
+                            .exceptionallyCompose(error -> users.releaseEmail(emailKey, claim).handle((v, releaseError) -> {
+                                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                            }));
+                });
+            });
+        }), start, REGISTER_LATENCY, REGISTER_ERRORS);
+    }
+
+    // Hasil null jika email/password tidak cocok. Gagal dgn ThrottledException (tanpa lookup/hashing) jika
+    // email ini terlalu sering dicoba atau anggaran hashing global habis.
+    public static CompletableFuture<User> authenticateUser(String email, String password) {
+        long start = System.nanoTime();
+        String finalEmail = email.toLowerCase().trim();  // Pastikan email dalam lowercase untuk pencocokan
+        UserStore users = store;
+        try {
+            THROTTLE.acquire(finalEmail);
+        } catch (ThrottledException e) {
+            AUTHENTICATE_THROTTLED.increment();
+            CompletableFuture<User> throttled = new CompletableFuture<>();
+            throttled.completeExceptionally(e);
+            return throttled;
+        }
+        CompletableFuture<User> result = lookup(users, finalEmail, KeyCodec.encode(finalEmail)).thenCompose(found -> {
+            if (found.user == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            // verifikasi di executor BCrypt
+            return HASHER.verify(password, found.user.getPassword()).thenApply(matches -> {
+                if (!matches) {
+                    return null;
+                }
+                if (HASHER.needsRehash(found.user.getPassword())) {
+                    rehash(users, found.userKey, password);
                 }
+                return found.user;
+            });
+        });
+        result.whenComplete((user, error) -> {
+            if (error == null && user == null) {
+                AUTHENTICATE_REJECTED.increment();
+                THROTTLE.failure(finalEmail); // email tidak dikenal juga dihitung, supaya tidak bisa ditebak bebas
+            } else if (user != null) {
+                THROTTLE.success(finalEmail);
+            } else if (error instanceof ThrottledException || error.getCause() instanceof ThrottledException) {
+                AUTHENTICATE_THROTTLED.increment();
             }
+        });
+        return Metrics.timed(result, start, AUTHENTICATE_LATENCY, AUTHENTICATE_ERRORS);
+    }
+
+    // Cost BCrypt berubah: hash ulang dgn cost baru tanpa mengganggu login
+    private static void rehash(UserStore users, String userKey, String password) {
+        HASHER.hash(password).thenCompose(newHash -> users.setPassword(userKey, newHash))
+                .exceptionally(error -> {
+                    if (error instanceof ThrottledException || error.getCause() instanceof ThrottledException) {
+                        LOG.debug("Rehash dilewati, anggaran hashing habis; dicoba lagi saat login berikutnya");
+                    } else {
+                        LOG.warn("Rehash password gagal: {}", error.getMessage());
+                    }
+                    return null;
+                });
+    }
 
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                System.err.println("Kesalahan database: " + databaseError.getMessage());
-                callback.onCallback(false);
+    // Index email dibaca langsung per key. Selama migrasi belum selesai, email yang tidak ada di index
+    // dicari dgn query lama lalu index-nya diisi, supaya user lama tetap bisa login.
+    private static CompletableFuture<Lookup> lookup(UserStore users, String email, String emailKey) {
+        return users.userKeyForEmail(emailKey).thenCompose(value -> {
+            if (value != null && value.startsWith(PENDING)) {
+                return CompletableFuture.completedFuture(new Lookup(null, null, value, isExpired(value)));
             }
+            if (value != null) {
+                return users.user(value).thenApply(user -> user != null
+                        ? new Lookup(value, user, null, false)
+                        : new Lookup(null, null, value, true)); // record user sudah tidak ada
+            }
+            return users.isEmailIndexReady().thenCompose(ready -> ready
+                    ? CompletableFuture.completedFuture(Lookup.NONE)
+                    : legacyLookup(users, email, emailKey));
         });
     }
-    public static void authenticateUser(String email, String password, UserManager.Callback<User> callback) {
-        email = email.toLowerCase().trim();  // Pastikan email dalam lowercase untuk pencocokan
-        Query query = USERS_REF.orderByChild("email").equalTo(email);
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                if (dataSnapshot.exists()) {
-                    for (DataSnapshot child : dataSnapshot.getChildren()) {
-                        User user = child.getValue(User.class);
-                        if (user != null && BCrypt.checkpw(password, user.getPassword())) {
-                            callback.onCallback(user);
-                            return;
-                        }
-                    }
-                }
-                callback.onCallback(null);
+
+    private static CompletableFuture<Lookup> legacyLookup(UserStore users, String email, String emailKey) {
+        LEGACY_LOOKUPS.increment();
+        return users.usersByEmail(email).thenCompose(matches -> {
+            if (matches.isEmpty()) {
+                return CompletableFuture.completedFuture(Lookup.NONE);
             }
+            String userKey = new TreeMap<>(matches).firstKey(); // sama dgn pilihan migrasi
+            return users.claimEmail(emailKey, userKey, null)
+                    .thenApply(claimed -> new Lookup(userKey, matches.get(userKey), null, false));
+        });
+    }
+
+    private static boolean isExpired(String claim) {
+        int end = claim.indexOf(':', PENDING.length());
+        try {
+            long claimedAt = Long.parseLong(claim.substring(PENDING.length(), end < 0 ? claim.length() : end));
+            return System.currentTimeMillis() - claimedAt > CLAIM_TIMEOUT_MS;
+        } catch (NumberFormatException e) {
+            return true; // klaim rusak
+        }
+    }
 
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                System.err.println("Kesalahan database: " + databaseError.getMessage());
-                callback.onCallback(null);
+    // Migrasi satu kali: membuat entri userEmails utk semua user lama lalu menandai index siap.
+    // Aman dijalankan beberapa client sekaligus (setiap entri diklaim lewat transaction).
+    // Email ganda dari race registrasi lama: user dgn key terkecil yang dipakai.
+    public static CompletableFuture<Integer> migrateEmailIndex() {
+        UserStore users = store;
+        return users.isEmailIndexReady().thenCompose(ready -> {
+            if (ready) {
+                return CompletableFuture.completedFuture(0);
             }
+            return users.allUsers().thenCompose(all -> {
+                Map<String, String> firstByEmail = new TreeMap<>();
+                int duplicates = 0;
+                for (Map.Entry<String, User> entry : new TreeMap<>(all).entrySet()) {
+                    String email = entry.getValue().getEmail();
+                    if (email == null) {
+                        continue;
+                    }
+                    if (firstByEmail.putIfAbsent(email.toLowerCase().trim(), entry.getKey()) != null) {
+                        duplicates++;
+                    }
+                }
+                if (duplicates > 0) {
+                    LOG.warn("{} duplicate user records by email; only the oldest of each can log in", duplicates);
+                }
+                List<CompletableFuture<Boolean>> claims = new ArrayList<>();
+                firstByEmail.forEach((email, userKey) -> claims.add(users.claimEmail(KeyCodec.encode(email), userKey, null)));
+                return CompletableFuture.allOf(claims.toArray(new CompletableFuture<?>[0]))
+                        .thenCompose(v -> users.markEmailIndexReady())
+                        .thenApply(v -> {
+                            long created = claims.stream().filter(CompletableFuture::join).count();
+                            LOG.info("Email index migrated: {} users, {} index entries created", firstByEmail.size(), created);
+                            return (int) created;
+                        });
+            });
         });
     }
 }
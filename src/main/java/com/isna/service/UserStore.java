@@ -0,0 +1,42 @@
+package com.isna.service;
+
+import com.isna.model.User;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Data user di backend: users/<userKey> berisi User, userEmails/<KeyCodec(email)> berisi userKey
+// (atau klaim registrasi yang belum selesai, lihat UserManager). Index email dibaca langsung per key (O(1))
+// sehingga login/registrasi tidak perlu query orderByChild.
+// FirebaseUserStore dipakai aplikasi; InMemoryUserStore utk benchmark; EmulatorUserStore utk load test.
+public interface UserStore {
+    String newUserKey();
+
+    // Isi entri index email, atau null jika belum ada
+    CompletableFuture<String> userKeyForEmail(String emailKey);
+
+    // null jika users/<userKey> tidak ada
+    CompletableFuture<User> user(String userKey);
+
+    // Menulis value ke index secara atomik (transaction) jika entri kosong atau masih berisi expected
+    // (klaim basi). false jika entri sudah berisi nilai lain.
+    CompletableFuture<Boolean> claimEmail(String emailKey, String value, String expected);
+
+    // Record user dan entri index final (userKey) ditulis bersama dalam satu multi-path update
+    CompletableFuture<Void> createUser(String userKey, String emailKey, User user);
+
+    // Menghapus entri index hanya jika isinya masih value
+    CompletableFuture<Void> releaseEmail(String emailKey, String value);
+
+    CompletableFuture<Void> setPassword(String userKey, String passwordHash);
+
+    // Cara lama (query orderByChild("email")); hanya dipakai sebelum migrasi index selesai
+    CompletableFuture<Map<String, User>> usersByEmail(String email);
+
+    // Semua user (userKey -> User), utk migrasi satu kali
+    CompletableFuture<Map<String, User>> allUsers();
+
+    CompletableFuture<Boolean> isEmailIndexReady();
+
+    CompletableFuture<Void> markEmailIndexReady();
+}
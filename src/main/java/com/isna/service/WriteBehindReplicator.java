@@ -0,0 +1,186 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+import com.isna.utility.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Mengirim perubahan pending dari LocalNoteLog ke remote sesuai urutan seq, dalam batch multi-path.
+// Beberapa simpan ke path yang sama di satu batch digabung sehingga hanya versi terakhir yang dikirim.
+// Jika gagal, batch yang sama dicoba lagi dgn backoff; perubahan berikutnya menunggu (urutan terjaga).
+public class WriteBehindReplicator implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindReplicator.class);
+    private static final LatencyHistogram BATCH_LATENCY = Metrics.latency(Metrics.REPLICATION_BATCH);
+    private static final LatencyHistogram LAG = Metrics.latency(Metrics.REPLICATION_LAG);
+    private static final Metrics.Counter BATCH_ERRORS = Metrics.counter(Metrics.REPLICATION_BATCH + ".errors");
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final long SEND_TIMEOUT_MS = 30_000;
+    private static final long COMPACT_INTERVAL_S = 60;
+    private static final int MAX_BATCH_CHANGES = 500;
+    private static final long MAX_BATCH_BYTES = 8L * 1024 * 1024;
+
+    private static class Batch {
+        final Map<String, NoteChange> byPath = new LinkedHashMap<>();
+        final List<Long> seqs = new ArrayList<>();
+        long bytes;
+        int end;
+    }
+
+    private final LocalNoteLog log;
+    private final RemoteNoteStore remote;
+    private final SaveStats stats;
+    private final ScheduledExecutorService worker;
+    private boolean scheduled; // sudah ada drain yang menunggu dijalankan
+    private long backoffMs = INITIAL_BACKOFF_MS;
+
+    public WriteBehindReplicator(LocalNoteLog log, RemoteNoteStore remote, SaveStats stats) {
+        this.log = log;
+        this.remote = remote;
+        this.stats = stats;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "note-replicator");
+            t.setDaemon(true);
+            return t;
+        });
+        worker.scheduleWithFixedDelay(this::compact, COMPACT_INTERVAL_S, COMPACT_INTERVAL_S, TimeUnit.SECONDS);
+    }
+
+    // Dipanggil setiap ada perubahan lokal baru
+    public synchronized void kick() {
+        if (!scheduled) {
+            schedule(0);
+        }
+    }
+
+    private void drain() {
+        synchronized (this) {
+            scheduled = false; // kick selama drain berjalan akan menjadwalkan drain berikutnya
+        }
+        List<NoteChange> pending = log.pending();
+        int next = 0;
+        while (next < pending.size()) {
+            Batch batch = nextBatch(pending, next);
+            long start = System.nanoTime();
+            try {
+                remote.apply(new ArrayList<>(batch.byPath.values())).get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                BATCH_ERRORS.increment();
+                LOG.warn("Replication of {} changes failed, retrying in {} ms: {}", batch.seqs.size(), backoffMs, e.toString());
+                retryLater();
+                return;
+            }
+            BATCH_LATENCY.recordSince(start);
+            long now = System.currentTimeMillis();
+            for (int i = next; i < batch.end; i++) {
+                NoteChange change = pending.get(i);
+                log.markReplicated(change.getSeq());
+                if (change.getType() == NoteChange.Type.PUT) {
+                    long lagMs = Math.max(0, now - change.getStamp());
+                    stats.recordReplicationLag(lagMs);
+                    LAG.record(TimeUnit.MILLISECONDS.toNanos(lagMs));
+                }
+            }
+            stats.batches.increment();
+            stats.changesSent.add(batch.byPath.size());
+            stats.changesCoalesced.add(batch.seqs.size() - batch.byPath.size());
+            stats.bytesSent.add(batch.bytes);
+            backoffMs = INITIAL_BACKOFF_MS;
+            next = batch.end;
+        }
+    }
+
+    // Mengambil perubahan berurutan mulai dari start selama tidak ada path yang saling tumpang tindih
+    // (multi-path update menolak path leluhur/turunan dalam satu panggilan)
+    private static Batch nextBatch(List<NoteChange> pending, int start) {
+        Batch batch = new Batch();
+        int i = start;
+        for (; i < pending.size(); i++) {
+            NoteChange change = pending.get(i);
+            NoteChange previous = batch.byPath.get(change.getPath());
+            long size = sizeOf(change);
+            if (previous != null) {
+                boolean replaces = change.getType() != NoteChange.Type.FOLDER && previous.getType() != NoteChange.Type.FOLDER;
+                if (!replaces) {
+                    break;
+                }
+                batch.bytes -= sizeOf(previous);
+                batch.byPath.remove(change.getPath()); // versi terbaru pindah ke urutan paling akhir
+                // yang ditimpa di remote tetap state sebelum perubahan pertama (versi antara tidak pernah dikirim)
+                change = change.withReplaced(previous.getReplaced());
+            } else if (!batch.byPath.isEmpty() && (batch.byPath.size() >= MAX_BATCH_CHANGES
+                    || batch.bytes + size > MAX_BATCH_BYTES || overlaps(batch, change.getPath()))) {
+                break;
+            }
+            batch.byPath.put(change.getPath(), change);
+            batch.seqs.add(change.getSeq());
+            batch.bytes += size;
+        }
+        batch.end = i;
+        return batch;
+    }
+
+    private static boolean overlaps(Batch batch, String path) {
+        for (String other : batch.byPath.keySet()) {
+            if (path.startsWith(other + "/") || other.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long sizeOf(NoteChange change) {
+        long size = change.getPath().length();
+        return change.getContent() == null ? size : size + change.getContent().length();
+    }
+
+    private synchronized void retryLater() {
+        schedule(backoffMs);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    private synchronized void schedule(long delayMs) {
+        if (!worker.isShutdown()) {
+            scheduled = true;
+            worker.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void compact() {
+        try {
+            log.compactIfNeeded();
+        } catch (IOException e) {
+            LOG.error("Note log compaction failed: {}", e.getMessage());
+        }
+    }
+
+    public SaveStats getStats() {
+        return stats;
+    }
+
+    public int pendingCount() {
+        return log.pendingCount();
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
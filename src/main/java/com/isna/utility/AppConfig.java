@@ -0,0 +1,69 @@
+package com.isna.utility;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+// Konfigurasi aplikasi. Urutan prioritas: system property (-Dnotetaking.xxx),
+// environment variable (NOTETAKING_XXX), file ~/.notetaking/config.properties, lalu nilai default.
+public class AppConfig {
+    public static final String FIREBASE_CREDENTIALS = "notetaking.firebase.credentials";
+    public static final String FIREBASE_DATABASE_URL = "notetaking.firebase.databaseUrl";
+    public static final String TREE_LARGE_NOTEBOOK = "notetaking.tree.largeNotebook";
+    public static final String STORAGE_COMPRESS = "notetaking.storage.compress";
+
+    private static final String DEFAULT_DATABASE_URL = "https://notetakingjava-default-rtdb.firebaseio.com";
+
+    private final Properties fileProperties;
+
+    private AppConfig(Properties fileProperties) {
+        this.fileProperties = fileProperties;
+    }
+
+    public static AppConfig load() {
+        Properties properties = new Properties();
+        Path file = defaultConfigFile();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                LoggerFactory.getLogger(AppConfig.class).warn("Gagal membaca {}: {}", file, e.getMessage());
+            }
+        }
+        return new AppConfig(properties);
+    }
+
+    public static Path defaultConfigFile() {
+        return Paths.get(System.getProperty("user.home"), ".notetaking", "config.properties");
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(toEnvName(key));
+        }
+        if (value == null) {
+            value = fileProperties.getProperty(key);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    // null jika tidak diset: pakai Application Default Credentials (GOOGLE_APPLICATION_CREDENTIALS)
+    public String getFirebaseCredentials() {
+        return get(FIREBASE_CREDENTIALS, null);
+    }
+
+    public String getFirebaseDatabaseUrl() {
+        return get(FIREBASE_DATABASE_URL, DEFAULT_DATABASE_URL);
+    }
+
+    // notetaking.firebase.databaseUrl -> NOTETAKING_FIREBASE_DATABASEURL
+    static String toEnvName(String key) {
+        return key.replace('.', '_').toUpperCase();
+    }
+}
@@ -5,27 +5,58 @@ import com.google.firebase.FirebaseOptions;
 import com.google.auth.oauth2.GoogleCredentials;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+// Inisialisasi Firebase berjalan di thread sendiri supaya membaca kredensial dan membangun
+// FirebaseOptions tidak menahan JavaFX launcher thread. Kode yang butuh database menunggu ready().
 public class FirebaseUtil {
-    private static final String FIREBASE_KEY_PATH = "C:/Users/isnan/IdeaProjects/notetaking-10055-firebase-adminsdk-k9cgm-13794111e0.json";
+    private static final CompletableFuture<FirebaseApp> READY = new CompletableFuture<>();
+    private static boolean started;
 
-    static {
-        initializeFirebase();
+    public static synchronized CompletableFuture<FirebaseApp> initializeAsync(AppConfig config) {
+        if (!started) { // Prevent re-initializing
+            started = true;
+            Thread thread = new Thread(() -> {
+                try {
+                    READY.complete(initialize(config));
+                } catch (Throwable e) {
+                    READY.completeExceptionally(e);
+                }
+            }, "firebase-init");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return READY;
     }
 
-    public static void initializeFirebase() {
-        try {
-            FileInputStream serviceAccount = new FileInputStream(FIREBASE_KEY_PATH);
-            FirebaseOptions options = new FirebaseOptions.Builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl("https://notetakingjava-default-rtdb.firebaseio.com")
-                    .build();
+    // Selesai saat FirebaseApp siap; gagal jika kredensial/konfigurasi tidak valid
+    public static CompletableFuture<FirebaseApp> ready() {
+        return initializeAsync(AppConfig.load());
+    }
 
-            if (FirebaseApp.getApps().isEmpty()) { // Prevent re-initializing
-                FirebaseApp.initializeApp(options);
+    private static FirebaseApp initialize(AppConfig config) {
+        try {
+            if (!FirebaseApp.getApps().isEmpty()) {
+                return FirebaseApp.getInstance();
             }
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(loadCredentials(config.getFirebaseCredentials()))
+                    .setDatabaseUrl(config.getFirebaseDatabaseUrl())
+                    .build();
+            return FirebaseApp.initializeApp(options);
         } catch (IOException e) {
-            throw new RuntimeException("Firebase initialization failed.", e);
+            throw new CompletionException(new IOException("Firebase initialization failed.", e));
+        }
+    }
+
+    private static GoogleCredentials loadCredentials(String path) throws IOException {
+        if (path == null) {
+            return GoogleCredentials.getApplicationDefault();
+        }
+        try (InputStream serviceAccount = new FileInputStream(path)) {
+            return GoogleCredentials.fromStream(serviceAccount);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.isna.utility;
+
+import java.util.Locale;
+
+// Memecah dokumen HTML besar menjadi halaman utk ditampilkan bertahap. Halaman pertama berupa dokumen utuh
+// (head + awal <body>), halaman berikutnya potongan isi <body> yang hanya terdiri dari elemen tingkat atas
+// yang lengkap, jadi aman ditambahkan ke akhir body dgn insertAdjacentHTML. Batas halaman dicari bertahap
+// sehingga halaman pertama tersedia tanpa memindai seluruh dokumen. Dokumen tanpa <body> atau yang isinya
+// satu elemen raksasa menjadi satu halaman.
+public class HtmlPages {
+    private final String html;
+    private final int pageChars;
+    private final int bodyStart; // setelah '>' dari <body ...>
+    private final int bodyEnd; // awal </body>, atau panjang dokumen
+    private int position; // awal halaman berikutnya; -1 sebelum halaman pertama
+    private int scanned; // pemindaian elemen tingkat atas sudah sampai sini
+    private int depth;
+
+    public HtmlPages(String html, int pageChars) {
+        this.html = html;
+        this.pageChars = pageChars;
+        int open = indexOfIgnoreCase(html, "<body", 0);
+        int openEnd = open < 0 ? -1 : html.indexOf('>', open);
+        int close = lastIndexOfIgnoreCase(html, "</body");
+        bodyStart = openEnd < 0 ? html.length() : openEnd + 1;
+        bodyEnd = close < bodyStart ? html.length() : close;
+        position = -1;
+        scanned = bodyStart;
+    }
+
+    // Panjang awal dokumen yang baru sebagian tersedia (mis. chunk pertama note besar) sampai akhir elemen
+    // tingkat atas lengkap terakhir di <body>; -1 jika <body> belum terbuka atau belum ada elemen yang lengkap
+    public static int completeLength(String partial) {
+        HtmlPages pages = new HtmlPages(partial, 0);
+        int complete = -1;
+        for (int cut = pages.nextCut(pages.bodyStart); cut < pages.bodyEnd; cut = pages.nextCut(cut + 1)) {
+            complete = cut;
+        }
+        return complete;
+    }
+
+    // Awal dokumen sampai offset (batas dari completeLength) sudah ditampilkan; next() berikutnya mulai dari situ
+    public void skipTo(int offset) {
+        position = offset;
+        scanned = offset;
+        depth = 0;
+    }
+
+    public boolean hasNext() {
+        return position < bodyEnd;
+    }
+
+    // Isi <body> yang belum dikembalikan next(), apa adanya
+    public String rest() {
+        return html.substring(Math.max(position, bodyStart), bodyEnd);
+    }
+
+    public String next() {
+        if (position < 0) {
+            if (html.length() <= pageChars || bodyStart >= bodyEnd) {
+                position = bodyEnd;
+                return html;
+            }
+            int cut = nextCut(bodyStart + pageChars);
+            position = cut;
+            return cut >= bodyEnd ? html : html.substring(0, cut) + html.substring(bodyEnd);
+        }
+        int start = position;
+        position = nextCut(start + pageChars);
+        return html.substring(start, position);
+    }
+
+    // Posisi pertama >= min tepat setelah elemen tingkat atas berakhir, atau bodyEnd
+    private int nextCut(int min) {
+        int i = scanned;
+        while (i < bodyEnd) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0 || lt >= bodyEnd) {
+                break;
+            }
+            int end;
+            if (html.startsWith("<!--", lt)) {
+                int close = html.indexOf("-->", lt + 4);
+                end = close < 0 ? bodyEnd : close + 3;
+            } else if (lt + 1 < bodyEnd && (html.charAt(lt + 1) == '/' || html.charAt(lt + 1) == '!' || html.charAt(lt + 1) == '?')) {
+                end = tagEnd(lt);
+                if (html.charAt(lt + 1) == '/') {
+                    depth = Math.max(0, depth - 1);
+                }
+            } else {
+                end = tagEnd(lt);
+                String name = tagName(lt + 1);
+                if (name.equals("script") || name.equals("style") || name.equals("textarea") || name.equals("title")) {
+                    int close = indexOfIgnoreCase(html, "</" + name, end);
+                    end = close < 0 || close >= bodyEnd ? bodyEnd : tagEnd(close);
+                } else if (!isVoid(name) && html.charAt(end - 2) != '/') {
+                    depth++;
+                }
+            }
+            i = Math.min(end, bodyEnd);
+            if (depth == 0 && i >= min) {
+                scanned = i;
+                return i;
+            }
+        }
+        scanned = bodyEnd;
+        return bodyEnd;
+    }
+
+    // Index setelah '>' penutup tag yang dimulai di '<', dgn nilai atribut berkutip dilewati
+    private int tagEnd(int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < bodyEnd; i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return bodyEnd;
+    }
+
+    private String tagName(int from) {
+        int end = from;
+        while (end < bodyEnd && Character.isLetterOrDigit(html.charAt(end))) {
+            end++;
+        }
+        return html.substring(from, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isVoid(String name) {
+        switch (name) {
+            case "br":
+            case "img":
+            case "hr":
+            case "input":
+            case "meta":
+            case "link":
+            case "wbr":
+            case "col":
+            case "area":
+            case "base":
+            case "embed":
+            case "source":
+            case "track":
+            case "param":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfIgnoreCase(String text, String needle) {
+        for (int i = text.length() - needle.length(); i >= 0; i--) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.isna.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Mengubah markup HTMLEditor menjadi teks biasa dan memecahnya menjadi token utk pencarian
+public class HtmlText {
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private HtmlText() {
+    }
+
+    // Membuang tag, isi <script>/<style>/<head>, dan menerjemahkan entity umum
+    public static String toPlainText(String html) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(html.length() / 2);
+        int i = 0;
+        int n = html.length();
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int close = html.indexOf('>', i);
+                if (close < 0) {
+                    break;
+                }
+                String tag = tagName(html, i + 1, close);
+                if (tag.equals("script") || tag.equals("style") || tag.equals("head")) {
+                    int end = indexOfIgnoreCase(html, "</" + tag, close);
+                    int endClose = end < 0 ? -1 : html.indexOf('>', end);
+                    close = endClose < 0 ? n - 1 : endClose;
+                }
+                text.append(' '); // batas tag = batas kata
+                i = close + 1;
+            } else if (c == '&') {
+                int semi = html.indexOf(';', i);
+                if (semi > i && semi - i <= 10) {
+                    text.append(decodeEntity(html.substring(i + 1, semi)));
+                    i = semi + 1;
+                } else {
+                    text.append(c);
+                    i++;
+                }
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+        return text.toString();
+    }
+
+    private static String tagName(String html, int from, int to) {
+        int start = from;
+        while (start < to && (html.charAt(start) == '/' || Character.isWhitespace(html.charAt(start)))) {
+            start++;
+        }
+        int end = start;
+        while (end < to && Character.isLetterOrDigit(html.charAt(end))) {
+            end++;
+        }
+        if (start > from && html.charAt(from) == '/') {
+            return ""; // tag penutup
+        }
+        return html.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp": return "&";
+            case "lt": return "<";
+            case "gt": return ">";
+            case "quot": return "\"";
+            case "apos": return "'";
+            case "nbsp": return " ";
+            default:
+                try {
+                    if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                        return new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+                    }
+                    if (entity.startsWith("#")) {
+                        return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // entity tidak valid, anggap spasi
+                }
+                return " ";
+        }
+    }
+
+    // Token = deretan huruf/angka, huruf kecil semua
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String token = text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH));
+                tokens.add(token.toLowerCase(Locale.ROOT));
+            }
+        }
+        return tokens;
+    }
+}
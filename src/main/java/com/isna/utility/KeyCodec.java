@@ -0,0 +1,67 @@
+package com.isna.utility;
+
+// Mengubah judul note/folder (atau teks lain spt email) menjadi key yang aman dipakai sbg segmen path
+// di Firebase dan log lokal. Karakter yang dilarang Firebase ('.', '#', '$', '[', ']'), pemisah '/',
+// '%' sendiri dan karakter kontrol ditulis sbg %XX. Key lama tanpa escape tetap ter-decode apa adanya.
+public final class KeyCodec {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private KeyCodec() {
+    }
+
+    public static String encode(String text) {
+        int i = 0;
+        while (i < text.length() && !needsEscape(text.charAt(i))) {
+            i++;
+        }
+        if (i == text.length()) {
+            return text; // kasus umum: tidak ada yang perlu di-escape, tanpa alokasi
+        }
+        StringBuilder sb = new StringBuilder(text.length() + 8).append(text, 0, i);
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (needsEscape(c)) {
+                sb.append('%').append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static String decode(String key) {
+        int i = key.indexOf('%');
+        if (i < 0) {
+            return key;
+        }
+        StringBuilder sb = new StringBuilder(key.length()).append(key, 0, i);
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            int high = c == '%' && i + 2 < key.length() ? hexValue(key.charAt(i + 1)) : -1;
+            int low = high < 0 ? -1 : hexValue(key.charAt(i + 2));
+            if (low >= 0) {
+                sb.append((char) (high << 4 | low));
+                i += 3;
+            } else {
+                sb.append(c); // '%' yang bukan escape (key lama) dibiarkan
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == 0x7F || c == '/' || c == '.' || c == '#' || c == '$'
+                || c == '[' || c == ']' || c == '%';
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
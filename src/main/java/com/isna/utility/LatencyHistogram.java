@@ -0,0 +1,126 @@
+package com.isna.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram latensi log-linear ala HdrHistogram: setiap rentang pangkat dua dibagi 32 bucket linear,
+// jadi galat relatif persentil <= ~3% utk semua nilai (nanodetik sampai hari) dgn ukuran tetap.
+// record() tanpa lock dan tanpa alokasi: satu increment AtomicLongArray + LongAdder utk rata-rata.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalNanos.add(value);
+    }
+
+    // Pola pemakaian: long start = System.nanoTime(); ...; histogram.recordSince(start);
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value; // nilai kecil disimpan persis
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (1L << exponent) + ((long) (index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS));
+    }
+
+    static long width(int index) {
+        return index < SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+    }
+
+    // Salinan isi histogram; tidak konsisten sempurna dgn record() yang berjalan bersamaan, cukup utk laporan
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalNanos.sum());
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalNanos;
+        private final long count;
+
+        Snapshot(long[] counts, long totalNanos) {
+            this.counts = counts;
+            this.totalNanos = totalNanos;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+        }
+
+        // Isi histogram sejak snapshot sebelumnya (utk laporan per interval)
+        public Snapshot minus(Snapshot previous) {
+            if (previous == null) {
+                return this;
+            }
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(delta, totalNanos - previous.totalNanos);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        // Nilai tengah bucket yang memuat persentil ke-p (0..100)
+        public long percentileNanos(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return lowerBound(i) + width(i) / 2;
+                }
+            }
+            return getMaxNanos();
+        }
+
+        // Batas atas bucket tertinggi yang terisi
+        public long getMaxNanos() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return lowerBound(i) + width(i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                    count, getMeanNanos() / 1e6, percentileNanos(50) / 1e6, percentileNanos(90) / 1e6,
+                    percentileNanos(99) / 1e6, getMaxNanos() / 1e6);
+        }
+    }
+}
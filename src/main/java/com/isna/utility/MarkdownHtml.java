@@ -0,0 +1,167 @@
+package com.isna.utility;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Konversi sederhana Markdown/teks biasa ke HTML utk import notebook. Cukup utk catatan umum
+// (heading, paragraf, list, kutipan, blok kode, tebal/miring, kode inline, link), bukan CommonMark lengkap.
+public final class MarkdownHtml {
+    private static final Pattern ORDERED = Pattern.compile("^\\d+[.)]\\s+(.*)$");
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]*)]\\(([^)\\s]+)\\)");
+    private static final Pattern BOLD = Pattern.compile("(\\*\\*|__)(.+?)\\1");
+    private static final Pattern ITALIC = Pattern.compile("(?<![\\w*])([*_])(?!\\s)(.+?)(?<!\\s)\\1(?![\\w*])");
+
+    private MarkdownHtml() {
+    }
+
+    public static String toHtml(String markdown) {
+        StringBuilder html = new StringBuilder(markdown.length() + markdown.length() / 4);
+        StringBuilder paragraph = new StringBuilder();
+        String list = null; // "ul"/"ol" yang sedang terbuka
+        boolean quote = false;
+        boolean code = false;
+        for (String line : markdown.split("\n", -1)) { // pemisah satu karakter: tanpa regex
+            String trimmed = line.trim();
+            if (code) {
+                if (trimmed.startsWith("```")) {
+                    html.append("</code></pre>");
+                    code = false;
+                } else {
+                    html.append(escape(stripCarriageReturn(line))).append('\n');
+                }
+                continue;
+            }
+            Matcher ordered = ORDERED.matcher(trimmed);
+            String item = trimmed.startsWith("- ") || trimmed.startsWith("* ") || trimmed.startsWith("+ ")
+                    ? trimmed.substring(2) : ordered.matches() ? ordered.group(1) : null;
+            String itemList = item == null ? null : ordered.matches() ? "ol" : "ul";
+            boolean quoted = trimmed.startsWith(">");
+            // blok sebelumnya ditutup jika baris ini bukan lanjutan blok yang sama
+            if (paragraph.length() > 0 && (trimmed.isEmpty() || item != null || quoted != quote
+                    || trimmed.startsWith("#") || trimmed.startsWith("```"))) {
+                html.append("<p>").append(inline(paragraph.toString())).append("</p>");
+                paragraph.setLength(0);
+            }
+            if (list != null && !list.equals(itemList)) {
+                html.append("</").append(list).append('>');
+                list = null;
+            }
+            if (quote && !quoted) {
+                html.append("</blockquote>");
+                quote = false;
+            }
+            if (trimmed.startsWith("```")) {
+                html.append("<pre><code>");
+                code = true;
+            } else if (item != null) {
+                if (list == null) {
+                    list = itemList;
+                    html.append('<').append(list).append('>');
+                }
+                html.append("<li>").append(inline(item)).append("</li>");
+            } else if (trimmed.startsWith("#")) {
+                int level = 1;
+                while (level < trimmed.length() && level < 6 && trimmed.charAt(level) == '#') {
+                    level++;
+                }
+                html.append("<h").append(level).append('>').append(inline(trimmed.substring(level).trim()))
+                        .append("</h").append(level).append('>');
+            } else if (quoted) {
+                if (!quote) {
+                    html.append("<blockquote>");
+                    quote = true;
+                }
+                appendLine(paragraph, trimmed.substring(1).trim());
+            } else if (!trimmed.isEmpty()) {
+                appendLine(paragraph, trimmed);
+            }
+        }
+        if (paragraph.length() > 0) {
+            html.append("<p>").append(inline(paragraph.toString())).append("</p>");
+        }
+        if (code) {
+            html.append("</code></pre>");
+        }
+        if (list != null) {
+            html.append("</").append(list).append('>');
+        }
+        if (quote) {
+            html.append("</blockquote>");
+        }
+        return wrap(html);
+    }
+
+    // Teks biasa: baris kosong memisahkan paragraf, baris baru di dalam paragraf menjadi <br>
+    public static String textToHtml(String text) {
+        StringBuilder html = new StringBuilder(text.length() + text.length() / 8);
+        for (String block : text.split("(\r?\n)\\s*(\r?\n)")) {
+            if (!block.trim().isEmpty()) {
+                html.append("<p>").append(escape(block.trim()).replaceAll("\r?\n", "<br>")).append("</p>");
+            }
+        }
+        return wrap(html);
+    }
+
+    public static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendLine(StringBuilder paragraph, String line) {
+        if (paragraph.length() > 0) {
+            paragraph.append('\n');
+        }
+        paragraph.append(line);
+    }
+
+    // Kode inline dipisah dulu supaya isinya tidak ikut diformat
+    private static String inline(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        String[] parts = text.split("`", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1 && i < parts.length - 1) {
+                sb.append("<code>").append(escape(parts[i])).append("</code>");
+            } else {
+                if (i % 2 == 1) {
+                    sb.append('`'); // backtick tanpa pasangan
+                }
+                // regex hanya dijalankan jika penandanya ada (teks biasa jauh lebih sering)
+                String span = escape(parts[i]);
+                if (span.indexOf('[') >= 0) {
+                    span = LINK.matcher(span).replaceAll("<a href=\"$2\">$1</a>");
+                }
+                if (hasEmphasis(span)) {
+                    span = BOLD.matcher(span).replaceAll("<b>$2</b>");
+                }
+                if (hasEmphasis(span)) {
+                    span = ITALIC.matcher(span).replaceAll("<i>$2</i>");
+                }
+                sb.append(span.replace("\n", " "));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasEmphasis(String text) {
+        return text.indexOf('*') >= 0 || text.indexOf('_') >= 0;
+    }
+
+    private static String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    // Bentuk yang sama dgn keluaran HTMLEditor
+    private static String wrap(StringBuilder body) {
+        return "<html dir=\"ltr\"><head></head><body contenteditable=\"true\">" + body + "</body></html>";
+    }
+}
@@ -0,0 +1,206 @@
+package com.isna.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Registry metrik aplikasi: histogram latensi, counter dan gauge. Setiap metrik didaftarkan ke JMX
+// (domain com.isna, lihat di jconsole/VisualVM) dan dicatat berkala ke logger "com.isna.metrics".
+// Ambil metrik sekali ke field static final; record/increment di jalur panas tidak mencari di map.
+public final class Metrics {
+    public static final String USER_REGISTER = "user.register";
+    public static final String USER_AUTHENTICATE = "user.authenticate";
+    public static final String NOTE_LOAD = "note.load";
+    public static final String NOTE_SAVE = "note.save";
+    public static final String NOTE_CREATE = "note.create";
+    public static final String NOTE_DELETE = "note.delete";
+    public static final String NOTE_OPEN_PAGED = "note.open.paged";
+    public static final String TREE_BUILD = "tree.build";
+    public static final String TREE_PATCH = "tree.patch";
+    public static final String TREE_PUBLISH = "tree.publish";
+    public static final String SYNC_RECONCILE = "sync.reconcile";
+    public static final String REPLICATION_BATCH = "replication.batch";
+    public static final String REPLICATION_LAG = "replication.lag";
+    public static final String NOTEBOOK_IMPORT_BATCH = "notebook.import.batch";
+    public static final String HISTORY_RECONSTRUCT = "history.reconstruct";
+    public static final String HISTORY_BYTES = "history.bytes";
+    public static final String ATTACHMENT_EXTRACT = "attachment.extract";
+    public static final String ATTACHMENT_FETCH = "attachment.fetch";
+    public static final String ATTACHMENT_BYTES = "attachment.bytes";
+    public static final String VIEW_TRANSITION = "view.transition";
+    public static final String NOTES = "notes.count";
+    public static final String FOLDERS = "folders.count";
+    public static final String REPLICATION_PENDING = "replication.pending";
+    public static final String CACHE_BYTES = "cache.bytes";
+
+    public static final String LOG_INTERVAL = "notetaking.metrics.logIntervalSeconds";
+
+    private static final Logger LOG = LoggerFactory.getLogger("com.isna.metrics");
+    private static final String DOMAIN = "com.isna";
+
+    private static final Map<String, LatencyHistogram> LATENCIES = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram.Snapshot> lastReported = new TreeMap<>();
+    private static final Map<String, Long> lastCounts = new TreeMap<>();
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {
+    }
+
+    public interface LatencyMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP90Millis();
+        double getP99Millis();
+        double getMaxMillis();
+    }
+
+    public interface ValueMXBean {
+        long getValue();
+    }
+
+    public static class Counter implements ValueMXBean {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        @Override
+        public long getValue() {
+            return value.sum();
+        }
+    }
+
+    // Nilai yang dibaca saat dilaporkan (ukuran tree, antrian replikasi); supplier diganti per sesi login
+    private static class Gauge implements ValueMXBean {
+        private volatile LongSupplier supplier = () -> 0;
+
+        @Override
+        public long getValue() {
+            return supplier.getAsLong();
+        }
+    }
+
+    private static class LatencyBean implements LatencyMXBean {
+        private final LatencyHistogram histogram;
+
+        LatencyBean(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override public long getCount() { return histogram.snapshot().getCount(); }
+        @Override public double getMeanMillis() { return histogram.snapshot().getMeanNanos() / 1e6; }
+        @Override public double getP50Millis() { return histogram.snapshot().percentileNanos(50) / 1e6; }
+        @Override public double getP90Millis() { return histogram.snapshot().percentileNanos(90) / 1e6; }
+        @Override public double getP99Millis() { return histogram.snapshot().percentileNanos(99) / 1e6; }
+        @Override public double getMaxMillis() { return histogram.snapshot().getMaxNanos() / 1e6; }
+    }
+
+    public static LatencyHistogram latency(String name) {
+        return LATENCIES.computeIfAbsent(name, n -> {
+            LatencyHistogram histogram = new LatencyHistogram();
+            register("Latency", n, new LatencyBean(histogram));
+            return histogram;
+        });
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> {
+            Counter counter = new Counter();
+            register("Counter", n, counter);
+            return counter;
+        });
+    }
+
+    public static void gauge(String name, LongSupplier supplier) {
+        GAUGES.computeIfAbsent(name, n -> {
+            Gauge gauge = new Gauge();
+            register("Gauge", n, gauge);
+            return gauge;
+        }).supplier = supplier;
+    }
+
+    // Mencatat durasi operasi async sejak startNanos; selesai dgn exception juga menambah counter errors.
+    // Future yang sama dikembalikan supaya perilaku pemanggil tidak berubah.
+    public static <T> CompletableFuture<T> timed(CompletableFuture<T> future, long startNanos,
+                                                 LatencyHistogram latency, Counter errors) {
+        future.whenComplete((result, error) -> {
+            latency.recordSince(startNanos);
+            if (error != null) {
+                errors.increment();
+            }
+        });
+        return future;
+    }
+
+    private static void register(String type, String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            LOG.warn("Failed to register {} in JMX: {}", name, e.getMessage());
+        }
+    }
+
+    // notetaking.metrics.logIntervalSeconds (default 60, 0 = tidak dicatat ke log; JMX tetap aktif)
+    public static synchronized void startReporter(AppConfig config) {
+        long interval;
+        try {
+            interval = Long.parseLong(config.get(LOG_INTERVAL, "60"));
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid {}, using 60", LOG_INTERVAL);
+            interval = 60;
+        }
+        if (reporter != null || interval <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(Metrics::report, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // Satu baris per metrik yang aktif selama interval terakhir, diurutkan nama
+    static synchronized void report() {
+        new TreeMap<>(LATENCIES).forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            LatencyHistogram.Snapshot interval = snapshot.minus(lastReported.put(name, snapshot));
+            if (interval.getCount() > 0) {
+                LOG.info("{} {}", name, interval);
+            }
+        });
+        new TreeMap<>(COUNTERS).forEach((name, counter) -> {
+            long value = counter.getValue();
+            Long previous = lastCounts.put(name, value);
+            if (previous == null || previous != value) {
+                LOG.info("{} total={} (+{})", name, value, previous == null ? value : value - previous);
+            }
+        });
+        new TreeMap<>(GAUGES).forEach((name, gauge) -> LOG.info("{} value={}", name, gauge.getValue()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.isna.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Mencatat fase cold start (JVM -> FX toolkit -> FXML -> backend siap) relatif terhadap waktu start JVM.
+// Timeline lengkap di-log satu kali setelah fase terakhir tercatat.
+public class StartupTimeline {
+    public static final String JVM = "jvm";
+    public static final String FX_TOOLKIT = "fx-toolkit";
+    public static final String FXML = "fxml";
+    public static final String SHOWN = "shown";
+    public static final String BACKEND_READY = "backend-ready";
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTimeline.class);
+    private static final StartupTimeline INSTANCE = new StartupTimeline(
+            ManagementFactory.getRuntimeMXBean().getStartTime(), List.of(JVM, FX_TOOLKIT, FXML, SHOWN, BACKEND_READY));
+
+    private final long originMillis;
+    private final List<String> expected;
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> offsets = new ArrayList<>();
+    private boolean reported;
+
+    StartupTimeline(long originMillis, List<String> expected) {
+        this.originMillis = originMillis;
+        this.expected = expected;
+    }
+
+    public static StartupTimeline get() {
+        return INSTANCE;
+    }
+
+    public synchronized void mark(String phase) {
+        if (phases.contains(phase)) {
+            return;
+        }
+        long offset = System.currentTimeMillis() - originMillis;
+        phases.add(phase);
+        offsets.add(offset);
+        LOG.debug("startup {} at +{} ms", phase, offset);
+        if (!reported && phases.containsAll(expected)) {
+            reported = true;
+            LOG.info("Startup timeline: {}", this);
+        }
+    }
+
+    public synchronized long offsetOf(String phase) {
+        int i = phases.indexOf(phase);
+        return i < 0 ? -1 : offsets.get(i);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        long previous = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            long offset = offsets.get(i);
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(phases.get(i)).append(" +").append(offset).append("ms (")
+                    .append(offset - previous).append("ms)");
+            previous = offset;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.isna.utility;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Semaphore non-blocking tanpa satu counter bersama: kapasitas dibagi ke beberapa stripe, masing-masing di
+// cache line sendiri. tryAcquire() mulai dari stripe acak dan pindah ke stripe berikutnya jika penuh, jadi
+// hanya gagal jika semua stripe penuh. Thread yang bersamaan hampir selalu menyentuh counter yang berbeda.
+public class StripedPermits {
+    private static final int PAD = 16; // 16 int = 64 byte, satu counter per cache line
+
+    private final AtomicIntegerArray counts;
+    private final int[] limits;
+
+    public StripedPermits(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be positive: " + permits);
+        }
+        int stripes = Math.min(permits, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+        limits = new int[stripes];
+        for (int i = 0; i < stripes; i++) {
+            limits[i] = permits / stripes + (i < permits % stripes ? 1 : 0);
+        }
+        counts = new AtomicIntegerArray(stripes * PAD);
+    }
+
+    // Index stripe yang harus dikembalikan lewat release(), atau -1 jika semua permit terpakai
+    public int tryAcquire() {
+        int stripes = limits.length;
+        int start = stripes == 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes);
+        for (int k = 0; k < stripes; k++) {
+            int stripe = (start + k) % stripes;
+            int slot = stripe * PAD;
+            for (int current = counts.get(slot); current < limits[stripe]; current = counts.get(slot)) {
+                if (counts.compareAndSet(slot, current, current + 1)) {
+                    return stripe;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public void release(int stripe) {
+        counts.decrementAndGet(stripe * PAD);
+    }
+
+    public int getPermits() {
+        int total = 0;
+        for (int limit : limits) {
+            total += limit;
+        }
+        return total;
+    }
+
+    // Perkiraan; tidak konsisten dgn acquire/release yang berjalan bersamaan
+    public int getInUse() {
+        int total = 0;
+        for (int i = 0; i < limits.length; i++) {
+            total += counts.get(i * PAD);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,139 @@
+package com.isna.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Diff per kata antara dua teks (dipakai panel riwayat utk membandingkan isi note sbg teks biasa).
+// Prefix/suffix yang sama dilewati dulu; bagian tengah dibandingkan dgn LCS. Jika bagian tengah terlalu
+// besar (> MAX_CELLS), bagian itu ditampilkan sbg satu hapus + satu sisip agar waktu dan memori terbatas.
+public final class TextDiff {
+    private static final int MAX_CELLS = 4_000_000;
+
+    public enum Op { SAME, DELETE, INSERT }
+
+    public static class Edit {
+        private final Op op;
+        private final String text;
+
+        Edit(Op op, String text) {
+            this.op = op;
+            this.text = text;
+        }
+
+        public Op getOp() { return op; }
+        public String getText() { return text; }
+    }
+
+    private TextDiff() {
+    }
+
+    public static List<Edit> diff(String oldText, String newText) {
+        List<String> a = tokens(oldText);
+        List<String> b = tokens(newText);
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+        List<Edit> edits = new ArrayList<>();
+        add(edits, Op.SAME, a, 0, prefix);
+        int n = a.size() - prefix - suffix;
+        int m = b.size() - prefix - suffix;
+        if ((long) (n + 1) * (m + 1) > MAX_CELLS) {
+            add(edits, Op.DELETE, a, prefix, prefix + n);
+            add(edits, Op.INSERT, b, prefix, prefix + m);
+        } else {
+            lcs(edits, a.subList(prefix, prefix + n), b.subList(prefix, prefix + m));
+        }
+        add(edits, Op.SAME, a, a.size() - suffix, a.size());
+        return edits;
+    }
+
+    // Tabel panjang LCS dari belakang, lalu dijalani dari depan
+    private static void lcs(List<Edit> edits, List<String> a, List<String> b) {
+        int n = a.size();
+        int m = b.size();
+        int[] table = new int[(n + 1) * (m + 1)];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                table[i * (m + 1) + j] = a.get(i).equals(b.get(j))
+                        ? table[(i + 1) * (m + 1) + j + 1] + 1
+                        : Math.max(table[(i + 1) * (m + 1) + j], table[i * (m + 1) + j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < n && j < m) {
+            if (a.get(i).equals(b.get(j))) {
+                add(edits, Op.SAME, a, i, ++i);
+                j++;
+            } else if (table[(i + 1) * (m + 1) + j] >= table[i * (m + 1) + j + 1]) {
+                add(edits, Op.DELETE, a, i, ++i);
+            } else {
+                add(edits, Op.INSERT, b, j, ++j);
+            }
+        }
+        add(edits, Op.DELETE, a, i, n);
+        add(edits, Op.INSERT, b, j, m);
+    }
+
+    // Token berurutan sejenis digabung dalam satu Edit
+    private static void add(List<Edit> edits, Op op, List<String> tokens, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (!edits.isEmpty() && edits.get(edits.size() - 1).op == op) {
+            sb.append(edits.remove(edits.size() - 1).text);
+        }
+        for (int i = from; i < to; i++) {
+            sb.append(tokens.get(i));
+        }
+        edits.add(new Edit(op, sb.toString()));
+    }
+
+    // Kata, deretan spasi, atau satu karakter lain; digabung kembali tokennya sama dgn teks asli
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            int start = i;
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+            } else if (Character.isWhitespace(c)) {
+                while (i < n && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+            tokens.add(text.substring(start, i));
+        }
+        return tokens;
+    }
+
+    // HTML utk WebView: teks dihapus dicoret merah, teks baru hijau
+    public static String toHtml(List<Edit> edits) {
+        StringBuilder html = new StringBuilder("<html><head><style>"
+                + "body{font-family:sans-serif;white-space:pre-wrap;}"
+                + "del{background:#fdd;color:#900;}ins{background:#dfd;color:#060;text-decoration:none;}"
+                + "</style></head><body>");
+        for (Edit edit : edits) {
+            String text = MarkdownHtml.escape(edit.text);
+            switch (edit.op) {
+                case DELETE: html.append("<del>").append(text).append("</del>"); break;
+                case INSERT: html.append("<ins>").append(text).append("</ins>"); break;
+                default: html.append(text);
+            }
+        }
+        return html.append("</body></html>").toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.isna.service;
+
+import com.isna.utility.HtmlPages;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Note besar dibuka dari chunk pertama, dan disimpan selagi dimuat per halaman tanpa mengirim ulang chunk lain
+class ChunkedNoteStoreTest {
+    private static final int PAGE_CHARS = 256 * 1024;
+
+    private final InMemoryNoteStore memory = new InMemoryNoteStore();
+    private final ChunkedNoteStore store = new ChunkedNoteStore(memory);
+
+    private static String note() {
+        StringBuilder html = new StringBuilder("<html dir=\"ltr\"><head></head><body contenteditable=\"true\">");
+        for (int i = 0; i < 20_000; i++) {
+            html.append("<p>Paragraf ").append(i).append(" berisi catatan kuliah nomor ").append(i * 7919 % 10007).append(".</p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    @Test
+    void streamsFirstChunkBeforeTheRest() {
+        String html = note();
+        store.apply(Collections.singletonList(new NoteChange(NoteChange.Type.PUT, 1, "besar", 1, html))).join();
+        AtomicInteger fetched = new AtomicInteger();
+        ChunkedNoteStore reader = new ChunkedNoteStore(new RemoteNoteStore() {
+            @Override
+            public CompletableFuture<Void> apply(List<NoteChange> changes) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<String> fetchBody(String path) {
+                return memory.fetchBody(path);
+            }
+
+            @Override
+            public CompletableFuture<String> fetchChunk(String path) {
+                fetched.incrementAndGet();
+                return memory.fetchChunk(path);
+            }
+        });
+
+        int[] fetchedAtHead = {-1};
+        String[] head = new String[1];
+        String content = reader.fetchBody("besar", part -> {
+            head[0] = part;
+            fetchedAtHead[0] = fetched.get();
+        }).join();
+
+        assertEquals(NoteCodec.minify(html), content);
+        assertEquals(1, fetchedAtHead[0]);
+        assertTrue(content.startsWith(head[0]));
+        assertTrue(fetched.get() > 2);
+        assertTrue(HtmlPages.completeLength(head[0]) > 0);
+    }
+
+    @Test
+    void savingPartlyLoadedNoteResendsOnlyEditedChunks() {
+        String html = note();
+        store.apply(Collections.singletonList(new NoteChange(NoteChange.Type.PUT, 1, "besar", 1, html))).join();
+
+        // editor sudah memuat dua halaman dan paragraf di halaman pertama diedit
+        String tail = html.substring(html.lastIndexOf("</body>"));
+        HtmlPages pages = new HtmlPages(html, PAGE_CHARS);
+        String first = pages.next();
+        String loaded = first.substring(0, first.length() - tail.length()) + pages.next();
+        String edited = loaded.replace("<p>Paragraf 10 ", "<p>Paragraf 10 (revisi) ");
+        String saved = edited + pages.rest() + tail;
+        assertEquals(html.replace("<p>Paragraf 10 ", "<p>Paragraf 10 (revisi) "), saved);
+
+        long chunksBefore = store.getChunks();
+        long sentBefore = store.getChunksSent();
+        store.apply(Collections.singletonList(new NoteChange(NoteChange.Type.PUT, 2, "besar", 2, saved,
+                Collections.singletonMap("besar", 1L)))).join();
+        assertTrue(store.getChunks() - chunksBefore > 4);
+        assertTrue(store.getChunksSent() - sentBefore <= 2);
+        assertEquals(NoteCodec.minify(saved), store.fetchBody("besar").join());
+    }
+}
@@ -0,0 +1,143 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalNoteLogTest {
+    @TempDir
+    Path directory;
+
+    private LocalNoteLog open() throws IOException {
+        LocalNoteLog log = new LocalNoteLog(directory.resolve("notes.log"));
+        log.open();
+        return log;
+    }
+
+    private static String body(int size, int version) {
+        StringBuilder html = new StringBuilder("<p>versi ").append(version).append("</p>");
+        while (html.length() < size) {
+            html.append("<p>isi note yang cukup panjang</p>");
+        }
+        return html.toString();
+    }
+
+    // Crash tanpa close: perubahan lokal sudah di file, ekor record yang terpotong dibuang
+    @Test
+    void localCommitSurvivesCrash() throws IOException {
+        LocalNoteLog crashed = open();
+        crashed.append(NoteChange.Type.FOLDER, "kerja", 0, null);
+        crashed.append(NoteChange.Type.PUT, "kerja/rapat", 10, "<p>rapat</p>");
+        Files.write(directory.resolve("notes.log"), new byte[] {1, 0, 0, 0}, StandardOpenOption.APPEND); // tulis setengah jalan
+
+        LocalNoteLog log = open();
+        assertEquals(Collections.singletonMap("kerja/rapat", 10L), log.notes());
+        assertEquals("<p>rapat</p>", log.read("kerja/rapat", 10));
+        List<NoteChange> pending = log.pending();
+        assertEquals(2, pending.size());
+        assertEquals("<p>rapat</p>", pending.get(1).getContent());
+
+        long size = log.sizeBytes();
+        log.append(NoteChange.Type.PUT, "kerja/lain", 11, "<p>lain</p>");
+        assertTrue(log.sizeBytes() > size);
+        log.close();
+        crashed.close();
+    }
+
+    @Test
+    void replicatedChangesAreNotPendingAfterReplay() throws IOException {
+        LocalNoteLog log = open();
+        NoteChange change = log.append(NoteChange.Type.PUT, "a", 1, "<p>a</p>");
+        log.markReplicated(change.getSeq());
+        log.append(NoteChange.Type.PUT, "b", 2, "<p>b</p>");
+        log.close();
+
+        log = open();
+        assertEquals(1, log.pendingCount());
+        assertEquals("b", log.pending().get(0).getPath());
+        log.close();
+    }
+
+    // Offline: autosave berulang tetap dipadatkan; yang ditimpa di remote tetap versi sebelum offline
+    @Test
+    void compactsWhileChangesArePending() throws IOException {
+        LocalNoteLog log = open();
+        NoteChange replicated = log.append(NoteChange.Type.PUT, "kerja/rapat", 1, body(100, 0));
+        log.markReplicated(replicated.getSeq());
+        log.record(NoteChange.Type.PUT, "arsip/lama", 5, "<p>dari remote</p>");
+        String last = null;
+        for (int i = 1; i <= 200; i++) {
+            last = body(40_000, i);
+            log.append(NoteChange.Type.PUT, "kerja/rapat", 1 + i, last);
+        }
+        log.append(NoteChange.Type.PUT, "kerja/draft", 300, "<p>draft</p>");
+        log.append(NoteChange.Type.DELETE, "kerja/draft", 0, null);
+        long before = log.sizeBytes();
+
+        assertTrue(log.compactIfNeeded());
+        assertTrue(log.sizeBytes() < before / 50, log.sizeBytes() + " of " + before);
+        assertFalse(log.compactIfNeeded());
+        log.close();
+
+        log = open();
+        Map<String, Long> notes = new HashMap<>();
+        notes.put("kerja/rapat", 201L);
+        notes.put("arsip/lama", 5L);
+        assertEquals(notes, log.notes());
+        assertEquals(last, log.read("kerja/rapat", 201));
+        assertEquals("<p>dari remote</p>", log.read("arsip/lama", 5));
+        assertEquals(FolderHashes.of(notes), log.folderHashes());
+
+        List<NoteChange> pending = log.pending();
+        assertEquals(2, pending.size());
+        NoteChange put = pending.get(0);
+        assertEquals(NoteChange.Type.PUT, put.getType());
+        assertEquals(201, put.getStamp());
+        assertEquals(last, put.getContent());
+        assertEquals(Collections.singletonMap("kerja/rapat", 1L), put.getReplaced());
+        NoteChange delete = pending.get(1);
+        assertEquals(NoteChange.Type.DELETE, delete.getType());
+        assertEquals(Collections.emptyMap(), delete.getReplaced()); // draft belum pernah sampai ke remote
+
+        // seq baru tetap lebih besar dari seq yang masih pending
+        NoteChange next = log.append(NoteChange.Type.PUT, "kerja/baru", 400, "<p>baru</p>");
+        assertTrue(next.getSeq() > delete.getSeq());
+        log.markReplicated(put.getSeq());
+        log.markReplicated(delete.getSeq());
+        log.markReplicated(next.getSeq());
+        assertEquals(0, log.pendingCount());
+        log.close();
+    }
+
+    // Perubahan di folder leluhur di antara dua simpan mencegah penggabungan (urutannya berpengaruh)
+    @Test
+    void compactionKeepsOrderAcrossOverlappingChanges() throws IOException {
+        LocalNoteLog log = open();
+        log.append(NoteChange.Type.PUT, "a/x", 1, body(100, 1));
+        log.append(NoteChange.Type.DELETE, "a", 0, null);
+        log.append(NoteChange.Type.PUT, "a/x", 2, body(100, 2));
+        log.compact();
+        log.close();
+
+        log = open();
+        List<NoteChange> pending = log.pending();
+        assertEquals(3, pending.size());
+        assertEquals(Collections.singletonMap("a/x", 1L), pending.get(1).getReplaced());
+        assertEquals(Collections.singletonMap("a/x", 2L), log.notes());
+        assertNull(log.read("a/x", 1));
+        log.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.isna.service.TestAwait.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Offline-first: simpan selesai di lokal tanpa remote, lalu tereplikasi saat remote tersedia lagi
+class LocalNoteRepositoryTest {
+    @TempDir
+    Path directory;
+
+    private final InMemoryNoteStore remote = new InMemoryNoteStore();
+    private LocalNoteRepository repository;
+
+    @AfterEach
+    void close() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    private LocalNoteRepository open() {
+        return new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")), remote, new NoteContentCache(1024 * 1024));
+    }
+
+    @Test
+    void offlineCommitReplicatesOnReconnect() throws Exception {
+        remote.setAvailable(false);
+        repository = open();
+        long first = repository.saveNote("kerja/rapat", "<p>satu</p>");
+        long second = repository.saveNote("kerja/rapat", "<p>dua</p>");
+        repository.saveNote("kerja/draft", "<p>draft</p>");
+        repository.delete("kerja/draft");
+
+        assertTrue(second > first);
+        assertEquals(Collections.singletonMap("kerja/rapat", second), repository.localNotes());
+        assertEquals("<p>dua</p>", repository.loadNote("kerja/rapat", second).get(1, TimeUnit.SECONDS));
+        assertTrue(remote.index().isEmpty());
+        assertEquals(4, repository.pendingReplication());
+
+        remote.setAvailable(true);
+        await(() -> repository.pendingReplication() == 0, "Timed out waiting for replication");
+        assertEquals(Collections.singletonMap("kerja/rapat", second), remote.index());
+        assertEquals("<p>dua</p>", remote.bodies().get("kerja/rapat"));
+    }
+
+    @Test
+    void pendingChangesSurviveRestart() throws Exception {
+        remote.setAvailable(false);
+        repository = open();
+        long stamp = repository.saveNote("a/b", "<p>offline</p>");
+        repository.close();
+
+        remote.setAvailable(true);
+        repository = open(); // sisa perubahan dikirim saat repository dibuka
+        await(() -> repository.pendingReplication() == 0, "Timed out waiting for replication");
+        assertEquals(stamp, remote.index().get("a/b"));
+        assertEquals("<p>offline</p>", remote.bodies().get("a/b"));
+    }
+
+    @Test
+    void remoteChangesDoNotOverwritePendingLocalChanges() {
+        remote.setAvailable(false);
+        repository = open();
+        long stamp = repository.saveNote("a/b", "<p>lokal</p>");
+
+        assertFalse(repository.remoteNote("a/b", 1, "<p>remote</p>"));
+        assertFalse(repository.remoteRemoved("a"));
+        assertEquals(stamp, repository.localNotes().get("a/b"));
+    }
+}
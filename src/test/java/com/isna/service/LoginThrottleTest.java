@@ -0,0 +1,64 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTest {
+    private final LoginThrottle throttle = new LoginThrottle();
+    private final long start = System.nanoTime();
+
+    private long at(long minutes) {
+        return start + TimeUnit.MINUTES.toNanos(minutes);
+    }
+
+    @Test
+    void backsOffAfterRepeatedFailures() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("a@x.com", at(0));
+            throttle.failure("a@x.com", at(0));
+        }
+        ThrottledException e = assertThrows(ThrottledException.class, () -> throttle.acquire("a@x.com", at(0)));
+        assertEquals(1, e.getRetryAfterSeconds());
+        throttle.acquire("b@x.com", at(0)); // email lain tidak ikut tertahan
+    }
+
+    // Hitungan gagal yang tidak pernah diikuti login berhasil tetap dilupakan setelah masa tenang
+    @Test
+    void forgetsFailuresAfterQuietPeriod() {
+        for (int i = 0; i < 13; i++) {
+            throttle.failure("a@x.com", at(0));
+        }
+        assertThrows(ThrottledException.class, () -> throttle.acquire("a@x.com", at(14)));
+        throttle.acquire("a@x.com", at(16)); // backoff maksimum 15 menit sudah habis
+        throttle.failure("a@x.com", at(16)); // gagal lagi: backoff tetap panjang
+        assertThrows(ThrottledException.class, () -> throttle.acquire("a@x.com", at(30)));
+
+        throttle.failure("a@x.com", at(60));
+        throttle.acquire("a@x.com", at(60 + 15 + 15));
+        throttle.failure("a@x.com", at(60 + 15 + 15)); // hitungan mulai dari nol: belum kena backoff
+        throttle.acquire("a@x.com", at(60 + 15 + 15));
+    }
+
+    // Enumerasi email: setiap email gagal sekali; peta tidak tumbuh tanpa batas dan tidak menyapu di setiap acquire
+    @Test
+    void staysBoundedUnderEnumeration() {
+        for (int i = 0; i < 250_000; i++) {
+            String email = "user" + i + "@x.com";
+            long now = start + i * 1_000L;
+            throttle.acquire(email, now);
+            throttle.failure(email, now);
+            assertTrue(throttle.size() <= 100_001, "size " + throttle.size());
+        }
+        assertTrue(throttle.size() >= 75_000);
+        // email yang baru dicoba masih tercatat, yang paling lama yang dibuang
+        long now = start + 250_000 * 1_000L;
+        throttle.failure("user249999@x.com", now);
+        throttle.failure("user249999@x.com", now);
+        assertThrows(ThrottledException.class, () -> throttle.acquire("user249999@x.com", now));
+    }
+}
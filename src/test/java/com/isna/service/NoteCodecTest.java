@@ -0,0 +1,51 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteCodecTest {
+    private final NoteCodec codec = new NoteCodec(true);
+
+    private String roundTrip(String html) {
+        String encoded = codec.encode(html);
+        assertTrue(encoded.length() <= html.length());
+        return codec.decode(encoded);
+    }
+
+    private static String repeat(String html, int times) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            out.append(html);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void keepsUnquotedAttributeValues() {
+        String image = "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==";
+        String html = "<P><A  HREF=Foo.html   Target=_Blank>Lihat</A> <IMG SRC=" + image + " ALT=Logo> <IMG SRC=Kecil.png /><BR /></P>";
+
+        assertEquals("<p><a href=Foo.html target=_Blank>Lihat</a> <img src=" + image + " alt=Logo> <img src=Kecil.png /><br/></p>", NoteCodec.minify(html));
+        assertEquals(repeat(NoteCodec.minify(html), 20), roundTrip(repeat(html, 20)));
+    }
+
+    @Test
+    void keepsWhitespaceInTabSpans() {
+        String tab = "<span class=\"Apple-tab-span\" style=\"white-space:pre\">\t\t</span>";
+        String html = "<div>Nama:" + tab + "Isna  <b>dan</b>\n lain</div>";
+
+        assertEquals("<div>Nama:" + tab + "Isna <b>dan</b> lain</div>", NoteCodec.minify(html));
+        assertEquals(repeat(NoteCodec.minify(html), 20), roundTrip(repeat(html, 20)));
+    }
+
+    @Test
+    void keepsWhitespaceInNestedPreWrapElements() {
+        String inner = "  baris 1\n    <div>  baris   2</div>\n";
+        String html = "<DIV Style=\"WHITE-SPACE: pre-wrap\">" + inner + "</DIV>  <p>a    b</p>";
+
+        assertEquals("<div style=\"WHITE-SPACE: pre-wrap\">" + inner + "</div> <p>a b</p>", NoteCodec.minify(html));
+        assertEquals(NoteCodec.minify(html), roundTrip(html));
+    }
+}
@@ -0,0 +1,92 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.isna.service.TestAwait.TIMEOUT_MS;
+import static com.isna.service.TestAwait.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hash tree remote (FolderHashes) tetap sama dgn isinya walau batch dikirim ulang, dan yang menyimpang diperbaiki
+class NoteTreeReconcilerTest {
+    @TempDir
+    Path directory;
+
+    private final DatabaseEmulator database = new DatabaseEmulator();
+    private final EmulatorNoteStore store = new EmulatorNoteStore(database, "Isna");
+    private LocalNoteRepository repository;
+    private NoteTreeReconciler reconciler;
+
+    @AfterEach
+    void close() {
+        if (reconciler != null) {
+            reconciler.close();
+        }
+        if (repository != null) {
+            repository.close();
+        }
+        database.close();
+    }
+
+    @Test
+    void hashesSurviveRetriedBatches() throws Exception {
+        List<NoteChange> first = Arrays.asList(
+                new NoteChange(NoteChange.Type.PUT, 1, "a/x", 1, "<p>x</p>"),
+                new NoteChange(NoteChange.Type.PUT, 2, "a/y", 2, "<p>y</p>"),
+                new NoteChange(NoteChange.Type.PUT, 3, "b/c/z", 3, "<p>z</p>"),
+                new NoteChange(NoteChange.Type.PUT, 4, "top", 4, "<p>top</p>"));
+        List<NoteChange> second = Arrays.asList(
+                new NoteChange(NoteChange.Type.PUT, 5, "a/x", 5, "<p>x2</p>"),
+                new NoteChange(NoteChange.Type.DELETE, 6, "b", 0, null));
+        for (List<NoteChange> batch : Arrays.asList(first, first, second, second)) { // spt kirim ulang setelah timeout
+            store.apply(batch).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, Long> notes = new HashMap<>();
+        notes.put("a/x", 5L);
+        notes.put("a/y", 2L);
+        notes.put("top", 4L);
+        assertEquals(FolderHashes.of(notes), store.fetchHashes().get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertFalse(database.getReference("noteHashes/Isna/b").get().get().exists());
+    }
+
+    @Test
+    void rewritesDriftedFolderHashes() throws Exception {
+        repository = new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")), store,
+                new NoteContentCache(1024 * 1024));
+        for (String path : Arrays.asList("a/x", "a/y", "b/1", "b/2", "b/3", "b/4")) {
+            repository.saveNote(path, "<p>" + path + "</p>");
+        }
+        await(() -> repository.pendingReplication() == 0, "Timed out waiting for replication");
+        Map<String, Long> expected = store.fetchHashes().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertTrue(store.initHashes(expected, repository.localNotes()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        // hash folder a dan leluhurnya bertambah tanpa datanya, spt tulis yang gagal di tengah
+        Map<String, Object> drift = new HashMap<>();
+        drift.put("noteHashes/Isna/a/%h/%s", FolderHashes.encode(expected.get("a") + 42));
+        drift.put("noteHashes/Isna/%h/a", FolderHashes.encode(expected.get("a") + 42));
+        drift.put("noteHashes/Isna/%h/%s", FolderHashes.encode(expected.get("") + 42));
+        database.getReference().updateChildren(drift).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotEquals(repository.localRootHash(), (long) store.fetchRootHash().get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        reconciler = new NoteTreeReconciler(store, repository, new NoteTreePatcher(), Runnable::run);
+        reconciler.start();
+        await(() -> repository.localHashes().equals(fetchHashes()), "Timed out waiting for repaired hashes");
+        assertEquals(repository.localRootHash(), (long) store.fetchRootHash().get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    private Map<String, Long> fetchHashes() {
+        return store.fetchHashes().join();
+    }
+}
@@ -0,0 +1,108 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.isna.service.TestAwait.TIMEOUT_MS;
+import static com.isna.service.TestAwait.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Import di-commit lokal spt simpan biasa: jalan offline, replikasi yang mengirimnya ke remote
+class NotebookImporterTest {
+    @TempDir
+    Path directory;
+
+    private final InMemoryNoteStore remote = new InMemoryNoteStore();
+    private LocalNoteRepository repository;
+
+    @AfterEach
+    void close() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void importsOfflineAndReplicatesOnReconnect() throws Exception {
+        Path source = Files.createDirectories(directory.resolve("Kuliah"));
+        Files.write(source.resolve("jadwal.md"), "# Jadwal".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("jadwal.txt"), "senin".getBytes(StandardCharsets.UTF_8));
+        Files.write(Files.createDirectories(source.resolve("Semester 1")).resolve("catatan.html"),
+                "<p>catatan</p>".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve(".DS_Store"), new byte[] {0});
+
+        remote.setAvailable(false);
+        repository = new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")), remote,
+                new NoteContentCache(1024 * 1024));
+        List<NoteChange> committed = new ArrayList<>();
+        TransferReport report = new NotebookImporter(repository, null, committed::addAll)
+                .importInto(source, "", path -> false);
+
+        assertEquals(3, report.getNotes());
+        assertEquals(2, report.getFolders());
+        assertEquals(1, report.getSkipped());
+        Set<String> notes = new HashSet<>();
+        notes.add("Kuliah/jadwal");
+        notes.add("Kuliah/jadwal (2)");
+        notes.add("Kuliah/Semester 1/catatan");
+        assertEquals(notes, repository.localNotes().keySet());
+        assertEquals(5, committed.size());
+        assertTrue(remote.index().isEmpty());
+
+        remote.setAvailable(true);
+        await(() -> repository.pendingReplication() == 0, "Timed out waiting for replication");
+        assertEquals(repository.localNotes(), remote.index());
+        assertEquals("<p>catatan</p>", remote.bodies().get("Kuliah/Semester 1/catatan"));
+    }
+
+    @Test
+    void importWaitsForBackgroundRecordingPerBatch() throws Exception {
+        Path source = Files.createDirectories(directory.resolve("Arsip"));
+        int files = NotebookImporter.MAX_BATCH_NOTES * 4;
+        for (int i = 0; i < files; i++) {
+            Files.write(source.resolve("catatan " + i + ".txt"), ("isi " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        repository = new LocalNoteRepository(new LocalNoteLog(directory.resolve("notes.log")), remote,
+                new NoteContentCache(1024 * 1024));
+        NoteHistory history = new NoteHistory(directory.resolve("history.log"));
+        history.open().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        repository.setHistory(history);
+        AttachmentStore attachments = new AttachmentStore(directory.resolve("attachments"), new InMemoryBlobStore());
+        attachments.open().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        repository.setAttachments(attachments);
+
+        AtomicInteger maxQueued = new AtomicInteger();
+        AtomicBoolean importing = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (importing.get()) {
+                maxQueued.accumulateAndGet(attachments.queued(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+        sampler.start();
+        TransferReport report;
+        try {
+            report = new NotebookImporter(repository, null, null).importInto(source, "", path -> false);
+        } finally {
+            importing.set(false);
+            sampler.join();
+        }
+
+        assertEquals(files, report.getNotes());
+        assertTrue(maxQueued.get() <= NotebookImporter.MAX_BATCH_NOTES, "queued " + maxQueued.get());
+        assertTrue(history.versions("Arsip/catatan 0").get(TIMEOUT_MS, TimeUnit.MILLISECONDS).isEmpty());
+    }
+}
@@ -0,0 +1,59 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.isna.service.TestAwait.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+    @Test
+    void indexesAndShowsDecodedTitles() throws Exception {
+        SearchIndex index = new SearchIndex();
+        try (SearchIndexer indexer = new SearchIndexer(index, new NoteQueryIndex(), null)) {
+            indexer.indexNow("Work/Meeting 2024%2E05%2E01", 1, "<p>agenda rapat</p>");
+            await(() -> !index.search("agenda", 10).isEmpty(), "Timed out waiting for indexing");
+        }
+
+        List<SearchIndex.Result> results = index.search("05", 10);
+        assertEquals(1, results.size());
+        assertEquals("Work/Meeting 2024.05.01", results.get(0).toString());
+        assertTrue(index.search("2e05", 10).isEmpty());
+    }
+
+    @Test
+    void phraseAndPrefixClausesMatchOnlyNotesWithAllParts() {
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 200; i++) {
+            index.put("umum/" + i, "catatan " + i, "<p>rapat mingguan tim</p>");
+        }
+        index.put("a", "a", "<p>rapat anggaran tahunan disetujui</p>");
+        index.put("b", "b", "<p>anggaran rapat tahunan</p>");
+        index.put("c", "c", "<p>rapat anggaran tahunan direvisi lagi</p>");
+        index.remove("c");
+
+        // term frasa yang paling jarang ada di tengah
+        assertEquals(Collections.singletonList("a"), paths(index.search("\"rapat anggaran tahunan\"", 10)));
+        assertEquals(Arrays.asList("a", "b"), sorted(index.search("anggaran rapat ", 10)));
+        assertEquals(Collections.singletonList("a"), paths(index.search("\"anggaran tahunan\" dis", 10)));
+        assertEquals(Collections.singletonList("b"), paths(index.search("\"anggaran rapat\" tahun", 10)));
+        assertTrue(index.search("\"tahunan rapat\"", 10).isEmpty());
+        assertTrue(index.search("anggaran revisi ", 10).isEmpty());
+        assertEquals(202, index.search("rap", 500).size());
+    }
+
+    private static List<String> paths(List<SearchIndex.Result> results) {
+        return results.stream().map(SearchIndex.Result::getPath).collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<SearchIndex.Result> results) {
+        List<String> paths = paths(results);
+        Collections.sort(paths);
+        return paths;
+    }
+}
@@ -0,0 +1,85 @@
+package com.isna.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.isna.service.TestAwait.TIMEOUT_MS;
+import static com.isna.service.TestAwait.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Logout (Session.close) melepas semua milik sesi: listener remote, thread worker, log lokal, dan sesi itu sendiri.
+// Versi panjangnya (ribuan login/logout sambil diukur heap-nya) ada di SessionSoak (./gradlew soakTest).
+class SessionTest {
+    // Thread yang dibuat komponen sesi (lihat konstruktor masing-masing)
+    private static final Set<String> SESSION_THREADS = new HashSet<>(Arrays.asList(
+            "attachments", "note-autosave", "note-history", "note-indexer", "note-reconciler", "note-replicator"));
+
+    @TempDir
+    Path directory;
+
+    private final DatabaseEmulator database = new DatabaseEmulator();
+    private final ExecutorService ui = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-ui"));
+
+    @AfterEach
+    void close() {
+        ui.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    void logoutReleasesEverythingTheSessionOwned() throws Exception {
+        int openBefore = Session.openCount();
+        EmulatorNoteStore notes = new EmulatorNoteStore(database, "Isna");
+        WeakReference<Session> closed = ui.submit(() -> {
+            Session session = new Session("Isna", directory, notes, new InMemoryBlobStore(), new NoteCodec(true), ui, null);
+            session.own(new NoteTreeReconciler(notes, session.getRepository(), new NoteTreePatcher(), ui)).start();
+            session.getAutoSaver().saveNow("kerja/rapat", "<p>rapat</p>");
+            session.getAutoSaver().edited("kerja/draft", () -> "<p>draft</p>"); // masih menunggu debounce
+            session.getSearchIndexer().noteUpdated("kerja/rapat", session.getRepository().localNotes().get("kerja/rapat"));
+            assertTrue(database.listenerCount() > 0);
+            assertEquals(openBefore + 1, Session.openCount());
+            assertFalse(sessionThreads().isEmpty());
+
+            LocalNoteRepository repository = session.getRepository();
+            session.close();
+            assertTrue(session.isClosed());
+            assertFalse(repository.isOpen());
+            return new WeakReference<>(session);
+        }).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, database.listenerCount());
+        assertEquals(openBefore, Session.openCount());
+        await(() -> sessionThreads().isEmpty(), () -> "threads still running: " + sessionThreads());
+        await(() -> {
+            System.gc();
+            return closed.get() == null;
+        }, () -> "closed session is still reachable");
+
+        // edit yang menunggu debounce tersimpan saat logout
+        LocalNoteLog log = new LocalNoteLog(directory.resolve("notes.log"));
+        log.open();
+        assertEquals(new HashSet<>(Arrays.asList("kerja/rapat", "kerja/draft")), log.notes().keySet());
+        log.close();
+    }
+
+    private static List<String> sessionThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && SESSION_THREADS.contains(thread.getName()))
+                .map(Thread::getName)
+                .collect(Collectors.toList());
+    }
+}
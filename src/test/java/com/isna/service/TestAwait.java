@@ -0,0 +1,27 @@
+package com.isna.service;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Batas waktu bersama utk test yang menunggu kerja di thread background (replikasi, worker, GC)
+final class TestAwait {
+    static final long TIMEOUT_MS = 15_000;
+
+    private TestAwait() {
+    }
+
+    static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        await(condition, () -> message);
+    }
+
+    // Pesan dibuat saat gagal saja, mis. utk menampilkan keadaan terakhir
+    static void await(BooleanSupplier condition, Supplier<String> message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError(message.get());
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,716 @@
+package com.isna.service;
+
+import com.isna.utility.LatencyHistogram;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+// Emulator Realtime Database di dalam proses utk load test: tree JSON di memori dgn operasi yang dipakai
+// aplikasi (child, push, setValue, updateChildren, removeValue, orderByChild().equalTo(), transaction,
+// listener value/child). Semantik mengikuti Firebase: node kosong tidak ada, multi-path update atomik,
+// event listener dikirim berurutan di thread event (bukan di thread penulis).
+// Semua tulis memegang satu lock global, spt satu instance RTDB yang memproses tulis secara serial.
+public class DatabaseEmulator implements AutoCloseable {
+    // Dikembalikan dari fungsi transaction utk membatalkan tanpa menulis
+    public static final Object ABORT = new Object();
+
+    private static final String PUSH_CHARS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    private final Object lock = new Object();
+    private final Map<String, Object> root = new TreeMap<>();
+    private final TreeMap<String, List<Registration>> listeners = new TreeMap<>();
+    private final ExecutorService[] dispatchers;
+    private final ScheduledExecutorService network;
+    private final long latencyMicros;
+    private final AtomicInteger nextRegistration = new AtomicInteger();
+    private final Stats stats = new Stats();
+    private final SecureRandom random = new SecureRandom();
+    private long lastPushTime;
+    private final int[] lastPushRandom = new int[12];
+
+    public DatabaseEmulator() {
+        this(1, 0);
+    }
+
+    // eventThreads: jumlah thread event (SDK memakai satu); latencyMicros: jeda satu arah yang disimulasikan
+    // sebelum hasil operasi selesai dan sebelum event sampai ke listener
+    public DatabaseEmulator(int eventThreads, long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+        this.dispatchers = new ExecutorService[Math.max(1, eventThreads)];
+        for (int i = 0; i < dispatchers.length; i++) {
+            String name = "db-emulator-events-" + i;
+            dispatchers[i] = Executors.newSingleThreadExecutor(r -> daemon(r, name));
+        }
+        this.network = latencyMicros > 0 ? Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "db-emulator-network")) : null;
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    public Ref getReference() {
+        return new Ref("");
+    }
+
+    public Ref getReference(String path) {
+        return new Ref(normalizePath(path));
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    // Jumlah listener yang masih terpasang (semua path); utk memeriksa kebocoran listener
+    public int listenerCount() {
+        synchronized (lock) {
+            int count = 0;
+            for (List<Registration> atPath : listeners.values()) {
+                count += atPath.size();
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService dispatcher : dispatchers) {
+            dispatcher.shutdownNow();
+        }
+        if (network != null) {
+            network.shutdownNow();
+        }
+    }
+
+    public interface ValueListener {
+        void onDataChange(Snapshot snapshot);
+    }
+
+    // prevKey: key child sebelumnya menurut urutan key (null jika yang pertama), spt previousChildName di SDK
+    public interface ChildListener {
+        default void onChildAdded(Snapshot snapshot, String prevKey) {}
+
+        default void onChildChanged(Snapshot snapshot, String prevKey) {}
+
+        default void onChildRemoved(Snapshot snapshot) {}
+    }
+
+    // Referensi ke satu path; murah dibuat, tidak menyimpan state
+    public final class Ref {
+        private final String path;
+
+        private Ref(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getKey() {
+            return path.isEmpty() ? null : path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        public Ref child(String relative) {
+            String child = normalizePath(relative);
+            return new Ref(path.isEmpty() ? child : child.isEmpty() ? path : path + "/" + child);
+        }
+
+        public Ref push() {
+            return child(pushKey());
+        }
+
+        public CompletableFuture<Void> setValue(Object value) {
+            return write(Collections.singletonMap(path, value));
+        }
+
+        // Key pada values adalah path relatif thd ref ini; null menghapus
+        public CompletableFuture<Void> updateChildren(Map<String, Object> values) {
+            Map<String, Object> absolute = new LinkedHashMap<>();
+            values.forEach((key, value) -> absolute.put(child(key).path, value));
+            return write(absolute);
+        }
+
+        public CompletableFuture<Void> removeValue() {
+            return setValue(null);
+        }
+
+        public CompletableFuture<Snapshot> get() {
+            stats.reads.increment();
+            Snapshot snapshot;
+            synchronized (lock) {
+                snapshot = snapshot(path);
+            }
+            stats.bytesRead.add(jsonSize(snapshot.value));
+            return delayed(snapshot);
+        }
+
+        public Query orderByChild(String childKey) {
+            return new Query(this, childKey);
+        }
+
+        // Fungsi menerima salinan nilai saat ini (null jika tidak ada) dan mengembalikan nilai baru, atau ABORT.
+        // Dijalankan di bawah lock, jadi tidak pernah diulang spt pada SDK. Hasil: true jika tertulis.
+        public CompletableFuture<Boolean> runTransaction(UnaryOperator<Object> update) {
+            stats.transactions.increment();
+            synchronized (lock) {
+                Object current = copy(node(path));
+                stats.bytesRead.add(jsonSize(current)); // SDK mengunduh nilai saat ini sebelum menjalankan fungsi
+                Object next = update.apply(current);
+                if (next == ABORT) {
+                    return delayed(false);
+                }
+                return write(Collections.singletonMap(path, next)).thenApply(v -> true);
+            }
+        }
+
+        // Spt SDK: listener langsung menerima nilai saat ini, lalu setiap perubahan di bawah path ini
+        public Registration addValueEventListener(ValueListener listener) {
+            synchronized (lock) { // nilai awal diantrikan sebelum event dari tulis berikutnya
+                Registration registration = register(path, listener);
+                Snapshot initial = snapshot(path);
+                stats.bytesRead.add(jsonSize(initial.value));
+                registration.deliver(() -> listener.onDataChange(initial));
+                return registration;
+            }
+        }
+
+        // Spt SDK: onChildAdded utk setiap child yang sudah ada, lalu added/changed/removed per child langsung
+        public Registration addChildEventListener(ChildListener listener) {
+            synchronized (lock) {
+                Registration registration = register(path, listener);
+                Object node = node(path);
+                if (node instanceof Map) {
+                    String prevKey = null;
+                    for (Map.Entry<String, Object> child : children(node).entrySet()) {
+                        Snapshot snapshot = new Snapshot(child.getKey(), copy(child.getValue()));
+                        stats.bytesRead.add(jsonSize(snapshot.value));
+                        String prev = prevKey;
+                        registration.deliver(() -> listener.onChildAdded(snapshot, prev));
+                        prevKey = child.getKey();
+                    }
+                }
+                return registration;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "/" + path;
+        }
+    }
+
+    // orderByChild(c).equalTo(v) tanpa index: memindai semua child, spt RTDB tanpa .indexOn di rules
+    public final class Query {
+        private final Ref ref;
+        private final String childKey;
+
+        private Query(Ref ref, String childKey) {
+            this.ref = ref;
+            this.childKey = childKey;
+        }
+
+        public CompletableFuture<Snapshot> equalTo(Object value) {
+            stats.reads.increment();
+            Object expected = normalize(value);
+            Map<String, Object> matches = new TreeMap<>();
+            synchronized (lock) {
+                Object node = node(ref.path);
+                if (node instanceof Map) {
+                    for (Map.Entry<String, Object> child : children(node).entrySet()) {
+                        stats.scanned.increment();
+                        Object field = child.getValue() instanceof Map ? children(child.getValue()).get(childKey) : null;
+                        if (expected != null && expected.equals(field)) {
+                            matches.put(child.getKey(), copy(child.getValue()));
+                        }
+                    }
+                }
+            }
+            stats.bytesRead.add(jsonSize(matches));
+            return delayed(new Snapshot(ref.getKey(), matches.isEmpty() ? null : Collections.unmodifiableMap(matches)));
+        }
+    }
+
+    // Hasil baca yang tidak berubah lagi. Map di dalamnya tidak bisa diubah.
+    public static final class Snapshot {
+        private final String key;
+        private final Object value;
+
+        Snapshot(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean exists() {
+            return value != null;
+        }
+
+        // String, Long, Double, Boolean, atau Map<String, Object> utk node bercabang; null jika tidak ada
+        public Object getValue() {
+            return value;
+        }
+
+        public Snapshot child(String path) {
+            Object node = value;
+            String key = null;
+            for (String segment : normalizePath(path).split("/")) {
+                key = segment;
+                node = node instanceof Map ? children(node).get(segment) : null;
+            }
+            return new Snapshot(key, node);
+        }
+
+        public boolean hasChildren() {
+            return value instanceof Map;
+        }
+
+        public long getChildrenCount() {
+            return value instanceof Map ? children(value).size() : 0;
+        }
+
+        public List<Snapshot> getChildren() {
+            if (!(value instanceof Map)) {
+                return Collections.emptyList();
+            }
+            List<Snapshot> result = new ArrayList<>();
+            children(value).forEach((k, v) -> result.add(new Snapshot(k, v)));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    // Listener terpasang. remove() menghentikan event, termasuk yang sudah antri.
+    public final class Registration implements AutoCloseable {
+        private final String path;
+        private final Object listener;
+        private final ExecutorService dispatcher;
+        private volatile boolean active = true;
+
+        private Registration(String path, Object listener, ExecutorService dispatcher) {
+            this.path = path;
+            this.listener = listener;
+            this.dispatcher = dispatcher;
+        }
+
+        public void remove() {
+            active = false;
+            synchronized (lock) {
+                List<Registration> atPath = listeners.get(path);
+                if (atPath != null && atPath.remove(this) && atPath.isEmpty()) {
+                    listeners.remove(path);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            remove();
+        }
+
+        private void deliver(Runnable event) {
+            stats.queued(1);
+            Runnable enqueue = () -> {
+                long queuedAt = System.nanoTime(); // setelah jeda jaringan: yang diukur hanya antrian thread event
+                dispatcher.execute(() -> {
+                    stats.queued(-1);
+                    if (!active) {
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    stats.eventLag.record(start - queuedAt);
+                    try {
+                        event.run();
+                    } finally {
+                        stats.dispatch.recordSince(start);
+                        stats.events.increment();
+                    }
+                });
+            };
+            if (network == null) {
+                enqueue.run();
+            } else {
+                network.schedule(enqueue, latencyMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+
+    // Statistik kumulatif utk laporan load test
+    public static final class Stats {
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder transactions = new LongAdder();
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder events = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LatencyHistogram dispatch = new LatencyHistogram();
+        private final LatencyHistogram eventLag = new LatencyHistogram();
+        private final LatencyHistogram writeLock = new LatencyHistogram();
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong maxPending = new AtomicLong();
+
+        private void queued(long delta) {
+            long now = pending.addAndGet(delta);
+            if (delta > 0) {
+                maxPending.accumulateAndGet(now, Math::max);
+            }
+        }
+
+        public long getReads() { return reads.sum(); }
+        public long getWrites() { return writes.sum(); }
+        public long getTransactions() { return transactions.sum(); }
+        // Jumlah child yang dipindai query orderByChild
+        public long getScanned() { return scanned.sum(); }
+        public long getEvents() { return events.sum(); }
+        // Perkiraan ukuran JSON yang dikirim ke klien (get, query, transaction, event listener)
+        public long getBytesRead() { return bytesRead.sum(); }
+        public long getPendingEvents() { return pending.get(); }
+        public long getMaxPendingEvents() { return maxPending.get(); }
+        // Waktu callback listener per event
+        public LatencyHistogram getDispatch() { return dispatch; }
+        // Waktu event menunggu di antrian thread event
+        public LatencyHistogram getEventLag() { return eventLag; }
+        // Waktu tulis memegang lock global (termasuk menyiapkan event)
+        public LatencyHistogram getWriteLock() { return writeLock; }
+    }
+
+    // --- tulis ---
+
+    private CompletableFuture<Void> write(Map<String, Object> values) {
+        stats.writes.increment();
+        List<Runnable> deliveries = new ArrayList<>();
+        try {
+            synchronized (lock) {
+                long start = System.nanoTime();
+                Map<String, Object> normalized = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> entry : values.entrySet()) {
+                    normalized.put(validatePath(entry.getKey()), normalize(entry.getValue()));
+                }
+                // isi lama per listener child dicatat sebelum tulis apa pun diterapkan
+                Map<Registration, Map<String, Object>> before = new LinkedHashMap<>();
+                Set<Registration> whole = new LinkedHashSet<>();
+                Set<Registration> valueListeners = new LinkedHashSet<>();
+                for (String path : normalized.keySet()) {
+                    collectAffected(path, before, whole, valueListeners);
+                }
+                normalized.forEach(this::put);
+                for (Registration registration : valueListeners) {
+                    Snapshot snapshot = snapshot(registration.path);
+                    stats.bytesRead.add(jsonSize(snapshot.value));
+                    ValueListener listener = (ValueListener) registration.listener;
+                    deliveries.add(() -> registration.deliver(() -> listener.onDataChange(snapshot)));
+                }
+                before.forEach((registration, old) -> childEvents(registration, old, whole.contains(registration), deliveries));
+                deliveries.forEach(Runnable::run); // diantrikan di dalam lock supaya urutan event = urutan tulis
+                stats.writeLock.recordSince(start);
+            }
+        } catch (IllegalArgumentException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return delayed(null);
+    }
+
+    // Listener di path itu sendiri atau leluhurnya, dan listener di bawah path (tulis menimpa subtree-nya)
+    private void collectAffected(String path, Map<Registration, Map<String, Object>> before,
+                                 Set<Registration> whole, Set<Registration> valueListeners) {
+        String[] segments = path.isEmpty() ? new String[0] : path.split("/");
+        StringBuilder prefix = new StringBuilder();
+        for (int depth = 0; depth <= segments.length; depth++) {
+            if (depth > 0) {
+                prefix.append(depth > 1 ? "/" : "").append(segments[depth - 1]);
+            }
+            List<Registration> atPrefix = listeners.get(prefix.toString());
+            if (atPrefix == null) {
+                continue;
+            }
+            for (Registration registration : atPrefix) {
+                if (registration.listener instanceof ValueListener) {
+                    valueListeners.add(registration);
+                } else if (depth == segments.length) {
+                    rememberAll(registration, before, whole);
+                } else {
+                    Map<String, Object> old = before.computeIfAbsent(registration, r -> new LinkedHashMap<>());
+                    String key = segments[depth];
+                    if (!old.containsKey(key)) {
+                        Object node = node(registration.path);
+                        Object child = node instanceof Map ? children(node).get(key) : null;
+                        // tulis lebih dalam mengubah child ini di tempat: isi lamanya disalin dulu
+                        old.put(key, depth < segments.length - 1 ? copy(child) : child);
+                    }
+                }
+            }
+        }
+        NavigableMap<String, List<Registration>> below = path.isEmpty()
+                ? listeners.tailMap("", false)
+                : listeners.subMap(path + "/", true, path + "/\uffff", false);
+        for (List<Registration> atPath : below.values()) {
+            for (Registration registration : atPath) {
+                if (registration.listener instanceof ValueListener) {
+                    valueListeners.add(registration);
+                } else {
+                    rememberAll(registration, before, whole);
+                }
+            }
+        }
+    }
+
+    private void rememberAll(Registration registration, Map<Registration, Map<String, Object>> before, Set<Registration> whole) {
+        if (!whole.add(registration)) {
+            return;
+        }
+        Map<String, Object> old = before.computeIfAbsent(registration, r -> new LinkedHashMap<>());
+        Object node = node(registration.path);
+        if (node instanceof Map) {
+            children(node).forEach(old::putIfAbsent);
+        }
+    }
+
+    // Child yang isinya sama dgn sebelumnya (mis. setValue nilai yang sama) tidak menghasilkan event
+    private void childEvents(Registration registration, Map<String, Object> old, boolean whole, List<Runnable> deliveries) {
+        ChildListener listener = (ChildListener) registration.listener;
+        Object node = node(registration.path);
+        NavigableMap<String, Object> current = node instanceof Map ? branch(node) : Collections.emptyNavigableMap();
+        Set<String> keys = new LinkedHashSet<>(old.keySet());
+        if (whole) {
+            keys.addAll(current.keySet());
+        }
+        for (String key : keys) {
+            Object was = old.get(key);
+            Object now = current.get(key);
+            if (was == null && now != null) {
+                Snapshot snapshot = new Snapshot(key, copy(now));
+                stats.bytesRead.add(jsonSize(now));
+                String prevKey = current.lowerKey(key);
+                deliveries.add(() -> registration.deliver(() -> listener.onChildAdded(snapshot, prevKey)));
+            } else if (was != null && now == null) {
+                Snapshot snapshot = new Snapshot(key, copy(was));
+                deliveries.add(() -> registration.deliver(() -> listener.onChildRemoved(snapshot)));
+            } else if (was != null && !was.equals(now)) {
+                Snapshot snapshot = new Snapshot(key, copy(now));
+                stats.bytesRead.add(jsonSize(now));
+                String prevKey = current.lowerKey(key);
+                deliveries.add(() -> registration.deliver(() -> listener.onChildChanged(snapshot, prevKey)));
+            }
+        }
+    }
+
+    // Subtree lama diganti, tidak diubah, kecuali map leluhur yang dilewati; node kosong dihapus ke atas
+    private void put(String path, Object value) {
+        if (path.isEmpty()) {
+            root.clear();
+            if (value instanceof Map) {
+                root.putAll(children(value));
+            }
+            return;
+        }
+        String[] segments = path.split("/");
+        List<Map<String, Object>> chain = new ArrayList<>();
+        Map<String, Object> node = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            chain.add(node);
+            Object next = node.get(segments[i]);
+            if (!(next instanceof Map)) {
+                if (value == null) {
+                    return;
+                }
+                next = new TreeMap<String, Object>();
+                node.put(segments[i], next);
+            }
+            node = children(next);
+        }
+        if (value == null) {
+            node.remove(segments[segments.length - 1]);
+        } else {
+            node.put(segments[segments.length - 1], value);
+        }
+        for (int i = segments.length - 2; i >= 0 && node.isEmpty(); i--) {
+            Map<String, Object> parent = chain.get(i);
+            parent.remove(segments[i]);
+            node = parent;
+        }
+    }
+
+    private Object node(String path) {
+        Object node = root;
+        if (path.isEmpty()) {
+            return root.isEmpty() ? null : root;
+        }
+        for (String segment : path.split("/")) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = children(node).get(segment);
+        }
+        return node;
+    }
+
+    private Snapshot snapshot(String path) {
+        return new Snapshot(path.isEmpty() ? null : path.substring(path.lastIndexOf('/') + 1), copy(node(path)));
+    }
+
+    // Dipanggil dgn lock dipegang
+    private Registration register(String path, Object listener) {
+        ExecutorService dispatcher = dispatchers[Math.floorMod(nextRegistration.getAndIncrement(), dispatchers.length)];
+        Registration registration = new Registration(path, listener, dispatcher);
+        listeners.computeIfAbsent(path, p -> new ArrayList<>()).add(registration);
+        return registration;
+    }
+
+    private <T> CompletableFuture<T> delayed(T value) {
+        if (network == null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        network.schedule(() -> result.complete(value), latencyMicros, TimeUnit.MICROSECONDS);
+        return result;
+    }
+
+    // Key push: 8 karakter waktu (ms) + 12 karakter acak, naik monoton spt push() di SDK
+    private String pushKey() {
+        synchronized (random) {
+            long now = System.currentTimeMillis();
+            if (now == lastPushTime) {
+                int i = lastPushRandom.length - 1;
+                while (i >= 0 && lastPushRandom[i] == 63) {
+                    lastPushRandom[i--] = 0;
+                }
+                if (i >= 0) {
+                    lastPushRandom[i]++;
+                }
+            } else {
+                lastPushTime = now;
+                for (int i = 0; i < lastPushRandom.length; i++) {
+                    lastPushRandom[i] = random.nextInt(64);
+                }
+            }
+            char[] key = new char[20];
+            for (int i = 7; i >= 0; i--) {
+                key[i] = PUSH_CHARS.charAt((int) (now % 64));
+                now /= 64;
+            }
+            for (int i = 0; i < lastPushRandom.length; i++) {
+                key[8 + i] = PUSH_CHARS.charAt(lastPushRandom[i]);
+            }
+            return new String(key);
+        }
+    }
+
+    // --- nilai ---
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> children(Object node) {
+        return (Map<String, Object>) node;
+    }
+
+    // Node di tree (bukan salinan dari copy()) berasal dari normalize() atau put(), jadi selalu TreeMap
+    @SuppressWarnings("unchecked")
+    private static NavigableMap<String, Object> branch(Object node) {
+        return (NavigableMap<String, Object>) node;
+    }
+
+    private static String normalizePath(String path) {
+        String trimmed = path == null ? "" : path;
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed.replaceAll("/+", "/");
+    }
+
+    // Karakter yang ditolak RTDB di key: . # $ [ ]
+    private static String validatePath(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '.' || c == '#' || c == '$' || c == '[' || c == ']' || c < 0x20) {
+                throw new IllegalArgumentException("Invalid key in path: " + path);
+            }
+        }
+        return path;
+    }
+
+    // Angka bulat -> Long, float -> Double, Map -> TreeMap baru tanpa null/kosong; selain itu ditolak
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Long || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Map) {
+            TreeMap<String, Object> result = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                validatePath(key);
+                if (key.isEmpty() || key.contains("/")) {
+                    throw new IllegalArgumentException("Invalid key: " + key);
+                }
+                Object child = normalize(entry.getValue());
+                if (child != null) {
+                    result.put(key, child);
+                }
+            }
+            return result.isEmpty() ? null : result;
+        }
+        throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+    }
+
+    // Panjang JSON nilai tanpa spasi (escape string tidak dihitung); cukup utk membandingkan volume unduhan
+    private static long jsonSize(Object node) {
+        if (node == null) {
+            return 4; // null
+        }
+        if (node instanceof String) {
+            return ((String) node).length() + 2;
+        }
+        if (!(node instanceof Map)) {
+            return String.valueOf(node).length();
+        }
+        long size = 2;
+        for (Map.Entry<String, Object> child : children(node).entrySet()) {
+            size += child.getKey().length() + 4 + jsonSize(child.getValue()); // "key": ,
+        }
+        return size;
+    }
+
+    // Salinan dalam yang tidak bisa diubah (leaf sudah immutable)
+    private static Object copy(Object node) {
+        if (!(node instanceof Map)) {
+            return node;
+        }
+        Map<String, Object> result = new TreeMap<>();
+        children(node).forEach((key, child) -> result.put(key, copy(child)));
+        return Collections.unmodifiableMap(result);
+    }
+}
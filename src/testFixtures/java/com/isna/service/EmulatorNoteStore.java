@@ -0,0 +1,136 @@
+package com.isna.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// RemoteNoteStore di atas DatabaseEmulator dgn layout yang sama dgn FirebaseNoteStore:
+// notes/<userId>/<path> = stamp, noteBodies/<userId>/<path> = isi, note lama inline di notes/,
+// noteHashes/<userId>/ = hash tree per folder (FolderHashes), noteChunks/<userId>/<path>/<hash> = chunk note besar.
+public class EmulatorNoteStore implements RemoteNoteStore, RemoteNoteIndex {
+    private final DatabaseEmulator database;
+    private final String userId;
+
+    public EmulatorNoteStore(DatabaseEmulator database, String userId) {
+        this.database = database;
+        this.userId = userId;
+    }
+
+    @Override
+    public CompletableFuture<String> fetchBody(String path) {
+        return database.getReference("noteBodies").child(userId).child(path).get().thenCompose(snapshot -> {
+            if (snapshot.exists()) {
+                Object content = snapshot.getValue();
+                return CompletableFuture.completedFuture(content instanceof String ? (String) content : "");
+            }
+            return database.getReference("notes").child(userId).child(path).get().thenApply(legacy ->
+                    legacy.getValue() instanceof String ? (String) legacy.getValue() : "");
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> fetchChunk(String path) {
+        return database.getReference("noteChunks").child(userId).child(path).get()
+                .thenApply(snapshot -> snapshot.getValue() instanceof String ? (String) snapshot.getValue() : null);
+    }
+
+    @Override
+    public CompletableFuture<Void> apply(List<NoteChange> changes) {
+        Map<String, Object> updates = new HashMap<>();
+        for (NoteChange change : changes) {
+            String indexPath = "notes/" + userId + "/" + change.getPath();
+            String bodyPath = "noteBodies/" + userId + "/" + change.getPath();
+            String chunksPath = "noteChunks/" + userId + "/" + change.getPath();
+            switch (change.getType()) {
+                case PUT:
+                    updates.put(indexPath, change.getStamp());
+                    updates.put(bodyPath, change.getContent());
+                    break;
+                case DELETE:
+                    updates.put(indexPath, null);
+                    updates.put(bodyPath, null);
+                    updates.put(chunksPath, null);
+                    updates.put("noteHashes/" + userId + "/" + change.getPath(), null);
+                    break;
+                case CHUNK:
+                    updates.put(chunksPath, change.getContent());
+                    break;
+                case FOLDER:
+                    break; // spt RTDB: folder kosong tidak disimpan
+            }
+        }
+        if (updates.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // spt FirebaseNoteStore: hash dulu, baru data
+        return FolderHashes.apply(changes, hashStore()).thenCompose(v -> database.getReference().updateChildren(updates));
+    }
+
+    @Override
+    public CompletableFuture<Long> fetchRootHash() {
+        CompletableFuture<DatabaseEmulator.Snapshot> version = hashesRef().child(FolderHashes.VERSION_KEY).get();
+        CompletableFuture<DatabaseEmulator.Snapshot> root = hashesRef().child(FolderHashes.rootSumPath()).get();
+        return version.thenCombine(root, (v, r) -> FolderHashes.isCurrent(v.getValue()) ? FolderHashes.decode(r.getValue()) : null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Long>> fetchHashes() {
+        return hashesRef().get().thenApply(snapshot -> FolderHashes.parse(snapshot.getValue()));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> fetchIndex(String folderPath) {
+        DatabaseEmulator.Ref ref = database.getReference("notes").child(userId);
+        return (folderPath.isEmpty() ? ref : ref.child(folderPath)).get()
+                .thenApply(snapshot -> RemoteNoteIndex.flatten(folderPath, snapshot.getValue()));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> initHashes(Map<String, Long> expected, Map<String, Long> notes) {
+        return hashesRef().runTransaction(current -> {
+            boolean initialized = current instanceof Map && FolderHashes.isCurrent(((Map<?, ?>) current).get(FolderHashes.VERSION_KEY));
+            return initialized || !FolderHashes.parse(current).equals(expected) ? DatabaseEmulator.ABORT
+                    : FolderHashes.toTree(notes);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> repairHashes(String folderPath, Map<String, Long> notes) {
+        return FolderHashes.repair(folderPath, notes, hashStore());
+    }
+
+    @Override
+    public AutoCloseable watchRootHash(Runnable listener) {
+        return hashesRef().child(FolderHashes.rootSumPath()).addValueEventListener(snapshot -> listener.run());
+    }
+
+    private FolderHashes.Store hashStore() {
+        return new FolderHashes.Store() {
+            @Override
+            public CompletableFuture<Object> transaction(String folder, UnaryOperator<Object> update) {
+                AtomicReference<Object> written = new AtomicReference<>();
+                return hashesRef().child(FolderHashes.hashPath(folder)).runTransaction(current -> {
+                    written.set(update.apply(current));
+                    return written.get();
+                }).thenApply(committed -> written.get());
+            }
+
+            @Override
+            public CompletableFuture<Void> set(String folder, Object value) {
+                return (folder.isEmpty() ? hashesRef() : hashesRef().child(folder)).setValue(value);
+            }
+        };
+    }
+
+    private DatabaseEmulator.Ref hashesRef() {
+        return database.getReference("noteHashes").child(userId);
+    }
+
+    // Listener child di notes/<userId> (cara sinkronisasi tree sebelum NoteTreeReconciler); dipakai LoadTest
+    public DatabaseEmulator.Registration listen(DatabaseEmulator.ChildListener listener) {
+        return database.getReference("notes").child(userId).addChildEventListener(listener);
+    }
+}
@@ -0,0 +1,131 @@
+package com.isna.service;
+
+import com.isna.model.User;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+// UserStore di atas DatabaseEmulator dgn layout yang sama persis dgn FirebaseUserStore
+// (users/<key>, userEmails/<emailKey>, schema/userEmailIndex), utk load test tanpa project Firebase.
+public class EmulatorUserStore implements UserStore {
+    private static final String USERS = "users";
+    private static final String EMAIL_INDEX = "userEmails";
+    private static final String INDEX_MARKER = "schema/userEmailIndex";
+
+    private final DatabaseEmulator database;
+    private volatile boolean indexReady;
+
+    public EmulatorUserStore(DatabaseEmulator database) {
+        this.database = database;
+    }
+
+    @Override
+    public String newUserKey() {
+        return database.getReference(USERS).push().getKey();
+    }
+
+    @Override
+    public CompletableFuture<String> userKeyForEmail(String emailKey) {
+        return database.getReference(EMAIL_INDEX).child(emailKey).get()
+                .thenApply(snapshot -> snapshot.exists() ? String.valueOf(snapshot.getValue()) : null);
+    }
+
+    @Override
+    public CompletableFuture<User> user(String userKey) {
+        return database.getReference(USERS).child(userKey).get().thenApply(snapshot -> toUser(snapshot.getValue()));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> claimEmail(String emailKey, String value, String expected) {
+        return database.getReference(EMAIL_INDEX).child(emailKey).runTransaction(current ->
+                current == null || (expected != null && expected.equals(current)) ? value : DatabaseEmulator.ABORT);
+    }
+
+    @Override
+    public CompletableFuture<Void> createUser(String userKey, String emailKey, User user) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(USERS + "/" + userKey, toMap(user));
+        updates.put(EMAIL_INDEX + "/" + emailKey, userKey);
+        return database.getReference().updateChildren(updates);
+    }
+
+    @Override
+    public CompletableFuture<Void> releaseEmail(String emailKey, String value) {
+        return database.getReference(EMAIL_INDEX).child(emailKey)
+                .runTransaction(current -> Objects.equals(value, current) ? null : DatabaseEmulator.ABORT)
+                .thenApply(released -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> setPassword(String userKey, String passwordHash) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(USERS + "/" + userKey + "/password", passwordHash);
+        return database.getReference().updateChildren(updates);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> usersByEmail(String email) {
+        return database.getReference(USERS).orderByChild("email").equalTo(email).thenApply(EmulatorUserStore::users);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, User>> allUsers() {
+        return database.getReference(USERS).get().thenApply(EmulatorUserStore::users);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmailIndexReady() {
+        if (indexReady) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return database.getReference(INDEX_MARKER).get().thenApply(snapshot -> {
+            indexReady = Boolean.TRUE.equals(snapshot.getValue());
+            return indexReady;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> markEmailIndexReady() {
+        return database.getReference(INDEX_MARKER).setValue(true).thenRun(() -> indexReady = true);
+    }
+
+    private static Map<String, User> users(DatabaseEmulator.Snapshot snapshot) {
+        Map<String, User> users = new LinkedHashMap<>();
+        for (DatabaseEmulator.Snapshot child : snapshot.getChildren()) {
+            User user = toUser(child.getValue());
+            if (user != null) {
+                users.put(child.getKey(), user);
+            }
+        }
+        return users;
+    }
+
+    // Field sama dgn hasil serialisasi bean User oleh SDK Firebase
+    private static Map<String, Object> toMap(User user) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("email", user.getEmail());
+        fields.put("password", user.getPassword());
+        fields.put("fullName", user.getFullName());
+        fields.put("phoneNumber", user.getPhoneNumber());
+        return fields;
+    }
+
+    private static User toUser(Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        User user = new User();
+        Object email = fields.get("email");
+        if (email != null) {
+            user.setEmail(email.toString());
+        }
+        user.setPassword((String) fields.get("password"));
+        user.setFullName((String) fields.get("fullName"));
+        user.setPhoneNumber((String) fields.get("phoneNumber"));
+        return user;
+    }
+}